@@ -0,0 +1,176 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.questdb;
+
+import io.questdb.cutlass.line.tcp.BinaryLineProtoParser;
+import io.questdb.cutlass.line.tcp.NewLineProtoParser;
+import io.questdb.std.Rnd;
+import io.questdb.std.Unsafe;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// parses the same measurements sent in text and in binary dialect of line protocol
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LineTcpParserBenchmark {
+    private static final int ROW_COUNT = 1000;
+    private static final int BUF_SIZE = 256 * 1024;
+    private static final String[] NAMES = {"weather", "location", "by", "temp", "count", "ok"};
+    private final NewLineProtoParser textParser = new NewLineProtoParser();
+    private final BinaryLineProtoParser binaryParser = new BinaryLineProtoParser(BUF_SIZE);
+    private final long textBuf = Unsafe.malloc(BUF_SIZE);
+    private final long binaryBuf = Unsafe.malloc(BUF_SIZE);
+    private long textHi;
+    private long binaryHi;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(LineTcpParserBenchmark.class.getSimpleName())
+                .warmupIterations(5)
+                .measurementIterations(5)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Rnd rnd = new Rnd();
+        final StringBuilder text = new StringBuilder();
+        long p = binaryBuf;
+        long timestamp = 1465839830100400200L;
+        for (int i = 0; i < ROW_COUNT; i++) {
+            final String location = rnd.nextBoolean() ? "london" : "paris";
+            final double temp = rnd.nextDouble() * 100;
+            final long count = rnd.nextPositiveLong();
+            final boolean ok = rnd.nextBoolean();
+            timestamp += rnd.nextInt(1000);
+
+            text.append(NAMES[0]).append(',')
+                    .append(NAMES[1]).append('=').append(location).append(',')
+                    .append(NAMES[2]).append("=quest ")
+                    .append(NAMES[3]).append('=').append(temp).append(',')
+                    .append(NAMES[4]).append('=').append(count).append("i,")
+                    .append(NAMES[5]).append('=').append(ok ? 't' : 'f').append(' ')
+                    .append(timestamp).append('\n');
+
+            // names are defined by the first record and referred to by id after that
+            final long recordStart = p;
+            p += Integer.BYTES;
+            p = putName(p, 0, i == 0);
+            Unsafe.getUnsafe().putLong(p, timestamp);
+            p += Long.BYTES;
+            Unsafe.getUnsafe().putShort(p, (short) 5);
+            p += Short.BYTES;
+            p = putName(p, 1, i == 0);
+            Unsafe.getUnsafe().putByte(p++, NewLineProtoParser.ENTITY_TYPE_TAG);
+            p = putString(p, location);
+            p = putName(p, 2, i == 0);
+            Unsafe.getUnsafe().putByte(p++, NewLineProtoParser.ENTITY_TYPE_TAG);
+            p = putString(p, "quest");
+            p = putName(p, 3, i == 0);
+            Unsafe.getUnsafe().putByte(p++, NewLineProtoParser.ENTITY_TYPE_FLOAT);
+            Unsafe.getUnsafe().putDouble(p, temp);
+            p += Double.BYTES;
+            p = putName(p, 4, i == 0);
+            Unsafe.getUnsafe().putByte(p++, NewLineProtoParser.ENTITY_TYPE_INTEGER);
+            Unsafe.getUnsafe().putLong(p, count);
+            p += Long.BYTES;
+            p = putName(p, 5, i == 0);
+            Unsafe.getUnsafe().putByte(p++, NewLineProtoParser.ENTITY_TYPE_BOOLEAN);
+            Unsafe.getUnsafe().putByte(p++, (byte) (ok ? 1 : 0));
+            Unsafe.getUnsafe().putInt(recordStart, (int) (p - recordStart - Integer.BYTES));
+        }
+        binaryHi = p;
+
+        final byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i++) {
+            Unsafe.getUnsafe().putByte(textBuf + i, bytes[i]);
+        }
+        textHi = textBuf + bytes.length;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        textParser.close();
+        binaryParser.close();
+        Unsafe.free(textBuf, BUF_SIZE);
+        Unsafe.free(binaryBuf, BUF_SIZE);
+    }
+
+    @Benchmark
+    public double testBinary() {
+        binaryParser.clearNames();
+        binaryParser.of(binaryBuf);
+        double sum = 0;
+        while (binaryParser.parseMeasurement(binaryHi) == NewLineProtoParser.ParseResult.MEASUREMENT_COMPLETE) {
+            sum += binaryParser.getEntity(2).getFloatValue();
+            binaryParser.startNextMeasurement();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double testText() {
+        textParser.of(textBuf);
+        double sum = 0;
+        while (textParser.parseMeasurement(textHi) == NewLineProtoParser.ParseResult.MEASUREMENT_COMPLETE) {
+            sum += textParser.getEntity(2).getFloatValue();
+            textParser.startNextMeasurement();
+        }
+        return sum;
+    }
+
+    private static long putName(long p, int id, boolean define) {
+        if (!define) {
+            Unsafe.getUnsafe().putInt(p, id);
+            return p + Integer.BYTES;
+        }
+        final byte[] bytes = NAMES[id].getBytes(StandardCharsets.UTF_8);
+        Unsafe.getUnsafe().putInt(p, -bytes.length);
+        return putBytes(p + Integer.BYTES, bytes);
+    }
+
+    private static long putString(long p, String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        Unsafe.getUnsafe().putInt(p, bytes.length);
+        return putBytes(p + Integer.BYTES, bytes);
+    }
+
+    private static long putBytes(long p, byte[] bytes) {
+        for (byte b : bytes) {
+            Unsafe.getUnsafe().putByte(p++, b);
+        }
+        return p;
+    }
+}
@@ -147,4 +147,9 @@ JNIEXPORT jint JNICALL Java_io_questdb_std_Files_copy
 }
 #endif
 
-
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_syncfs0
+        (JNIEnv *e, jclass cl, jlong fd) {
+    // there is no per file system sync, flush everything
+    sync();
+    return 0;
+}
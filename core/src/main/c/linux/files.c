@@ -88,3 +88,8 @@ JNIEXPORT jint JNICALL Java_io_questdb_std_Files_copy
 
     return result;
 }
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_syncfs0
+        (JNIEnv *e, jclass cl, jlong fd) {
+    return syncfs((int) fd);
+}
@@ -70,6 +70,30 @@ JNIEXPORT jint JNICALL Java_io_questdb_std_Files_munmap0
     return munmap((void *) address, (size_t) len);
 }
 
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_madvise0
+        (JNIEnv *e, jclass cl, jlong address, jlong len, jint advice) {
+    int adv;
+    switch (advice) {
+        case com_questdb_std_Files_MADV_RANDOM:
+            adv = MADV_RANDOM;
+            break;
+        case com_questdb_std_Files_MADV_SEQUENTIAL:
+            adv = MADV_SEQUENTIAL;
+            break;
+        case com_questdb_std_Files_MADV_WILLNEED:
+            adv = MADV_WILLNEED;
+            break;
+        case com_questdb_std_Files_MADV_DONTNEED:
+            // pages of shared file mapping are dropped without losing data
+            adv = MADV_DONTNEED;
+            break;
+        default:
+            adv = MADV_NORMAL;
+            break;
+    }
+    return madvise((void *) address, (size_t) len, adv);
+}
+
 JNIEXPORT jlong JNICALL Java_io_questdb_std_Files_append
         (JNIEnv *e, jclass cl,
          jlong fd,
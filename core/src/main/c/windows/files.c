@@ -335,6 +335,18 @@ JNIEXPORT jint JNICALL Java_io_questdb_std_Files_munmap0
     }
 }
 
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_syncfs0
+        (JNIEnv *e, jclass cl, jlong fd) {
+    // flushing volume requires administrative privileges
+    return -1;
+}
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_madvise0
+        (JNIEnv *e, jclass cl, jlong address, jlong len, jint advice) {
+    // access hints are not supported, memory manager read-ahead applies
+    return 0;
+}
+
 JNIEXPORT jlong JNICALL Java_io_questdb_std_Files_mmap0
         (JNIEnv *e, jclass cl, jlong fd, jlong len, jlong offset, jint flags, jlong baseAddress) {
     jlong maxsize = offset + len;
@@ -25,6 +25,7 @@
 package io.questdb;
 
 import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.GroupCommitScheduler;
 import io.questdb.cairo.TableBlockWriter.TableBlockWriterTaskHolder;
 import io.questdb.mp.*;
 import io.questdb.std.Misc;
@@ -40,6 +41,8 @@ public interface MessageBus extends Closeable {
 
     CairoConfiguration getConfiguration();
 
+    GroupCommitScheduler getGroupCommitScheduler();
+
     Sequence getIndexerPubSequence();
 
     RingQueue<ColumnIndexerTask> getIndexerQueue();
@@ -94,6 +97,36 @@ public interface MessageBus extends Closeable {
         return null;
     }
 
+    MPSequence getPageFrameFilterPubSeq();
+
+    RingQueue<PageFrameFilterTask> getPageFrameFilterQueue();
+
+    MCSequence getPageFrameFilterSubSeq();
+
+    MPSequence getPageFrameGroupByPubSeq();
+
+    RingQueue<PageFrameGroupByTask> getPageFrameGroupByQueue();
+
+    MCSequence getPageFrameGroupBySubSeq();
+
+    MPSequence getPageFrameJoinPubSeq();
+
+    RingQueue<PageFrameJoinTask> getPageFrameJoinQueue();
+
+    MCSequence getPageFrameJoinSubSeq();
+
+    MPSequence getLatestByPubSeq();
+
+    RingQueue<LatestByTask> getLatestByQueue();
+
+    MCSequence getLatestBySubSeq();
+
+    MPSequence getTextImportPubSeq();
+
+    RingQueue<TextImportTask> getTextImportQueue();
+
+    MCSequence getTextImportSubSeq();
+
     Sequence getVectorAggregatePubSeq();
 
     RingQueue<VectorAggregateTask> getVectorAggregateQueue();
@@ -25,6 +25,7 @@
 package io.questdb;
 
 import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.GroupCommitScheduler;
 import io.questdb.cairo.TableBlockWriter.TableBlockWriterTaskHolder;
 import io.questdb.mp.*;
 import io.questdb.tasks.*;
@@ -39,6 +40,24 @@ public class MessageBusImpl implements MessageBus {
     private final MPSequence vectorAggregatePubSeq;
     private final MCSequence vectorAggregateSubSeq;
 
+    private final RingQueue<PageFrameFilterTask> pageFrameFilterQueue;
+    private final MPSequence pageFrameFilterPubSeq;
+    private final MCSequence pageFrameFilterSubSeq;
+
+    private final RingQueue<PageFrameGroupByTask> pageFrameGroupByQueue;
+    private final MPSequence pageFrameGroupByPubSeq;
+    private final MCSequence pageFrameGroupBySubSeq;
+
+    private final RingQueue<PageFrameJoinTask> pageFrameJoinQueue;
+    private final MPSequence pageFrameJoinPubSeq;
+    private final MCSequence pageFrameJoinSubSeq;
+    private final RingQueue<LatestByTask> latestByQueue;
+    private final MPSequence latestByPubSeq;
+    private final MCSequence latestBySubSeq;
+    private final RingQueue<TextImportTask> textImportQueue;
+    private final MPSequence textImportPubSeq;
+    private final MCSequence textImportSubSeq;
+
     private final RingQueue<TableBlockWriterTaskHolder> tableBlockWriterQueue;
     private final MPSequence tableBlockWriterPubSeq;
     private final MCSequence tableBlockWriterSubSeq;
@@ -67,10 +86,13 @@ public class MessageBusImpl implements MessageBus {
     private final MPSequence o3CopyPubSeq;
     private final MCSequence o3CopySubSeq;
 
+    private final GroupCommitScheduler groupCommitScheduler;
+
     private final CairoConfiguration configuration;
 
     public MessageBusImpl(@NotNull CairoConfiguration configuration) {
         this.configuration = configuration;
+        this.groupCommitScheduler = new GroupCommitScheduler(configuration);
         this.indexerQueue = new RingQueue<>(ColumnIndexerTask::new, configuration.getColumnIndexerQueueCapacity());
         this.indexerPubSeq = new MPSequence(indexerQueue.getCapacity());
         this.indexerSubSeq = new MCSequence(indexerQueue.getCapacity());
@@ -81,6 +103,31 @@ public class MessageBusImpl implements MessageBus {
         this.vectorAggregateSubSeq = new MCSequence(vectorAggregateQueue.getCapacity());
         vectorAggregatePubSeq.then(vectorAggregateSubSeq).then(vectorAggregatePubSeq);
 
+        this.pageFrameFilterQueue = new RingQueue<>(PageFrameFilterTask::new, configuration.getPageFrameFilterQueueCapacity());
+        this.pageFrameFilterPubSeq = new MPSequence(pageFrameFilterQueue.getCapacity());
+        this.pageFrameFilterSubSeq = new MCSequence(pageFrameFilterQueue.getCapacity());
+        pageFrameFilterPubSeq.then(pageFrameFilterSubSeq).then(pageFrameFilterPubSeq);
+
+        this.pageFrameGroupByQueue = new RingQueue<>(PageFrameGroupByTask::new, configuration.getPageFrameGroupByQueueCapacity());
+        this.pageFrameGroupByPubSeq = new MPSequence(pageFrameGroupByQueue.getCapacity());
+        this.pageFrameGroupBySubSeq = new MCSequence(pageFrameGroupByQueue.getCapacity());
+        pageFrameGroupByPubSeq.then(pageFrameGroupBySubSeq).then(pageFrameGroupByPubSeq);
+
+        this.pageFrameJoinQueue = new RingQueue<>(PageFrameJoinTask::new, configuration.getPageFrameJoinQueueCapacity());
+        this.pageFrameJoinPubSeq = new MPSequence(pageFrameJoinQueue.getCapacity());
+        this.pageFrameJoinSubSeq = new MCSequence(pageFrameJoinQueue.getCapacity());
+        pageFrameJoinPubSeq.then(pageFrameJoinSubSeq).then(pageFrameJoinPubSeq);
+
+        this.latestByQueue = new RingQueue<>(LatestByTask::new, configuration.getLatestByQueueCapacity());
+        this.latestByPubSeq = new MPSequence(latestByQueue.getCapacity());
+        this.latestBySubSeq = new MCSequence(latestByQueue.getCapacity());
+        latestByPubSeq.then(latestBySubSeq).then(latestByPubSeq);
+
+        this.textImportQueue = new RingQueue<>(TextImportTask::new, configuration.getTextImportQueueCapacity());
+        this.textImportPubSeq = new MPSequence(textImportQueue.getCapacity());
+        this.textImportSubSeq = new MCSequence(textImportQueue.getCapacity());
+        textImportPubSeq.then(textImportSubSeq).then(textImportPubSeq);
+
         this.tableBlockWriterQueue = new RingQueue<>(TableBlockWriterTaskHolder::new, configuration.getTableBlockWriterQueueCapacity());
         this.tableBlockWriterPubSeq = new MPSequence(tableBlockWriterQueue.getCapacity());
         this.tableBlockWriterSubSeq = new MCSequence(tableBlockWriterQueue.getCapacity());
@@ -137,6 +184,11 @@ public class MessageBusImpl implements MessageBus {
         return configuration;
     }
 
+    @Override
+    public GroupCommitScheduler getGroupCommitScheduler() {
+        return groupCommitScheduler;
+    }
+
     @Override
     public Sequence getIndexerPubSequence() {
         return indexerPubSeq;
@@ -167,6 +219,81 @@ public class MessageBusImpl implements MessageBus {
         return vectorAggregateSubSeq;
     }
 
+    @Override
+    public MPSequence getPageFrameFilterPubSeq() {
+        return pageFrameFilterPubSeq;
+    }
+
+    @Override
+    public RingQueue<PageFrameFilterTask> getPageFrameFilterQueue() {
+        return pageFrameFilterQueue;
+    }
+
+    @Override
+    public MCSequence getPageFrameFilterSubSeq() {
+        return pageFrameFilterSubSeq;
+    }
+
+    @Override
+    public MPSequence getPageFrameGroupByPubSeq() {
+        return pageFrameGroupByPubSeq;
+    }
+
+    @Override
+    public RingQueue<PageFrameGroupByTask> getPageFrameGroupByQueue() {
+        return pageFrameGroupByQueue;
+    }
+
+    @Override
+    public MCSequence getPageFrameGroupBySubSeq() {
+        return pageFrameGroupBySubSeq;
+    }
+
+    @Override
+    public MPSequence getPageFrameJoinPubSeq() {
+        return pageFrameJoinPubSeq;
+    }
+
+    @Override
+    public RingQueue<PageFrameJoinTask> getPageFrameJoinQueue() {
+        return pageFrameJoinQueue;
+    }
+
+    @Override
+    public MCSequence getPageFrameJoinSubSeq() {
+        return pageFrameJoinSubSeq;
+    }
+
+    @Override
+    public MPSequence getLatestByPubSeq() {
+        return latestByPubSeq;
+    }
+
+    @Override
+    public RingQueue<LatestByTask> getLatestByQueue() {
+        return latestByQueue;
+    }
+
+    @Override
+    public MCSequence getLatestBySubSeq() {
+        return latestBySubSeq;
+    }
+
+    @Override
+    public MPSequence getTextImportPubSeq() {
+        return textImportPubSeq;
+    }
+
+    @Override
+    public RingQueue<TextImportTask> getTextImportQueue() {
+        return textImportQueue;
+    }
+
+    @Override
+    public MCSequence getTextImportSubSeq() {
+        return textImportSubSeq;
+    }
+
     @Override
     public RingQueue<TableBlockWriterTaskHolder> getTableBlockWriterQueue() {
         return tableBlockWriterQueue;
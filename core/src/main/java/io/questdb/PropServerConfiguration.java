@@ -116,6 +116,18 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlSortValueMaxPages;
     private final long workStealTimeoutNanos;
     private final boolean parallelIndexingEnabled;
+    private final boolean parallelFilterEnabled;
+    private final long parallelFilterFrameRowCount;
+    private final boolean parallelGroupByEnabled;
+    private final long parallelGroupByFrameRowCount;
+    private final boolean parallelSampleByEnabled;
+    private final boolean filterCompilerEnabled;
+    private final boolean filterKernelEnabled;
+    private final boolean parallelHashJoinEnabled;
+    private final long parallelHashJoinFrameRowCount;
+    private final boolean asOfJoinFrameSearchEnabled;
+    private final boolean parallelLatestByEnabled;
+    private final long parallelLatestByFrameRowCount;
     private final int sqlJoinMetadataPageSize;
     private final int sqlJoinMetadataMaxResizes;
     private final int lineUdpCommitRate;
@@ -139,6 +151,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final boolean lineUdpUnicast;
     private final boolean lineUdpOwnThread;
     private final int sqlCopyBufferSize;
+    private final boolean parallelImportEnabled;
+    private final long parallelImportChunkSize;
     private final long sqlAppendPageSize;
     private final int sqlAnalyticColumnPoolCapacity;
     private final int sqlCreateTableModelPoolCapacity;
@@ -187,6 +201,20 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final BuildInformation buildInformation;
     private final int columnIndexerQueueCapacity;
     private final int vectorAggregateQueueCapacity;
+    private final int pageFrameFilterQueueCapacity;
+    private final int pageFrameGroupByQueueCapacity;
+    private final int pageFrameJoinQueueCapacity;
+    private final int latestByQueueCapacity;
+    private final int textImportQueueCapacity;
+    private final boolean partitionCompressionEnabled;
+    private final long partitionCompressionCheckInterval;
+    private final long partitionDecompressionMemoryLimit;
+    private final boolean strUtf8Enabled;
+    private final boolean partitionStatsEnabled;
+    private final long bloomFilterCapacity;
+    private final long walSegmentRolloverRowCount;
+    private final String coldRoot;
+    private final long coldPartitionCheckInterval;
     private final int o3CallbackQueueCapacity;
     private final int o3PartitionQueueCapacity;
     private final int o3OpenColumnQueueCapacity;
@@ -301,6 +329,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private int lineTcpMsgBufferSize;
     private int lineTcpMaxMeasurementSize;
     private int lineTcpWriterQueueCapacity;
+    private int lineTcpSymbolCacheCapacity;
     private int lineTcpWriterWorkerCount;
     private int[] lineTcpWriterWorkerAffinity;
     private boolean lineTcpWriterWorkerPoolHaltOnError;
@@ -577,6 +606,18 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlSortValueMaxPages = getIntSize(properties, env, "cairo.sql.sort.value.max.pages", Integer.MAX_VALUE);
             this.workStealTimeoutNanos = getLong(properties, env, "cairo.work.steal.timeout.nanos", 10_000);
             this.parallelIndexingEnabled = getBoolean(properties, env, "cairo.parallel.indexing.enabled", true);
+            this.parallelFilterEnabled = getBoolean(properties, env, "cairo.sql.parallel.filter.enabled", true);
+            this.parallelFilterFrameRowCount = getLong(properties, env, "cairo.sql.parallel.filter.frame.row.count", 1_000_000);
+            this.parallelGroupByEnabled = getBoolean(properties, env, "cairo.sql.parallel.group.by.enabled", true);
+            this.parallelGroupByFrameRowCount = getLong(properties, env, "cairo.sql.parallel.group.by.frame.row.count", 1_000_000);
+            this.parallelSampleByEnabled = getBoolean(properties, env, "cairo.sql.parallel.sample.by.enabled", true);
+            this.filterCompilerEnabled = getBoolean(properties, env, "cairo.sql.filter.compiler.enabled", true);
+            this.filterKernelEnabled = getBoolean(properties, env, "cairo.sql.filter.kernel.enabled", true);
+            this.parallelHashJoinEnabled = getBoolean(properties, env, "cairo.sql.parallel.hash.join.enabled", true);
+            this.parallelHashJoinFrameRowCount = getLong(properties, env, "cairo.sql.parallel.hash.join.frame.row.count", 1_000_000);
+            this.asOfJoinFrameSearchEnabled = getBoolean(properties, env, "cairo.sql.asof.join.frame.search.enabled", true);
+            this.parallelLatestByEnabled = getBoolean(properties, env, "cairo.sql.parallel.latest.by.enabled", true);
+            this.parallelLatestByFrameRowCount = getLong(properties, env, "cairo.sql.parallel.latest.by.frame.row.count", 1_000_000);
             this.sqlJoinMetadataPageSize = getIntSize(properties, env, "cairo.sql.join.metadata.page.size", 16384);
             this.sqlJoinMetadataMaxResizes = getIntSize(properties, env, "cairo.sql.join.metadata.max.resizes", Integer.MAX_VALUE);
             this.sqlAnalyticColumnPoolCapacity = getInt(properties, env, "cairo.sql.analytic.column.pool.capacity", 64);
@@ -587,6 +628,8 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlInsertModelPoolCapacity = getInt(properties, env, "cairo.sql.insert.model.pool.capacity", 64);
             this.sqlCopyModelPoolCapacity = getInt(properties, env, "cairo.sql.copy.model.pool.capacity", 32);
             this.sqlCopyBufferSize = getIntSize(properties, env, "cairo.sql.copy.buffer.size", 2 * 1024 * 1024);
+            this.parallelImportEnabled = getBoolean(properties, env, "cairo.sql.copy.parallel.enabled", false);
+            this.parallelImportChunkSize = getLongSize(properties, env, "cairo.sql.copy.parallel.chunk.size", 64 * 1024 * 1024);
             long sqlAppendPageSize = getLongSize(properties, env, "cairo.sql.append.page.size", 16 * 1024 * 1024);
             // round the append page size to the OS page size
             final long osPageSize = FilesFacadeImpl.INSTANCE.getPageSize();
@@ -627,6 +670,20 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.tableBlockWriterQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.table.block.writer.queue.capacity", 256));
             this.columnIndexerQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.column.indexer.queue.capacity", 64));
             this.vectorAggregateQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.vector.aggregate.queue.capacity", 128));
+            this.pageFrameFilterQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.page.frame.filter.queue.capacity", 128));
+            this.pageFrameGroupByQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.page.frame.group.by.queue.capacity", 128));
+            this.pageFrameJoinQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.page.frame.join.queue.capacity", 128));
+            this.latestByQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.latest.by.queue.capacity", 128));
+            this.textImportQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.text.import.queue.capacity", 64));
+            this.partitionCompressionEnabled = getBoolean(properties, env, "cairo.partition.compression.enabled", false);
+            this.partitionCompressionCheckInterval = getLong(properties, env, "cairo.partition.compression.check.interval", 60_000);
+            this.partitionDecompressionMemoryLimit = getLongSize(properties, env, "cairo.partition.decompression.memory.limit", 256 * 1024 * 1024);
+            this.strUtf8Enabled = getBoolean(properties, env, "cairo.string.utf8.enabled", false);
+            this.partitionStatsEnabled = getBoolean(properties, env, "cairo.partition.stats.enabled", false);
+            this.bloomFilterCapacity = getLong(properties, env, "cairo.bloom.filter.capacity", 1_048_576);
+            this.walSegmentRolloverRowCount = getLong(properties, env, "cairo.wal.segment.rollover.row.count", 200_000);
+            this.coldRoot = getString(properties, env, "cairo.cold.root", null);
+            this.coldPartitionCheckInterval = getLong(properties, env, "cairo.cold.partition.check.interval", 60_000);
             this.o3CallbackQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.o3.callback.queue.capacity", 128));
             this.o3PartitionQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.o3.partition.queue.capacity", 128));
             this.o3OpenColumnQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.o3.open.column.queue.capacity", 128));
@@ -688,6 +745,7 @@ public class PropServerConfiguration implements ServerConfiguration {
                             "line.tcp.max.measurement.size (" + this.lineTcpMaxMeasurementSize + ") cannot be more than line.tcp.msg.buffer.size (" + this.lineTcpMsgBufferSize + ")");
                 }
                 this.lineTcpWriterQueueCapacity = getInt(properties, env, "line.tcp.writer.queue.capacity", 128);
+                this.lineTcpSymbolCacheCapacity = getInt(properties, env, "line.tcp.symbol.cache.capacity", 8192);
                 this.lineTcpWriterWorkerCount = getInt(properties, env, "line.tcp.writer.worker.count", 1);
                 cpuUsed += this.lineTcpWriterWorkerCount;
                 this.lineTcpWriterWorkerAffinity = getAffinity(properties, env, "line.tcp.writer.worker.affinity", lineTcpWriterWorkerCount);
@@ -816,6 +874,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return CommitMode.SYNC;
         }
 
+        if (Chars.equalsLowerCaseAscii(commitMode, "group")) {
+            // file system sync is not available on windows
+            return Os.type == Os.WINDOWS ? CommitMode.SYNC : CommitMode.GROUP;
+        }
+
         return CommitMode.NOSYNC;
     }
 
@@ -1412,6 +1475,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlCopyBufferSize;
         }
 
+        @Override
+        public boolean isParallelImportEnabled() {
+            return parallelImportEnabled;
+        }
+
+        @Override
+        public long getParallelImportChunkSize() {
+            return parallelImportChunkSize;
+        }
+
         @Override
         public int getCopyPoolCapacity() {
             return sqlCopyModelPoolCapacity;
@@ -1712,6 +1785,66 @@ public class PropServerConfiguration implements ServerConfiguration {
             return parallelIndexingEnabled;
         }
 
+        @Override
+        public boolean isParallelFilterEnabled() {
+            return parallelFilterEnabled;
+        }
+
+        @Override
+        public boolean isParallelGroupByEnabled() {
+            return parallelGroupByEnabled;
+        }
+
+        @Override
+        public long getParallelFilterFrameRowCount() {
+            return parallelFilterFrameRowCount;
+        }
+
+        @Override
+        public long getParallelGroupByFrameRowCount() {
+            return parallelGroupByFrameRowCount;
+        }
+
+        @Override
+        public boolean isParallelSampleByEnabled() {
+            return parallelSampleByEnabled;
+        }
+
+        @Override
+        public boolean isFilterCompilerEnabled() {
+            return filterCompilerEnabled;
+        }
+
+        @Override
+        public boolean isFilterKernelEnabled() {
+            return filterKernelEnabled;
+        }
+
+        @Override
+        public boolean isParallelHashJoinEnabled() {
+            return parallelHashJoinEnabled;
+        }
+
+        @Override
+        public long getParallelHashJoinFrameRowCount() {
+            return parallelHashJoinFrameRowCount;
+        }
+
+        @Override
+        public boolean isAsOfJoinFrameSearchEnabled() {
+            return asOfJoinFrameSearchEnabled;
+        }
+
+        @Override
+        public boolean isParallelLatestByEnabled() {
+            return parallelLatestByEnabled;
+        }
+
+        @Override
+        public long getParallelLatestByFrameRowCount() {
+            return parallelLatestByFrameRowCount;
+        }
+
         @Override
         public int getSqlJoinMetadataPageSize() {
             return sqlJoinMetadataPageSize;
@@ -1807,6 +1940,76 @@ public class PropServerConfiguration implements ServerConfiguration {
             return vectorAggregateQueueCapacity;
         }
 
+        @Override
+        public int getPageFrameFilterQueueCapacity() {
+            return pageFrameFilterQueueCapacity;
+        }
+
+        @Override
+        public int getPageFrameGroupByQueueCapacity() {
+            return pageFrameGroupByQueueCapacity;
+        }
+
+        @Override
+        public int getPageFrameJoinQueueCapacity() {
+            return pageFrameJoinQueueCapacity;
+        }
+
+        @Override
+        public int getLatestByQueueCapacity() {
+            return latestByQueueCapacity;
+        }
+
+        @Override
+        public int getTextImportQueueCapacity() {
+            return textImportQueueCapacity;
+        }
+
+        @Override
+        public boolean isPartitionCompressionEnabled() {
+            return partitionCompressionEnabled;
+        }
+
+        @Override
+        public long getPartitionCompressionCheckInterval() {
+            return partitionCompressionCheckInterval;
+        }
+
+        @Override
+        public long getPartitionDecompressionMemoryLimit() {
+            return partitionDecompressionMemoryLimit;
+        }
+
+        @Override
+        public boolean isStrUtf8Enabled() {
+            return strUtf8Enabled;
+        }
+
+        @Override
+        public boolean isPartitionStatsEnabled() {
+            return partitionStatsEnabled;
+        }
+
+        @Override
+        public long getBloomFilterCapacity() {
+            return bloomFilterCapacity;
+        }
+
+        @Override
+        public long getWalSegmentRolloverRowCount() {
+            return walSegmentRolloverRowCount;
+        }
+
+        @Override
+        public CharSequence getColdRoot() {
+            return coldRoot;
+        }
+
+        @Override
+        public long getColdPartitionCheckInterval() {
+            return coldPartitionCheckInterval;
+        }
+
         @Override
         public int getO3CallbackQueueCapacity() {
             return o3CallbackQueueCapacity;
@@ -2188,6 +2391,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return lineTcpWriterQueueCapacity;
         }
 
+        @Override
+        public int getSymbolCacheCapacity() {
+            return lineTcpSymbolCacheCapacity;
+        }
+
         @Override
         public WorkerPoolAwareConfiguration getWriterWorkerPoolConfiguration() {
             return lineTcpWriterWorkerPoolConfiguration;
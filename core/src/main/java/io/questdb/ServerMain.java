@@ -47,13 +47,18 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CommitMode;
+import io.questdb.cairo.GroupCommitJob;
 import io.questdb.cairo.O3CallbackJob;
 import io.questdb.cairo.O3CopyJob;
 import io.questdb.cairo.O3OpenColumnJob;
 import io.questdb.cairo.O3PartitionJob;
 import io.questdb.cairo.O3PurgeDiscoveryJob;
 import io.questdb.cairo.O3PurgeJob;
+import io.questdb.cairo.PartitionCompressionJob;
+import io.questdb.cairo.ColdPartitionMoveJob;
 import io.questdb.cairo.O3Utils;
+import io.questdb.cairo.wal.WalApplyJob;
 import io.questdb.cutlass.http.HttpServer;
 import io.questdb.cutlass.json.JsonException;
 import io.questdb.cutlass.line.tcp.LineTcpServer;
@@ -171,6 +176,23 @@ public class ServerMain {
         workerPool.assign(new O3CopyJob(cairoEngine.getMessageBus()));
         workerPool.assign(new O3PurgeDiscoveryJob(cairoEngine.getMessageBus(), workerPool.getWorkerCount()));
         workerPool.assign(new O3PurgeJob(cairoEngine.getMessageBus()));
+        if (configuration.getCairoConfiguration().getCommitMode() == CommitMode.GROUP
+                && configuration.getCairoConfiguration().getFilesFacade().isSyncfsSupported()) {
+            workerPool.assign(new GroupCommitJob(cairoEngine.getMessageBus()));
+        }
+        if (configuration.getCairoConfiguration().isPartitionCompressionEnabled()) {
+            final PartitionCompressionJob partitionCompressionJob = new PartitionCompressionJob(cairoEngine);
+            instancesToClean.add(partitionCompressionJob);
+            workerPool.assign(partitionCompressionJob);
+        }
+        if (configuration.getCairoConfiguration().getColdRoot() != null) {
+            final ColdPartitionMoveJob coldPartitionMoveJob = new ColdPartitionMoveJob(cairoEngine);
+            instancesToClean.add(coldPartitionMoveJob);
+            workerPool.assign(coldPartitionMoveJob);
+        }
+        final WalApplyJob walApplyJob = new WalApplyJob(cairoEngine);
+        instancesToClean.add(walApplyJob);
+        workerPool.assign(walApplyJob);
         O3Utils.initBuf(workerPool.getWorkerCount() + 1);
 
         try {
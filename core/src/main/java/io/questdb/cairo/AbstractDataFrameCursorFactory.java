@@ -25,17 +25,25 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrameCursorFactory;
+import io.questdb.std.Misc;
 import io.questdb.std.str.CharSink;
+import org.jetbrains.annotations.Nullable;
 
 public abstract class AbstractDataFrameCursorFactory implements DataFrameCursorFactory {
     private final CairoEngine engine;
     private final String tableName;
     private final long tableVersion;
+    protected final PartitionPruner pruner;
 
     public AbstractDataFrameCursorFactory(CairoEngine engine, String tableName, long tableVersion) {
+        this(engine, tableName, tableVersion, null);
+    }
+
+    public AbstractDataFrameCursorFactory(CairoEngine engine, String tableName, long tableVersion, @Nullable PartitionPruner pruner) {
         this.engine = engine;
         this.tableName = tableName;
         this.tableVersion = tableVersion;
+        this.pruner = pruner;
     }
 
     @Override
@@ -53,5 +61,6 @@ public abstract class AbstractDataFrameCursorFactory implements DataFrameCursorF
 
     @Override
     public void close() {
+        Misc.free(pruner);
     }
 }
@@ -26,12 +26,22 @@ package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrame;
 import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.std.Files;
+import io.questdb.std.IntList;
+import org.jetbrains.annotations.Nullable;
 
 public abstract class AbstractFullDataFrameCursor implements DataFrameCursor {
     protected final FullTableDataFrame frame = new FullTableDataFrame();
+    protected final PartitionPruner pruner;
     protected TableReader reader;
     protected int partitionHi;
     protected int partitionIndex;
+    private int accessAdvice = Files.MADV_NORMAL;
+    private IntList accessColumns;
+
+    public AbstractFullDataFrameCursor(@Nullable PartitionPruner pruner) {
+        this.pruner = pruner;
+    }
 
     @Override
     public void close() {
@@ -64,6 +74,18 @@ public abstract class AbstractFullDataFrameCursor implements DataFrameCursor {
         return reader.size();
     }
 
+    /**
+     * Declares how columns of returned frames are going to be accessed. Operating system is
+     * hinted when partition is opened.
+     *
+     * @param advice        one of Files.MADV_* constants
+     * @param columnIndexes indexes of accessed columns
+     */
+    public void setAccessPattern(int advice, IntList columnIndexes) {
+        this.accessAdvice = advice;
+        this.accessColumns = columnIndexes;
+    }
+
     public DataFrameCursor of(TableReader reader) {
         this.reader = reader;
         this.partitionHi = reader.getPartitionCount();
@@ -71,6 +93,19 @@ public abstract class AbstractFullDataFrameCursor implements DataFrameCursor {
         return this;
     }
 
+    protected void adviseAccess(int partitionIndex, int nextPartitionIndex) {
+        if (accessAdvice != Files.MADV_NORMAL) {
+            reader.adviseColumns(partitionIndex, accessColumns, accessAdvice);
+            if (accessAdvice == Files.MADV_SEQUENTIAL
+                    && nextPartitionIndex < partitionHi
+                    && (pruner == null || !pruner.canSkip(reader, nextPartitionIndex))
+                    && reader.openPartition(nextPartitionIndex) > 0) {
+                // kernel reads next partition in the background while this one is being processed
+                reader.adviseColumns(nextPartitionIndex, accessColumns, Files.MADV_WILLNEED);
+            }
+        }
+    }
+
     protected class FullTableDataFrame implements DataFrame {
         final static private long rowLo = 0;
         protected long rowHi;
@@ -29,7 +29,10 @@ import io.questdb.cairo.sql.DataFrameCursor;
 import io.questdb.cairo.vm.ReadOnlyVirtualMemory;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.model.RuntimeIntrinsicIntervalModel;
+import io.questdb.std.Files;
+import io.questdb.std.IntList;
 import io.questdb.std.LongList;
+import org.jetbrains.annotations.Nullable;
 
 public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor {
     static final int SCAN_UP = -1;
@@ -38,6 +41,7 @@ public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor
     protected LongList intervals;
     protected final IntervalDataFrame dataFrame = new IntervalDataFrame();
     protected final int timestampIndex;
+    protected final PartitionPruner pruner;
     protected TableReader reader;
     protected int intervalsLo;
     protected int intervalsHi;
@@ -53,11 +57,15 @@ public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor
     private int initialIntervalsHi;
     private int initialPartitionLo;
     private int initialPartitionHi;
+    private int accessAdvice = Files.MADV_NORMAL;
+    private IntList accessColumns;
+    private int advisedPartition = -1;
 
-    public AbstractIntervalDataFrameCursor(RuntimeIntrinsicIntervalModel intervals, int timestampIndex) {
+    public AbstractIntervalDataFrameCursor(RuntimeIntrinsicIntervalModel intervals, int timestampIndex, @Nullable PartitionPruner pruner) {
         assert timestampIndex > -1;
         this.intervalsModel = intervals;
         this.timestampIndex = timestampIndex;
+        this.pruner = pruner;
     }
 
     @Override
@@ -67,6 +75,7 @@ public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor
 
     @Override
     public boolean reload() {
+        advisedPartition = -1;
         if (reader != null && reader.reload()) {
             calculateRanges(intervals);
             return true;
@@ -103,10 +112,30 @@ public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor
 
     public void of(TableReader reader, SqlExecutionContext sqlContext) {
         this.reader = reader;
+        this.advisedPartition = -1;
         this.intervals = this.intervalsModel.calculateIntervals(sqlContext);
         calculateRanges(intervals);
     }
 
+    /**
+     * Declares how columns of returned frames are going to be accessed. Operating system is
+     * hinted when frame of another partition is returned.
+     *
+     * @param advice        one of Files.MADV_* constants
+     * @param columnIndexes indexes of accessed columns
+     */
+    public void setAccessPattern(int advice, IntList columnIndexes) {
+        this.accessAdvice = advice;
+        this.accessColumns = columnIndexes;
+    }
+
+    protected void adviseAccess(int partitionIndex) {
+        if (accessAdvice != Files.MADV_NORMAL && partitionIndex != advisedPartition) {
+            reader.adviseColumns(partitionIndex, accessColumns, accessAdvice);
+            advisedPartition = partitionIndex;
+        }
+    }
+
     protected static long search(ReadOnlyVirtualMemory column, long value, long low, long high, int increment) {
         while (low < high) {
             long mid = (low + high - 1) >>> 1;
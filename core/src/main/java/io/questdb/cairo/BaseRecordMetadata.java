@@ -93,6 +93,14 @@ public abstract class BaseRecordMetadata implements RecordMetadata {
         return getColumnQuick(columnIndex).isIndexed();
     }
 
+    public boolean isColumnStrUtf8(int columnIndex) {
+        return getColumnQuick(columnIndex).isStrUtf8();
+    }
+
+    public boolean isColumnBloomFilter(int columnIndex) {
+        return getColumnQuick(columnIndex).isBloomFilter();
+    }
+
     @Override
     public boolean isSymbolTableStatic(int columnIndex) {
         return columnMetadata.getQuick(columnIndex).isSymbolTableStatic();
@@ -0,0 +1,278 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Long256;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.LPSZ;
+
+import java.io.Closeable;
+
+/**
+ * Blocked Bloom filter of column values in a partition. Filter is stored in "column.bf" file
+ * of partition directory: 64-byte header, which starts with long row count and long block
+ * count, followed by 64-byte blocks. Every value sets {@link #HASH_COUNT} bits of a single block,
+ * so that value is added by touching one cache line and probed by reading one block.
+ * <p>
+ * Writer maps file and only ever sets bits. Row count is updated after bits of rows it covers,
+ * which lets readers probe file concurrently with writer as long as they ignore filter that
+ * covers fewer rows than partition has.
+ */
+public class BloomFilter implements Closeable {
+    public static final int HASH_COUNT = 7;
+    private static final long BLOCK_SIZE = 64;
+    private static final long BLOCK_BITS_MASK = BLOCK_SIZE * 8 - 1;
+    private static final int BLOCK_BITS_SHIFT = 9;
+    private static final int BITS_PER_VALUE = 12;
+    private static final long HEADER_SIZE = 64;
+    private static final long OFFSET_ROW_COUNT = 0;
+    private static final long OFFSET_BLOCK_COUNT = 8;
+    private static final long NULL_STR_HASH = 0x9e3779b97f4a7c15L;
+    private FilesFacade ff;
+    private long fd = -1;
+    private long address;
+    private long size;
+    private long blockMask;
+    // block read by probe, allocated by openRO()
+    private long buf;
+
+    /**
+     * Number of blocks filter needs to keep false positive rate around 1% when partition
+     * has given number of distinct values.
+     *
+     * @param capacity expected number of distinct values
+     * @return power of 2 number of blocks
+     */
+    public static long blockCountOf(long capacity) {
+        return Numbers.ceilPow2(Math.max(1, capacity * BITS_PER_VALUE / (BLOCK_SIZE * 8)));
+    }
+
+    public static boolean isSupported(int columnType) {
+        switch (columnType) {
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.STRING:
+            case ColumnType.LONG256:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public static long hash(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    /**
+     * Hashes chars of string, so that the value has the same hash regardless of how column encodes it.
+     *
+     * @param value string or null
+     * @return hash of value
+     */
+    public static long hash(CharSequence value) {
+        if (value == null) {
+            return NULL_STR_HASH;
+        }
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return hash(h);
+    }
+
+    public static long hash(Long256 value) {
+        return hash(value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
+    }
+
+    public static long hash(long l0, long l1, long l2, long l3) {
+        return hash(l0 ^ hash(l1 ^ hash(l2 ^ hash(l3))));
+    }
+
+    public void add(long hash) {
+        final long block = address + HEADER_SIZE + (hash & blockMask) * BLOCK_SIZE;
+        long bits = hash(hash);
+        for (int i = 0; i < HASH_COUNT; i++) {
+            final long bit = bits & BLOCK_BITS_MASK;
+            final long p = block + (bit >>> 3);
+            Unsafe.getUnsafe().putByte(p, (byte) (Unsafe.getUnsafe().getByte(p) | (1 << (bit & 7))));
+            bits >>>= BLOCK_BITS_SHIFT;
+        }
+    }
+
+    public void addInt(long address, long count) {
+        for (long p = address, lim = address + count * Integer.BYTES; p < lim; p += Integer.BYTES) {
+            add(hash(Unsafe.getUnsafe().getInt(p)));
+        }
+    }
+
+    public void addLong(long address, long count) {
+        for (long p = address, lim = address + count * Long.BYTES; p < lim; p += Long.BYTES) {
+            add(hash(Unsafe.getUnsafe().getLong(p)));
+        }
+    }
+
+    public void addLong256(long address, long count) {
+        for (long p = address, lim = address + count * Long256.BYTES; p < lim; p += Long256.BYTES) {
+            add(
+                    hash(
+                            Unsafe.getUnsafe().getLong(p),
+                            Unsafe.getUnsafe().getLong(p + Long.BYTES),
+                            Unsafe.getUnsafe().getLong(p + Long.BYTES * 2),
+                            Unsafe.getUnsafe().getLong(p + Long.BYTES * 3)
+                    )
+            );
+        }
+    }
+
+    @Override
+    public void close() {
+        if (address != 0) {
+            ff.munmap(address, size);
+            address = 0;
+        }
+        if (fd != -1) {
+            ff.close(fd);
+            fd = -1;
+        }
+        if (buf != 0) {
+            Unsafe.free(buf, BLOCK_SIZE);
+            buf = 0;
+        }
+    }
+
+    public long getRowCount() {
+        return Unsafe.getUnsafe().getLong(address + OFFSET_ROW_COUNT);
+    }
+
+    public void setRowCount(long rowCount) {
+        Unsafe.getUnsafe().putLong(address + OFFSET_ROW_COUNT, rowCount);
+    }
+
+    /**
+     * Probes filter opened by {@link #openRO(FilesFacade, LPSZ, long)}.
+     *
+     * @param hash hash of value
+     * @return false when value is definitely not in partition
+     */
+    public boolean mightContain(long hash) {
+        if (ff.read(fd, buf, BLOCK_SIZE, HEADER_SIZE + (hash & blockMask) * BLOCK_SIZE) != BLOCK_SIZE) {
+            return true;
+        }
+        long bits = hash(hash);
+        for (int i = 0; i < HASH_COUNT; i++) {
+            final long bit = bits & BLOCK_BITS_MASK;
+            if ((Unsafe.getUnsafe().getByte(buf + (bit >>> 3)) & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+            bits >>>= BLOCK_BITS_SHIFT;
+        }
+        return true;
+    }
+
+    /**
+     * Maps filter file for update, file is created when it does not exist or it is not a valid filter.
+     * Existing file keeps its number of blocks.
+     *
+     * @param ff         files facade
+     * @param name       path to filter file
+     * @param blockCount number of blocks of new file, power of 2
+     */
+    public void of(FilesFacade ff, LPSZ name, long blockCount) {
+        close();
+        this.ff = ff;
+        this.fd = TableUtils.openFileRWOrFail(ff, name);
+        try {
+            final long len = ff.length(fd);
+            final long existingBlockCount = len > HEADER_SIZE ? readBlockCount() : 0;
+            if (existingBlockCount > 0 && len == HEADER_SIZE + existingBlockCount * BLOCK_SIZE) {
+                blockCount = existingBlockCount;
+                this.size = len;
+            } else {
+                this.size = HEADER_SIZE + blockCount * BLOCK_SIZE;
+                // file is zeroed out by truncating it first, bits left over from an invalid file are not trusted
+                if (!ff.truncate(fd, 0) || !ff.truncate(fd, size)) {
+                    throw CairoException.instance(ff.errno()).put("could not resize bloom filter [fd=").put(fd).put(", size=").put(size).put(']');
+                }
+            }
+            this.address = ff.mmap(fd, size, 0, Files.MAP_RW);
+            if (address == -1) {
+                address = 0;
+                throw CairoException.instance(ff.errno()).put("could not mmap bloom filter [fd=").put(fd).put(", size=").put(size).put(']');
+            }
+            Unsafe.getUnsafe().putLong(address + OFFSET_BLOCK_COUNT, blockCount);
+            this.blockMask = blockCount - 1;
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens filter file for probing.
+     *
+     * @param ff          files facade
+     * @param name        path to filter file
+     * @param minRowCount number of rows filter has to cover
+     * @return false when file does not exist, it is not a valid filter or it covers fewer rows
+     */
+    public boolean openRO(FilesFacade ff, LPSZ name, long minRowCount) {
+        close();
+        this.ff = ff;
+        this.fd = ff.openRO(name);
+        if (fd < 0) {
+            fd = -1;
+            return false;
+        }
+        buf = Unsafe.malloc(BLOCK_SIZE);
+        if (ff.read(fd, buf, 2 * Long.BYTES, 0) == 2 * Long.BYTES) {
+            final long rowCount = Unsafe.getUnsafe().getLong(buf + OFFSET_ROW_COUNT);
+            final long blockCount = Unsafe.getUnsafe().getLong(buf + OFFSET_BLOCK_COUNT);
+            if (rowCount >= minRowCount && blockCount > 0 && (blockCount & (blockCount - 1)) == 0 && ff.length(fd) == HEADER_SIZE + blockCount * BLOCK_SIZE) {
+                this.blockMask = blockCount - 1;
+                return true;
+            }
+        }
+        close();
+        return false;
+    }
+
+    private long readBlockCount() {
+        final long p = Unsafe.malloc(Long.BYTES);
+        try {
+            if (ff.read(fd, p, Long.BYTES, OFFSET_BLOCK_COUNT) == Long.BYTES) {
+                final long blockCount = Unsafe.getUnsafe().getLong(p);
+                return blockCount > 0 && (blockCount & (blockCount - 1)) == 0 ? blockCount : 0;
+            }
+            return 0;
+        } finally {
+            Unsafe.free(p, Long.BYTES);
+        }
+    }
+}
@@ -44,6 +44,10 @@ public interface CairoConfiguration {
 
     int getSqlCopyBufferSize();
 
+    boolean isParallelImportEnabled();
+
+    long getParallelImportChunkSize();
+
     int getCopyPoolCapacity();
 
     int getCreateAsSelectRetryCount();
@@ -82,6 +86,33 @@ public interface CairoConfiguration {
 
     int getParallelIndexThreshold();
 
+    /**
+     * Maximum number of rows in a single parallel filter task. Page frames larger than
+     * this are split into several tasks, so that a single partition can be filtered by
+     * more than one worker.
+     *
+     * @return row count
+     */
+    long getParallelFilterFrameRowCount();
+
+    long getParallelGroupByFrameRowCount();
+
+    boolean isParallelSampleByEnabled();
+
+    boolean isFilterCompilerEnabled();
+
+    boolean isFilterKernelEnabled();
+
+    boolean isParallelHashJoinEnabled();
+
+    long getParallelHashJoinFrameRowCount();
+
+    boolean isAsOfJoinFrameSearchEnabled();
+
+    boolean isParallelLatestByEnabled();
+
+    long getParallelLatestByFrameRowCount();
+
     int getReaderPoolMaxSegments();
 
     CharSequence getRoot();
@@ -166,6 +197,10 @@ public interface CairoConfiguration {
 
     boolean isParallelIndexingEnabled();
 
+    boolean isParallelFilterEnabled();
+
+    boolean isParallelGroupByEnabled();
+
     /**
      * This holds table metadata, which is usually quite small. 16K page should be adequate.
      *
@@ -209,6 +244,46 @@ public interface CairoConfiguration {
 
     int getVectorAggregateQueueCapacity();
 
+    int getPageFrameFilterQueueCapacity();
+
+    int getPageFrameGroupByQueueCapacity();
+
+    int getPageFrameJoinQueueCapacity();
+
+    int getLatestByQueueCapacity();
+
+    int getTextImportQueueCapacity();
+
+    boolean isPartitionCompressionEnabled();
+
+    long getPartitionCompressionCheckInterval();
+
+    long getPartitionDecompressionMemoryLimit();
+
+    boolean isStrUtf8Enabled();
+
+    boolean isPartitionStatsEnabled();
+
+    /**
+     * Number of distinct values per partition Bloom filter of a column is sized for.
+     * Filter is created with this size and keeps it for the lifetime of the partition.
+     */
+    long getBloomFilterCapacity();
+
+    /**
+     * Number of rows WAL segment accumulates before it starts over. Segment only starts over
+     * once all of its rows are applied to the table.
+     */
+    long getWalSegmentRolloverRowCount();
+
+    /**
+     * Root directory of cold storage volume, old partitions of tables with "coldPartitionAge"
+     * parameter are moved there. Null when partitions are never moved.
+     */
+    CharSequence getColdRoot();
+
+    long getColdPartitionCheckInterval();
+
     int getO3CallbackQueueCapacity();
 
     int getO3PartitionQueueCapacity();
@@ -32,6 +32,7 @@ import io.questdb.cairo.pool.WriterPool;
 import io.questdb.cairo.pool.WriterSource;
 import io.questdb.cairo.sql.ReaderOutOfDateException;
 import io.questdb.cairo.vm.AppendOnlyVirtualMemory;
+import io.questdb.cairo.wal.WalWriterPool;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.*;
@@ -50,6 +51,7 @@ public class CairoEngine implements Closeable, WriterSource {
 
     private final WriterPool writerPool;
     private final ReaderPool readerPool;
+    private final WalWriterPool walWriterPool;
     private final CairoConfiguration configuration;
     private final WriterMaintenanceJob writerMaintenanceJob;
     private final MessageBus messageBus;
@@ -65,6 +67,7 @@ public class CairoEngine implements Closeable, WriterSource {
         this.messageBus = new MessageBusImpl(configuration);
         this.writerPool = new WriterPool(configuration, messageBus);
         this.readerPool = new ReaderPool(configuration);
+        this.walWriterPool = new WalWriterPool(configuration, messageBus, this);
         this.writerMaintenanceJob = new WriterMaintenanceJob(configuration);
         this.telemetryQueue = new RingQueue<>(TelemetryTask::new, configuration.getTelemetryConfiguration().getQueueCapacity());
         this.telemetryPubSeq = new MPSequence(telemetryQueue.getCapacity());
@@ -103,11 +106,13 @@ public class CairoEngine implements Closeable, WriterSource {
     public boolean clear() {
         boolean b1 = readerPool.releaseAll();
         boolean b2 = writerPool.releaseAll();
+        walWriterPool.releaseAll();
         return b1 & b2;
     }
 
     @Override
     public void close() {
+        Misc.free(walWriterPool);
         Misc.free(writerPool);
         Misc.free(readerPool);
         freeTableId();
@@ -155,7 +160,9 @@ public class CairoEngine implements Closeable, WriterSource {
                 configuration.getRoot(),
                 struct,
                 configuration.getMkDirMode(),
-                (int) getNextTableId()
+                ColumnType.VERSION,
+                (int) getNextTableId(),
+                configuration.isStrUtf8Enabled()
         );
     }
 
@@ -185,7 +192,7 @@ public class CairoEngine implements Closeable, WriterSource {
     }
 
     public int getBusyWriterCount() {
-        return writerPool.getBusyCount();
+        return writerPool.getBusyCount() + walWriterPool.getBusyCount();
     }
 
     public CairoConfiguration getConfiguration() {
@@ -277,10 +284,38 @@ public class CairoEngine implements Closeable, WriterSource {
         return writerPool.get(tableName);
     }
 
+    /**
+     * Returns writer, which appends rows to WAL of the table. Any number of WAL writers can be
+     * taken for the same table at the same time, their rows are copied to the table by
+     * {@link io.questdb.cairo.wal.WalApplyJob}.
+     *
+     * @param securityContext security context
+     * @param tableName       name of WAL table
+     * @return WAL writer
+     */
+    @Override
+    public TableWriter getWalWriter(
+            CairoSecurityContext securityContext,
+            CharSequence tableName
+    ) {
+        securityContext.checkWritePermission();
+        try (TableReader reader = readerPool.get(tableName)) {
+            return walWriterPool.get(reader);
+        }
+    }
+
+    public WalWriterPool getWalWriterPool() {
+        return walWriterPool;
+    }
+
     public Job getWriterMaintenanceJob() {
         return writerMaintenanceJob;
     }
 
+    public boolean isWalTable(CharSequence tableName) {
+        return walWriterPool.isWalTable(tableName);
+    }
+
     public boolean lock(
             CairoSecurityContext securityContext,
             CharSequence tableName
@@ -333,10 +368,12 @@ public class CairoEngine implements Closeable, WriterSource {
 
     public void releaseAllWriters() {
         writerPool.releaseAll();
+        walWriterPool.releaseAll();
     }
 
     public boolean releaseInactive() {
         boolean useful = writerPool.releaseInactive();
+        useful |= walWriterPool.releaseInactive();
         useful |= readerPool.releaseInactive();
         return useful;
     }
@@ -349,9 +386,10 @@ public class CairoEngine implements Closeable, WriterSource {
         securityContext.checkWritePermission();
         if (lock(securityContext, tableName)) {
             try {
+                walWriterPool.remove(tableName);
                 path.of(configuration.getRoot()).concat(tableName).$();
                 int errno;
-                if ((errno = configuration.getFilesFacade().rmdir(path)) != 0) {
+                if ((errno = TableUtils.removeTableDir(configuration.getFilesFacade(), path)) != 0) {
                     LOG.error().$("remove failed [tableName='").utf8(tableName).$("', error=").$(errno).$(']').$();
                     throw CairoException.instance(errno).put("Table remove failed");
                 }
@@ -379,6 +417,7 @@ public class CairoEngine implements Closeable, WriterSource {
         securityContext.checkWritePermission();
         if (lock(securityContext, tableName)) {
             try {
+                walWriterPool.remove(tableName);
                 rename0(path, tableName, otherPath, newName);
             } finally {
                 unlock(securityContext, tableName, null, false);
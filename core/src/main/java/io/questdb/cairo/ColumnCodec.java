@@ -0,0 +1,325 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.vm.AppendOnlyVirtualMemory;
+import io.questdb.std.Unsafe;
+
+/**
+ * Codecs for column files of sealed partitions. Compressed file starts with
+ * a 16 byte header: int codec, int reserved and long value count, which is
+ * followed by codec specific payload.
+ * <ul>
+ * <li>TIMESTAMP - delta-of-delta, zig-zag encoded as variable length integers</li>
+ * <li>DOUBLE - XOR with previous value, only significant bytes of the XOR are stored</li>
+ * <li>SYMBOL - keys are bit-packed relative to the smallest key in the column, null key is
+ * packed as zero and other keys are shifted by one to keep bit width low</li>
+ * </ul>
+ */
+public final class ColumnCodec {
+    public static final int CODEC_DELTA_OF_DELTA = 1;
+    public static final int CODEC_XOR = 2;
+    public static final int CODEC_BIT_PACK = 3;
+    public static final long HEADER_SIZE = 16;
+    private static final long HEADER_OFFSET_VALUE_COUNT = 8;
+
+    private ColumnCodec() {
+    }
+
+    /**
+     * Encodes fixed size column values.
+     *
+     * @param columnType column type, must be supported by {@link #isSupported(int)}
+     * @param srcAddr    address of raw column values
+     * @param valueCount number of values to encode
+     * @param dst        memory compressed data is appended to
+     * @return size of compressed data including header
+     */
+    public static long compress(int columnType, long srcAddr, long valueCount, AppendOnlyVirtualMemory dst) {
+        final long offset = dst.getAppendOffset();
+        switch (columnType) {
+            case ColumnType.TIMESTAMP:
+                putHeader(dst, CODEC_DELTA_OF_DELTA, valueCount);
+                compressDeltaOfDelta(srcAddr, valueCount, dst);
+                break;
+            case ColumnType.DOUBLE:
+                putHeader(dst, CODEC_XOR, valueCount);
+                compressXor(srcAddr, valueCount, dst);
+                break;
+            case ColumnType.SYMBOL:
+                putHeader(dst, CODEC_BIT_PACK, valueCount);
+                compressBitPack(srcAddr, valueCount, dst);
+                break;
+            default:
+                throw CairoException.instance(0).put("compression is not supported [type=").put(ColumnType.nameOf(columnType)).put(']');
+        }
+        return dst.getAppendOffset() - offset;
+    }
+
+    /**
+     * Decodes compressed column into memory of {@link #getDecompressedSize(long)} bytes.
+     *
+     * @param srcAddr address of compressed data, starting with header
+     * @param srcSize size of compressed data
+     * @param dstAddr address of memory to decode values to
+     */
+    public static void decompress(long srcAddr, long srcSize, long dstAddr) {
+        if (srcSize < HEADER_SIZE) {
+            throw CairoException.instance(0).put("compressed column is too short [size=").put(srcSize).put(']');
+        }
+        final long valueCount = Unsafe.getUnsafe().getLong(srcAddr + HEADER_OFFSET_VALUE_COUNT);
+        if (valueCount < 0) {
+            throw corrupt(srcAddr, srcAddr + HEADER_OFFSET_VALUE_COUNT);
+        }
+        final long lo = srcAddr + HEADER_SIZE;
+        final long hi = srcAddr + srcSize;
+        switch (Unsafe.getUnsafe().getInt(srcAddr)) {
+            case CODEC_DELTA_OF_DELTA:
+                decompressDeltaOfDelta(srcAddr, lo, hi, valueCount, dstAddr);
+                break;
+            case CODEC_XOR:
+                decompressXor(srcAddr, lo, hi, valueCount, dstAddr);
+                break;
+            case CODEC_BIT_PACK:
+                decompressBitPack(srcAddr, lo, hi, valueCount, dstAddr);
+                break;
+            default:
+                throw CairoException.instance(0).put("unknown column codec [codec=").put(Unsafe.getUnsafe().getInt(srcAddr)).put(']');
+        }
+    }
+
+    /**
+     * @param srcAddr address of compressed data, starting with header
+     * @return number of bytes {@link #decompress(long, long, long)} writes, -1 when header is corrupt
+     */
+    public static long getDecompressedSize(long srcAddr) {
+        final long valueCount = Unsafe.getUnsafe().getLong(srcAddr + HEADER_OFFSET_VALUE_COUNT);
+        if (valueCount < 0 || valueCount > Long.MAX_VALUE / Long.BYTES) {
+            return -1;
+        }
+        return Unsafe.getUnsafe().getInt(srcAddr) == CODEC_BIT_PACK ? valueCount * Integer.BYTES : valueCount * Long.BYTES;
+    }
+
+    public static boolean isSupported(int columnType) {
+        return columnType == ColumnType.TIMESTAMP || columnType == ColumnType.DOUBLE || columnType == ColumnType.SYMBOL;
+    }
+
+    private static void compressBitPack(long srcAddr, long valueCount, AppendOnlyVirtualMemory dst) {
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (long i = 0; i < valueCount; i++) {
+            final long key = toPackedKey(Unsafe.getUnsafe().getInt(srcAddr + i * Integer.BYTES));
+            min = Math.min(min, key);
+            max = Math.max(max, key);
+        }
+        final int width = valueCount > 0 ? 64 - Long.numberOfLeadingZeros(max - min) : 0;
+        dst.putLong(min);
+        dst.putInt(width);
+        if (width == 0) {
+            return;
+        }
+
+        long word = 0;
+        int bits = 0;
+        for (long i = 0; i < valueCount; i++) {
+            final long v = toPackedKey(Unsafe.getUnsafe().getInt(srcAddr + i * Integer.BYTES)) - min;
+            word |= v << bits;
+            bits += width;
+            if (bits >= 64) {
+                dst.putLong(word);
+                bits -= 64;
+                // remaining high bits of the value that did not fit the word
+                word = bits > 0 ? v >>> (width - bits) : 0;
+            }
+        }
+        if (bits > 0) {
+            dst.putLong(word);
+        }
+    }
+
+    private static void compressDeltaOfDelta(long srcAddr, long valueCount, AppendOnlyVirtualMemory dst) {
+        if (valueCount == 0) {
+            return;
+        }
+        long prev = Unsafe.getUnsafe().getLong(srcAddr);
+        long prevDelta = 0;
+        dst.putLong(prev);
+        for (long i = 1; i < valueCount; i++) {
+            final long value = Unsafe.getUnsafe().getLong(srcAddr + i * Long.BYTES);
+            final long delta = value - prev;
+            putVarLong(dst, zigZag(delta - prevDelta));
+            prevDelta = delta;
+            prev = value;
+        }
+    }
+
+    private static void compressXor(long srcAddr, long valueCount, AppendOnlyVirtualMemory dst) {
+        long prev = 0;
+        for (long i = 0; i < valueCount; i++) {
+            final long bits = Unsafe.getUnsafe().getLong(srcAddr + i * Long.BYTES);
+            final long xor = bits ^ prev;
+            prev = bits;
+            if (xor == 0) {
+                dst.putByte((byte) 0);
+                continue;
+            }
+            final int leading = Long.numberOfLeadingZeros(xor) >>> 3;
+            final int trailing = Long.numberOfTrailingZeros(xor) >>> 3;
+            dst.putByte((byte) (0x80 | (leading << 3) | trailing));
+            long significant = xor >>> (trailing << 3);
+            for (int j = 0, n = 8 - leading - trailing; j < n; j++) {
+                dst.putByte((byte) significant);
+                significant >>>= 8;
+            }
+        }
+    }
+
+    private static void decompressBitPack(long srcAddr, long p, long hi, long valueCount, long dstAddr) {
+        if (p + Long.BYTES + Integer.BYTES > hi) {
+            throw corrupt(srcAddr, p);
+        }
+        final long min = Unsafe.getUnsafe().getLong(p);
+        final int width = Unsafe.getUnsafe().getInt(p + Long.BYTES);
+        p += Long.BYTES + Integer.BYTES;
+        if (width == 0) {
+            final int key = fromPackedKey(min);
+            for (long i = 0; i < valueCount; i++) {
+                Unsafe.getUnsafe().putInt(dstAddr + i * Integer.BYTES, key);
+            }
+            return;
+        }
+        if (width < 0 || width > 64) {
+            throw corrupt(srcAddr, p - Integer.BYTES);
+        }
+
+        final long mask = width == 64 ? -1L : (1L << width) - 1;
+        long word = 0;
+        int bits = 0;
+        for (long i = 0; i < valueCount; i++) {
+            long v;
+            if (bits >= width) {
+                v = word & mask;
+                word >>>= width;
+                bits -= width;
+            } else {
+                if (p + Long.BYTES > hi) {
+                    throw corrupt(srcAddr, p);
+                }
+                // value spans current and next word
+                final long next = Unsafe.getUnsafe().getLong(p);
+                p += Long.BYTES;
+                v = (word | (next << bits)) & mask;
+                word = width - bits < 64 ? next >>> (width - bits) : 0;
+                bits = 64 - (width - bits);
+            }
+            Unsafe.getUnsafe().putInt(dstAddr + i * Integer.BYTES, fromPackedKey(v + min));
+        }
+    }
+
+    private static void decompressDeltaOfDelta(long srcAddr, long p, long hi, long valueCount, long dstAddr) {
+        if (valueCount == 0) {
+            return;
+        }
+        if (p + Long.BYTES > hi) {
+            throw corrupt(srcAddr, p);
+        }
+        long value = Unsafe.getUnsafe().getLong(p);
+        long delta = 0;
+        p += Long.BYTES;
+        Unsafe.getUnsafe().putLong(dstAddr, value);
+        for (long i = 1; i < valueCount; i++) {
+            long raw = 0;
+            int shift = 0;
+            byte b;
+            do {
+                // 10 bytes is enough for any 64-bit value
+                if (p >= hi || shift > 63) {
+                    throw corrupt(srcAddr, p);
+                }
+                b = Unsafe.getUnsafe().getByte(p++);
+                raw |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            delta += (raw >>> 1) ^ -(raw & 1);
+            value += delta;
+            Unsafe.getUnsafe().putLong(dstAddr + i * Long.BYTES, value);
+        }
+    }
+
+    private static void decompressXor(long srcAddr, long p, long hi, long valueCount, long dstAddr) {
+        long prev = 0;
+        for (long i = 0; i < valueCount; i++) {
+            if (p >= hi) {
+                throw corrupt(srcAddr, p);
+            }
+            final int control = Unsafe.getUnsafe().getByte(p++) & 0xff;
+            if (control != 0) {
+                final int leading = (control >>> 3) & 0x07;
+                final int trailing = control & 0x07;
+                final int n = 8 - leading - trailing;
+                if (n < 1 || p + n > hi) {
+                    throw corrupt(srcAddr, p - 1);
+                }
+                long significant = 0;
+                for (int j = 0; j < n; j++) {
+                    significant |= (Unsafe.getUnsafe().getByte(p++) & 0xffL) << (j << 3);
+                }
+                prev ^= significant << (trailing << 3);
+            }
+            Unsafe.getUnsafe().putLong(dstAddr + i * Long.BYTES, prev);
+        }
+    }
+
+    private static CairoException corrupt(long srcAddr, long p) {
+        return CairoException.instance(0).put("compressed column is corrupt [offset=").put(p - srcAddr).put(']');
+    }
+
+    private static int fromPackedKey(long value) {
+        return value == 0 ? SymbolTable.VALUE_IS_NULL : (int) (value - 1);
+    }
+
+    private static void putHeader(AppendOnlyVirtualMemory dst, int codec, long valueCount) {
+        dst.putInt(codec);
+        dst.putInt(0);
+        dst.putLong(valueCount);
+    }
+
+    private static void putVarLong(AppendOnlyVirtualMemory dst, long value) {
+        while ((value & ~0x7fL) != 0) {
+            dst.putByte((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        dst.putByte((byte) value);
+    }
+
+    private static long toPackedKey(int key) {
+        return key == SymbolTable.VALUE_IS_NULL ? 0 : key + 1L;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
@@ -0,0 +1,275 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.LPSZ;
+
+import java.io.Closeable;
+
+/**
+ * Min, max and null count of numeric column values in a partition. Statistics are stored
+ * in "column.st" file of partition directory, which is 40 bytes long: long row count,
+ * long null count, double min, double max and row count again. Row count is repeated to
+ * detect a file torn by a concurrent update, such file is treated as missing.
+ * <p>
+ * Values of all supported types are kept as doubles. Conversion to double is monotonic,
+ * so a value range that does not intersect a filter in double domain does not intersect
+ * it in column domain either. Min and max exclude null values.
+ */
+public class ColumnStats implements Closeable {
+    public static final long FILE_SIZE = 5 * Long.BYTES;
+    private static final long OFFSET_ROW_COUNT = 0;
+    private static final long OFFSET_NULL_COUNT = 8;
+    private static final long OFFSET_MIN = 16;
+    private static final long OFFSET_MAX = 24;
+    private static final long OFFSET_ROW_COUNT_CHECK = 32;
+    private long buf = Unsafe.malloc(FILE_SIZE);
+    private long rowCount;
+    private long nullCount;
+    private double min;
+    private double max;
+
+    public ColumnStats() {
+        clear();
+    }
+
+    public static boolean isSupported(int columnType) {
+        switch (columnType) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Null value of integer column types as it is seen in double domain. BYTE and SHORT
+     * columns do not have null and floating point nulls are NaN, which does not satisfy
+     * any range.
+     *
+     * @param columnType column type
+     * @return null value or NaN when type does not have one
+     */
+    public static double nullValueOf(int columnType) {
+        switch (columnType) {
+            case ColumnType.INT:
+                return Numbers.INT_NaN;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return Numbers.LONG_NaN;
+            default:
+                return Double.NaN;
+        }
+    }
+
+    /**
+     * Accumulates statistics of column values.
+     *
+     * @param columnType column type, must be supported by {@link #isSupported(int)}
+     * @param address    address of first value
+     * @param count      number of values
+     */
+    public void add(int columnType, long address, long count) {
+        double min = this.min;
+        double max = this.max;
+        long nullCount = this.nullCount;
+        switch (columnType) {
+            case ColumnType.BYTE:
+                for (long p = address, lim = address + count; p < lim; p++) {
+                    final byte v = Unsafe.getUnsafe().getByte(p);
+                    min = Math.min(min, v);
+                    max = Math.max(max, v);
+                }
+                break;
+            case ColumnType.SHORT:
+                for (long p = address, lim = address + count * Short.BYTES; p < lim; p += Short.BYTES) {
+                    final short v = Unsafe.getUnsafe().getShort(p);
+                    min = Math.min(min, v);
+                    max = Math.max(max, v);
+                }
+                break;
+            case ColumnType.INT:
+                for (long p = address, lim = address + count * Integer.BYTES; p < lim; p += Integer.BYTES) {
+                    final int v = Unsafe.getUnsafe().getInt(p);
+                    if (v == Numbers.INT_NaN) {
+                        nullCount++;
+                    } else {
+                        min = Math.min(min, v);
+                        max = Math.max(max, v);
+                    }
+                }
+                break;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                for (long p = address, lim = address + count * Long.BYTES; p < lim; p += Long.BYTES) {
+                    final long v = Unsafe.getUnsafe().getLong(p);
+                    if (v == Numbers.LONG_NaN) {
+                        nullCount++;
+                    } else {
+                        min = Math.min(min, v);
+                        max = Math.max(max, v);
+                    }
+                }
+                break;
+            case ColumnType.FLOAT:
+                for (long p = address, lim = address + count * Float.BYTES; p < lim; p += Float.BYTES) {
+                    final float v = Unsafe.getUnsafe().getFloat(p);
+                    if (v != v) {
+                        nullCount++;
+                    } else {
+                        min = Math.min(min, v);
+                        max = Math.max(max, v);
+                    }
+                }
+                break;
+            case ColumnType.DOUBLE:
+                for (long p = address, lim = address + count * Double.BYTES; p < lim; p += Double.BYTES) {
+                    final double v = Unsafe.getUnsafe().getDouble(p);
+                    if (v != v) {
+                        nullCount++;
+                    } else {
+                        min = Math.min(min, v);
+                        max = Math.max(max, v);
+                    }
+                }
+                break;
+            default:
+                throw CairoException.instance(0).put("statistics are not supported [type=").put(ColumnType.nameOf(columnType)).put(']');
+        }
+        this.min = min;
+        this.max = max;
+        this.nullCount = nullCount;
+        this.rowCount += count;
+    }
+
+    /**
+     * Accumulates rows above column top. Readers return null for them, which is zero
+     * for BYTE and SHORT columns.
+     *
+     * @param columnType column type
+     * @param count      number of rows
+     */
+    public void addTop(int columnType, long count) {
+        if (count > 0) {
+            if (columnType == ColumnType.BYTE || columnType == ColumnType.SHORT) {
+                min = Math.min(min, 0);
+                max = Math.max(max, 0);
+            } else {
+                nullCount += count;
+            }
+            rowCount += count;
+        }
+    }
+
+    public void clear() {
+        rowCount = 0;
+        nullCount = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    @Override
+    public void close() {
+        if (buf != 0) {
+            Unsafe.free(buf, FILE_SIZE);
+            buf = 0;
+        }
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public long getNullCount() {
+        return nullCount;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Reads statistics from file.
+     *
+     * @param ff   files facade
+     * @param name path to statistics file
+     * @return false when file does not exist or it is incomplete, statistics are cleared in this case
+     */
+    public boolean read(FilesFacade ff, LPSZ name) {
+        clear();
+        final long fd = ff.openRO(name);
+        if (fd < 0) {
+            return false;
+        }
+        try {
+            if (ff.read(fd, buf, FILE_SIZE, 0) != FILE_SIZE) {
+                return false;
+            }
+            final long rowCount = Unsafe.getUnsafe().getLong(buf + OFFSET_ROW_COUNT);
+            if (rowCount != Unsafe.getUnsafe().getLong(buf + OFFSET_ROW_COUNT_CHECK)) {
+                return false;
+            }
+            this.rowCount = rowCount;
+            this.nullCount = Unsafe.getUnsafe().getLong(buf + OFFSET_NULL_COUNT);
+            this.min = Unsafe.getUnsafe().getDouble(buf + OFFSET_MIN);
+            this.max = Unsafe.getUnsafe().getDouble(buf + OFFSET_MAX);
+            return true;
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    public void write(FilesFacade ff, LPSZ name) {
+        final long fd = TableUtils.openFileRWOrFail(ff, name);
+        try {
+            Unsafe.getUnsafe().putLong(buf + OFFSET_ROW_COUNT, rowCount);
+            Unsafe.getUnsafe().putLong(buf + OFFSET_NULL_COUNT, nullCount);
+            Unsafe.getUnsafe().putDouble(buf + OFFSET_MIN, min);
+            Unsafe.getUnsafe().putDouble(buf + OFFSET_MAX, max);
+            Unsafe.getUnsafe().putLong(buf + OFFSET_ROW_COUNT_CHECK, rowCount);
+            if (ff.write(fd, buf, FILE_SIZE, 0) != FILE_SIZE) {
+                throw CairoException.instance(ff.errno()).put("could not write column stats [fd=").put(fd).put(']');
+            }
+        } finally {
+            ff.close(fd);
+        }
+    }
+}
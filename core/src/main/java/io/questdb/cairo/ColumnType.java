@@ -30,7 +30,7 @@ import io.questdb.std.LowerCaseAsciiCharSequenceIntHashMap;
 
 public final class ColumnType {
     // column type version as written to the metadata file
-    public static final int VERSION = 419;
+    public static final int VERSION = 420;
     public static final int VERSION_THAT_ADDED_TABLE_ID = 417;
 
     public static final int UNDEFINED = -1;
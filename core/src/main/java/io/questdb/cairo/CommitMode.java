@@ -22,10 +22,13 @@
  *
  ******************************************************************************/
 
+
 package io.questdb.cairo;
 
 public final class CommitMode {
     public static final int ASYNC = 0;
     public static final int SYNC = 1;
     public static final int NOSYNC = 2;
+    // commit is published without sync and becomes durable with the next group sync, see GroupCommitScheduler
+    public static final int GROUP = 3;
 }
@@ -69,6 +69,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024 * 1024;
     }
 
+    @Override
+    public boolean isParallelImportEnabled() {
+        return false;
+    }
+
+    @Override
+    public long getParallelImportChunkSize() {
+        return 1024 * 1024;
+    }
+
     @Override
     public int getCopyPoolCapacity() {
         return 16;
@@ -376,6 +386,66 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isParallelFilterEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isParallelGroupByEnabled() {
+        return true;
+    }
+
+    @Override
+    public long getParallelFilterFrameRowCount() {
+        return 10_000;
+    }
+
+    @Override
+    public long getParallelGroupByFrameRowCount() {
+        return 10_000;
+    }
+
+    @Override
+    public boolean isParallelSampleByEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isFilterCompilerEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isFilterKernelEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isParallelHashJoinEnabled() {
+        return true;
+    }
+
+    @Override
+    public long getParallelHashJoinFrameRowCount() {
+        return 10_000;
+    }
+
+    @Override
+    public boolean isAsOfJoinFrameSearchEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isParallelLatestByEnabled() {
+        return true;
+    }
+
+    @Override
+    public long getParallelLatestByFrameRowCount() {
+        return 10_000;
+    }
+
     @Override
     public int getSqlJoinMetadataPageSize() {
         return 16 * 1024;
@@ -471,6 +541,76 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024;
     }
 
+    @Override
+    public int getPageFrameFilterQueueCapacity() {
+        return 1024;
+    }
+
+    @Override
+    public int getPageFrameGroupByQueueCapacity() {
+        return 1024;
+    }
+
+    @Override
+    public int getPageFrameJoinQueueCapacity() {
+        return 1024;
+    }
+
+    @Override
+    public int getLatestByQueueCapacity() {
+        return 1024;
+    }
+
+    @Override
+    public int getTextImportQueueCapacity() {
+        return 64;
+    }
+
+    @Override
+    public boolean isPartitionCompressionEnabled() {
+        return false;
+    }
+
+    @Override
+    public long getPartitionCompressionCheckInterval() {
+        return 60_000;
+    }
+
+    @Override
+    public long getPartitionDecompressionMemoryLimit() {
+        return 256 * 1024 * 1024;
+    }
+
+    @Override
+    public boolean isStrUtf8Enabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isPartitionStatsEnabled() {
+        return false;
+    }
+
+    @Override
+    public long getBloomFilterCapacity() {
+        return 1_048_576;
+    }
+
+    @Override
+    public long getWalSegmentRolloverRowCount() {
+        return 200_000;
+    }
+
+    @Override
+    public CharSequence getColdRoot() {
+        return null;
+    }
+
+    @Override
+    public long getColdPartitionCheckInterval() {
+        return 60_000;
+    }
+
     @Override
     public int getO3CallbackQueueCapacity() {
         return 1024;
@@ -41,6 +41,7 @@ import static io.questdb.cairo.TableUtils.*;
 public class EngineMigration {
     public static final int VERSION_TX_STRUCT_UPDATE_1 = 418;
     public static final int VERSION_TBL_META_HYSTERESIS = 419;
+    public static final int VERSION_STR_UTF8 = 420;
 
     // All offsets hardcoded here in case TableUtils offset calculation changes
     // in future code version
@@ -165,6 +166,8 @@ public class EngineMigration {
                                             MigrationAction migration = getMigrationToVersion(i);
                                             try {
                                                 if (migration != null) {
+                                                    // actions are not required to restore table path
+                                                    path.trimTo(plen);
                                                     LOG.info().$("upgrading table [path=").$(path).$(",toVersion=").$(i).I$();
                                                     migration.migrate(context);
                                                 }
@@ -475,5 +478,7 @@ public class EngineMigration {
         setByVersion(VERSION_THAT_ADDED_TABLE_ID, MigrationActions::assignTableId, 1);
         setByVersion(VERSION_TX_STRUCT_UPDATE_1, MigrationActions::rebuildTransactionFile, 0);
         setByVersion(VERSION_TBL_META_HYSTERESIS, MigrationActions::addTblMetaHysteresis, 0);
+        // STRING columns written before VERSION_STR_UTF8 keep UTF-16, the column flag decides how they are read
+        setByVersion(VERSION_STR_UTF8, null, 0);
     }
 }
@@ -25,12 +25,25 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrame;
+import org.jetbrains.annotations.Nullable;
 
 public class FullBwdDataFrameCursor extends AbstractFullDataFrameCursor {
 
+    public FullBwdDataFrameCursor() {
+        this(null);
+    }
+
+    public FullBwdDataFrameCursor(@Nullable PartitionPruner pruner) {
+        super(pruner);
+    }
+
     @Override
     public DataFrame next() {
         while (this.partitionIndex > -1) {
+            if (pruner != null && pruner.canSkip(reader, partitionIndex)) {
+                partitionIndex--;
+                continue;
+            }
             final long hi = reader.openPartition(partitionIndex);
             if (hi < 1) {
                 // this partition is missing, skip
@@ -38,6 +51,8 @@ public class FullBwdDataFrameCursor extends AbstractFullDataFrameCursor {
             } else {
                 frame.partitionIndex = partitionIndex;
                 frame.rowHi = hi;
+                // partitions are read backwards, there is no next partition to read ahead
+                adviseAccess(partitionIndex, partitionHi);
                 partitionIndex--;
                 return frame;
 
@@ -26,16 +26,28 @@ package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrameCursor;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
+import org.jetbrains.annotations.Nullable;
 
 public class FullBwdDataFrameCursorFactory extends AbstractDataFrameCursorFactory {
-    private final FullBwdDataFrameCursor cursor = new FullBwdDataFrameCursor();
+    private final FullBwdDataFrameCursor cursor;
 
     public FullBwdDataFrameCursorFactory(CairoEngine engine, String tableName, long tableVersion) {
-        super(engine, tableName, tableVersion);
+        this(engine, tableName, tableVersion, null);
+    }
+
+    public FullBwdDataFrameCursorFactory(CairoEngine engine, String tableName, long tableVersion, @Nullable PartitionPruner pruner) {
+        super(engine, tableName, tableVersion, pruner);
+        this.cursor = new FullBwdDataFrameCursor(pruner);
     }
 
     @Override
     public DataFrameCursor getCursor(SqlExecutionContext executionContext) {
         return cursor.of(getReader(executionContext.getCairoSecurityContext()));
     }
+
+    @Override
+    public void setAccessPattern(int advice, IntList columnIndexes) {
+        cursor.setAccessPattern(advice, columnIndexes);
+    }
 }
\ No newline at end of file
@@ -29,9 +29,22 @@ import org.jetbrains.annotations.Nullable;
 
 public class FullFwdDataFrameCursor extends AbstractFullDataFrameCursor {
 
+    public FullFwdDataFrameCursor() {
+        this(null);
+    }
+
+    public FullFwdDataFrameCursor(@Nullable PartitionPruner pruner) {
+        super(pruner);
+    }
+
     @Override
     public @Nullable DataFrame next() {
         while (this.partitionIndex < partitionHi) {
+            if (pruner != null && pruner.canSkip(reader, partitionIndex)) {
+                // statistics rule out filter matches, partition is not opened
+                partitionIndex++;
+                continue;
+            }
             final long hi = getTableReader().openPartition(partitionIndex);
             if (hi < 1) {
                 // this partition is missing, skip
@@ -39,6 +52,7 @@ public class FullFwdDataFrameCursor extends AbstractFullDataFrameCursor {
             } else {
                 frame.partitionIndex = partitionIndex;
                 frame.rowHi = hi;
+                adviseAccess(partitionIndex, partitionIndex + 1);
                 partitionIndex++;
                 return frame;
 
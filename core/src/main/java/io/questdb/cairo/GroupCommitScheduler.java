@@ -0,0 +1,156 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.LongList;
+import io.questdb.std.str.Path;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Makes commits of {@link CommitMode#GROUP} mode durable in batches. Writer publishes its
+ * commit without syncing column and transaction files and takes a ticket. Single file system
+ * sync then makes durable every commit, which took its ticket before the sync started,
+ * regardless of how many tables and columns these commits touched.
+ * <p>
+ * Syncs are issued by {@link GroupCommitJob}. Thread that needs its commit acknowledged waits for
+ * its ticket and issues sync itself when job is not running. Commits that arrive while sync is in
+ * progress are all covered by the next sync.
+ */
+public class GroupCommitScheduler {
+    private static final Log LOG = LogFactory.getLog(GroupCommitScheduler.class);
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final AtomicLong ticketSequence = new AtomicLong();
+    // triplets of first ticket, last ticket and errno of failed syncs, in ticket order
+    private final LongList failedRanges = new LongList();
+    // last ticket covered by sync attempt, successful or not
+    private volatile long syncedTicket;
+    private volatile long syncCount;
+
+    public GroupCommitScheduler(CairoConfiguration configuration) {
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+    }
+
+    /**
+     * Waits until commit is durable.
+     *
+     * @param ticket ticket returned by {@link #submit()}
+     * @throws CairoException when file system sync covering this ticket failed
+     */
+    public void await(long ticket) {
+        while (syncedTicket < ticket) {
+            sync();
+        }
+        final int index = failedRangeIndex(ticket);
+        if (index > -1) {
+            throw CairoException.instance((int) failedRanges.getQuick(index + 2)).put("could not sync file system [root=").put(root).put(']');
+        }
+    }
+
+    public long getSyncedTicket() {
+        return syncedTicket;
+    }
+
+    public long getSyncCount() {
+        return syncCount;
+    }
+
+    public long getTicket() {
+        return ticketSequence.get();
+    }
+
+    public boolean isDurable(long ticket) {
+        return syncedTicket >= ticket && failedRangeIndex(ticket) < 0;
+    }
+
+    /**
+     * Must be called after commit is published, i.e. after transaction file is updated.
+     *
+     * @return ticket to wait for
+     */
+    public long submit() {
+        return ticketSequence.incrementAndGet();
+    }
+
+    /**
+     * Syncs file system when there are pending tickets. Threads that call this method concurrently
+     * wait for sync in progress and then check if it covered their tickets.
+     *
+     * @return true when sync was performed
+     */
+    public boolean sync() {
+        if (syncedTicket >= ticketSequence.get()) {
+            return false;
+        }
+        synchronized (this) {
+            // tickets taken before this point have their data written
+            final long ticket = ticketSequence.get();
+            if (syncedTicket >= ticket) {
+                return false;
+            }
+            final Path path = Path.getThreadLocal(root).$();
+            final long fd = ff.openRO(path);
+            boolean synced = false;
+            int errno;
+            if (fd > -1) {
+                synced = ff.syncfs(fd) == 0;
+                errno = ff.errno();
+                ff.close(fd);
+            } else {
+                errno = ff.errno();
+            }
+            syncCount++;
+            if (!synced) {
+                // data of failed tickets may have been lost, they are never acknowledged
+                LOG.error().$("could not sync file system [root=").$(root).$(", errno=").$(errno).$(", tickets=").$(syncedTicket + 1).$("..").$(ticket).$(']').$();
+                synchronized (failedRanges) {
+                    failedRanges.add(syncedTicket + 1);
+                    failedRanges.add(ticket);
+                    failedRanges.add(errno);
+                }
+            }
+            syncedTicket = ticket;
+            return true;
+        }
+    }
+
+    private int failedRangeIndex(long ticket) {
+        synchronized (failedRanges) {
+            // failures are rare, list is short
+            for (int i = 0, n = failedRanges.size(); i < n; i += 3) {
+                if (ticket >= failedRanges.getQuick(i) && ticket <= failedRanges.getQuick(i + 1)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
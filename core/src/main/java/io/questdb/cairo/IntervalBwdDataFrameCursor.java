@@ -30,6 +30,7 @@ import io.questdb.cairo.vm.SinglePageMappedReadOnlyPageMemory;
 import io.questdb.griffin.model.RuntimeIntrinsicIntervalModel;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import org.jetbrains.annotations.Nullable;
 
 public class IntervalBwdDataFrameCursor extends AbstractIntervalDataFrameCursor {
 
@@ -45,7 +46,11 @@ public class IntervalBwdDataFrameCursor extends AbstractIntervalDataFrameCursor
      * @param timestampIndex index of timestamp column in the readr that is used by this cursor
      */
     public IntervalBwdDataFrameCursor(RuntimeIntrinsicIntervalModel intervals, int timestampIndex) {
-        super(intervals, timestampIndex);
+        this(intervals, timestampIndex, null);
+    }
+
+    public IntervalBwdDataFrameCursor(RuntimeIntrinsicIntervalModel intervals, int timestampIndex, @Nullable PartitionPruner pruner) {
+        super(intervals, timestampIndex, pruner);
     }
 
     @Override
@@ -57,6 +62,10 @@ public class IntervalBwdDataFrameCursor extends AbstractIntervalDataFrameCursor
             // are working with timestamp. Timestamp column cannot be added to existing table.
             final int currentInterval = intervalsHi - 1;
             final int currentPartition = partitionHi - 1;
+            if (pruner != null && pruner.canSkip(reader, currentPartition)) {
+                skipPartition(currentPartition);
+                continue;
+            }
             long rowCount = reader.openPartition(currentPartition);
             if (rowCount > 0) {
 
@@ -123,6 +132,7 @@ public class IntervalBwdDataFrameCursor extends AbstractIntervalDataFrameCursor
 
                 if (lo < hi) {
                     dataFrame.partitionIndex = currentPartition;
+                    adviseAccess(currentPartition);
                     dataFrame.rowLo = lo;
                     dataFrame.rowHi = hi;
                     sizeSoFar += hi - lo;
@@ -27,7 +27,9 @@ package io.questdb.cairo;
 import io.questdb.cairo.sql.DataFrameCursor;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.model.RuntimeIntrinsicIntervalModel;
+import io.questdb.std.IntList;
 import io.questdb.std.Misc;
+import org.jetbrains.annotations.Nullable;
 
 public class IntervalBwdDataFrameCursorFactory extends AbstractDataFrameCursorFactory {
     private final IntervalBwdDataFrameCursor cursor;
@@ -40,8 +42,19 @@ public class IntervalBwdDataFrameCursorFactory extends AbstractDataFrameCursorFa
             RuntimeIntrinsicIntervalModel intervals,
             int timestampIndex
     ) {
-        super(engine, tableName, tableVersion);
-        this.cursor = new IntervalBwdDataFrameCursor(intervals, timestampIndex);
+        this(engine, tableName, tableVersion, intervals, timestampIndex, null);
+    }
+
+    public IntervalBwdDataFrameCursorFactory(
+            CairoEngine engine,
+            String tableName,
+            long tableVersion,
+            RuntimeIntrinsicIntervalModel intervals,
+            int timestampIndex,
+            @Nullable PartitionPruner pruner
+    ) {
+        super(engine, tableName, tableVersion, pruner);
+        this.cursor = new IntervalBwdDataFrameCursor(intervals, timestampIndex, pruner);
         this.intervals = intervals;
     }
 
@@ -51,8 +64,14 @@ public class IntervalBwdDataFrameCursorFactory extends AbstractDataFrameCursorFa
         return cursor;
     }
 
+    @Override
+    public void setAccessPattern(int advice, IntList columnIndexes) {
+        cursor.setAccessPattern(advice, columnIndexes);
+    }
+
     @Override
     public void close() {
+        super.close();
         Misc.free(intervals);
     }
 
@@ -27,6 +27,7 @@ package io.questdb.cairo;
 import io.questdb.cairo.sql.DataFrame;
 import io.questdb.cairo.vm.ReadOnlyVirtualMemory;
 import io.questdb.griffin.model.RuntimeIntrinsicIntervalModel;
+import org.jetbrains.annotations.Nullable;
 
 public class IntervalFwdDataFrameCursor extends AbstractIntervalDataFrameCursor {
     /**
@@ -39,7 +40,11 @@ public class IntervalFwdDataFrameCursor extends AbstractIntervalDataFrameCursor
      * @param timestampIndex index of timestamp column in the readr that is used by this cursor
      */
     public IntervalFwdDataFrameCursor(RuntimeIntrinsicIntervalModel intervals, int timestampIndex) {
-        super(intervals, timestampIndex);
+        this(intervals, timestampIndex, null);
+    }
+
+    public IntervalFwdDataFrameCursor(RuntimeIntrinsicIntervalModel intervals, int timestampIndex, @Nullable PartitionPruner pruner) {
+        super(intervals, timestampIndex, pruner);
     }
 
     @Override
@@ -49,6 +54,12 @@ public class IntervalFwdDataFrameCursor extends AbstractIntervalDataFrameCursor
         while (intervalsLo < intervalsHi && partitionLo < partitionHi) {
             // We don't need to worry about column tops and null column because we
             // are working with timestamp. Timestamp column cannot be added to existing table.
+            if (pruner != null && pruner.canSkip(reader, partitionLo)) {
+                // statistics rule out filter matches, partition is not opened
+                partitionLimit = 0;
+                partitionLo++;
+                continue;
+            }
             long rowCount = reader.openPartition(partitionLo);
             if (rowCount > 0) {
 
@@ -94,6 +105,7 @@ public class IntervalFwdDataFrameCursor extends AbstractIntervalDataFrameCursor
 
                 if (lo < hi) {
                     dataFrame.partitionIndex = partitionLo;
+                    adviseAccess(partitionLo);
                     dataFrame.rowLo = lo;
                     dataFrame.rowHi = hi;
                     sizeSoFar += (hi - lo);
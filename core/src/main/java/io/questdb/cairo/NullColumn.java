@@ -61,6 +61,10 @@ public class NullColumn implements MappedReadOnlyMemory {
     public void growToFileSize() {
     }
 
+    @Override
+    public void advise(int advice) {
+    }
+
     @Override
     public BinarySequence getBin(long offset) {
         return null;
@@ -155,6 +159,21 @@ public class NullColumn implements MappedReadOnlyMemory {
         return TableUtils.NULL_LEN;
     }
 
+    @Override
+    public CharSequence getStrUtf8(long offset) {
+        return null;
+    }
+
+    @Override
+    public CharSequence getStrUtf8B(long offset) {
+        return null;
+    }
+
+    @Override
+    public int getStrUtf8Len(long offset) {
+        return TableUtils.NULL_LEN;
+    }
+
     @Override
     public void grow(long size) {
     }
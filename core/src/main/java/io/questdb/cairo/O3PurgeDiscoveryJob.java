@@ -168,7 +168,7 @@ public class O3PurgeDiscoveryJob extends AbstractQueueConsumerJob<O3PurgeDiscove
             long name,
             int type
     ) {
-        if (type == Files.DT_DIR) {
+        if (type == Files.DT_DIR || type == Files.DT_LNK) {
             nativeLPSZ.of(name);
             if (Chars.notDots(nativeLPSZ) && Chars.startsWith(nativeLPSZ, sink)) {
                 // extract txn from name
@@ -59,7 +59,7 @@ public class O3PurgeJob extends AbstractQueueConsumerJob<O3PurgeTask> {
             TableUtils.setPathForPartition(path, partitionBy, partitionTimestamp, false);
             TableUtils.txnPartitionConditionally(path, nameTxnToRemove);
             path.slash$();
-            if ((errno = ff.rmdir(path)) == 0) {
+            if ((errno = TableUtils.removePartitionDir(ff, path)) == 0) {
                 LOG.info().
                         $("purged [path=").$(path)
                         .$(", readerTxn=").$(readerTxn)
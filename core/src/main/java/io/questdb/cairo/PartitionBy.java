@@ -39,6 +39,8 @@ public final class PartitionBy {
      * all data is stored in a single directory
      */
     public static final int NONE = 3;
+    public static final int HOUR = 4;
+    public static final int WEEK = 5;
     private final static CharSequenceIntHashMap nameToIndexMap = new CharSequenceIntHashMap();
 
     static {
@@ -46,6 +48,8 @@ public final class PartitionBy {
         nameToIndexMap.put("MONTH", MONTH);
         nameToIndexMap.put("YEAR", YEAR);
         nameToIndexMap.put("NONE", NONE);
+        nameToIndexMap.put("HOUR", HOUR);
+        nameToIndexMap.put("WEEK", WEEK);
     }
 
     private PartitionBy() {
@@ -65,6 +69,10 @@ public final class PartitionBy {
                 return "YEAR";
             case NONE:
                 return "NONE";
+            case HOUR:
+                return "HOUR";
+            case WEEK:
+                return "WEEK";
             default:
                 return "UNKNOWN";
         }
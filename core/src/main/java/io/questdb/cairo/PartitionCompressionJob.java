@@ -0,0 +1,109 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.Chars;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.FindVisitor;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Periodically scans tables and compresses column files of their sealed partitions,
+ * see {@link TableWriter#compressSealedPartitions(int)}. Tables with busy writers are
+ * skipped until next scan. One partition per table is compressed at a time and scan
+ * repeats without delay while there is work to do, this way worker is not blocked for
+ * long when there is a lot of history to compress.
+ */
+public class PartitionCompressionJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PartitionCompressionJob.class);
+    private final CairoEngine engine;
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final MicrosecondClock clock;
+    private final long checkInterval;
+    private final Path path = new Path();
+    private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+    private final FindVisitor onFind = this::onFind;
+    private long nextCheck = 0;
+    private int compressedCount;
+
+    public PartitionCompressionJob(CairoEngine engine) {
+        final CairoConfiguration configuration = engine.getConfiguration();
+        this.engine = engine;
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+        this.clock = configuration.getMicrosecondClock();
+        this.checkInterval = configuration.getPartitionCompressionCheckInterval() * 1000;
+    }
+
+    @Override
+    public void close() {
+        path.close();
+    }
+
+    private void compressTable(CharSequence tableName) {
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+            compressedCount += writer.compressSealedPartitions(1);
+        } catch (EntryUnavailableException ignore) {
+            // writer is busy, try next time
+        } catch (CairoException e) {
+            LOG.error().$("could not compress [table=").utf8(tableName)
+                    .$(", ex=").$(e.getFlyweightMessage())
+                    .$(", errno=").$(e.getErrno())
+                    .$(']').$();
+        }
+    }
+
+    private void onFind(long file, int type) {
+        nativeLPSZ.of(file);
+        if (type == Files.DT_DIR && nativeLPSZ.charAt(0) != '.' && TableUtils.exists(ff, path, root, nativeLPSZ) == TableUtils.TABLE_EXISTS) {
+            compressTable(Chars.toString(nativeLPSZ));
+        }
+    }
+
+    @Override
+    protected boolean runSerially() {
+        final long t = clock.getTicks();
+        if (t < nextCheck) {
+            return false;
+        }
+        compressedCount = 0;
+        ff.iterateDir(path.of(root).$(), onFind);
+        if (compressedCount == 0) {
+            nextCheck = t + checkInterval;
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+import java.io.Closeable;
+
+/**
+ * Skips partitions that cannot contain rows matching a filter. Filter is reduced to a conjunction
+ * of inclusive value ranges of numeric columns, which are checked against min, max and null count
+ * of column values stored by writer in partition statistics. Equality lookups on columns that have
+ * bloom filter are checked against filter of the partition. Partitions without statistics or filter
+ * are never skipped and row filter is still applied to partitions that are not skipped.
+ */
+public class PartitionPruner implements Closeable {
+    private final ObjList<Predicate> predicates = new ObjList<>();
+    private final ObjList<BloomFilterPredicate> bloomFilterPredicates = new ObjList<>();
+    // allocated on first use, factory that owns pruner can be discarded without being closed
+    private ColumnStats stats;
+    private BloomFilter bloomFilter;
+
+    /**
+     * Adds predicate that is satisfied only by column values equal to one of values with given hashes.
+     *
+     * @param columnIndex index of column in table reader, column must have bloom filter
+     * @param hashes      hashes of values as calculated by {@link BloomFilter} hash functions, list is copied
+     */
+    public void addBloomFilter(int columnIndex, LongList hashes) {
+        bloomFilterPredicates.add(new BloomFilterPredicate(columnIndex, hashes));
+    }
+
+    /**
+     * Adds predicate that is satisfied only by null values of the column.
+     *
+     * @param columnIndex index of column in table reader
+     */
+    public void addNull(int columnIndex) {
+        predicates.add(new Predicate(columnIndex, Double.NaN, Double.NaN, Double.NaN, true));
+    }
+
+    /**
+     * Adds predicate that is satisfied only by column values within inclusive range.
+     *
+     * @param columnIndex index of column in table reader
+     * @param columnType  type of column, must be supported by {@link ColumnStats#isSupported(int)}
+     * @param lo          low boundary of range in double domain
+     * @param hi          high boundary of range in double domain
+     */
+    public void addRange(int columnIndex, int columnType, double lo, double hi) {
+        predicates.add(new Predicate(columnIndex, lo, hi, ColumnStats.nullValueOf(columnType), false));
+    }
+
+    public boolean canSkip(TableReader reader, int partitionIndex) {
+        if (predicates.size() > 0 && stats == null) {
+            stats = new ColumnStats();
+        }
+        for (int i = 0, n = predicates.size(); i < n; i++) {
+            final Predicate predicate = predicates.getQuick(i);
+            if (reader.readColumnStats(partitionIndex, predicate.columnIndex, stats) && predicate.excludes(stats)) {
+                return true;
+            }
+        }
+
+        if (bloomFilterPredicates.size() > 0 && bloomFilter == null) {
+            bloomFilter = new BloomFilter();
+        }
+        for (int i = 0, n = bloomFilterPredicates.size(); i < n; i++) {
+            final BloomFilterPredicate predicate = bloomFilterPredicates.getQuick(i);
+            if (reader.openBloomFilter(partitionIndex, predicate.columnIndex, bloomFilter)) {
+                try {
+                    if (predicate.excludes(bloomFilter)) {
+                        return true;
+                    }
+                } finally {
+                    bloomFilter.close();
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        stats = Misc.free(stats);
+        bloomFilter = Misc.free(bloomFilter);
+    }
+
+    public boolean isEmpty() {
+        return predicates.size() == 0 && bloomFilterPredicates.size() == 0;
+    }
+
+    private static class BloomFilterPredicate {
+        private final int columnIndex;
+        private final LongList hashes;
+
+        private BloomFilterPredicate(int columnIndex, LongList hashes) {
+            this.columnIndex = columnIndex;
+            this.hashes = new LongList(hashes);
+        }
+
+        private boolean excludes(BloomFilter filter) {
+            for (int i = 0, n = hashes.size(); i < n; i++) {
+                if (filter.mightContain(hashes.getQuick(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class Predicate {
+        private final int columnIndex;
+        private final double lo;
+        private final double hi;
+        // null value of column as it is seen by comparison functions, NaN when it does not satisfy any range
+        private final double nullValue;
+        private final boolean isNull;
+
+        private Predicate(int columnIndex, double lo, double hi, double nullValue, boolean isNull) {
+            this.columnIndex = columnIndex;
+            this.lo = lo;
+            this.hi = hi;
+            this.nullValue = nullValue;
+            this.isNull = isNull;
+        }
+
+        private boolean excludes(ColumnStats stats) {
+            if (isNull) {
+                return stats.getNullCount() == 0;
+            }
+            // min is greater than max when partition has only nulls
+            if (stats.getMin() <= hi && stats.getMax() >= lo) {
+                return false;
+            }
+            return stats.getNullCount() == 0 || !(nullValue >= lo && nullValue <= hi);
+        }
+    }
+}
@@ -35,6 +35,8 @@ public class TableColumnMetadata {
     private String name;
     private int indexValueBlockCapacity;
     private boolean indexed;
+    private final boolean strUtf8;
+    private boolean bloomFilter;
 
     public TableColumnMetadata(String name, int type, @Nullable RecordMetadata metadata) {
         this(name, type, false, 0, false, metadata);
@@ -50,12 +52,25 @@ public class TableColumnMetadata {
             int indexValueBlockCapacity,
             boolean symbolTableStatic,
             @Nullable RecordMetadata metadata
+    ) {
+        this(name, type, indexFlag, indexValueBlockCapacity, symbolTableStatic, false, metadata);
+    }
+
+    public TableColumnMetadata(
+            String name,
+            int type,
+            boolean indexFlag,
+            int indexValueBlockCapacity,
+            boolean symbolTableStatic,
+            boolean strUtf8,
+            @Nullable RecordMetadata metadata
     ) {
         this.name = name;
         this.type = type;
         this.indexed = indexFlag;
         this.indexValueBlockCapacity = indexValueBlockCapacity;
         this.symbolTableStatic = symbolTableStatic;
+        this.strUtf8 = strUtf8;
         this.metadata = GenericRecordMetadata.copyOf(metadata);
     }
 
@@ -95,4 +110,16 @@ public class TableColumnMetadata {
     public boolean isSymbolTableStatic() {
         return symbolTableStatic;
     }
+
+    public boolean isStrUtf8() {
+        return strUtf8;
+    }
+
+    public boolean isBloomFilter() {
+        return bloomFilter;
+    }
+
+    public void setBloomFilter(boolean bloomFilter) {
+        this.bloomFilter = bloomFilter;
+    }
 }
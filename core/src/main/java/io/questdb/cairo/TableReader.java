@@ -26,6 +26,7 @@ package io.questdb.cairo;
 
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.vm.DecompressedReadOnlyMemory;
 import io.questdb.cairo.vm.MappedReadOnlyMemory;
 import io.questdb.cairo.vm.ReadOnlyVirtualMemory;
 import io.questdb.cairo.vm.SinglePageMappedReadOnlyPageMemory;
@@ -75,6 +76,8 @@ public class TableReader implements Closeable, SymbolTableSource {
     private long txn = TableUtils.INITIAL_TXN;
     private long tempMem8b = Unsafe.malloc(8);
     private boolean active;
+    // columns carry access pattern hint, which pooled reader must not pass onto next user
+    private boolean advised;
 
     public TableReader(CairoConfiguration configuration, CharSequence tableName) {
         this.configuration = configuration;
@@ -132,6 +135,24 @@ public class TableReader implements Closeable, SymbolTableSource {
         return 2 + base + index * 2;
     }
 
+    /**
+     * Hints operating system about the way columns of open partition are going to be accessed.
+     * Access pattern is reset back to normal when reader goes passive.
+     *
+     * @param partitionIndex index of open partition
+     * @param columnIndexes  indexes of columns to advise
+     * @param advice         one of Files.MADV_* constants
+     */
+    public void adviseColumns(int partitionIndex, IntList columnIndexes, int advice) {
+        final int base = getColumnBase(partitionIndex);
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            final int index = getPrimaryColumnIndex(base, columnIndexes.getQuick(i));
+            adviseColumn(index, advice);
+            adviseColumn(index + 1, advice);
+        }
+        advised |= advice == Files.MADV_SEQUENTIAL || advice == Files.MADV_RANDOM;
+    }
+
     public double avgDouble(int columnIndex) {
         double result = 0;
         long countTotal = 0;
@@ -298,6 +319,12 @@ public class TableReader implements Closeable, SymbolTableSource {
             active = false;
             txnScoreboard.releaseTxn(txn);
         }
+        if (advised) {
+            for (int i = 0, n = columns.size(); i < n; i++) {
+                adviseColumn(i, Files.MADV_NORMAL);
+            }
+            advised = false;
+        }
     }
 
     public boolean isOpen() {
@@ -354,6 +381,46 @@ public class TableReader implements Closeable, SymbolTableSource {
         return openPartition0(partitionIndex);
     }
 
+    /**
+     * Reads statistics of column values in partition without opening the partition. Writer
+     * only extends statistics with appended rows, so they can be used when they cover at least
+     * as many rows as this reader sees in the partition.
+     *
+     * @param partitionIndex index of partition
+     * @param columnIndex    index of column, column type must be supported by {@link ColumnStats#isSupported(int)}
+     * @param stats          statistics to populate
+     * @return false when partition does not have usable statistics
+     */
+    public boolean readColumnStats(int partitionIndex, int columnIndex, ColumnStats stats) {
+        try {
+            final Path path = pathGenPartitioned(partitionIndex);
+            TableUtils.txnPartitionConditionally(path, txFile.getPartitionNameTxn(partitionIndex));
+            return stats.read(ff, TableUtils.stFile(path, metadata.getColumnName(columnIndex)))
+                    && stats.getRowCount() >= txFile.getPartitionSize(partitionIndex);
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    /**
+     * Opens bloom filter of column values in partition without opening the partition itself.
+     * Filter is usable when it covers at least as many rows as this reader sees in the partition.
+     *
+     * @param partitionIndex index of partition
+     * @param columnIndex    index of column that has bloom filter
+     * @param filter         filter to open, it is left closed when false is returned
+     * @return false when partition does not have usable filter
+     */
+    public boolean openBloomFilter(int partitionIndex, int columnIndex, BloomFilter filter) {
+        try {
+            final Path path = pathGenPartitioned(partitionIndex);
+            TableUtils.txnPartitionConditionally(path, txFile.getPartitionNameTxn(partitionIndex));
+            return filter.openRO(ff, TableUtils.bfFile(path, metadata.getColumnName(columnIndex)), txFile.getPartitionSize(partitionIndex));
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     public void reconcileOpenPartitionsFrom(int partitionIndex) {
         int txPartitionCount = txFile.getPartitionCount();
         int txPartitionIndex = partitionIndex;
@@ -778,6 +845,13 @@ public class TableReader implements Closeable, SymbolTableSource {
         Misc.freeObjList(bitmapIndexes);
     }
 
+    private void adviseColumn(int index, int advice) {
+        final MappedReadOnlyMemory mem = columns.getQuick(index);
+        if (mem != null) {
+            mem.advise(advice);
+        }
+    }
+
     private void freeColumns() {
         Misc.freeObjList(columns);
     }
@@ -866,6 +940,17 @@ public class TableReader implements Closeable, SymbolTableSource {
         return symbolMapReaders.getQuick(columnIndex).isCached();
     }
 
+    private long getDecompressedMemorySize() {
+        long size = 0;
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final MappedReadOnlyMemory mem = columns.getQuick(i);
+            if (mem instanceof DecompressedReadOnlyMemory) {
+                size += mem.size();
+            }
+        }
+        return size;
+    }
+
     private TableReaderMetadata openMetaFile() {
         try {
             return new TableReaderMetadata(ff, path.concat(TableUtils.META_FILE_NAME).$());
@@ -874,8 +959,29 @@ public class TableReader implements Closeable, SymbolTableSource {
         }
     }
 
+    @NotNull
+    private MappedReadOnlyMemory openOrCreateCompressedMemory(Path path, ObjList<MappedReadOnlyMemory> columns, int primaryIndex, MappedReadOnlyMemory mem) {
+        final DecompressedReadOnlyMemory decompressed;
+        if (mem instanceof DecompressedReadOnlyMemory) {
+            decompressed = (DecompressedReadOnlyMemory) mem;
+            decompressed.close();
+        } else {
+            Misc.free(mem);
+            decompressed = new DecompressedReadOnlyMemory();
+            columns.setQuick(primaryIndex, decompressed);
+        }
+        // decoded columns of all open partitions share single limit
+        decompressed.ofBounded(ff, path, Math.max(configuration.getPartitionDecompressionMemoryLimit() - getDecompressedMemorySize(), 0));
+        return decompressed;
+    }
+
     @NotNull
     private MappedReadOnlyMemory openOrCreateMemory(Path path, ObjList<MappedReadOnlyMemory> columns, boolean lastPartition, int primaryIndex, MappedReadOnlyMemory mem) {
+        if (mem instanceof DecompressedReadOnlyMemory) {
+            // partition was decompressed by writer
+            mem.close();
+            mem = null;
+        }
         if (mem != null && mem != NullColumn.INSTANCE) {
             mem.of(ff, path, ff.getMapPageSize(), ff.length(path));
         } else {
@@ -1110,9 +1216,21 @@ public class TableReader implements Closeable, SymbolTableSource {
             MappedReadOnlyMemory mem1 = columns.getQuick(primaryIndex);
             MappedReadOnlyMemory mem2 = columns.getQuick(secondaryIndex);
 
-            if (ff.exists(TableUtils.dFile(path.trimTo(plen), name))) {
+            boolean exists = ff.exists(TableUtils.dFile(path.trimTo(plen), name));
+            boolean compressed = false;
+            if (!exists) {
+                compressed = ff.exists(TableUtils.dzFile(path.trimTo(plen), name));
+                // writer restores raw file before removing compressed one, check raw file again
+                exists = compressed || ff.exists(TableUtils.dFile(path.trimTo(plen), name));
+            }
+
+            if (exists) {
 
-                mem1 = openOrCreateMemory(path, columns, lastPartition, primaryIndex, mem1);
+                if (compressed) {
+                    mem1 = openOrCreateCompressedMemory(path, columns, primaryIndex, mem1);
+                } else {
+                    mem1 = openOrCreateMemory(path, columns, lastPartition, primaryIndex, mem1);
+                }
 
                 final long columnTop = TableUtils.readColumnTop(ff, path.trimTo(plen), name, plen, tempMem8b);
                 final int type = metadata.getColumnType(columnIndex);
@@ -1201,7 +1319,8 @@ public class TableReader implements Closeable, SymbolTableSource {
             for (int i = 0; i < columnCount; i++) {
                 final int index = getPrimaryColumnIndex(columnBase, i);
                 final MappedReadOnlyMemory mem1 = columns.getQuick(index);
-                if (mem1 instanceof NullColumn) {
+                // compressed columns cannot grow, partition must have been restored by writer
+                if (mem1 instanceof NullColumn || mem1 instanceof DecompressedReadOnlyMemory) {
                     reloadColumnAt(
                             path,
                             columns,
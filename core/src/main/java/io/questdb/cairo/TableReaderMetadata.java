@@ -70,16 +70,17 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
             for (int i = 0; i < columnCount; i++) {
                 CharSequence name = metaMem.getStr(offset);
                 assert name != null;
-                columnMetadata.add(
-                        new TableColumnMetadata(
-                                Chars.toString(name),
-                                TableUtils.getColumnType(metaMem, i),
-                                TableUtils.isColumnIndexed(metaMem, i),
-                                TableUtils.getIndexBlockCapacity(metaMem, i),
-                                true,
-                                null
-                        )
+                final TableColumnMetadata m = new TableColumnMetadata(
+                        Chars.toString(name),
+                        TableUtils.getColumnType(metaMem, i),
+                        TableUtils.isColumnIndexed(metaMem, i),
+                        TableUtils.getIndexBlockCapacity(metaMem, i),
+                        true,
+                        TableUtils.isStrUtf8(metaMem, i),
+                        null
                 );
+                m.setBloomFilter(TableUtils.isBloomFilter(metaMem, i));
+                columnMetadata.add(m);
                 offset += VmUtils.getStorageLength(name);
             }
         } catch (Throwable e) {
@@ -180,6 +181,11 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
             // we are done
             this.columnCount = columnCount;
         }
+
+        // Bloom filter does not change column files, column keeps its metadata instance when filter is added
+        for (int i = 0; i < columnCount; i++) {
+            columnMetadata.getQuick(i).setBloomFilter(TableUtils.isBloomFilter(metaMem, i));
+        }
         this.timestampIndex = metaMem.getInt(TableUtils.META_OFFSET_TIMESTAMP_INDEX);
     }
 
@@ -236,7 +242,8 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
                 // write primary (immutable) index
                 if (oldPosition > -1
                         && TableUtils.getColumnType(metaMem, i) == TableUtils.getColumnType(this.metaMem, oldPosition)
-                        && TableUtils.isColumnIndexed(metaMem, i) == TableUtils.isColumnIndexed(this.metaMem, oldPosition)) {
+                        && TableUtils.isColumnIndexed(metaMem, i) == TableUtils.isColumnIndexed(this.metaMem, oldPosition)
+                        && TableUtils.isStrUtf8(metaMem, i) == TableUtils.isStrUtf8(this.metaMem, oldPosition)) {
                     Unsafe.getUnsafe().putInt(index + i * 8L, oldPosition + 1);
                     Unsafe.getUnsafe().putInt(index + oldPosition * 8L + 4, i + 1);
                 } else {
@@ -272,6 +279,10 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
         return metaMem.getLong(TableUtils.META_OFFSET_O3_COMMIT_HYSTERESIS_IN_MICROS);
     }
 
+    public long getColdPartitionAgeMicros() {
+        return metaMem.getLong(TableUtils.META_OFFSET_COLD_PARTITION_AGE_IN_MICROS);
+    }
+
     private TableColumnMetadata moveMetadata(int index, TableColumnMetadata metadata) {
         return columnMetadata.getAndSetQuick(index, metadata);
     }
@@ -284,13 +295,16 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
             offset += VmUtils.getStorageLength(name);
         }
         assert name != null;
-        return new TableColumnMetadata(
+        final TableColumnMetadata m = new TableColumnMetadata(
                 Chars.toString(name),
                 TableUtils.getColumnType(metaMem, index),
                 TableUtils.isColumnIndexed(metaMem, index),
                 TableUtils.getIndexBlockCapacity(metaMem, index),
                 true,
+                TableUtils.isStrUtf8(metaMem, index),
                 null
         );
+        m.setBloomFilter(TableUtils.isBloomFilter(metaMem, index));
+        return m;
     }
 }
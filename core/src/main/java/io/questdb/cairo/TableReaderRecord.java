@@ -25,6 +25,7 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.vm.ReadOnlyVirtualMemory;
 import io.questdb.std.BinarySequence;
 import io.questdb.std.Long256;
 import io.questdb.std.Rows;
@@ -152,9 +153,9 @@ public class TableReaderRecord implements Record {
                 recordIndex,
                 TableReader.getPrimaryColumnIndex(columnBase, col)
         );
-        return reader.getColumn(absoluteColumnIndex).getStr(
-                reader.getColumn(absoluteColumnIndex + 1).getLong(recordIndex)
-        );
+        final ReadOnlyVirtualMemory mem = reader.getColumn(absoluteColumnIndex);
+        final long offset = reader.getColumn(absoluteColumnIndex + 1).getLong(recordIndex);
+        return reader.getMetadata().isColumnStrUtf8(col) ? mem.getStrUtf8(offset) : mem.getStr(offset);
     }
 
     @Override
@@ -186,9 +187,9 @@ public class TableReaderRecord implements Record {
         final int index = TableReader.getPrimaryColumnIndex(columnBase, col);
         final long recordIndex = getAdjustedRecordIndex(col) * Long.BYTES;
         final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(recordIndex, index);
-        return reader.getColumn(absoluteColumnIndex).getStr2(
-                reader.getColumn(absoluteColumnIndex + 1).getLong(recordIndex)
-        );
+        final ReadOnlyVirtualMemory mem = reader.getColumn(absoluteColumnIndex);
+        final long offset = reader.getColumn(absoluteColumnIndex + 1).getLong(recordIndex);
+        return reader.getMetadata().isColumnStrUtf8(col) ? mem.getStrUtf8B(offset) : mem.getStr2(offset);
     }
 
     @Override
@@ -196,9 +197,9 @@ public class TableReaderRecord implements Record {
         final int index = TableReader.getPrimaryColumnIndex(columnBase, col);
         final long recordIndex = getAdjustedRecordIndex(col) * Long.BYTES;
         final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(recordIndex, index);
-        return reader.getColumn(absoluteColumnIndex).getStrLen(
-                reader.getColumn(absoluteColumnIndex + 1).getLong(recordIndex)
-        );
+        final ReadOnlyVirtualMemory mem = reader.getColumn(absoluteColumnIndex);
+        final long offset = reader.getColumn(absoluteColumnIndex + 1).getLong(recordIndex);
+        return reader.getMetadata().isColumnStrUtf8(col) ? mem.getStrUtf8Len(offset) : mem.getStrLen(offset);
     }
 
     @Override
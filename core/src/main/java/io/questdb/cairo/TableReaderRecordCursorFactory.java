@@ -92,6 +92,11 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
         }
     }
 
+    @Override
+    public void setAccessPattern(int advice) {
+        cursor.setAccessPattern(advice);
+    }
+
     @Override
     public boolean supportPageFrameCursor() {
         return framingSupported;
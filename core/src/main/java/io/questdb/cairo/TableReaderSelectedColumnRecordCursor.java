@@ -27,6 +27,7 @@ package io.questdb.cairo;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.Files;
 import io.questdb.std.IntList;
 import io.questdb.std.Misc;
 import io.questdb.std.Rows;
@@ -44,6 +45,7 @@ public class TableReaderSelectedColumnRecordCursor implements RecordCursor {
     private long recodLo;
     private int partitionHi;
     private long recordHi;
+    private int accessAdvice = Files.MADV_NORMAL;
 
     public TableReaderSelectedColumnRecordCursor(IntList columnIndexes) {
         this.columnIndexes = columnIndexes;
@@ -102,6 +104,16 @@ public class TableReaderSelectedColumnRecordCursor implements RecordCursor {
         return reader.size();
     }
 
+    /**
+     * Declares how selected columns are going to be accessed. Operating system is hinted when
+     * cursor switches partition, sequential access also reads ahead the next partition.
+     *
+     * @param advice one of Files.MADV_* constants
+     */
+    public void setAccessPattern(int advice) {
+        this.accessAdvice = advice;
+    }
+
     public void of(TableReader reader) {
         this.partitionLo = 0;
         this.recodLo = 0;
@@ -128,6 +140,14 @@ public class TableReaderSelectedColumnRecordCursor implements RecordCursor {
         toTop();
     }
 
+    private void adviseAccess(int partitionIndex) {
+        reader.adviseColumns(partitionIndex, columnIndexes, accessAdvice);
+        if (accessAdvice == Files.MADV_SEQUENTIAL && partitionIndex + 1 < partitionLimit && reader.openPartition(partitionIndex + 1) > 0) {
+            // kernel reads next partition in the background while this one is being processed
+            reader.adviseColumns(partitionIndex + 1, columnIndexes, Files.MADV_WILLNEED);
+        }
+    }
+
     private boolean switchPartition() {
         if (partitionIndex < partitionLimit) {
             return switchPartition0();
@@ -145,6 +165,9 @@ public class TableReaderSelectedColumnRecordCursor implements RecordCursor {
                     maxRecordIndex = partitionSize - 1;
                 }
                 recordA.jumpTo(partitionIndex, -1);
+                if (accessAdvice != Files.MADV_NORMAL) {
+                    adviseAccess(partitionIndex);
+                }
                 partitionIndex++;
                 return true;
             }
@@ -49,6 +49,8 @@ public final class TableUtils {
     public static final String UPGRADE_FILE_NAME = "_upgrade.d";
     public static final String DETACHED_DIR_MARKER = ".detached";
     public static final String TAB_INDEX_FILE_NAME = "_tab_index.d";
+    // directory of table, which keeps segments of WAL writers
+    public static final String WAL_DIR_NAME = "wal";
     public static final int INITIAL_TXN = 0;
     public static final int NULL_LEN = -1;
     public static final int ANY_TABLE_VERSION = -1;
@@ -62,8 +64,16 @@ public final class TableUtils {
     public static final long META_OFFSET_TABLE_ID = 16;
     public static final long META_OFFSET_O3_MAX_UNCOMMITTED_ROWS = 20;
     public static final long META_OFFSET_O3_COMMIT_HYSTERESIS_IN_MICROS = 24;
+    // 0 when partitions are never moved to cold storage
+    public static final long META_OFFSET_COLD_PARTITION_AGE_IN_MICROS = 40;
     public static final String FILE_SUFFIX_I = ".i";
     public static final String FILE_SUFFIX_D = ".d";
+    public static final String FILE_SUFFIX_DZ = ".dz";
+    // column statistics of partition, see ColumnStats
+    public static final String FILE_SUFFIX_ST = ".st";
+    public static final String FILE_SUFFIX_BF = ".bf";
+    // present in partition directory when its column files have been compressed
+    public static final String COMPRESSED_PARTITION_MARKER = "_compressed";
     public static final int LONGS_PER_TX_ATTACHED_PARTITION = 4;
     public static final int LONGS_PER_TX_ATTACHED_PARTITION_MSB = Numbers.msb(LONGS_PER_TX_ATTACHED_PARTITION);
     static final int MIN_INDEX_VALUE_BLOCK_SIZE = Numbers.ceilPow2(4);
@@ -72,6 +82,8 @@ public final class TableUtils {
     static final DateFormat fmtDay;
     static final DateFormat fmtMonth;
     static final DateFormat fmtYear;
+    static final DateFormat fmtHour;
+    static final DateFormat fmtWeek;
     static final String DEFAULT_PARTITION_NAME = "default";
     // transaction file structure
     static final long TX_OFFSET_TXN = 0;
@@ -107,6 +119,10 @@ public final class TableUtils {
     static final long META_OFFSET_COLUMN_TYPES = 128;
     static final int META_FLAG_BIT_INDEXED = 1;
     static final int META_FLAG_BIT_SEQUENTIAL = 1 << 1;
+    // STRING column values are encoded as UTF-8 rather than UTF-16
+    static final int META_FLAG_BIT_STR_UTF8 = 1 << 2;
+    // partitions keep Bloom filter of column values
+    static final int META_FLAG_BIT_BLOOM_FILTER = 1 << 3;
     static final String TODO_FILE_NAME = "_todo_";
     private static final int MIN_SYMBOL_CAPACITY = 2;
     private static final int MAX_SYMBOL_CAPACITY = Numbers.ceilPow2(Integer.MAX_VALUE);
@@ -127,7 +143,7 @@ public final class TableUtils {
             int mkDirMode,
             int tableId
     ) {
-        createTable(ff, memory, path, root, structure, mkDirMode, ColumnType.VERSION, tableId);
+        createTable(ff, memory, path, root, structure, mkDirMode, ColumnType.VERSION, tableId, false);
     }
 
     public static void createTable(
@@ -139,6 +155,25 @@ public final class TableUtils {
             int mkDirMode,
             int tableVersion,
             int tableId
+    ) {
+        createTable(ff, memory, path, root, structure, mkDirMode, tableVersion, tableId, false);
+    }
+
+    /**
+     * Creates table files.
+     *
+     * @param strUtf8 when true STRING columns are created to store values as UTF-8
+     */
+    public static void createTable(
+            FilesFacade ff,
+            AppendOnlyVirtualMemory memory,
+            Path path,
+            @Transient CharSequence root,
+            TableStructure structure,
+            int mkDirMode,
+            int tableVersion,
+            int tableId,
+            boolean strUtf8
     ) {
         LOG.debug().$("create table [name=").$(structure.getTableName()).$(']').$();
         path.of(root).concat(structure.getTableName());
@@ -174,6 +209,10 @@ public final class TableUtils {
                     flags |= META_FLAG_BIT_SEQUENTIAL;
                 }
 
+                if (strUtf8 && structure.getColumnType(i) == ColumnType.STRING) {
+                    flags |= META_FLAG_BIT_STR_UTF8;
+                }
+
                 mem.putLong(flags);
                 mem.putInt(structure.getIndexBlockCapacity(i));
                 mem.skip(META_COLUMN_DATA_RESERVED); // reserved
@@ -249,6 +288,10 @@ public final class TableUtils {
                 return Timestamps.ADD_MM;
             case PartitionBy.YEAR:
                 return Timestamps.ADD_YYYY;
+            case PartitionBy.HOUR:
+                return Timestamps.ADD_HH;
+            case PartitionBy.WEEK:
+                return Timestamps.ADD_WW;
             default:
                 throw new UnsupportedOperationException("partition by " + partitionBy + " does not have add method");
         }
@@ -392,12 +435,71 @@ public final class TableUtils {
         throw CairoException.instance(ff.errno()).put("could not open read-only [file=").put(path).put(']');
     }
 
+    /**
+     * Removes partition directory. Partition moved to cold storage is a symbolic link to its copy
+     * on cold volume, see {@link TableWriter#moveColdPartitions(CharSequence, long, int)}, in which
+     * case both the copy and the link are removed. Links are not followed by {@link FilesFacade#rmdir(Path)}.
+     *
+     * @param path partition directory, trailing separator is optional
+     * @return 0 on success, errno otherwise
+     */
+    public static int removePartitionDir(FilesFacade ff, Path path) {
+        final int len = path.length();
+        final int linkLen = len > 1 && path.charAt(len - 1) == Files.SEPARATOR ? len - 1 : len;
+        // trailing separator would make the check follow the link
+        if (ff.isSoftLink(path.trimTo(linkLen).$())) {
+            return removeLinkedDir(ff, path, len);
+        }
+        if (linkLen < len) {
+            path.trimTo(linkLen).put(Files.SEPARATOR).$();
+        }
+        return ff.rmdir(path);
+    }
+
+    /**
+     * Removes table directory together with copies of its partitions on cold volume.
+     *
+     * @param path table directory without trailing separator
+     * @return 0 on success, errno otherwise
+     */
+    public static int removeTableDir(FilesFacade ff, Path path) {
+        final int len = path.length();
+        ff.iterateDir(path.$(), (pName, type) -> {
+            if (type == Files.DT_LNK) {
+                int errno;
+                if ((errno = removePartitionDir(ff, path.trimTo(len).concat(pName).$())) != 0) {
+                    LOG.error().$("could not remove [path=").$(path).$(", errno=").$(errno).$(']').$();
+                }
+            }
+        });
+        return ff.rmdir(path.trimTo(len).$());
+    }
+
     public static void renameOrFail(FilesFacade ff, Path src, Path dst) {
         if (!ff.rename(src, dst)) {
             throw CairoException.instance(ff.errno()).put("could not rename ").put(src).put(" -> ").put(dst);
         }
     }
 
+    // path is link without trailing separator, len is length of path as passed by caller
+    private static int removeLinkedDir(FilesFacade ff, Path path, int len) {
+        final int linkLen = path.length();
+        try (Path target = new Path()) {
+            // link target is absolute, relative target is resolved against directory of the link
+            if (ff.readLink(path, target)) {
+                final int errno = ff.rmdir(target.chop$().slash$());
+                if (errno != 0 && ff.exists(target.$())) {
+                    return errno;
+                }
+            }
+            return ff.remove(path) ? 0 : ff.errno();
+        } finally {
+            if (linkLen < len) {
+                path.trimTo(linkLen).put(Files.SEPARATOR).$();
+            }
+        }
+    }
+
     public static void resetTodoLog(FilesFacade ff, Path path, int rootLen, MappedReadWriteMemory mem) {
         mem.of(ff, path.trimTo(rootLen).concat(TODO_FILE_NAME).$(), ff.getPageSize());
         mem.putLong(24, 0); // txn check
@@ -506,6 +608,29 @@ public final class TableUtils {
                     return Timestamps.addYear(Timestamps.yearMicros(y, leap), 1) - 1;
                 }
                 return 0;
+            case PartitionBy.HOUR:
+                y = Timestamps.getYear(timestamp);
+                leap = Timestamps.isLeapYear(y);
+                m = Timestamps.getMonthOfYear(timestamp, y, leap);
+                d = Timestamps.getDayOfMonth(timestamp, y, m, leap);
+                TimestampFormatUtils.append000(path, y);
+                path.put('-');
+                TimestampFormatUtils.append0(path, m);
+                path.put('-');
+                TimestampFormatUtils.append0(path, d);
+                path.put('T');
+                TimestampFormatUtils.append0(path, Timestamps.getHourOfDay(timestamp));
+
+                if (calculatePartitionMax) {
+                    return Timestamps.ceilHH(timestamp);
+                }
+                return 0;
+            case PartitionBy.WEEK:
+                setSinkForIsoWeek(path, timestamp);
+                if (calculatePartitionMax) {
+                    return Timestamps.ceilWW(timestamp);
+                }
+                return 0;
             default:
                 path.put(DEFAULT_PARTITION_NAME);
                 return Long.MAX_VALUE;
@@ -675,6 +800,18 @@ public final class TableUtils {
         return path.concat(columnName).put(FILE_SUFFIX_D).$();
     }
 
+    static LPSZ dzFile(Path path, CharSequence columnName) {
+        return path.concat(columnName).put(FILE_SUFFIX_DZ).$();
+    }
+
+    static LPSZ bfFile(Path path, CharSequence columnName) {
+        return path.concat(columnName).put(FILE_SUFFIX_BF).$();
+    }
+
+    static LPSZ stFile(Path path, CharSequence columnName) {
+        return path.concat(columnName).put(FILE_SUFFIX_ST).$();
+    }
+
     static LPSZ topFile(Path path, CharSequence columnName) {
         return path.concat(columnName).put(".top").$();
     }
@@ -695,6 +832,14 @@ public final class TableUtils {
         return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_SEQUENTIAL) != 0;
     }
 
+    static boolean isBloomFilter(ReadOnlyVirtualMemory metaMem, int columnIndex) {
+        return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_BLOOM_FILTER) != 0;
+    }
+
+    static boolean isStrUtf8(ReadOnlyVirtualMemory metaMem, int columnIndex) {
+        return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_STR_UTF8) != 0;
+    }
+
     static int getIndexBlockCapacity(ReadOnlyVirtualMemory metaMem, int columnIndex) {
         return metaMem.getInt(META_OFFSET_COLUMN_TYPES + columnIndex * META_COLUMN_DATA_SIZE + 9);
     }
@@ -773,6 +918,10 @@ public final class TableUtils {
                 return Timestamps.floorMM(timestampA) == Timestamps.floorMM(timestampB);
             case PartitionBy.YEAR:
                 return Timestamps.floorYYYY(timestampA) == Timestamps.floorYYYY(timestampB);
+            case PartitionBy.HOUR:
+                return Timestamps.floorHH(timestampA) == Timestamps.floorHH(timestampB);
+            case PartitionBy.WEEK:
+                return Timestamps.floorWW(timestampA) == Timestamps.floorWW(timestampB);
             default:
                 throw CairoException.instance(0).put("Cannot compare timestamps for unsupported partition type: [").put(partitionBy).put(']');
         }
@@ -786,6 +935,10 @@ public final class TableUtils {
                 return fmtMonth;
             case PartitionBy.YEAR:
                 return fmtYear;
+            case PartitionBy.HOUR:
+                return fmtHour;
+            case PartitionBy.WEEK:
+                return fmtWeek;
             case PartitionBy.NONE:
                 return fmtDefault;
             default:
@@ -793,7 +946,7 @@ public final class TableUtils {
         }
     }
 
-    static Timestamps.TimestampFloorMethod getPartitionFloor(int partitionBy) {
+    public static Timestamps.TimestampFloorMethod getPartitionFloor(int partitionBy) {
         switch (partitionBy) {
             case PartitionBy.DAY:
                 return Timestamps.FLOOR_DD;
@@ -801,6 +954,10 @@ public final class TableUtils {
                 return Timestamps.FLOOR_MM;
             case PartitionBy.YEAR:
                 return Timestamps.FLOOR_YYYY;
+            case PartitionBy.HOUR:
+                return Timestamps.FLOOR_HH;
+            case PartitionBy.WEEK:
+                return Timestamps.FLOOR_WW;
             default:
                 throw new UnsupportedOperationException("partition by " + partitionBy + " does not have floor method");
         }
@@ -814,11 +971,33 @@ public final class TableUtils {
                 return Timestamps.CEIL_MM;
             case PartitionBy.YEAR:
                 return Timestamps.CEIL_YYYY;
+            case PartitionBy.HOUR:
+                return Timestamps.CEIL_HH;
+            case PartitionBy.WEEK:
+                return Timestamps.CEIL_WW;
             default:
                 throw new UnsupportedOperationException("partition by " + partitionBy + " does not have ceil method");
         }
     }
 
+    // ISO-8601 week-based year is the year of the Thursday of the week
+    private static int getIsoWeekYear(long timestamp) {
+        return Timestamps.getYear(Timestamps.floorWW(timestamp) + 3 * Timestamps.DAY_MICROS);
+    }
+
+    // Monday of ISO-8601 week 1, which is the week containing 4th of January
+    private static long getIsoWeekYearStart(int isoYear) {
+        return Timestamps.floorWW(Timestamps.toMicros(isoYear, 1, 4, 0, 0));
+    }
+
+    private static void setSinkForIsoWeek(CharSink path, long timestamp) {
+        final int isoYear = getIsoWeekYear(timestamp);
+        final long week = (Timestamps.floorWW(timestamp) - getIsoWeekYearStart(isoYear)) / Timestamps.WEEK_MICROS + 1;
+        TimestampFormatUtils.append000(path, isoYear);
+        path.put("-W");
+        TimestampFormatUtils.append0(path, (int) week);
+    }
+
     // Scans timestamp file
     // returns size of partition detected, e.g. size of monotonic increase
     // of timestamp longs read from 0 offset to the end of the file
@@ -888,6 +1067,37 @@ public final class TableUtils {
         fmtDay = compiler.compile("yyyy-MM-dd");
         fmtMonth = compiler.compile("yyyy-MM");
         fmtYear = compiler.compile("yyyy");
+        fmtHour = compiler.compile("yyyy-MM-ddTHH");
+        fmtWeek = new DateFormat() {
+            @Override
+            public void format(long datetime, DateLocale locale, CharSequence timeZoneName, CharSink sink) {
+                setSinkForIsoWeek(sink, datetime);
+            }
+
+            @Override
+            public long parse(CharSequence in, DateLocale locale) throws NumericException {
+                return parse(in, 0, in.length(), locale);
+            }
+
+            @Override
+            public long parse(CharSequence in, int lo, int hi, DateLocale locale) throws NumericException {
+                // YYYY-Www
+                if (hi - lo < 8 || in.charAt(hi - 4) != '-' || in.charAt(hi - 3) != 'W') {
+                    throw NumericException.INSTANCE;
+                }
+                final int isoYear = Numbers.parseInt(in, lo, hi - 4);
+                final int week = Numbers.parseInt(in, hi - 2, hi);
+                if (week < 1) {
+                    throw NumericException.INSTANCE;
+                }
+                final long timestamp = getIsoWeekYearStart(isoYear) + (week - 1) * Timestamps.WEEK_MICROS;
+                // week 53 exists only in some years
+                if (getIsoWeekYear(timestamp) != isoYear) {
+                    throw NumericException.INSTANCE;
+                }
+                return timestamp;
+            }
+        };
         fmtDefault = new DateFormat() {
             @Override
             public void format(long datetime, DateLocale locale, CharSequence timeZoneName, CharSink sink) {
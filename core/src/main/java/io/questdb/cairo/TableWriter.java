@@ -32,6 +32,7 @@ import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.cairo.vm.*;
+import io.questdb.cairo.wal.TableSequencer;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.model.IntervalUtils;
 import io.questdb.log.Log;
@@ -103,10 +104,13 @@ public class TableWriter implements Closeable {
     private final LongList indexSequences = new LongList();
     private final MessageBus messageBus;
     private final boolean parallelIndexerEnabled;
+    private final boolean partitionStatsEnabled;
+    private final long bloomFilterBlockCount;
     private final Timestamps.TimestampFloorMethod timestampFloorMethod;
     private final Timestamps.TimestampCeilMethod timestampCeilMethod;
     private final Timestamps.TimestampAddMethod timestampAddMethod;
     private final int defaultCommitMode;
+    private final GroupCommitScheduler groupCommitScheduler;
     private final FindVisitor removePartitionDirectories = this::removePartitionDirectories0;
     private final ObjList<Runnable> nullSetters;
     private final ObjList<Runnable> o3NullSetters;
@@ -123,7 +127,14 @@ public class TableWriter implements Closeable {
     private final MappedReadWriteMemory todoMem = new PagedMappedReadWriteMemory();
     private final TxWriter txFile;
     private final FindVisitor removePartitionDirsNotAttached = this::removePartitionDirsNotAttached;
+    private final FindVisitor snapshotFile = this::snapshotFile;
     private final LongList o3PartitionRemoveCandidates = new LongList();
+    // partition timestamps rewritten by o3 commit, their statistics and bloom filters are recalculated from disk
+    private final LongList statsPartitions = new LongList();
+    private final ObjList<ColumnStats> partitionStats = new ObjList<>();
+    private final PagedSlidingReadOnlyMemory statsMem = new PagedSlidingReadOnlyMemory();
+    private final PagedSlidingReadOnlyMemory bloomFilterStrMem = new PagedSlidingReadOnlyMemory();
+    private final BloomFilter bloomFilter = new BloomFilter();
     private final ObjectPool<O3MutableAtomicInteger> o3ColumnCounters = new ObjectPool<O3MutableAtomicInteger>(O3MutableAtomicInteger::new, 64);
     private final ObjectPool<O3Basket> o3BasketPool = new ObjectPool<O3Basket>(O3Basket::new, 64);
     private final TxnScoreboard txnScoreboard;
@@ -134,6 +145,7 @@ public class TableWriter implements Closeable {
     private final SCSequence o3PartitionUpdateSubSeq;
     private LongConsumer appendTimestampSetter;
     private long todoTxn;
+    private long groupCommitTicket;
     private ContiguousVirtualMemory o3TimestampMem;
     private ContiguousVirtualMemory o3TimestampMemCpy;
     private final O3ColumnUpdateMethod o3MoveHysteresisRef = this::o3MoveHysteresis0;
@@ -162,6 +174,11 @@ public class TableWriter implements Closeable {
     private final O3ColumnUpdateMethod o3MoveUncommittedRef = this::o3MoveUncommitted0;
     private long lastPartitionTimestamp;
     private boolean o3InError = false;
+    private boolean snapshotLink;
+    private boolean snapshotSync;
+    private int snapshotLinkCount;
+    private int snapshotPathLen;
+    private int snapshotOtherLen;
     private final boolean o3QuickSortEnabled;
 
     public TableWriter(CairoConfiguration configuration, CharSequence tableName) {
@@ -193,9 +210,16 @@ public class TableWriter implements Closeable {
         LOG.info().$("open '").utf8(tableName).$('\'').$();
         this.configuration = configuration;
         this.messageBus = messageBus;
-        this.defaultCommitMode = configuration.getCommitMode();
+        // group sync covers file system of database root only, writers elsewhere, e.g. backup, sync on their own,
+        // so do all writers when file system sync is not available
+        this.groupCommitScheduler = Chars.equals(root, configuration.getRoot()) && configuration.getFilesFacade().isSyncfsSupported()
+                ? messageBus.getGroupCommitScheduler()
+                : null;
+        this.defaultCommitMode = configuration.getCommitMode() == CommitMode.GROUP && groupCommitScheduler == null ? CommitMode.SYNC : configuration.getCommitMode();
         this.lifecycleManager = lifecycleManager;
         this.parallelIndexerEnabled = configuration.isParallelIndexingEnabled();
+        this.partitionStatsEnabled = configuration.isPartitionStatsEnabled();
+        this.bloomFilterBlockCount = BloomFilter.blockCountOf(configuration.getBloomFilterCapacity());
         this.ff = configuration.getFilesFacade();
         this.mkDirMode = configuration.getMkDirMode();
         this.fileOperationRetryCount = configuration.getFileOperationRetryCount();
@@ -304,6 +328,10 @@ public class TableWriter implements Closeable {
                 return fmtMonth;
             case PartitionBy.YEAR:
                 return fmtYear;
+            case PartitionBy.HOUR:
+                return fmtHour;
+            case PartitionBy.WEEK:
+                return fmtWeek;
             default:
                 return null;
         }
@@ -369,8 +397,10 @@ public class TableWriter implements Closeable {
 
         removeColumnFiles(name, type, REMOVE_OR_EXCEPTION);
 
+        final boolean isStrUtf8 = type == ColumnType.STRING && configuration.isStrUtf8Enabled();
+
         // create new _meta.swp
-        this.metaSwapIndex = addColumnToMeta(name, type, isIndexed, indexValueBlockCapacity, isSequential);
+        this.metaSwapIndex = addColumnToMeta(name, type, isIndexed, indexValueBlockCapacity, isSequential, isStrUtf8);
 
         // close _meta so we can rename it
         metaMem.close();
@@ -431,11 +461,84 @@ public class TableWriter implements Closeable {
 
         txFile.bumpStructureVersion(this.denseSymbolMapWriters);
 
-        metadata.addColumn(name, type, isIndexed, indexValueBlockCapacity);
+        metadata.addColumn(name, type, isIndexed, indexValueBlockCapacity, isStrUtf8);
 
         LOG.info().$("ADDED column '").utf8(name).$('[').$(ColumnType.nameOf(type)).$("]' to ").$(path).$();
     }
 
+    /**
+     * Adds bloom filter to column of one of types supported by {@link BloomFilter#isSupported(int)}.
+     * Filters of existing partitions are built before column is flagged in metadata. From then
+     * on filters are updated on commit and readers use them to skip partitions on equality lookups.
+     *
+     * @param columnName name of column
+     */
+    public void addBloomFilter(CharSequence columnName) {
+        checkDistressed();
+
+        final int columnIndex = getColumnIndexQuiet(metaMem, columnName, columnCount);
+
+        if (columnIndex == -1) {
+            throw CairoException.instance(0).put("Invalid column name: ").put(columnName);
+        }
+
+        commit();
+
+        if (isBloomFilter(metaMem, columnIndex)) {
+            throw CairoException.instance(0).put("bloom filter already exists [column=").put(columnName).put(']');
+        }
+
+        final int existingType = getColumnType(metaMem, columnIndex);
+        LOG.info().$("adding bloom filter to '").utf8(columnName).$('[').$(ColumnType.nameOf(existingType)).$(", path=").$(path).$(']').$();
+
+        if (!BloomFilter.isSupported(existingType)) {
+            throw CairoException.instance(0).put("cannot create bloom filter for [column='").put(columnName).put(", type=").put(ColumnType.nameOf(existingType)).put(", path=").put(path).put(']');
+        }
+
+        try {
+            buildBloomFilters(columnIndex);
+        } catch (Throwable e) {
+            LOG.error().$("removing bloom filters created so far [path=").$(path).$(']').$();
+            removeBloomFilterFiles(columnName);
+            throw e;
+        }
+
+        metaSwapIndex = copyMetadataAndSetFlag(columnIndex, META_FLAG_BIT_BLOOM_FILTER, getIndexBlockCapacity(metaMem, columnIndex));
+
+        // close _meta so we can rename it
+        metaMem.close();
+
+        // validate new meta
+        validateSwapMeta(columnName);
+
+        // rename _meta to _meta.prev
+        renameMetaToMetaPrev(columnName);
+
+        // after we moved _meta to _meta.prev
+        // we have to have _todo to restore _meta should anything go wrong
+        writeRestoreMetaTodo(columnName);
+
+        // rename _meta.swp to -_meta
+        renameSwapMetaToMeta(columnName);
+
+        try {
+            // open _meta file
+            openMetaFile(ff, path, rootLen, metaMem);
+
+            // remove _todo
+            clearTodoLog();
+
+        } catch (CairoException err) {
+            throwDistressException(err);
+        }
+
+        txFile.bumpStructureVersion(this.denseSymbolMapWriters);
+
+        metadata.getColumnQuick(columnIndex).setBloomFilter(true);
+
+        LOG.info().$("ADDED bloom filter to '").utf8(columnName).$('[').$(ColumnType.nameOf(existingType)).$("]' to ").$(path).$();
+    }
+
     public void addIndex(CharSequence columnName, int indexValueBlockSize) {
         assert indexValueBlockSize == Numbers.ceilPow2(indexValueBlockSize) : "power of 2 expected";
 
@@ -499,7 +602,7 @@ public class TableWriter implements Closeable {
         // set index flag in metadata
         // create new _meta.swp
 
-        metaSwapIndex = copyMetadataAndSetIndexed(columnIndex, indexValueBlockSize);
+        metaSwapIndex = copyMetadataAndSetFlag(columnIndex, META_FLAG_BIT_INDEXED, indexValueBlockSize);
 
         // close _meta so we can rename it
         metaMem.close();
@@ -540,6 +643,51 @@ public class TableWriter implements Closeable {
         LOG.info().$("ADDED index to '").utf8(columnName).$('[').$(ColumnType.nameOf(existingType)).$("]' to ").$(path).$();
     }
 
+    /**
+     * Appends block of rows given as column values in native memory. Values of fixed size columns
+     * are copied into column memory in one go for every run of rows, which are in timestamp order
+     * and belong to the active partition. Once writer is in O3 mode all remaining rows are copied
+     * into O3 memory, so that they are sorted and merged by the next commit. Row that opens, switches
+     * partition or starts O3 mode is appended the same way as it is via {@link #newRow(long)}.
+     * <p>
+     * Address of every column points to value of the first row, values are laid out the same
+     * way as in column file, e.g. symbol column takes int keys, see {@link #getSymbolIndex(int, CharSequence)}.
+     * Columns with zero address are filled with nulls. Designated timestamp values are taken from
+     * timestamp block, address of timestamp column is ignored. Variable size columns can only be
+     * filled with nulls. Rows are not committed, row that has not been appended is cancelled.
+     *
+     * @param timestampAddress address of designated timestamp values, ignored when table has no designated timestamp
+     * @param rowCount         number of rows in block
+     * @param columnAddresses  addresses of column values by column index, 0 when column value is null
+     */
+    public void appendColumns(long timestampAddress, long rowCount, LongList columnAddresses) {
+        for (int i = 0; i < columnCount; i++) {
+            if (i != metadata.getTimestampIndex() && columnAddresses.getQuick(i) != 0 && ColumnType.sizeOf(metadata.getColumnType(i)) < 1) {
+                throw CairoException.instance(0).put("bulk append is not supported [column=").put(metadata.getColumnName(i))
+                        .put(", type=").put(ColumnType.nameOf(metadata.getColumnType(i))).put(']');
+            }
+        }
+
+        if ((masterRef & 1) != 0) {
+            cancelRow();
+        }
+
+        long lo = 0;
+        while (lo < rowCount) {
+            final long hi = appendColumnsHi(timestampAddress, lo, rowCount);
+            if (hi > lo) {
+                if (rowFunction == o3RowFunction) {
+                    appendColumnsO3(timestampAddress, columnAddresses, lo, hi);
+                } else {
+                    appendColumns0(timestampAddress, columnAddresses, lo, hi);
+                }
+                lo = hi;
+            } else {
+                appendColumnsRow(timestampAddress, columnAddresses, lo++);
+            }
+        }
+    }
+
     public int attachPartition(long timestamp) {
         // Partitioned table must have a timestamp
         // SQL compiler will check that table is partitioned
@@ -598,7 +746,8 @@ public class TableWriter implements Closeable {
                     txFile.beginPartitionSizeUpdate();
                     txFile.updatePartitionSizeByTimestamp(timestamp, partitionSize);
                     txFile.finishPartitionSizeUpdate(nextMinTimestamp, nextMaxTimestamp);
-                    txFile.commit(defaultCommitMode, denseSymbolMapWriters);
+                    commitTx(defaultCommitMode);
+                    awaitDurable();
                     if (appendPartitionAttached) {
                         freeColumns(true);
                         configureAppendPosition();
@@ -632,6 +781,16 @@ public class TableWriter implements Closeable {
         return StatusCode.OK;
     }
 
+    /**
+     * Waits until commits made in {@link CommitMode#GROUP} mode are durable, returns immediately when there
+     * are none.
+     */
+    public void awaitDurable() {
+        if (groupCommitTicket > 0) {
+            groupCommitScheduler.await(groupCommitTicket);
+        }
+    }
+
     public void changeCacheFlag(int columnIndex, boolean cache) {
         checkDistressed();
 
@@ -657,10 +816,22 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Commits with durability mode of configuration. In {@link CommitMode#GROUP} mode this method
+     * returns once commit is durable.
+     */
     public void commit() {
         commit(defaultCommitMode);
+        if (defaultCommitMode == CommitMode.GROUP) {
+            awaitDurable();
+        }
     }
 
+    /**
+     * Commits without waiting for group sync, commit is durable once {@link #awaitDurable()} returns.
+     *
+     * @param commitMode commit durability mode
+     */
     public void commit(int commitMode) {
         commit(commitMode, 0);
     }
@@ -672,6 +843,69 @@ public class TableWriter implements Closeable {
         commitHysteresis();
         return true;
     }
+    /**
+     * Compresses column files of sealed partitions, e.g. all partitions but the last one.
+     * Only column types supported by {@link ColumnCodec} are compressed, compressed file
+     * replaces raw column file when it is smaller. Partitions are marked as compressed
+     * once processed and are not revisited until writer has to restore them.
+     *
+     * @param maxPartitions maximum number of partitions to compress
+     * @return number of partitions compressed
+     */
+    public int compressSealedPartitions(int maxPartitions) {
+        checkDistressed();
+        int count = 0;
+        if (partitionBy != PartitionBy.NONE) {
+            try (
+                    SinglePageMappedReadOnlyPageMemory rawMem = new SinglePageMappedReadOnlyPageMemory();
+                    AppendOnlyVirtualMemory compressedMem = new AppendOnlyVirtualMemory()
+            ) {
+                for (int i = 0, n = txFile.getPartitionCount() - 1; i < n && count < maxPartitions; i++) {
+                    final long partitionSize = txFile.getPartitionSize(i);
+                    if (partitionSize > 0 && compressPartition(
+                            txFile.getPartitionTimestamp(i),
+                            txFile.getPartitionNameTxn(i),
+                            partitionSize,
+                            rawMem,
+                            compressedMem
+                    )) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Moves sealed partitions, which end before given timestamp, to cold storage volume. Partition is
+     * copied to "coldRoot/tableName" under new name txn and linked from table directory, so that queries
+     * keep finding it. Readers switch to the moved partition on reload, old partition version is purged
+     * once no reader uses transaction that refers to it.
+     *
+     * @param coldRoot           root directory of cold storage volume
+     * @param olderThanTimestamp partitions, which end before this timestamp, are moved
+     * @param maxPartitions      maximum number of partitions to move
+     * @return number of partitions moved
+     */
+    public int moveColdPartitions(CharSequence coldRoot, long olderThanTimestamp, int maxPartitions) {
+        checkDistressed();
+        int count = 0;
+        if (partitionBy != PartitionBy.NONE) {
+            commit();
+            for (int i = 0, n = txFile.getPartitionCount() - 1; i < n && count < maxPartitions; i++) {
+                if (timestampCeilMethod.ceil(txFile.getPartitionTimestamp(i)) < olderThanTimestamp
+                        && moveColdPartition(coldRoot, i)) {
+                    commitTx(defaultCommitMode);
+                    awaitDurable();
+                    o3ProcessPartitionRemoveCandidates();
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
     public void commitHysteresis() {
         commit(defaultCommitMode, metadata.getO3CommitHysteresisInMicros());
     }
@@ -720,6 +954,13 @@ public class TableWriter implements Closeable {
         return symbolMapWriters.getQuick(columnIndex).put(symValue);
     }
 
+    /**
+     * @return number of WAL sequencer transactions committed to the table
+     */
+    public long getSeqTxn() {
+        return txFile.getSeqTxn();
+    }
+
     public CharSequence getTableName() {
         return tableName;
     }
@@ -774,6 +1015,12 @@ public class TableWriter implements Closeable {
                 case PartitionBy.MONTH:
                     ee.put("'YYYY-MM'");
                     break;
+                case PartitionBy.HOUR:
+                    ee.put("'YYYY-MM-DDTHH'");
+                    break;
+                case PartitionBy.WEEK:
+                    ee.put("'YYYY-Www'");
+                    break;
                 default:
                     ee.put("'YYYY'");
                     break;
@@ -906,11 +1153,12 @@ public class TableWriter implements Closeable {
             txFile.removeAttachedPartitions(timestamp);
             txFile.setMinTimestamp(nextMinTimestamp);
             txFile.finishPartitionSizeUpdate(nextMinTimestamp, txFile.getMaxTimestamp());
-            txFile.commit(defaultCommitMode, denseSymbolMapWriters);
+            commitTx(defaultCommitMode);
+            awaitDurable();
 
             if (ff.exists(path.$())) {
                 int errno;
-                if ((errno = ff.rmdir(path.chop$().slash$())) != 0) {
+                if ((errno = removePartitionDir(ff, path.chop$().slash$())) != 0) {
                     LOG.info().$("partition directory delete is postponed [path=").$(path)
                             .$(", errno=").$(errno)
                             .$(']').$();
@@ -1009,6 +1257,7 @@ public class TableWriter implements Closeable {
                 rollbackIndexes();
                 rollbackSymbolTables();
                 purgeUnusedPartitions();
+                statsPartitions.clear();
                 configureAppendPosition();
                 o3InError = false;
                 LOG.info().$("tx rollback complete [name=").$(tableName).$(']').$();
@@ -1043,6 +1292,41 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Sets age after which partitions are moved to cold storage volume, see {@link #moveColdPartitions(CharSequence, long, int)}.
+     *
+     * @param coldPartitionAgeInMicros partition age, 0 to keep partitions of table where they are
+     */
+    public void setMetaColdPartitionAge(long coldPartitionAgeInMicros) {
+        try {
+            commit();
+            long metaSize = copyMetadataAndUpdateVersion();
+            openMetaSwapFileByIndex(ff, ddlMem, path, rootLen, this.metaSwapIndex);
+            try {
+                ddlMem.jumpTo(META_OFFSET_COLD_PARTITION_AGE_IN_MICROS);
+                ddlMem.putLong(coldPartitionAgeInMicros);
+                ddlMem.jumpTo(metaSize);
+            } finally {
+                ddlMem.close();
+            }
+
+            finishMetaSwapUpdate();
+            metadata.setColdPartitionAgeInMicros(coldPartitionAgeInMicros);
+        } finally {
+            ddlMem.close();
+        }
+    }
+
+    /**
+     * Sets number of WAL sequencer transactions the uncommitted rows bring the table to. Next commit
+     * stores it in the same transaction as the rows, so that rows are not applied twice after crash.
+     *
+     * @param seqTxn number of applied sequencer transactions
+     */
+    public void setSeqTxn(long seqTxn) {
+        txFile.setSeqTxn(seqTxn);
+    }
+
     public void setMetaO3MaxUncommittedRows(int maxUncommittedRows) {
         try {
             commit();
@@ -1096,6 +1380,56 @@ public class TableWriter implements Closeable {
         return txFile.getRowCount();
     }
 
+    /**
+     * Creates copy of the table in "snapshotRoot/tableName" directory. Files of sealed partitions are hard linked
+     * rather than copied. Writer never rewrites these files in place, out-of-order data either goes past
+     * partition size recorded in the copied transaction file or into new partition version, so that snapshot
+     * stays consistent and successive snapshots share unchanged partitions. Files of the active partition and
+     * table metadata are copied. Files are also copied when hard link cannot be created, for example when
+     * snapshot root is on a different file system.
+     *
+     * @param snapshotRoot directory to create table copy in
+     * @param dirMode      mode of created directories
+     * @return number of hard linked files
+     */
+    public int snapshot(CharSequence snapshotRoot, int dirMode) {
+        checkDistressed();
+        other.of(snapshotRoot).concat(tableName);
+        final int snapshotRootLen = other.length();
+        try {
+            if (ff.exists(other.$())) {
+                throw CairoException.instance(0).put("snapshot dir already exists [dir=").put(other).put(']');
+            }
+            snapshotLinkCount = 0;
+            snapshotLink = false;
+            other.trimTo(snapshotRootLen);
+            snapshotDir(dirMode);
+            if (partitionBy == PartitionBy.NONE) {
+                setPathForPartition(path.trimTo(rootLen), partitionBy, 0, false);
+                setPathForPartition(other.trimTo(snapshotRootLen), partitionBy, 0, false);
+                snapshotDir(dirMode);
+            } else {
+                for (int i = 0, n = txFile.getPartitionCount(); i < n; i++) {
+                    final long timestamp = txFile.getPartitionTimestamp(i);
+                    final long nameTxn = txFile.getPartitionNameTxn(i);
+                    setPathForPartition(path.trimTo(rootLen), partitionBy, timestamp, false);
+                    TableUtils.txnPartitionConditionally(path, nameTxn);
+                    setPathForPartition(other.trimTo(snapshotRootLen), partitionBy, timestamp, false);
+                    TableUtils.txnPartitionConditionally(other, nameTxn);
+                    snapshotLink = i < n - 1;
+                    snapshotDir(dirMode);
+                }
+            }
+            if (TableSequencer.isWalTable(ff, path.trimTo(rootLen))) {
+                // transactions that are not applied yet are not part of snapshot
+                TableSequencer.create(ff, other.trimTo(snapshotRootLen), dirMode);
+            }
+            return snapshotLinkCount;
+        } finally {
+            resetOtherPath();
+        }
+    }
+
     @Override
     public String toString() {
         return "TableWriter{" +
@@ -1143,6 +1477,11 @@ public class TableWriter implements Closeable {
             }
         }
 
+        if (partitionBy == PartitionBy.NONE) {
+            // statistics and bloom filters of truncated rows would be trusted by readers as they cover more rows than partition has
+            removePartitionStats();
+        }
+
         if (partitionBy != PartitionBy.NONE) {
             freeColumns(false);
             if (indexers != null) {
@@ -1487,7 +1826,8 @@ public class TableWriter implements Closeable {
             int type,
             boolean indexFlag,
             int indexValueBlockCapacity,
-            boolean sequentialFlag
+            boolean sequentialFlag,
+            boolean strUtf8Flag
     ) {
         int index;
         try {
@@ -1514,6 +1854,10 @@ public class TableWriter implements Closeable {
                 flags |= META_FLAG_BIT_SEQUENTIAL;
             }
 
+            if (strUtf8Flag) {
+                flags |= META_FLAG_BIT_STR_UTF8;
+            }
+
             ddlMem.putLong(flags);
             ddlMem.putInt(indexValueBlockCapacity);
             ddlMem.skip(META_COLUMN_DATA_RESERVED);
@@ -1531,11 +1875,247 @@ public class TableWriter implements Closeable {
         return index;
     }
 
+    private void addPartitionStats(ColumnStats stats, int columnIndex, int type, AppendOnlyVirtualMemory mem, long lo, long hi) {
+        final long top = columnTops.getQuick(columnIndex);
+        if (lo < top) {
+            stats.addTop(type, Math.min(hi, top) - lo);
+            lo = top;
+        }
+
+        if (lo < hi) {
+            final int shl = ColumnType.pow2SizeOf(type);
+            long offset = (lo - top) << shl;
+            final long limit = (hi - top) << shl;
+            statsMem.of(mem);
+            while (offset < limit) {
+                final long offsetInPage = statsMem.offsetInPage(offset);
+                final long len = Math.min(limit - offset, statsMem.getMapPageSize() - offsetInPage);
+                stats.add(type, statsMem.getPageAddress(statsMem.pageIndex(offset)) + offsetInPage, len >> shl);
+                offset += len;
+            }
+        }
+    }
+
+    private void addBloomFilterStr(ReadOnlyVirtualMemory dataMem, ReadOnlyVirtualMemory indexMem, boolean utf8, long lo, long hi) {
+        for (long row = lo; row < hi; row++) {
+            final long offset = indexMem.getLong(row << 3);
+            bloomFilter.add(BloomFilter.hash(utf8 ? dataMem.getStrUtf8(offset) : dataMem.getStr(offset)));
+        }
+    }
+
+    private void addBloomFilterValues(int type, long address, long count) {
+        switch (type) {
+            case ColumnType.INT:
+                bloomFilter.addInt(address, count);
+                break;
+            case ColumnType.LONG:
+                bloomFilter.addLong(address, count);
+                break;
+            default:
+                bloomFilter.addLong256(address, count);
+                break;
+        }
+    }
+
+    /**
+     * Builds bloom filter of column from partition files, path has to point to partition directory.
+     * Bits of existing filter are kept, rows are never removed from partition.
+     */
+    private void buildBloomFilter(
+            int columnIndex,
+            int plen,
+            long partitionSize,
+            SinglePageMappedReadOnlyPageMemory rawMem,
+            SinglePageMappedReadOnlyPageMemory rawIndexMem
+    ) {
+        final CharSequence name = metadata.getColumnName(columnIndex);
+        final int type = metadata.getColumnType(columnIndex);
+        final long top = Math.min(readColumnTop(ff, path.trimTo(plen), name, plen, tempMem16b), partitionSize);
+        if (partitionSize > top && !ff.exists(dFile(path.trimTo(plen), name))) {
+            removeFileAndOrLog(ff, bfFile(path.trimTo(plen), name));
+            return;
+        }
+
+        bloomFilter.of(ff, bfFile(path.trimTo(plen), name), bloomFilterBlockCount);
+        try {
+            final long count = partitionSize - top;
+            if (count > 0) {
+                if (type == ColumnType.STRING) {
+                    rawIndexMem.of(ff, iFile(path.trimTo(plen), name), 0, count << 3);
+                    rawMem.of(ff, dFile(path.trimTo(plen), name), 0, ff.length(dFile(path.trimTo(plen), name)));
+                    addBloomFilterStr(rawMem, rawIndexMem, metadata.isColumnStrUtf8(columnIndex), 0, count);
+                } else {
+                    rawMem.of(ff, dFile(path.trimTo(plen), name), 0, count << ColumnType.pow2SizeOf(type));
+                    addBloomFilterValues(type, rawMem.getPageAddress(0), count);
+                }
+            }
+            bloomFilter.setRowCount(partitionSize);
+        } finally {
+            bloomFilter.close();
+            rawMem.close();
+            rawIndexMem.close();
+            path.trimTo(plen);
+        }
+    }
+
+    private void buildBloomFilters(int columnIndex) {
+        try (
+                SinglePageMappedReadOnlyPageMemory rawMem = new SinglePageMappedReadOnlyPageMemory();
+                SinglePageMappedReadOnlyPageMemory rawIndexMem = new SinglePageMappedReadOnlyPageMemory()
+        ) {
+            if (partitionBy == PartitionBy.NONE) {
+                if (txFile.getTransientRowCount() > 0) {
+                    setStateForTimestamp(path, 0, false);
+                    buildBloomFilter(columnIndex, path.length(), txFile.getTransientRowCount(), rawMem, rawIndexMem);
+                }
+                return;
+            }
+
+            for (int i = 0, n = txFile.getPartitionCount(); i < n; i++) {
+                final long partitionTimestamp = txFile.getPartitionTimestamp(i);
+                final long partitionSize = txFile.isActivePartition(partitionTimestamp) ?
+                        txFile.getTransientRowCount() :
+                        txFile.getPartitionSize(i);
+                if (partitionSize < 1) {
+                    continue;
+                }
+                path.trimTo(rootLen);
+                setPathForPartition(path, partitionBy, partitionTimestamp, false);
+                txnPartitionConditionally(path, txFile.getPartitionNameTxn(i));
+                final int plen = path.length();
+                restoreCompressedPartition(plen);
+                buildBloomFilter(columnIndex, plen, partitionSize, rawMem, rawIndexMem);
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     private void copyVersionAndHysteresis() {
         ddlMem.putInt(ColumnType.VERSION);
         ddlMem.putInt(metaMem.getInt(META_OFFSET_TABLE_ID));
         ddlMem.putInt(metaMem.getInt(META_OFFSET_O3_MAX_UNCOMMITTED_ROWS));
         ddlMem.putInt(metaMem.getInt(META_OFFSET_O3_COMMIT_HYSTERESIS_IN_MICROS));
+        final long offset = ddlMem.getAppendOffset();
+        ddlMem.jumpTo(META_OFFSET_COLD_PARTITION_AGE_IN_MICROS);
+        ddlMem.putLong(metaMem.getLong(META_OFFSET_COLD_PARTITION_AGE_IN_MICROS));
+        ddlMem.jumpTo(offset);
+    }
+
+    private void appendColumns0(long timestampAddress, LongList columnAddresses, long lo, long hi) {
+        final int timestampIndex = metadata.getTimestampIndex();
+        final long count = hi - lo;
+        for (int i = 0; i < columnCount; i++) {
+            final long size = ColumnType.sizeOf(metadata.getColumnType(i));
+            final long address = i == timestampIndex ? timestampAddress : columnAddresses.getQuick(i);
+            if (address != 0) {
+                row.getPrimaryColumn(i).putBlockOfBytes(address + lo * size, count * size);
+            } else {
+                final Runnable nullSetter = row.activeNullSetters.getQuick(i);
+                for (long n = 0; n < count; n++) {
+                    nullSetter.run();
+                }
+            }
+        }
+        if (timestampIndex != -1) {
+            txFile.updateMaxTimestamp(Unsafe.getUnsafe().getLong(timestampAddress + (hi - 1) * Long.BYTES));
+        }
+        txFile.append(count);
+    }
+
+    // rows from lo, which can be appended without going through row function
+    private long appendColumnsHi(long timestampAddress, long lo, long rowCount) {
+        if (rowFunction == o3RowFunction || rowFunction == noTimestampFunction) {
+            return rowCount;
+        }
+        if (rowFunction != switchPartitionFunction && rowFunction != noPartitionFunction) {
+            return lo;
+        }
+        long maxTimestamp = txFile.getMaxTimestamp();
+        for (long n = lo; n < rowCount; n++) {
+            final long timestamp = Unsafe.getUnsafe().getLong(timestampAddress + n * Long.BYTES);
+            if (timestamp < maxTimestamp || (timestamp > partitionTimestampHi && partitionBy != PartitionBy.NONE)) {
+                return n;
+            }
+            maxTimestamp = timestamp;
+        }
+        return rowCount;
+    }
+
+    private void appendColumnsO3(long timestampAddress, LongList columnAddresses, long lo, long hi) {
+        final int timestampIndex = metadata.getTimestampIndex();
+        final long count = hi - lo;
+        for (int i = 0; i < columnCount; i++) {
+            if (i == timestampIndex) {
+                long o3RowIndex = getO3RowCount();
+                for (long n = lo; n < hi; n++) {
+                    o3TimestampMem.putLong128(Unsafe.getUnsafe().getLong(timestampAddress + n * Long.BYTES), o3RowIndex++);
+                }
+                continue;
+            }
+            final long size = ColumnType.sizeOf(metadata.getColumnType(i));
+            final long address = columnAddresses.getQuick(i);
+            if (address != 0) {
+                row.getPrimaryColumn(i).putBlockOfBytes(address + lo * size, count * size);
+            } else {
+                final Runnable nullSetter = row.activeNullSetters.getQuick(i);
+                for (long n = 0; n < count; n++) {
+                    nullSetter.run();
+                }
+            }
+        }
+        // every row bumps master reference twice, O3 row count is derived from it
+        masterRef += 2 * count;
+    }
+
+    private void appendColumnsRow(long timestampAddress, LongList columnAddresses, long n) {
+        final int timestampIndex = metadata.getTimestampIndex();
+        final Row r = newRow(timestampIndex != -1 ? Unsafe.getUnsafe().getLong(timestampAddress + n * Long.BYTES) : 0);
+        for (int i = 0; i < columnCount; i++) {
+            final long address = columnAddresses.getQuick(i);
+            if (i == timestampIndex || address == 0) {
+                continue;
+            }
+            switch (metadata.getColumnType(i)) {
+                case ColumnType.BOOLEAN:
+                case ColumnType.BYTE:
+                    r.putByte(i, Unsafe.getUnsafe().getByte(address + n));
+                    break;
+                case ColumnType.SHORT:
+                    r.putShort(i, Unsafe.getUnsafe().getShort(address + n * Short.BYTES));
+                    break;
+                case ColumnType.CHAR:
+                    r.putChar(i, Unsafe.getUnsafe().getChar(address + n * Character.BYTES));
+                    break;
+                case ColumnType.INT:
+                    r.putInt(i, Unsafe.getUnsafe().getInt(address + n * Integer.BYTES));
+                    break;
+                case ColumnType.SYMBOL:
+                    r.putSymIndex(i, Unsafe.getUnsafe().getInt(address + n * Integer.BYTES));
+                    break;
+                case ColumnType.FLOAT:
+                    r.putFloat(i, Unsafe.getUnsafe().getFloat(address + n * Float.BYTES));
+                    break;
+                case ColumnType.DOUBLE:
+                    r.putDouble(i, Unsafe.getUnsafe().getDouble(address + n * Double.BYTES));
+                    break;
+                case ColumnType.LONG256: {
+                    final long p = address + n * Long256.BYTES;
+                    r.putLong256(
+                            i,
+                            Unsafe.getUnsafe().getLong(p),
+                            Unsafe.getUnsafe().getLong(p + Long.BYTES),
+                            Unsafe.getUnsafe().getLong(p + Long.BYTES * 2),
+                            Unsafe.getUnsafe().getLong(p + Long.BYTES * 3)
+                    );
+                    break;
+                }
+                default:
+                    r.putLong(i, Unsafe.getUnsafe().getLong(address + n * Long.BYTES));
+                    break;
+            }
+        }
+        r.append();
     }
 
     private void bumpMasterRef() {
@@ -1702,6 +2282,10 @@ public class TableWriter implements Closeable {
 
         checkDistressed();
 
+        if (commitMode == CommitMode.GROUP && groupCommitScheduler == null) {
+            commitMode = CommitMode.SYNC;
+        }
+
         if (o3InError) {
             rollback();
             return;
@@ -1717,16 +2301,24 @@ public class TableWriter implements Closeable {
                 return;
             }
 
-            if (commitMode != CommitMode.NOSYNC) {
+            if (commitMode == CommitMode.SYNC || commitMode == CommitMode.ASYNC) {
                 syncColumns(commitMode);
             }
 
             updateIndexes();
-            txFile.commit(commitMode, this.denseSymbolMapWriters);
+            updatePartitionStats();
+            commitTx(commitMode);
             o3ProcessPartitionRemoveCandidates();
         }
     }
 
+    private void commitTx(int commitMode) {
+        txFile.commit(commitMode, denseSymbolMapWriters);
+        if (commitMode == CommitMode.GROUP) {
+            groupCommitTicket = groupCommitScheduler.submit();
+        }
+    }
+
     void commitBlock(long firstTimestamp) {
         if (txFile.getMinTimestamp() == Long.MAX_VALUE) {
             txFile.setMinTimestamp(firstTimestamp);
@@ -1893,7 +2485,7 @@ public class TableWriter implements Closeable {
         }
     }
 
-    private int copyMetadataAndSetIndexed(int columnIndex, int indexValueBlockSize) {
+    private int copyMetadataAndSetFlag(int columnIndex, long flag, int indexValueBlockSize) {
         try {
             int index = openMetaSwapFile(ff, ddlMem, path, rootLen, configuration.getMaxSwapFileCount());
             int columnCount = metaMem.getInt(META_OFFSET_COUNT);
@@ -1907,11 +2499,7 @@ public class TableWriter implements Closeable {
                     writeColumnEntry(i);
                 } else {
                     ddlMem.putByte((byte) getColumnType(metaMem, i));
-                    long flags = META_FLAG_BIT_INDEXED;
-                    if (isSequential(metaMem, i)) {
-                        flags |= META_FLAG_BIT_SEQUENTIAL;
-                    }
-                    ddlMem.putLong(flags);
+                    ddlMem.putLong(getColumnFlags(metaMem, i) | flag);
                     ddlMem.putInt(indexValueBlockSize);
                     ddlMem.skip(META_COLUMN_DATA_RESERVED);
                 }
@@ -2025,6 +2613,10 @@ public class TableWriter implements Closeable {
         Misc.free(ddlMem);
         Misc.free(other);
         Misc.free(todoMem);
+        Misc.free(statsMem);
+        Misc.free(bloomFilterStrMem);
+        Misc.free(bloomFilter);
+        Misc.freeObjList(partitionStats);
         try {
             releaseLock(!truncate | tx | performRecovery | distressed);
         } finally {
@@ -2154,6 +2746,24 @@ public class TableWriter implements Closeable {
         return columns.get(getPrimaryColumnIndex(columnIndex)).getAppendOffset();
     }
 
+    private ColumnStats getPartitionStats(int columnIndex) {
+        ColumnStats stats = partitionStats.getQuiet(columnIndex);
+        if (stats == null) {
+            stats = new ColumnStats();
+            partitionStats.extendAndSet(columnIndex, stats);
+        }
+        return stats;
+    }
+
+    private boolean hasBloomFilters() {
+        for (int i = 0; i < columnCount; i++) {
+            if (metadata.isColumnBloomFilter(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private AppendOnlyVirtualMemory getPrimaryColumn(int column) {
         assert column < columnCount : "Column index is out of bounds: " + column + " >= " + columnCount;
         return columns.getQuick(getPrimaryColumnIndex(column));
@@ -2206,6 +2816,7 @@ public class TableWriter implements Closeable {
                     if (txFile.attachedPartitionsContains(timestamp) && ff.exists(path.$())) {
 
                         final int plen = path.length();
+                        restoreCompressedPartition(plen);
 
                         TableUtils.dFile(path.trimTo(plen), columnName);
 
@@ -2529,6 +3140,10 @@ public class TableWriter implements Closeable {
                                 srcDataSize = getPartitionSizeByIndex(partitionIndex);
                             }
                             srcNameTxn = getPartitionNameTxnByIndex(partitionIndex);
+                            if (!last) {
+                                // o3 reads and appends raw column files
+                                restoreCompressedPartition(partitionTimestamp, srcNameTxn);
+                            }
                         } else {
                             srcDataSize = -1;
                             srcNameTxn = -1;
@@ -3101,6 +3716,10 @@ public class TableWriter implements Closeable {
             }
             txFile.updatePartitionSizeByIndex(partitionIndex, partitionTimestamp, partitionSize);
         }
+
+        if (partitionStatsEnabled || hasBloomFilters()) {
+            statsPartitions.add(partitionTimestamp);
+        }
     }
 
     synchronized void o3PartitionUpdateSynchronized(
@@ -3154,7 +3773,7 @@ public class TableWriter implements Closeable {
                     TableUtils.txnPartitionConditionally(other, txn);
                     other.slash$();
                     int errno;
-                    if ((errno = ff.rmdir(other)) == 0) {
+                    if ((errno = removePartitionDir(ff, other)) == 0) {
                         LOG.info().$(
                                 "purged [path=").$(other)
                                 .$(", readerTxn=").$(readerTxn)
@@ -3498,6 +4117,75 @@ public class TableWriter implements Closeable {
         o3TimestampMem.putLong128(timestamp, getO3RowCount());
     }
 
+    private boolean compressPartition(
+            long partitionTimestamp,
+            long partitionNameTxn,
+            long partitionSize,
+            SinglePageMappedReadOnlyPageMemory rawMem,
+            AppendOnlyVirtualMemory compressedMem
+    ) {
+        setPathForPartition(path, partitionBy, partitionTimestamp, false);
+        TableUtils.txnPartitionConditionally(path, partitionNameTxn);
+        final int plen = path.length();
+        try {
+            if (ff.exists(path.concat(COMPRESSED_PARTITION_MARKER).$())) {
+                return false;
+            }
+
+            long rawSize = 0;
+            long compressedSize = 0;
+            for (int i = 0; i < columnCount; i++) {
+                final int type = metadata.getColumnType(i);
+                final CharSequence name = metadata.getColumnName(i);
+                if (!ColumnCodec.isSupported(type) || !ff.exists(dFile(path.trimTo(plen), name))) {
+                    continue;
+                }
+
+                final long rowCount = partitionSize - readColumnTop(ff, path.trimTo(plen), name, plen, tempMem16b);
+                if (rowCount < 1) {
+                    continue;
+                }
+
+                final long columnSize = rowCount << ColumnType.pow2SizeOf(type);
+                rawMem.of(ff, dFile(path.trimTo(plen), name), 0, columnSize);
+                compressedMem.of(ff, dzFile(path.trimTo(plen), name), configuration.getAppendPageSize());
+                final long size = ColumnCodec.compress(type, rawMem.getPageAddress(0), rowCount, compressedMem);
+                rawMem.close();
+                if (size < columnSize) {
+                    ff.fsync(compressedMem.getFd());
+                    compressedMem.close(true);
+                    rawSize += columnSize;
+                    compressedSize += size;
+                } else {
+                    // incompressible data is kept as is
+                    compressedMem.close(true);
+                    removeOrException(ff, dzFile(path.trimTo(plen), name));
+                }
+            }
+
+            // marker goes first, writer removes compressed files when it finds the marker
+            if (!ff.touch(path.trimTo(plen).concat(COMPRESSED_PARTITION_MARKER).$())) {
+                throw CairoException.instance(ff.errno()).put("could not create ").put(path);
+            }
+
+            for (int i = 0; i < columnCount; i++) {
+                final CharSequence name = metadata.getColumnName(i);
+                if (ff.exists(dzFile(path.trimTo(plen), name))) {
+                    // readers that have raw file mapped keep using it
+                    removeFileAndOrLog(ff, dFile(path.trimTo(plen), name));
+                }
+            }
+
+            LOG.info().$("compressed partition [path=").$(path.trimTo(plen).$())
+                    .$(", rawSize=").$(rawSize)
+                    .$(", compressedSize=").$(compressedSize)
+                    .$(']').$();
+            return true;
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     private void openColumnFiles(CharSequence name, int i, int plen) {
         AppendOnlyVirtualMemory mem1 = getPrimaryColumn(i);
         AppendOnlyVirtualMemory mem2 = getSecondaryColumn(i);
@@ -3559,6 +4247,9 @@ public class TableWriter implements Closeable {
                 throw CairoException.instance(ff.errno()).put("Cannot create directory: ").put(path);
             }
 
+            // partition becomes active when partitions after it are removed
+            restoreCompressedPartition(plen);
+
             assert columnCount > 0;
 
             for (int i = 0; i < columnCount; i++) {
@@ -3576,6 +4267,10 @@ public class TableWriter implements Closeable {
                 openColumnFiles(name, i, plen);
                 columnTop = readColumnTop(ff, path, name, plen, tempMem16b);
                 columnTops.extendAndSet(i, columnTop);
+                final ColumnStats stats = partitionStats.getQuiet(i);
+                if (stats != null) {
+                    stats.clear();
+                }
 
                 if (indexed) {
                     ColumnIndexer indexer = indexers.getQuick(i);
@@ -3645,8 +4340,14 @@ public class TableWriter implements Closeable {
 
     private long readMinTimestamp(long partitionTimestamp) {
         setStateForTimestamp(other, partitionTimestamp, false);
+        final int plen = other.length();
         try {
-            dFile(other, metadata.getColumnName(metadata.getTimestampIndex()));
+            final CharSequence timestampName = metadata.getColumnName(metadata.getTimestampIndex());
+            if (!ff.exists(dFile(other, timestampName)) && ff.exists(dzFile(other.trimTo(plen), timestampName))) {
+                // first value of compressed timestamp column is stored as is
+                return TableUtils.readLongAtOffset(ff, other, tempMem16b, ColumnCodec.HEADER_SIZE);
+            }
+            dFile(other.trimTo(plen), timestampName);
             if (ff.exists(other)) {
                 // read min timestamp value
                 final long fd = TableUtils.openRO(ff, other, LOG);
@@ -3667,6 +4368,59 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void restoreCompressedPartition(long partitionTimestamp, long partitionNameTxn) {
+        setPathForPartition(path, partitionBy, partitionTimestamp, false);
+        TableUtils.txnPartitionConditionally(path, partitionNameTxn);
+        try {
+            restoreCompressedPartition(path.length());
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    // decompresses column files of partition in "path" to make partition writable
+    private void restoreCompressedPartition(int plen) {
+        try {
+            if (!ff.exists(path.concat(COMPRESSED_PARTITION_MARKER).$())) {
+                return;
+            }
+
+            for (int i = 0; i < columnCount; i++) {
+                final CharSequence name = metadata.getColumnName(i);
+                if (!ff.exists(dzFile(path.trimTo(plen), name))) {
+                    continue;
+                }
+
+                if (!ff.exists(dFile(path.trimTo(plen), name))) {
+                    try (DecompressedReadOnlyMemory mem = new DecompressedReadOnlyMemory(ff, dzFile(path.trimTo(plen), name))) {
+                        // readers must never see partially written raw file
+                        other.of(path.trimTo(plen)).concat(name).put(FILE_SUFFIX_D).put(".tmp").$();
+                        final long fd = TableUtils.openFileRWOrFail(ff, other);
+                        try {
+                            final long size = mem.size();
+                            if (ff.write(fd, mem.getPageAddress(0), size, 0) != size) {
+                                throw CairoException.instance(ff.errno()).put("could not write [file=").put(other).put(']');
+                            }
+                            ff.fsync(fd);
+                        } finally {
+                            ff.close(fd);
+                        }
+                        if (!ff.rename(other, dFile(path.trimTo(plen), name))) {
+                            throw CairoException.instance(ff.errno()).put("could not rename [from=").put(other).put(", to=").put(path).put(']');
+                        }
+                    } finally {
+                        other.trimTo(rootLen);
+                    }
+                }
+                removeOrException(ff, dzFile(path.trimTo(plen), name));
+            }
+            removeOrException(ff, path.trimTo(plen).concat(COMPRESSED_PARTITION_MARKER).$());
+            LOG.info().$("restored compressed partition [path=").$(path.trimTo(plen).$()).$(']').$();
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
     private void recoverFromMetaRenameFailure(CharSequence columnName) {
         openMetaFile(ff, path, rootLen, metaMem);
     }
@@ -3725,17 +4479,24 @@ public class TableWriter implements Closeable {
             indexers.remove(columnIndex);
             populateDenseIndexerList();
         }
+        if (columnIndex < partitionStats.size()) {
+            Misc.free(partitionStats.getQuick(columnIndex));
+            partitionStats.remove(columnIndex);
+        }
     }
 
     private void removeColumnFiles(CharSequence columnName, int columnType, RemoveFileLambda removeLambda) {
         try {
             ff.iterateDir(path.$(), (file, type) -> {
                 nativeLPSZ.of(file);
-                if (type == Files.DT_DIR && IGNORED_FILES.excludes(nativeLPSZ)) {
+                if ((type == Files.DT_DIR || type == Files.DT_LNK) && IGNORED_FILES.excludes(nativeLPSZ)) {
                     path.trimTo(rootLen);
                     path.concat(nativeLPSZ);
                     int plen = path.length();
                     removeLambda.remove(ff, dFile(path, columnName));
+                    removeLambda.remove(ff, dzFile(path.trimTo(plen), columnName));
+                    removeLambda.remove(ff, stFile(path.trimTo(plen), columnName));
+                    removeLambda.remove(ff, bfFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, iFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, topFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName));
@@ -3792,11 +4553,26 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void removeBloomFilterFiles(CharSequence columnName) {
+        try {
+            ff.iterateDir(path.$(), (file, type) -> {
+                nativeLPSZ.of(file);
+                if ((type == Files.DT_DIR || type == Files.DT_LNK) && IGNORED_FILES.excludes(nativeLPSZ)) {
+                    path.trimTo(rootLen);
+                    path.concat(nativeLPSZ);
+                    removeFileAndOrLog(ff, bfFile(path, columnName));
+                }
+            });
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     private void removeIndexFiles(CharSequence columnName) {
         try {
             ff.iterateDir(path.$(), (file, type) -> {
                 nativeLPSZ.of(file);
-                if (type == Files.DT_DIR && IGNORED_FILES.excludes(nativeLPSZ)) {
+                if ((type == Files.DT_DIR || type == Files.DT_LNK) && IGNORED_FILES.excludes(nativeLPSZ)) {
                     path.trimTo(rootLen);
                     path.concat(nativeLPSZ);
                     int plen = path.length();
@@ -3847,19 +4623,115 @@ public class TableWriter implements Closeable {
         path.concat(name).$();
         nativeLPSZ.of(name);
         int errno;
-        if (IGNORED_FILES.excludes(nativeLPSZ) && type == Files.DT_DIR && (errno = ff.rmdir(path)) != 0) {
+        if (IGNORED_FILES.excludes(nativeLPSZ) && (type == Files.DT_DIR || type == Files.DT_LNK) && (errno = removePartitionDir(ff, path)) != 0) {
             LOG.info().$("could not remove [path=").$(path).$(", errno=").$(errno).$(']').$();
         }
     }
 
+    private boolean moveColdPartition(CharSequence coldRoot, int partitionIndex) {
+        final long timestamp = txFile.getPartitionTimestamp(partitionIndex);
+        final long nameTxn = txFile.getPartitionNameTxn(partitionIndex);
+        final long coldNameTxn = txFile.getTxn();
+        try {
+            setPathForPartition(path.trimTo(rootLen), partitionBy, timestamp, false);
+            TableUtils.txnPartitionConditionally(path, nameTxn);
+            if (txFile.getPartitionSize(partitionIndex) < 1 || ff.isSoftLink(path.$())) {
+                return false;
+            }
+
+            other.of(coldRoot).concat(tableName);
+            setPathForPartition(other, partitionBy, timestamp, false);
+            TableUtils.txnPartition(other, coldNameTxn);
+            final int coldLen = other.length();
+            final boolean syncfs = ff.isSyncfsSupported();
+            try {
+                snapshotLink = false;
+                // without file system sync every copy is synced on its own
+                snapshotSync = !syncfs;
+                snapshotDir(mkDirMode);
+                final long fd = TableUtils.openRO(ff, other.trimTo(coldLen).$(), LOG);
+                try {
+                    // copies have to be durable before partition is switched over to them
+                    if ((syncfs ? ff.syncfs(fd) : ff.fsync(fd)) != 0) {
+                        throw CairoException.instance(ff.errno()).put("could not sync [path=").put(other).put(']');
+                    }
+                } finally {
+                    ff.close(fd);
+                }
+                setPathForPartition(path.trimTo(rootLen), partitionBy, timestamp, false);
+                TableUtils.txnPartition(path, coldNameTxn);
+                if (ff.softLink(other.trimTo(coldLen).$(), path.$()) != 0) {
+                    throw CairoException.instance(ff.errno()).put("could not link [from=").put(path).put(", to=").put(other).put(']');
+                }
+            } catch (Throwable e) {
+                // partition stays where it is
+                ff.rmdir(other.trimTo(coldLen).slash$());
+                throw e;
+            } finally {
+                snapshotSync = false;
+            }
+
+            txFile.updatePartitionSizeByIndexAndTxn(partitionIndex * LONGS_PER_TX_ATTACHED_PARTITION, txFile.getPartitionSize(partitionIndex));
+            txFile.bumpPartitionTableVersion();
+            o3PartitionRemoveCandidates.add(timestamp);
+            o3PartitionRemoveCandidates.add(nameTxn);
+            LOG.info().$("moved to cold storage [partition=").$(path).$(", target=").$(other).$(']').$();
+            return true;
+        } finally {
+            resetOtherPath();
+        }
+    }
+
+    // "other" is expected to start with table directory, same as "path"
+    private void resetOtherPath() {
+        other.trimTo(0).concat(path.trimTo(rootLen).$().address());
+        path.trimTo(rootLen);
+    }
+
+    private void snapshotDir(int dirMode) {
+        snapshotPathLen = path.length();
+        snapshotOtherLen = other.length();
+        if (ff.mkdirs(other.slash$(), dirMode) != 0) {
+            throw CairoException.instance(ff.errno()).put("could not create [dir=").put(other).put(']');
+        }
+        ff.iterateDir(path.$(), snapshotFile);
+    }
+
+    private void snapshotFile(long pName, int type) {
+        nativeLPSZ.of(pName);
+        // directories and links are either partitions, which are copied separately, or WAL segments
+        if (type == Files.DT_DIR || type == Files.DT_LNK || Chars.equals(nativeLPSZ, TXN_SCOREBOARD_FILE_NAME)) {
+            return;
+        }
+        path.trimTo(snapshotPathLen).concat(nativeLPSZ).$();
+        other.trimTo(snapshotOtherLen).concat(nativeLPSZ).$();
+        if (snapshotLink && ff.hardLink(path, other) == 0) {
+            snapshotLinkCount++;
+        } else if (ff.copy(path, other) < 0) {
+            throw CairoException.instance(ff.errno()).put("could not copy [from=").put(path).put(", to=").put(other).put(']');
+        } else if (snapshotSync) {
+            final long fd = TableUtils.openFileRWOrFail(ff, other);
+            try {
+                if (ff.fsync(fd) != 0) {
+                    throw CairoException.instance(ff.errno()).put("could not sync [path=").put(other).put(']');
+                }
+            } finally {
+                ff.close(fd);
+            }
+        }
+    }
+
     private void removePartitionDirsNotAttached(long pName, int type) {
         nativeLPSZ.of(pName);
-        if (!isDots(nativeLPSZ) && type == Files.DT_DIR) {
+        if (!isDots(nativeLPSZ) && (type == Files.DT_DIR || type == Files.DT_LNK)) {
             if (Chars.endsWith(nativeLPSZ, DETACHED_DIR_MARKER)) {
                 // Do not remove detached partitions
                 // They are probably about to be attached.
                 return;
             }
+            if (Chars.equals(nativeLPSZ, WAL_DIR_NAME)) {
+                return;
+            }
             try {
                 long txn = 0;
                 int txnSep = Chars.indexOf(nativeLPSZ, '.');
@@ -3881,7 +4753,7 @@ public class TableWriter implements Closeable {
             path.trimTo(rootLen);
             path.concat(pName).$();
             int errno;
-            if ((errno = ff.rmdir(path)) == 0) {
+            if ((errno = removePartitionDir(ff, path)) == 0) {
                 LOG.info().$("removed partition dir: ").$(path).$();
             } else {
                 LOG.error().$("cannot remove: ").$(path).$(" [errno=").$(errno).$(']').$();
@@ -3889,6 +4761,19 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void removePartitionStats() {
+        setStateForTimestamp(path, txFile.getMaxTimestamp(), false);
+        final int plen = path.length();
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                removeFileAndOrLog(ff, stFile(path.trimTo(plen), metadata.getColumnName(i)));
+                removeFileAndOrLog(ff, bfFile(path.trimTo(plen), metadata.getColumnName(i)));
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     private void removeSymbolMapFilesQuiet(CharSequence name) {
         try {
             removeFileAndOrLog(ff, SymbolMapWriter.offsetFileName(path.trimTo(rootLen), name));
@@ -3958,13 +4843,16 @@ public class TableWriter implements Closeable {
         try {
             ff.iterateDir(path.$(), (file, type) -> {
                 nativeLPSZ.of(file);
-                if (type == Files.DT_DIR && IGNORED_FILES.excludes(nativeLPSZ)) {
+                if ((type == Files.DT_DIR || type == Files.DT_LNK) && IGNORED_FILES.excludes(nativeLPSZ)) {
                     path.trimTo(rootLen);
                     path.concat(nativeLPSZ);
                     other.trimTo(rootLen);
                     other.concat(nativeLPSZ);
                     int plen = path.length();
                     renameFileOrLog(ff, dFile(path.trimTo(plen), columnName), dFile(other.trimTo(plen), newName));
+                    renameFileOrLog(ff, dzFile(path.trimTo(plen), columnName), dzFile(other.trimTo(plen), newName));
+                    renameFileOrLog(ff, stFile(path.trimTo(plen), columnName), stFile(other.trimTo(plen), newName));
+                    renameFileOrLog(ff, bfFile(path.trimTo(plen), columnName), bfFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, iFile(path.trimTo(plen), columnName), iFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, topFile(path.trimTo(plen), columnName), topFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName), BitmapIndexUtils.keyFileName(other.trimTo(plen), newName));
@@ -4287,6 +5175,7 @@ public class TableWriter implements Closeable {
         // added so far. Index writers will start point to different
         // files after switch.
         updateIndexes();
+        updatePartitionStats();
         txFile.switchPartitions(timestamp);
         openPartition(timestamp);
         setAppendPosition(0, false);
@@ -4426,6 +5315,163 @@ public class TableWriter implements Closeable {
         this.timestampSetter.accept(timestamp);
     }
 
+    /**
+     * Adds rows committed to the active partition to bloom filter of the column. Filter file records
+     * the number of rows it covers, rows from that number or from the first row of the commit,
+     * whichever is lower, are added. Adding a value twice is harmless.
+     */
+    private void updateBloomFilter(int columnIndex, int type, AppendOnlyVirtualMemory mem, int plen, long lo, long hi) {
+        bloomFilter.of(ff, bfFile(path.trimTo(plen), metadata.getColumnName(columnIndex)), bloomFilterBlockCount);
+        try {
+            final long top = columnTops.getQuick(columnIndex);
+            final long from = Math.max(Math.min(bloomFilter.getRowCount(), lo), top);
+            if (from < hi) {
+                if (type == ColumnType.STRING) {
+                    statsMem.of(getSecondaryColumn(columnIndex));
+                    bloomFilterStrMem.of(mem);
+                    addBloomFilterStr(bloomFilterStrMem, statsMem, metadata.isColumnStrUtf8(columnIndex), from - top, hi - top);
+                } else {
+                    final int shl = ColumnType.pow2SizeOf(type);
+                    long offset = (from - top) << shl;
+                    final long limit = (hi - top) << shl;
+                    statsMem.of(mem);
+                    while (offset < limit) {
+                        final long offsetInPage = statsMem.offsetInPage(offset);
+                        final long len = Math.min(limit - offset, statsMem.getMapPageSize() - offsetInPage);
+                        addBloomFilterValues(type, statsMem.getPageAddress(statsMem.pageIndex(offset)) + offsetInPage, len >> shl);
+                        offset += len;
+                    }
+                }
+            }
+            // readers trust filter once it covers partition, row count goes last
+            bloomFilter.setRowCount(hi);
+        } finally {
+            bloomFilter.close();
+            bloomFilterStrMem.close();
+        }
+    }
+
+    /**
+     * Writes statistics and bloom filters of rows committed to the active partition. Statistics are
+     * kept in memory between commits, so that only newly appended rows are scanned. When in-memory
+     * statistics do not cover committed rows, for example after writer is reopened, they are read
+     * from the file. Partitions rewritten by o3 commit are scanned from disk in full.
+     */
+    private void updatePartitionStats() {
+        if (!partitionStatsEnabled && !hasBloomFilters()) {
+            return;
+        }
+
+        if (statsPartitions.size() > 0) {
+            for (int i = 0, n = statsPartitions.size(); i < n; i++) {
+                updatePartitionStatsFromDisk(statsPartitions.getQuick(i));
+            }
+            statsPartitions.clear();
+            // active partition might have been rewritten, in-memory stats are re-read on next commit
+            for (int i = 0, n = partitionStats.size(); i < n; i++) {
+                final ColumnStats stats = partitionStats.getQuick(i);
+                if (stats != null) {
+                    stats.clear();
+                }
+            }
+            return;
+        }
+
+        final long hi = txFile.getTransientRowCount();
+        final long lo = txFile.getAppendedPartitionCount() == 1 ? hi - txFile.getLastTxSize() : 0;
+        if (lo >= hi) {
+            return;
+        }
+
+        setStateForTimestamp(path, txFile.getMaxTimestamp(), false);
+        final int plen = path.length();
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                final int type = metadata.getColumnType(i);
+                final boolean hasStats = partitionStatsEnabled && ColumnStats.isSupported(type);
+                final boolean hasBloomFilter = metadata.isColumnBloomFilter(i);
+                if (!hasStats && !hasBloomFilter) {
+                    continue;
+                }
+
+                final AppendOnlyVirtualMemory mem = getPrimaryColumn(i);
+                if (mem.isClosed()) {
+                    // block writer closes columns before switching partition, statistics and filter files
+                    // are left behind and readers ignore them because they cover fewer rows than partition has
+                    continue;
+                }
+
+                if (hasBloomFilter) {
+                    updateBloomFilter(i, type, mem, plen, lo, hi);
+                }
+
+                if (!hasStats) {
+                    continue;
+                }
+
+                final CharSequence name = metadata.getColumnName(i);
+                final ColumnStats stats = getPartitionStats(i);
+                if (lo == 0) {
+                    stats.clear();
+                } else if (stats.getRowCount() != lo && (!stats.read(ff, stFile(path.trimTo(plen), name)) || stats.getRowCount() != lo)) {
+                    stats.clear();
+                    addPartitionStats(stats, i, type, mem, 0, lo);
+                }
+                addPartitionStats(stats, i, type, mem, lo, hi);
+                stats.write(ff, stFile(path.trimTo(plen), name));
+            }
+        } finally {
+            statsMem.close();
+            path.trimTo(rootLen);
+        }
+    }
+
+    private void updatePartitionStatsFromDisk(long partitionTimestamp) {
+        final long partitionSize = txFile.isActivePartition(partitionTimestamp) ?
+                txFile.getTransientRowCount() :
+                txFile.getPartitionSizeByPartitionTimestamp(partitionTimestamp);
+        if (partitionSize < 1) {
+            return;
+        }
+
+        setPathForPartition(path, partitionBy, partitionTimestamp, false);
+        txnPartitionConditionally(path, txFile.getPartitionNameTxnByPartitionTimestamp(partitionTimestamp));
+        final int plen = path.length();
+        try (
+                ColumnStats stats = new ColumnStats();
+                SinglePageMappedReadOnlyPageMemory rawMem = new SinglePageMappedReadOnlyPageMemory();
+                SinglePageMappedReadOnlyPageMemory rawIndexMem = new SinglePageMappedReadOnlyPageMemory()
+        ) {
+            for (int i = 0; i < columnCount; i++) {
+                if (metadata.isColumnBloomFilter(i)) {
+                    buildBloomFilter(i, plen, partitionSize, rawMem, rawIndexMem);
+                }
+
+                final int type = metadata.getColumnType(i);
+                if (!partitionStatsEnabled || !ColumnStats.isSupported(type)) {
+                    continue;
+                }
+
+                final CharSequence name = metadata.getColumnName(i);
+                final long top = Math.min(readColumnTop(ff, path.trimTo(plen), name, plen, tempMem16b), partitionSize);
+                stats.clear();
+                stats.addTop(type, top);
+                if (partitionSize > top) {
+                    if (!ff.exists(dFile(path.trimTo(plen), name))) {
+                        removeFileAndOrLog(ff, stFile(path.trimTo(plen), name));
+                        continue;
+                    }
+                    rawMem.of(ff, dFile(path.trimTo(plen), name), 0, (partitionSize - top) << ColumnType.pow2SizeOf(type));
+                    stats.add(type, rawMem.getPageAddress(0), partitionSize - top);
+                    rawMem.close();
+                }
+                stats.write(ff, stFile(path.trimTo(plen), name));
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     private void validateSwapMeta(CharSequence columnName) {
         try {
             try {
@@ -4455,6 +5501,14 @@ public class TableWriter implements Closeable {
         if (isSequential(metaMem, i)) {
             flags |= META_FLAG_BIT_SEQUENTIAL;
         }
+
+        if (isStrUtf8(metaMem, i)) {
+            flags |= META_FLAG_BIT_STR_UTF8;
+        }
+
+        if (isBloomFilter(metaMem, i)) {
+            flags |= META_FLAG_BIT_BLOOM_FILTER;
+        }
         ddlMem.putLong(flags);
         ddlMem.putInt(getIndexBlockCapacity(metaMem, i));
         ddlMem.skip(META_COLUMN_DATA_RESERVED);
@@ -4712,17 +5766,20 @@ public class TableWriter implements Closeable {
         }
 
         public void putStr(int index, CharSequence value) {
-            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value));
+            final WriteOnlyVirtualMemory mem = getPrimaryColumn(index);
+            getSecondaryColumn(index).putLong(metadata.isColumnStrUtf8(index) ? mem.putStrUtf8(value) : mem.putStr(value));
             notNull(index);
         }
 
         public void putStr(int index, char value) {
-            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value));
+            final WriteOnlyVirtualMemory mem = getPrimaryColumn(index);
+            getSecondaryColumn(index).putLong(metadata.isColumnStrUtf8(index) ? mem.putStrUtf8(value) : mem.putStr(value));
             notNull(index);
         }
 
         public void putStr(int index, CharSequence value, int pos, int len) {
-            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value, pos, len));
+            final WriteOnlyVirtualMemory mem = getPrimaryColumn(index);
+            getSecondaryColumn(index).putLong(metadata.isColumnStrUtf8(index) ? mem.putStrUtf8(value, pos, len) : mem.putStr(value, pos, len));
             notNull(index);
         }
 
@@ -4789,5 +5846,6 @@ public class TableWriter implements Closeable {
         IGNORED_FILES.add(META_FILE_NAME);
         IGNORED_FILES.add(TXN_FILE_NAME);
         IGNORED_FILES.add(TODO_FILE_NAME);
+        IGNORED_FILES.add(WAL_DIR_NAME);
     }
 }
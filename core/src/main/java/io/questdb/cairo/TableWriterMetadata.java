@@ -37,6 +37,7 @@ public class TableWriterMetadata extends BaseRecordMetadata {
     private final int id;
     private int o3MaxUncommittedRows;
     private long o3CommitHysteresisInMicros;
+    private long coldPartitionAgeInMicros;
 
     public TableWriterMetadata(FilesFacade ff, MappedReadOnlyMemory metaMem) {
         this.columnCount = metaMem.getInt(TableUtils.META_OFFSET_COUNT);
@@ -45,6 +46,7 @@ public class TableWriterMetadata extends BaseRecordMetadata {
         this.id = metaMem.getInt(TableUtils.META_OFFSET_TABLE_ID);
         this.o3MaxUncommittedRows = metaMem.getInt(TableUtils.META_OFFSET_O3_MAX_UNCOMMITTED_ROWS);
         this.o3CommitHysteresisInMicros = metaMem.getLong(TableUtils.META_OFFSET_O3_COMMIT_HYSTERESIS_IN_MICROS);
+        this.coldPartitionAgeInMicros = metaMem.getLong(TableUtils.META_OFFSET_COLD_PARTITION_AGE_IN_MICROS);
         TableUtils.validate(ff, metaMem, columnNameIndexMap);
         this.timestampIndex = metaMem.getInt(TableUtils.META_OFFSET_TIMESTAMP_INDEX);
         this.columnMetadata = new ObjList<>(this.columnCount);
@@ -56,16 +58,17 @@ public class TableWriterMetadata extends BaseRecordMetadata {
             CharSequence name = metaMem.getStr(offset);
             assert name != null;
             int type = TableUtils.getColumnType(metaMem, i);
-            columnMetadata.add(
-                    new TableColumnMetadata(
-                            Chars.toString(name),
-                            type,
-                            TableUtils.isColumnIndexed(metaMem, i),
-                            TableUtils.getIndexBlockCapacity(metaMem, i),
-                            true,
-                            null
-                    )
+            final TableColumnMetadata m = new TableColumnMetadata(
+                    Chars.toString(name),
+                    type,
+                    TableUtils.isColumnIndexed(metaMem, i),
+                    TableUtils.getIndexBlockCapacity(metaMem, i),
+                    true,
+                    TableUtils.isStrUtf8(metaMem, i),
+                    null
             );
+            m.setBloomFilter(TableUtils.isBloomFilter(metaMem, i));
+            columnMetadata.add(m);
             if (type == ColumnType.SYMBOL) {
                 symbolMapCount++;
             }
@@ -77,7 +80,7 @@ public class TableWriterMetadata extends BaseRecordMetadata {
         return symbolMapCount;
     }
 
-    void addColumn(CharSequence name, int type, boolean indexFlag, int indexValueBlockCapacity) {
+    void addColumn(CharSequence name, int type, boolean indexFlag, int indexValueBlockCapacity, boolean strUtf8) {
         String str = name.toString();
         columnNameIndexMap.put(str, columnMetadata.size());
         columnMetadata.add(
@@ -87,6 +90,7 @@ public class TableWriterMetadata extends BaseRecordMetadata {
                         indexFlag,
                         indexValueBlockCapacity,
                         true,
+                        strUtf8,
                         null
                 )
         );
@@ -153,4 +157,12 @@ public class TableWriterMetadata extends BaseRecordMetadata {
     public void setO3CommitHysteresisInMicros(long micros) {
         this.o3CommitHysteresisInMicros = micros;
     }
+
+    public long getColdPartitionAgeInMicros() {
+        return coldPartitionAgeInMicros;
+    }
+
+    public void setColdPartitionAgeInMicros(long micros) {
+        this.coldPartitionAgeInMicros = micros;
+    }
 }
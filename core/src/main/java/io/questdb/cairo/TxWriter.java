@@ -41,6 +41,7 @@ public final class TxWriter extends TxReader implements Closeable {
     private int txPartitionCount;
     private long prevMaxTimestamp;
     private long prevMinTimestamp;
+    private long seqTxn;
     protected long prevTransientRowCount;
 
     private PagedMappedReadWriteMemory txMem;
@@ -59,6 +60,10 @@ public final class TxWriter extends TxReader implements Closeable {
         transientRowCount++;
     }
 
+    public void append(long rowCount) {
+        transientRowCount += rowCount;
+    }
+
     public void appendBlock(long timestampLo, long timestampHi, long nRowsAdded) {
         if (timestampLo < maxTimestamp) {
             throw CairoException.instance(ff.errno()).put("Cannot insert rows out of order. Table=").put(path);
@@ -131,7 +136,7 @@ public final class TxWriter extends TxReader implements Closeable {
     public void close() {
         try {
             if (txMem != null) {
-                txMem.jumpTo(getTxEofOffset());
+                txMem.jumpTo(getTxEofOffset() + Long.BYTES);
             }
         } finally {
             super.close();
@@ -141,6 +146,8 @@ public final class TxWriter extends TxReader implements Closeable {
     @Override
     public void readUnchecked() {
         super.readUnchecked();
+        // sequencer txn follows partition table, files written before it was added have zero there
+        this.seqTxn = txMem.getLong(getPartitionTableIndexOffset(symbolsCount, txMem.getInt(getPartitionTableSizeOffset(symbolsCount)) / Long.BYTES));
         this.prevTransientRowCount = this.transientRowCount;
         this.prevMaxTimestamp = maxTimestamp;
         this.prevMinTimestamp = minTimestamp;
@@ -179,7 +186,7 @@ public final class TxWriter extends TxReader implements Closeable {
 
         Unsafe.getUnsafe().storeFence();
         txMem.putLong(TX_OFFSET_TXN_CHECK, txn);
-        if (commitMode != CommitMode.NOSYNC) {
+        if (commitMode == CommitMode.SYNC || commitMode == CommitMode.ASYNC) {
             txMem.sync(0, commitMode == CommitMode.ASYNC);
         }
 
@@ -206,6 +213,13 @@ public final class TxWriter extends TxReader implements Closeable {
         return txPartitionCount == 1 ? transientRowCount - prevTransientRowCount : transientRowCount;
     }
 
+    /**
+     * @return number of sequencer transactions applied to the table, zero for tables without WAL
+     */
+    public long getSeqTxn() {
+        return seqTxn;
+    }
+
     public boolean inTransaction() {
         return txPartitionCount > 1 || transientRowCount != prevTransientRowCount;
     }
@@ -265,6 +279,7 @@ public final class TxWriter extends TxReader implements Closeable {
                 txMem.getLong(TX_OFFSET_TXN) + 1,
                 txMem.getLong(TX_OFFSET_DATA_VERSION) + 1,
                 txMem.getLong(TX_OFFSET_PARTITION_TABLE_VERSION) + 1);
+        putSeqTxn(getPartitionTableIndexOffset(symbolsCount, 0));
     }
 
     public void resetTimestamp() {
@@ -274,6 +289,16 @@ public final class TxWriter extends TxReader implements Closeable {
         minTimestamp = prevMinTimestamp;
     }
 
+    /**
+     * Sets number of sequencer transactions applied to the table, the value is written to
+     * the file by next commit together with rows of these transactions.
+     *
+     * @param seqTxn number of applied sequencer transactions
+     */
+    public void setSeqTxn(long seqTxn) {
+        this.seqTxn = seqTxn;
+    }
+
     public void setMinTimestamp(long timestamp) {
             minTimestamp = timestamp;
             if (prevMinTimestamp == Long.MAX_VALUE) {
@@ -309,6 +334,7 @@ public final class TxWriter extends TxReader implements Closeable {
         attachedPositionDirtyIndex = 0;
         attachedPartitions.clear();
         resetTxn(txMem, symbolsCount, txn, ++dataVersion, ++partitionTableVersion);
+        putSeqTxn(getPartitionTableIndexOffset(symbolsCount, 0));
     }
 
     public void updateMaxTimestamp(long timestamp) {
@@ -374,6 +400,11 @@ public final class TxWriter extends TxReader implements Closeable {
             }
             attachedPositionDirtyIndex = size;
         }
+        putSeqTxn(getPartitionTableIndexOffset(partitionTableOffset, size));
+    }
+
+    private void putSeqTxn(long offset) {
+        txMem.putLong(offset, seqTxn);
     }
 
     private void storeSymbolCounts(ObjList<SymbolMapWriter> denseSymbolMapWriters) {
@@ -247,6 +247,32 @@ public class FastMap implements Map {
         return valueOf(keyWriter.startAddress, true, value);
     }
 
+    /**
+     * Adds all entries of srcMap to this map. Keys that are new to this map are copied
+     * together with their values, values of existing keys are combined via mergeFunction.
+     * Source map must have been created with the same key and value types as this map.
+     *
+     * @param srcMap        map to read entries from, it is not modified
+     * @param mergeFunction combines source value into value of this map when key is present in both
+     */
+    public void merge(FastMap srcMap, MergeFunction mergeFunction) {
+        assert keyDataOffset == srcMap.keyDataOffset && valueColumnCount == srcMap.valueColumnCount;
+        long address = srcMap.kStart;
+        for (int i = 0, n = srcMap.size; i < n; i++) {
+            final int len = Unsafe.getUnsafe().getInt(address);
+            key.init();
+            key.checkSize(len - keyDataOffset);
+            // entry is position independent, column offsets are relative to entry start
+            Unsafe.getUnsafe().copyMemory(address, key.startAddress, len);
+            key.appendAddress = key.startAddress + len;
+            final MapValue value = key.createValue();
+            if (!value.isNew()) {
+                mergeFunction.merge(value, srcMap.valueOf(address, false, srcMap.value));
+            }
+            address += len;
+        }
+    }
+
     @Override
     public MapKey withKey() {
         return key.init();
@@ -374,6 +400,11 @@ public class FastMap implements Map {
         int hash(long address, int len);
     }
 
+    @FunctionalInterface
+    public interface MergeFunction {
+        void merge(MapValue destValue, MapValue srcValue);
+    }
+
     public class Key implements MapKey {
         private long startAddress;
         private long appendAddress;
@@ -27,7 +27,8 @@ package io.questdb.cairo.pool;
 import io.questdb.cairo.CairoSecurityContext;
 import io.questdb.cairo.TableWriter;
 
-@FunctionalInterface
 public interface WriterSource {
     TableWriter getWriter(CairoSecurityContext context, CharSequence name);
+
+    TableWriter getWalWriter(CairoSecurityContext context, CharSequence name);
 }
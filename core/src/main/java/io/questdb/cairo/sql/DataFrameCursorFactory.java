@@ -25,6 +25,7 @@
 package io.questdb.cairo.sql;
 
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
 import io.questdb.std.Sinkable;
 import io.questdb.std.str.CharSink;
 
@@ -33,6 +34,16 @@ import java.io.Closeable;
 public interface DataFrameCursorFactory extends Sinkable, Closeable {
     DataFrameCursor getCursor(SqlExecutionContext executionContext);
 
+    /**
+     * Declares how columns of data frames are going to be accessed, so that cursor can hint
+     * operating system to read ahead or not.
+     *
+     * @param advice        one of Files.MADV_* constants
+     * @param columnIndexes reader indexes of accessed columns
+     */
+    default void setAccessPattern(int advice, IntList columnIndexes) {
+    }
+
     default void toSink(CharSink sink) {
         throw new UnsupportedOperationException();
     }
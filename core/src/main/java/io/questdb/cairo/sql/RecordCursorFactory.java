@@ -49,6 +49,15 @@ public interface RecordCursorFactory extends Closeable, Sinkable {
 
     boolean recordCursorSupportsRandomAccess();
 
+    /**
+     * Declares how records of this factory are going to be accessed, so that table columns
+     * can be hinted to operating system. Factories that do not read tables ignore this.
+     *
+     * @param advice one of Files.MADV_* constants
+     */
+    default void setAccessPattern(int advice) {
+    }
+
     default boolean supportPageFrameCursor() {
         return false;
     }
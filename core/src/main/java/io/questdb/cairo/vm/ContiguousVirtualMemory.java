@@ -32,6 +32,7 @@ import io.questdb.log.LogFactory;
 import io.questdb.std.*;
 import io.questdb.std.str.AbstractCharSequence;
 import io.questdb.std.str.CharSink;
+import io.questdb.std.str.SingleCharCharSequence;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.Closeable;
@@ -46,6 +47,8 @@ public class ContiguousVirtualMemory implements ReadWriteVirtualMemory, Mutable,
     private final ByteSequenceView bsview = new ByteSequenceView();
     private final CharSequenceView csview = new CharSequenceView();
     private final CharSequenceView csview2 = new CharSequenceView();
+    private final Utf8StrView utf8view = new Utf8StrView();
+    private final Utf8StrView utf8view2 = new Utf8StrView();
     private final Long256Impl long256 = new Long256Impl();
     private final Long256Impl long256B = new Long256Impl();
     private final int maxPages;
@@ -65,6 +68,11 @@ public class ContiguousVirtualMemory implements ReadWriteVirtualMemory, Mutable,
         return baseAddress + offset;
     }
 
+    @Override
+    public void advise(int advice) {
+        // heap memory, there is no file to read ahead
+    }
+
     @Override
     public void clear() {
         releaseMemory();
@@ -172,6 +180,30 @@ public class ContiguousVirtualMemory implements ReadWriteVirtualMemory, Mutable,
         return getInt(offset);
     }
 
+    @Override
+    public final CharSequence getStrUtf8(long offset) {
+        return getStrUtf80(offset, utf8view);
+    }
+
+    @Override
+    public final CharSequence getStrUtf8B(long offset) {
+        return getStrUtf80(offset, utf8view2);
+    }
+
+    @Override
+    public final int getStrUtf8Len(long offset) {
+        return VmUtils.getUtf8StrLen(this, offset);
+    }
+
+    private CharSequence getStrUtf80(long offset, Utf8StrView view) {
+        final int len = getInt(offset);
+        if (len != TableUtils.NULL_LEN) {
+            final long lo = offset + VmUtils.STRING_LENGTH_BYTES;
+            return view.of(this, lo, VmUtils.getUtf8ByteLength(this, lo, len));
+        }
+        return null;
+    }
+
     @Override
     public void grow(long size) {
         long nPages = (size >>> pageSizeMsb) + 1;
@@ -438,6 +470,31 @@ public class ContiguousVirtualMemory implements ReadWriteVirtualMemory, Mutable,
         return putNullStr();
     }
 
+    @Override
+    public final long putStrUtf8(CharSequence value) {
+        return value == null ? putNullStr() : putStrUtf8(value, 0, value.length());
+    }
+
+    @Override
+    public final long putStrUtf8(char value) {
+        return value == 0 ? putNullStr() : putStrUtf8(SingleCharCharSequence.get(value), 0, 1);
+    }
+
+    @Override
+    public final long putStrUtf8(CharSequence value, int pos, int len) {
+        final int utf8Len = VmUtils.getUtf8Length(value, pos, pos + len);
+        final long storageLen = VmUtils.getStorageLength(VmUtils.getUtf8CharLength(utf8Len));
+        checkLimits(storageLen);
+        final long offset = getAppendOffset();
+        Unsafe.getUnsafe().putInt(appendAddress, VmUtils.getUtf8CharLength(utf8Len));
+        final long p = VmUtils.putUtf8(value, pos, pos + len, appendAddress + VmUtils.STRING_LENGTH_BYTES);
+        if ((utf8Len & 1) != 0) {
+            Unsafe.getUnsafe().putByte(p, VmUtils.UTF8_PADDING);
+        }
+        appendAddress += storageLen;
+        return offset;
+    }
+
     public void putStr(long offset, CharSequence value) {
         if (value != null) {
             putStr(offset, value, 0, value.length());
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.vm;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnCodec;
+import io.questdb.cairo.TableUtils;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.LPSZ;
+
+/**
+ * Read-only view of a compressed column file. File is decoded into off-heap memory
+ * in full when opened, so that page address remains valid for the lifetime of
+ * the memory, same as for a mapped column. Compressed files belong to sealed
+ * partitions and never grow.
+ * <p>
+ * Decoded size is not bounded by the memory itself, callers that open many columns
+ * should use {@link #ofBounded(FilesFacade, LPSZ, long)} with their remaining budget.
+ */
+public class DecompressedReadOnlyMemory extends SinglePageMappedReadOnlyPageMemory {
+    private static final Log LOG = LogFactory.getLog(DecompressedReadOnlyMemory.class);
+
+    public DecompressedReadOnlyMemory(FilesFacade ff, LPSZ name) {
+        of(ff, name, 0);
+    }
+
+    public DecompressedReadOnlyMemory() {
+    }
+
+    @Override
+    public void close() {
+        if (absolutePointer != 0) {
+            Unsafe.free(absolutePointer, size);
+            absolutePointer = 0;
+            size = 0;
+        }
+    }
+
+    @Override
+    public long getFd() {
+        return -1;
+    }
+
+    @Override
+    public void growToFileSize() {
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long pageSize, long size) {
+        of(ff, name, pageSize);
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long pageSize) {
+        ofBounded(ff, name, Long.MAX_VALUE);
+    }
+
+    /**
+     * Decodes compressed file.
+     *
+     * @param ff      files facade
+     * @param name    path to compressed file
+     * @param maxSize maximum number of bytes to decode the file into, exception is thrown
+     *                before memory is allocated when file decodes into more bytes
+     */
+    public void ofBounded(FilesFacade ff, LPSZ name, long maxSize) {
+        close();
+        this.ff = ff;
+        final long fd = TableUtils.openRO(ff, name, LOG);
+        try {
+            final long fileSize = ff.length(fd);
+            if (fileSize < ColumnCodec.HEADER_SIZE) {
+                throw CairoException.instance(0).put("compressed column is too short [file=").put(name).put(", size=").put(fileSize).put(']');
+            }
+            final long addr = ff.mmap(fd, fileSize, 0, Files.MAP_RO);
+            if (addr == FilesFacade.MAP_FAILED) {
+                throw CairoException.instance(ff.errno()).put("could not mmap [file=").put(name).put(", size=").put(fileSize).put(']');
+            }
+            try {
+                final long len = ColumnCodec.getDecompressedSize(addr);
+                if (len < 0) {
+                    throw CairoException.instance(0).put("compressed column is corrupt [file=").put(name).put(']');
+                }
+                if (len > maxSize) {
+                    throw CairoException.instance(0).put("decompressed column exceeds memory limit [file=").put(name).put(", size=").put(len).put(", limit=").put(maxSize).put(']');
+                }
+                // keep non-zero allocation for empty columns, address is used as "open" flag
+                final long mem = Unsafe.malloc(Math.max(len, 1));
+                try {
+                    ColumnCodec.decompress(addr, fileSize, mem);
+                } catch (Throwable e) {
+                    Unsafe.free(mem, Math.max(len, 1));
+                    throw e;
+                }
+                this.absolutePointer = mem;
+                this.size = Math.max(len, 1);
+            } finally {
+                ff.munmap(addr, fileSize);
+            }
+        } finally {
+            ff.close(fd);
+        }
+        LOG.debug().$("decompressed [file=").$(name).$(", size=").$(size).$(']').$();
+    }
+
+    @Override
+    public boolean isDeleted() {
+        return false;
+    }
+
+    @Override
+    public void grow(long newSize) {
+        if (newSize > size) {
+            throw CairoException.instance(0).put("compressed column cannot grow [size=").put(size).put(", newSize=").put(newSize).put(']');
+        }
+    }
+}
@@ -32,6 +32,7 @@ import io.questdb.log.LogFactory;
 import io.questdb.std.*;
 import io.questdb.std.str.AbstractCharSequence;
 import io.questdb.std.str.CharSink;
+import io.questdb.std.str.SingleCharCharSequence;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.Closeable;
@@ -44,6 +45,8 @@ public class PagedVirtualMemory implements ReadWriteVirtualMemory, Closeable {
     private final ByteSequenceView bsview = new ByteSequenceView();
     private final CharSequenceView csview = new CharSequenceView();
     private final CharSequenceView csview2 = new CharSequenceView();
+    private final Utf8StrView utf8view = new Utf8StrView();
+    private final Utf8StrView utf8view2 = new Utf8StrView();
     private final Long256Impl long256 = new Long256Impl();
     private final Long256Impl long256B = new Long256Impl();
     private final int maxPages;
@@ -92,6 +95,11 @@ public class PagedVirtualMemory implements ReadWriteVirtualMemory, Closeable {
         return addressOf0(offset);
     }
 
+    @Override
+    public void advise(int advice) {
+        // pages are mapped and released as memory is accessed, hints would not outlive them
+    }
+
     public void clearHotPage() {
         roOffsetLo = roOffsetHi = 0;
     }
@@ -264,6 +272,35 @@ public class PagedVirtualMemory implements ReadWriteVirtualMemory, Closeable {
         return getInt(offset);
     }
 
+    @Override
+    public final CharSequence getStrUtf8(long offset) {
+        return getStrUtf80(offset, utf8view);
+    }
+
+    @Override
+    public final CharSequence getStrUtf8B(long offset) {
+        return getStrUtf80(offset, utf8view2);
+    }
+
+    @Override
+    public final int getStrUtf8Len(long offset) {
+        return VmUtils.getUtf8StrLen(this, offset);
+    }
+
+    private CharSequence getStrUtf80(long offset, Utf8StrView view) {
+        final int len = getInt(offset);
+        if (len == TableUtils.NULL_LEN) {
+            return null;
+        }
+
+        if (len == 0) {
+            return "";
+        }
+
+        final long lo = offset + STRING_LENGTH_BYTES;
+        return view.of(this, lo, VmUtils.getUtf8ByteLength(this, lo, len));
+    }
+
     public long hash(long offset, long size) {
         if (roOffsetLo < offset && offset < roOffsetHi - size) {
             long n = size - (size % 8);
@@ -620,6 +657,37 @@ public class PagedVirtualMemory implements ReadWriteVirtualMemory, Closeable {
         return putStr0(value, pos, len);
     }
 
+    @Override
+    public final long putStrUtf8(CharSequence value) {
+        return value == null ? putNullStr() : putStrUtf8(value, 0, value.length());
+    }
+
+    @Override
+    public final long putStrUtf8(char value) {
+        return value == 0 ? putNullStr() : putStrUtf8(SingleCharCharSequence.get(value), 0, 1);
+    }
+
+    @Override
+    public final long putStrUtf8(CharSequence value, int pos, int len) {
+        final int utf8Len = VmUtils.getUtf8Length(value, pos, pos + len);
+        final int charLen = VmUtils.getUtf8CharLength(utf8Len);
+        final long offset = getAppendOffset();
+        putInt(charLen);
+        if (pageHi - appendPointer < charLen * 2L) {
+            VmUtils.putUtf8(value, pos, pos + len, this);
+            if ((utf8Len & 1) != 0) {
+                putByte(VmUtils.UTF8_PADDING);
+            }
+        } else {
+            final long p = VmUtils.putUtf8(value, pos, pos + len, appendPointer);
+            if ((utf8Len & 1) != 0) {
+                Unsafe.getUnsafe().putByte(p, VmUtils.UTF8_PADDING);
+            }
+            appendPointer += charLen * 2L;
+        }
+        return offset;
+    }
+
     @Override
     public void putStr(long offset, CharSequence value) {
         if (value == null) {
@@ -30,6 +30,14 @@ import io.questdb.std.str.CharSink;
 
 public interface ReadOnlyVirtualMemory {
 
+    /**
+     * Hints operating system about the way memory is going to be accessed. Hint applies to memory
+     * mapped at the time of the call. Memory that is not mapped from file ignores it.
+     *
+     * @param advice one of Files.MADV_* constants
+     */
+    void advise(int advice);
+
     BinarySequence getBin(long offset);
 
     long getBinLen(long offset);
@@ -68,6 +76,18 @@ public interface ReadOnlyVirtualMemory {
 
     int getStrLen(long offset);
 
+    /**
+     * Reads string written by {@link WriteOnlyVirtualMemory#putStrUtf8(CharSequence)}.
+     *
+     * @param offset offset of string length header
+     * @return flyweight view of the value, null if value is null
+     */
+    CharSequence getStrUtf8(long offset);
+
+    CharSequence getStrUtf8B(long offset);
+
+    int getStrUtf8Len(long offset);
+
     void grow(long size);
 
     long size();
@@ -38,6 +38,8 @@ public class SinglePageMappedReadOnlyPageMemory implements MappedReadOnlyMemory
     private final ByteSequenceView bsview = new ByteSequenceView();
     private final CharSequenceView csview = new CharSequenceView();
     private final CharSequenceView csview2 = new CharSequenceView();
+    private final Utf8StrView utf8view = new Utf8StrView();
+    private final Utf8StrView utf8view2 = new Utf8StrView();
     private final Long256Impl long256 = new Long256Impl();
     private final Long256Impl long256B = new Long256Impl();
     protected long page = -1;
@@ -63,6 +65,13 @@ public class SinglePageMappedReadOnlyPageMemory implements MappedReadOnlyMemory
         return absolutePointer + offset;
     }
 
+    @Override
+    public void advise(int advice) {
+        if (page != -1) {
+            ff.madvise(page, size, advice);
+        }
+    }
+
     @Override
     public void close() {
         if (page != -1) {
@@ -206,6 +215,21 @@ public class SinglePageMappedReadOnlyPageMemory implements MappedReadOnlyMemory
         return getInt(offset);
     }
 
+    @Override
+    public final CharSequence getStrUtf8(long offset) {
+        return getStrUtf80(offset, utf8view);
+    }
+
+    @Override
+    public final CharSequence getStrUtf8B(long offset) {
+        return getStrUtf80(offset, utf8view2);
+    }
+
+    @Override
+    public final int getStrUtf8Len(long offset) {
+        return VmUtils.getUtf8StrLen(this, offset);
+    }
+
     @Override
     public void grow(long newSize) {
         if (newSize > grownLength) {
@@ -262,6 +286,19 @@ public class SinglePageMappedReadOnlyPageMemory implements MappedReadOnlyMemory
         throw CairoException.instance(0).put("String is outside of file boundary [offset=").put(offset).put(", len=").put(len).put(", size=").put(size).put(", fd=").put(fd).put(']');
     }
 
+    public final CharSequence getStrUtf80(long offset, Utf8StrView view) {
+        final int len = getInt(offset);
+        if (len > -1 && offset + VmUtils.getStorageLength(len) <= size) {
+            final long lo = offset + VmUtils.STRING_LENGTH_BYTES;
+            return view.of(this, lo, VmUtils.getUtf8ByteLength(this, lo, len));
+        }
+
+        if (len == TableUtils.NULL_LEN) {
+            return null;
+        }
+        throw CairoException.instance(0).put("String is outside of file boundary [offset=").put(offset).put(", len=").put(len).put(", size=").put(size).put(", fd=").put(fd).put(']');
+    }
+
     @Override
     public void growToFileSize() {
         grow(ff.length(fd));
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.vm;
+
+import io.questdb.std.str.AbstractCharSequence;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Flyweight over UTF-8 encoded string value. ASCII values, which are the common case,
+ * are read directly from memory. Values with multi-byte sequences are decoded
+ * once into reusable buffer.
+ */
+public class Utf8StrView extends AbstractCharSequence {
+    private final StringSink sink = new StringSink();
+    private ReadOnlyVirtualMemory mem;
+    private long lo;
+    private int len;
+    private boolean ascii;
+
+    @Override
+    public int length() {
+        return len;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (ascii) {
+            return (char) mem.getByte(lo + index);
+        }
+        return sink.charAt(index);
+    }
+
+    public Utf8StrView of(ReadOnlyVirtualMemory mem, long lo, int byteLen) {
+        this.mem = mem;
+        this.lo = lo;
+        final long hi = lo + byteLen;
+        for (long p = lo; p < hi; p++) {
+            if (mem.getByte(p) < 0) {
+                sink.clear();
+                VmUtils.utf8Decode(mem, lo, hi, sink);
+                this.len = sink.length();
+                this.ascii = false;
+                return this;
+            }
+        }
+        this.len = byteLen;
+        this.ascii = true;
+        return this;
+    }
+}
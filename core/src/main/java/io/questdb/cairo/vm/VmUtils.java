@@ -24,11 +24,18 @@
 
 package io.questdb.cairo.vm;
 
+import io.questdb.cairo.TableUtils;
 import io.questdb.log.Log;
 import io.questdb.std.FilesFacade;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.CharSink;
 
 public class VmUtils {
     public static final int STRING_LENGTH_BYTES = 4;
+    // UTF-8 strings are padded to whole number of chars, so that their
+    // length header and storage size remain compatible with UTF-16 strings.
+    // 0xff is not a valid UTF-8 byte and therefore cannot be mistaken for the value.
+    public static final byte UTF8_PADDING = (byte) 0xff;
 
     public static int getStorageLength(CharSequence s) {
         if (s == null) {
@@ -42,6 +49,175 @@ public class VmUtils {
         return STRING_LENGTH_BYTES + len * 2L;
     }
 
+    public static int getUtf8Length(CharSequence value) {
+        return getUtf8Length(value, 0, value.length());
+    }
+
+    /**
+     * Number of bytes chars between lo and hi take when encoded as UTF-8. Unpaired surrogates
+     * are encoded as 3-byte sequences of their own value, same as other chars above 0x7ff.
+     */
+    public static int getUtf8Length(CharSequence value, int lo, int hi) {
+        int len = hi - lo;
+        for (int i = lo; i < hi; i++) {
+            final char c = value.charAt(i);
+            if (c < 128) {
+                continue;
+            }
+            if (c < 2048) {
+                len++;
+            } else if (Character.isHighSurrogate(c) && i + 1 < hi && Character.isLowSurrogate(value.charAt(i + 1))) {
+                // surrogate pair, 2 chars encoded as 4 bytes
+                len += 2;
+                i++;
+            } else {
+                len += 2;
+            }
+        }
+        return len;
+    }
+
+    /**
+     * Number of chars reserved in string length header for UTF-8 value of given byte length.
+     */
+    public static int getUtf8CharLength(int utf8Length) {
+        return (utf8Length + 1) >> 1;
+    }
+
+    /**
+     * Number of bytes UTF-8 value occupies, excluding padding.
+     *
+     * @param mem    memory containing the value
+     * @param offset offset of the first byte of the value, immediately after length header
+     * @param len    value of length header
+     * @return length of value in bytes
+     */
+    public static int getUtf8ByteLength(ReadOnlyVirtualMemory mem, long offset, int len) {
+        int byteLen = len * 2;
+        if (byteLen > 0 && mem.getByte(offset + byteLen - 1) == UTF8_PADDING) {
+            byteLen--;
+        }
+        return byteLen;
+    }
+
+    /**
+     * Length of UTF-8 encoded string in chars. This is the value {@link CharSequence#length()} of
+     * decoded string would return.
+     *
+     * @param mem    memory containing the value
+     * @param offset offset of the length header
+     * @return number of chars or {@link TableUtils#NULL_LEN} when value is null
+     */
+    public static int getUtf8StrLen(ReadOnlyVirtualMemory mem, long offset) {
+        final int len = mem.getInt(offset);
+        if (len < 1) {
+            return len;
+        }
+        final long lo = offset + STRING_LENGTH_BYTES;
+        final long hi = lo + getUtf8ByteLength(mem, lo, len);
+        int count = 0;
+        for (long p = lo; p < hi; p++) {
+            final int b = mem.getByte(p);
+            // count all but continuation bytes, 4-byte sequences decode into surrogate pair
+            if ((b & 0xc0) != 0x80) {
+                count++;
+                if ((b & 0xf8) == 0xf0) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Encodes value as UTF-8 at given address. Memory must have capacity of at least
+     * {@link #getUtf8Length(CharSequence, int, int)} bytes.
+     *
+     * @return address of the byte after the last written one
+     */
+    public static long putUtf8(CharSequence value, int lo, int hi, long address) {
+        long p = address;
+        for (int i = lo; i < hi; i++) {
+            final char c = value.charAt(i);
+            if (c < 128) {
+                Unsafe.getUnsafe().putByte(p++, (byte) c);
+            } else if (c < 2048) {
+                Unsafe.getUnsafe().putByte(p++, (byte) (192 | c >> 6));
+                Unsafe.getUnsafe().putByte(p++, (byte) (128 | c & 63));
+            } else if (Character.isHighSurrogate(c) && i + 1 < hi && Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                Unsafe.getUnsafe().putByte(p++, (byte) (240 | codePoint >> 18));
+                Unsafe.getUnsafe().putByte(p++, (byte) (128 | codePoint >> 12 & 63));
+                Unsafe.getUnsafe().putByte(p++, (byte) (128 | codePoint >> 6 & 63));
+                Unsafe.getUnsafe().putByte(p++, (byte) (128 | codePoint & 63));
+            } else {
+                // unpaired surrogate is written as is, utf8Decode() restores it from 3-byte sequence
+                Unsafe.getUnsafe().putByte(p++, (byte) (224 | c >> 12));
+                Unsafe.getUnsafe().putByte(p++, (byte) (128 | c >> 6 & 63));
+                Unsafe.getUnsafe().putByte(p++, (byte) (128 | c & 63));
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Same as {@link #putUtf8(CharSequence, int, int, long)} but writes bytes one by one to memory
+     * that is not guaranteed to be contiguous.
+     */
+    public static void putUtf8(CharSequence value, int lo, int hi, WriteOnlyVirtualMemory mem) {
+        for (int i = lo; i < hi; i++) {
+            final char c = value.charAt(i);
+            if (c < 128) {
+                mem.putByte((byte) c);
+            } else if (c < 2048) {
+                mem.putByte((byte) (192 | c >> 6));
+                mem.putByte((byte) (128 | c & 63));
+            } else if (Character.isHighSurrogate(c) && i + 1 < hi && Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                mem.putByte((byte) (240 | codePoint >> 18));
+                mem.putByte((byte) (128 | codePoint >> 12 & 63));
+                mem.putByte((byte) (128 | codePoint >> 6 & 63));
+                mem.putByte((byte) (128 | codePoint & 63));
+            } else {
+                // unpaired surrogate is written as is, utf8Decode() restores it from 3-byte sequence
+                mem.putByte((byte) (224 | c >> 12));
+                mem.putByte((byte) (128 | c >> 6 & 63));
+                mem.putByte((byte) (128 | c & 63));
+            }
+        }
+    }
+
+    /**
+     * Decodes UTF-8 bytes between lo and hi offsets of memory. Malformed sequences are decoded as '?'.
+     */
+    public static void utf8Decode(ReadOnlyVirtualMemory mem, long lo, long hi, CharSink sink) {
+        long p = lo;
+        while (p < hi) {
+            final int b = mem.getByte(p);
+            if (b >= 0) {
+                sink.put((char) b);
+                p++;
+            } else if ((b & 0xe0) == 0xc0 && p + 1 < hi) {
+                sink.put((char) ((b & 0x1f) << 6 | mem.getByte(p + 1) & 0x3f));
+                p += 2;
+            } else if ((b & 0xf0) == 0xe0 && p + 2 < hi) {
+                sink.put((char) ((b & 0x0f) << 12 | (mem.getByte(p + 1) & 0x3f) << 6 | mem.getByte(p + 2) & 0x3f));
+                p += 3;
+            } else if ((b & 0xf8) == 0xf0 && p + 3 < hi) {
+                final int codePoint = (b & 0x07) << 18
+                        | (mem.getByte(p + 1) & 0x3f) << 12
+                        | (mem.getByte(p + 2) & 0x3f) << 6
+                        | mem.getByte(p + 3) & 0x3f;
+                sink.put(Character.highSurrogate(codePoint));
+                sink.put(Character.lowSurrogate(codePoint));
+                p += 4;
+            } else {
+                sink.put('?');
+                p++;
+            }
+        }
+    }
+
     public static void bestEffortClose(FilesFacade ff, Log log, long fd, boolean truncate, long size, long mapPageSize) {
         try {
             if (truncate) {
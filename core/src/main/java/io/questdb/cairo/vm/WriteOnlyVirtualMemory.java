@@ -99,4 +99,18 @@ public interface WriteOnlyVirtualMemory {
     void putStr(long offset, CharSequence value);
 
     void putStr(long offset, CharSequence value, int pos, int len);
+
+    /**
+     * Appends string encoded as UTF-8. Length header is set to number of chars UTF-8 bytes
+     * would take, value is padded to even number of bytes with {@link VmUtils#UTF8_PADDING}. This keeps
+     * storage size of the value consistent with UTF-16 strings.
+     *
+     * @param value string to append, can be null
+     * @return offset of the value
+     */
+    long putStrUtf8(CharSequence value);
+
+    long putStrUtf8(char value);
+
+    long putStrUtf8(CharSequence value, int pos, int len);
 }
@@ -0,0 +1,281 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.CommitMode;
+import io.questdb.cairo.TableUtils;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Puts transactions of WAL writers of a table in order. Sequencer keeps "wal/_txnlog" file in
+ * table directory: 32-byte header of transaction count, number of transactions applied to the
+ * table, next WAL id and number of the first transaction in the file, followed by 24-byte records
+ * of WAL id and range of rows transaction added to WAL segment. Record is written before
+ * transaction count and, unless commit mode is {@link CommitMode#NOSYNC}, is synced to disk
+ * before the count is written, so that transaction is visible to apply job only once it is
+ * complete. In NOSYNC mode this holds for process crash but not for OS crash.
+ * <p>
+ * Once all transactions are applied, records are dropped and the file is truncated to its
+ * header. Transaction numbers keep growing, the header keeps the number of the first record.
+ * <p>
+ * Records are also used to tell apply job that WAL writer is closed, such record has
+ * {@link #WAL_CLOSED} row range and comes after all transactions of the WAL.
+ */
+public class TableSequencer implements Closeable {
+    public static final String TXN_LOG_FILE_NAME = "_txnlog";
+    public static final long WAL_CLOSED = -1;
+    private static final long OFFSET_TXN_COUNT = 0;
+    private static final long OFFSET_APPLIED_TXN = 8;
+    private static final long OFFSET_NEXT_WAL_ID = 16;
+    private static final long OFFSET_TXN_BASE = 24;
+    private static final long HEADER_SIZE = 32;
+    private static final long RECORD_SIZE = 24;
+    private final FilesFacade ff;
+    private final int commitMode;
+    private long fd;
+    private long buf;
+    private long txnCount;
+    private long appliedTxn;
+    private long nextWalId;
+    private long txnBase;
+    // WALs with lower ids belong to writers of previous instance of sequencer
+    private long orphanWalIdLimit;
+    private long txnWalId;
+    private long txnRowLo;
+    private long txnRowHi;
+
+    public TableSequencer(CairoConfiguration configuration, Path path) {
+        this.ff = configuration.getFilesFacade();
+        this.commitMode = configuration.getCommitMode();
+        final int plen = path.length();
+        try {
+            this.fd = TableUtils.openFileRWOrFail(ff, path.concat(TableUtils.WAL_DIR_NAME).concat(TXN_LOG_FILE_NAME).$());
+            this.buf = Unsafe.malloc(RECORD_SIZE);
+            if (ff.length(fd) < HEADER_SIZE) {
+                throw CairoException.instance(0).put("invalid txn log [path=").put(path).put(']');
+            }
+            this.txnCount = readLong(OFFSET_TXN_COUNT);
+            this.appliedTxn = readLong(OFFSET_APPLIED_TXN);
+            this.nextWalId = readLong(OFFSET_NEXT_WAL_ID);
+            this.txnBase = readLong(OFFSET_TXN_BASE);
+            this.orphanWalIdLimit = nextWalId;
+        } catch (Throwable e) {
+            close();
+            throw e;
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    /**
+     * Makes table a WAL table by creating its "wal" directory and empty transaction log.
+     *
+     * @param ff        files facade
+     * @param path      path to table directory, it is restored before method returns
+     * @param mkDirMode mode of "wal" directory
+     */
+    public static void create(FilesFacade ff, Path path, int mkDirMode) {
+        final int plen = path.length();
+        try {
+            if (ff.mkdirs(path.concat(TableUtils.WAL_DIR_NAME).slash$(), mkDirMode) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not create [dir=").put(path).put(']');
+            }
+            final long fd = TableUtils.openFileRWOrFail(ff, path.trimTo(plen).concat(TableUtils.WAL_DIR_NAME).concat(TXN_LOG_FILE_NAME).$());
+            try {
+                if (!ff.truncate(fd, HEADER_SIZE)) {
+                    throw CairoException.instance(ff.errno()).put("could not resize [file=").put(path).put(']');
+                }
+            } finally {
+                ff.close(fd);
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    public static boolean isWalTable(FilesFacade ff, Path path) {
+        final int plen = path.length();
+        try {
+            return ff.exists(path.concat(TableUtils.WAL_DIR_NAME).concat(TXN_LOG_FILE_NAME).$());
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    synchronized void clearOrphanWalIdLimit() {
+        orphanWalIdLimit = 0;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (fd != -1) {
+            ff.close(fd);
+            fd = -1;
+        }
+        if (buf != 0) {
+            Unsafe.free(buf, RECORD_SIZE);
+            buf = 0;
+        }
+    }
+
+    /**
+     * Records that WAL writer is closed, apply job removes WAL segment once it gets to this record.
+     * Closed sequencer ignores the call as its table is dropped.
+     *
+     * @param walId id of closed WAL
+     */
+    public synchronized void closeWal(long walId) {
+        if (fd != -1) {
+            append(walId, WAL_CLOSED, WAL_CLOSED);
+        }
+    }
+
+    public synchronized long getAppliedTxn() {
+        return appliedTxn;
+    }
+
+    public synchronized void setAppliedTxn(long appliedTxn) {
+        checkOpen();
+        writeLong(OFFSET_APPLIED_TXN, appliedTxn);
+        if (appliedTxn == txnCount && txnCount > txnBase) {
+            // records of applied transactions are not read again, header is updated before
+            // the file is truncated, crash in between leaves records that are never read
+            writeLong(OFFSET_TXN_BASE, txnCount);
+            if (!ff.truncate(fd, HEADER_SIZE)) {
+                throw CairoException.instance(ff.errno()).put("could not truncate txn log [fd=").put(fd).put(']');
+            }
+            txnBase = txnCount;
+        }
+        if (commitMode != CommitMode.NOSYNC) {
+            ff.fsync(fd);
+        }
+        this.appliedTxn = appliedTxn;
+    }
+
+    public long getOrphanWalIdLimit() {
+        return orphanWalIdLimit;
+    }
+
+    public synchronized long getTxnCount() {
+        return txnCount;
+    }
+
+    public long getTxnRowHi() {
+        return txnRowHi;
+    }
+
+    public long getTxnRowLo() {
+        return txnRowLo;
+    }
+
+    public long getTxnWalId() {
+        return txnWalId;
+    }
+
+    public synchronized boolean hasPendingTxns() {
+        return fd != -1 && (appliedTxn < txnCount || orphanWalIdLimit > 0);
+    }
+
+    public synchronized boolean isOpen() {
+        return fd != -1;
+    }
+
+    public synchronized long nextTxn(long walId, long rowLo, long rowHi) {
+        checkOpen();
+        return append(walId, rowLo, rowHi);
+    }
+
+    public synchronized long nextWalId() {
+        checkOpen();
+        writeLong(OFFSET_NEXT_WAL_ID, nextWalId + 1);
+        return nextWalId++;
+    }
+
+    /**
+     * Reads transaction record, its values are available via {@link #getTxnWalId()},
+     * {@link #getTxnRowLo()} and {@link #getTxnRowHi()}.
+     *
+     * @param txn transaction number, not less than {@link #getAppliedTxn()} and less than {@link #getTxnCount()}
+     */
+    public synchronized void readTxn(long txn) {
+        checkOpen();
+        if (txn < txnBase) {
+            throw CairoException.instance(0).put("txn is dropped from txn log [txn=").put(txn).put(", txnBase=").put(txnBase).put(']');
+        }
+        final long offset = HEADER_SIZE + (txn - txnBase) * RECORD_SIZE;
+        if (ff.read(fd, buf, RECORD_SIZE, offset) != RECORD_SIZE) {
+            throw CairoException.instance(ff.errno()).put("could not read txn log [fd=").put(fd).put(", offset=").put(offset).put(']');
+        }
+        txnWalId = Unsafe.getUnsafe().getLong(buf);
+        txnRowLo = Unsafe.getUnsafe().getLong(buf + 8);
+        txnRowHi = Unsafe.getUnsafe().getLong(buf + 16);
+    }
+
+    private long append(long walId, long rowLo, long rowHi) {
+        final long offset = HEADER_SIZE + (txnCount - txnBase) * RECORD_SIZE;
+        Unsafe.getUnsafe().putLong(buf, walId);
+        Unsafe.getUnsafe().putLong(buf + 8, rowLo);
+        Unsafe.getUnsafe().putLong(buf + 16, rowHi);
+        if (ff.write(fd, buf, RECORD_SIZE, offset) != RECORD_SIZE) {
+            throw CairoException.instance(ff.errno()).put("could not write txn log [fd=").put(fd).put(", offset=").put(offset).put(']');
+        }
+        if (commitMode != CommitMode.NOSYNC) {
+            // record must be on disk before count that makes it visible
+            ff.fsync(fd);
+        }
+        writeLong(OFFSET_TXN_COUNT, txnCount + 1);
+        if (commitMode != CommitMode.NOSYNC) {
+            ff.fsync(fd);
+        }
+        return txnCount++;
+    }
+
+    private void checkOpen() {
+        if (fd == -1) {
+            throw CairoException.instance(0).put("table is dropped");
+        }
+    }
+
+    private long readLong(long offset) {
+        if (ff.read(fd, buf, Long.BYTES, offset) != Long.BYTES) {
+            throw CairoException.instance(ff.errno()).put("could not read txn log [fd=").put(fd).put(", offset=").put(offset).put(']');
+        }
+        return Unsafe.getUnsafe().getLong(buf);
+    }
+
+    private void writeLong(long offset, long value) {
+        Unsafe.getUnsafe().putLong(buf, value);
+        if (ff.write(fd, buf, Long.BYTES, offset) != Long.BYTES) {
+            throw CairoException.instance(ff.errno()).put("could not write txn log [fd=").put(fd).put(", offset=").put(offset).put(']');
+        }
+    }
+}
@@ -0,0 +1,370 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.*;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Copies rows of committed WAL transactions into their tables. Transactions of a table are
+ * applied in the order given by its {@link TableSequencer}, all pending transactions are
+ * copied by the table writer and committed at once, which lets out-of-order rows of many
+ * concurrent WAL writers to be merged by a single O3 commit. Tables with busy writers are
+ * skipped until next run.
+ * <p>
+ * Segments of closed WAL writers are removed once their last transaction is applied. Segments
+ * left behind by writers of previous process are removed as soon as job catches up with
+ * transactions that existed when process started.
+ */
+public class WalApplyJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(WalApplyJob.class);
+    private final CairoEngine engine;
+    private final CairoConfiguration configuration;
+    private final WalWriterPool walWriterPool;
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final Path path = new Path();
+    private final Path walPath = new Path();
+    private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+    private final FindVisitor onFindTable = this::onFindTable;
+    private final FindVisitor onFindWal = this::onFindWal;
+    private final ObjList<CharSequence> pendingTables = new ObjList<>();
+    private final ObjList<Segment> segments = new ObjList<>();
+    private final ObjList<Segment> spareSegments = new ObjList<>();
+    private final LongList closedWalIds = new LongList();
+    private final StringSink segmentName = new StringSink();
+    private boolean discovered = false;
+    private long orphanWalIdLimit;
+
+    public WalApplyJob(CairoEngine engine) {
+        this.engine = engine;
+        this.configuration = engine.getConfiguration();
+        this.walWriterPool = engine.getWalWriterPool();
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+    }
+
+    @Override
+    public void close() {
+        closeSegments();
+        Misc.free(path);
+        Misc.free(walPath);
+    }
+
+    private static void copyColumn(TableReaderRecord record, int from, TableWriter.Row row, int to, int type) {
+        switch (type) {
+            case ColumnType.BOOLEAN:
+                row.putBool(to, record.getBool(from));
+                break;
+            case ColumnType.BYTE:
+                row.putByte(to, record.getByte(from));
+                break;
+            case ColumnType.SHORT:
+                row.putShort(to, record.getShort(from));
+                break;
+            case ColumnType.CHAR:
+                row.putChar(to, record.getChar(from));
+                break;
+            case ColumnType.INT:
+                row.putInt(to, record.getInt(from));
+                break;
+            case ColumnType.LONG:
+                row.putLong(to, record.getLong(from));
+                break;
+            case ColumnType.DATE:
+                row.putDate(to, record.getDate(from));
+                break;
+            case ColumnType.TIMESTAMP:
+                row.putTimestamp(to, record.getTimestamp(from));
+                break;
+            case ColumnType.FLOAT:
+                row.putFloat(to, record.getFloat(from));
+                break;
+            case ColumnType.DOUBLE:
+                row.putDouble(to, record.getDouble(from));
+                break;
+            case ColumnType.STRING:
+                row.putStr(to, record.getStr(from));
+                break;
+            case ColumnType.SYMBOL:
+                row.putSym(to, record.getSym(from));
+                break;
+            case ColumnType.LONG256:
+                row.putLong256(to, record.getLong256A(from));
+                break;
+            case ColumnType.BINARY:
+                row.putBin(to, record.getBin(from));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private boolean apply(TableWriter writer, TableSequencer sequencer) {
+        final long appliedTxn = sequencer.getAppliedTxn();
+        final long txnCount = sequencer.getTxnCount();
+        if (appliedTxn == txnCount) {
+            removeOrphanWals(writer.getTableName(), sequencer);
+            return false;
+        }
+
+        // table stores sequencer txn with its rows, transactions below it were committed
+        // before sequencer was updated and must not be copied again
+        final long committedTxn = writer.getSeqTxn();
+        closedWalIds.clear();
+        long rowCount = 0;
+        for (long txn = appliedTxn; txn < txnCount; txn++) {
+            sequencer.readTxn(txn);
+            final long walId = sequencer.getTxnWalId();
+            final long rowLo = sequencer.getTxnRowLo();
+            if (rowLo == TableSequencer.WAL_CLOSED) {
+                closedWalIds.add(walId);
+            } else if (txn >= committedTxn) {
+                rowCount += copy(writer, getSegment(writer, walId), rowLo, sequencer.getTxnRowHi());
+            }
+        }
+        if (txnCount > committedTxn) {
+            writer.setSeqTxn(txnCount);
+        }
+        writer.commit();
+        // segments are closed before transactions are marked applied, writers truncate
+        // their segments once everything they wrote is applied
+        closeSegments();
+        sequencer.setAppliedTxn(txnCount);
+
+        for (int i = 0, n = closedWalIds.size(); i < n; i++) {
+            removeWal(writer.getTableName(), closedWalIds.getQuick(i));
+        }
+        removeOrphanWals(writer.getTableName(), sequencer);
+
+        LOG.info().$("applied [table=`").utf8(writer.getTableName())
+                .$("`, txnLo=").$(appliedTxn)
+                .$(", txnHi=").$(txnCount)
+                .$(", rows=").$(rowCount)
+                .$(']').$();
+        return true;
+    }
+
+    private boolean applyTable(CharSequence tableName) {
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+            return apply(writer, walWriterPool.getSequencer(tableName));
+        } catch (EntryUnavailableException ignore) {
+            // writer is busy, try next time
+        } catch (CairoException e) {
+            LOG.error().$("could not apply WAL [table=").utf8(tableName)
+                    .$(", ex=").$(e.getFlyweightMessage())
+                    .$(", errno=").$(e.getErrno())
+                    .$(']').$();
+        } finally {
+            closeSegments();
+        }
+        return false;
+    }
+
+    private void closeSegments() {
+        for (int i = 0, n = segments.size(); i < n; i++) {
+            final Segment segment = segments.getQuick(i);
+            segment.reader = Misc.free(segment.reader);
+            spareSegments.add(segment);
+        }
+        segments.clear();
+    }
+
+    private long copy(TableWriter writer, Segment segment, long rowLo, long rowHi) {
+        final long segmentSize = segment.reader.getPartitionCount() > 0 ? segment.reader.openPartition(0) : 0;
+        if (rowHi > segmentSize) {
+            throw CairoException.instance(0).put("WAL segment is too short [table=").put(writer.getTableName())
+                    .put(", wal=").put(segment.walId)
+                    .put(", size=").put(segmentSize)
+                    .put(", rowHi=").put(rowHi)
+                    .put(']');
+        }
+        final TableReaderRecord record = segment.record;
+        final IntList columnMap = segment.columnMap;
+        final RecordMetadata metadata = segment.reader.getMetadata();
+        record.jumpTo(0, rowLo);
+        for (long r = rowLo; r < rowHi; r++) {
+            record.setRecordIndex(r);
+            final TableWriter.Row row = segment.timestampIndex == -1 ? writer.newRow() : writer.newRow(record.getTimestamp(segment.timestampIndex));
+            for (int i = 0, n = columnMap.size(); i < n; i++) {
+                final int to = columnMap.getQuick(i);
+                if (to > -1) {
+                    copyColumn(record, i, row, to, metadata.getColumnType(i));
+                }
+            }
+            row.append();
+        }
+        return rowHi - rowLo;
+    }
+
+    private Segment getSegment(TableWriter writer, long walId) {
+        for (int i = 0, n = segments.size(); i < n; i++) {
+            final Segment segment = segments.getQuick(i);
+            if (segment.walId == walId) {
+                return segment;
+            }
+        }
+
+        final Segment segment;
+        if (spareSegments.size() > 0) {
+            segment = spareSegments.getLast();
+            spareSegments.setPos(spareSegments.size() - 1);
+        } else {
+            segment = new Segment();
+        }
+        segmentName.clear();
+        segmentName.put(writer.getTableName()).put(Files.SEPARATOR).put(TableUtils.WAL_DIR_NAME).put(Files.SEPARATOR).put(walId);
+        try {
+            segment.of(walId, new TableReader(configuration, segmentName), writer.getTableName(), writer.getMetadata());
+        } catch (Throwable e) {
+            segment.reader = Misc.free(segment.reader);
+            spareSegments.add(segment);
+            throw e;
+        }
+        segments.add(segment);
+        return segment;
+    }
+
+    private void onFindTable(long file, int type) {
+        nativeLPSZ.of(file);
+        if (type == Files.DT_DIR && nativeLPSZ.charAt(0) != '.' && TableSequencer.isWalTable(ff, path.of(root).concat(nativeLPSZ))) {
+            final String tableName = Chars.toString(nativeLPSZ);
+            try {
+                // opening sequencer lets job find transactions written before restart
+                walWriterPool.getSequencer(tableName);
+            } catch (CairoException e) {
+                LOG.error().$("could not open txn log [table=").utf8(tableName)
+                        .$(", ex=").$(e.getFlyweightMessage())
+                        .$(", errno=").$(e.getErrno())
+                        .$(']').$();
+            }
+        }
+    }
+
+    private void onFindWal(long file, int type) {
+        nativeLPSZ.of(file);
+        if (type == Files.DT_DIR && nativeLPSZ.charAt(0) != '.') {
+            try {
+                final long walId = Numbers.parseLong(nativeLPSZ);
+                if (walId < orphanWalIdLimit) {
+                    final int plen = walPath.length();
+                    walPath.concat(nativeLPSZ).slash$();
+                    if (ff.exists(walPath)) {
+                        LOG.info().$("removing orphan WAL [path=").$(walPath).$(']').$();
+                        int errno;
+                        if ((errno = ff.rmdir(walPath)) != 0) {
+                            LOG.error().$("could not remove orphan WAL [path=").$(walPath).$(", errno=").$(errno).$(']').$();
+                        }
+                    }
+                    walPath.trimTo(plen);
+                }
+            } catch (NumericException ignore) {
+                // not a WAL directory
+            }
+        }
+    }
+
+    private void removeOrphanWals(CharSequence tableName, TableSequencer sequencer) {
+        orphanWalIdLimit = sequencer.getOrphanWalIdLimit();
+        if (orphanWalIdLimit > 0 && sequencer.getAppliedTxn() == sequencer.getTxnCount()) {
+            walPath.of(root).concat(tableName).concat(TableUtils.WAL_DIR_NAME);
+            ff.iterateDir(walPath.$(), onFindWal);
+            sequencer.clearOrphanWalIdLimit();
+        }
+    }
+
+    private void removeWal(CharSequence tableName, long walId) {
+        walPath.of(root).concat(tableName).concat(TableUtils.WAL_DIR_NAME).slash().put(walId).slash$();
+        int errno;
+        if ((errno = ff.rmdir(walPath)) != 0) {
+            LOG.error().$("could not remove WAL [path=").$(walPath).$(", errno=").$(errno).$(']').$();
+        }
+    }
+
+    @Override
+    protected boolean runSerially() {
+        if (!discovered) {
+            ff.iterateDir(path.of(root).$(), onFindTable);
+            discovered = true;
+        }
+        pendingTables.clear();
+        walWriterPool.collectPendingTables(pendingTables);
+        boolean useful = false;
+        for (int i = 0, n = pendingTables.size(); i < n; i++) {
+            useful |= applyTable(pendingTables.getQuick(i));
+        }
+        return useful;
+    }
+
+    private static class Segment {
+        private final TableReaderRecord record = new TableReaderRecord();
+        private final IntList columnMap = new IntList();
+        private long walId;
+        private TableReader reader;
+        private int timestampIndex;
+
+        private void of(long walId, TableReader reader, CharSequence tableName, RecordMetadata tableMetadata) {
+            this.walId = walId;
+            this.reader = reader;
+            this.record.of(reader);
+            // columns of segment are matched with columns of table by name, columns that are
+            // no longer in the table are skipped, values of other type cannot be copied
+            final RecordMetadata metadata = reader.getMetadata();
+            final int tableTimestampIndex = tableMetadata.getTimestampIndex();
+            columnMap.clear();
+            timestampIndex = -1;
+            for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                final int index = tableMetadata.getColumnIndexQuiet(metadata.getColumnName(i));
+                if (index > -1 && index == tableTimestampIndex) {
+                    timestampIndex = i;
+                    columnMap.add(-1);
+                } else if (index > -1) {
+                    if (tableMetadata.getColumnType(index) != metadata.getColumnType(i)) {
+                        throw CairoException.instance(0).put("WAL column type does not match table [table=").put(tableName)
+                                .put(", wal=").put(walId)
+                                .put(", column=").put(metadata.getColumnName(i))
+                                .put(", walType=").put(ColumnType.nameOf(metadata.getColumnType(i)))
+                                .put(", tableType=").put(ColumnType.nameOf(tableMetadata.getColumnType(index)))
+                                .put(']');
+                    }
+                    columnMap.add(index);
+                } else {
+                    columnMap.add(-1);
+                }
+            }
+        }
+    }
+}
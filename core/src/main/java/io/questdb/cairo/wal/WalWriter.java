@@ -0,0 +1,166 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.wal;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.DefaultLifecycleManager;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.pool.WriterSource;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+
+/**
+ * Writer, which appends rows to its own WAL segment instead of the table, so that any number
+ * of them can write to table at the same time without taking table writer lock. Segment is
+ * a non-partitioned table without designated timestamp in "wal/&lt;wal id&gt;" directory of the
+ * table. It has columns of the table and timestamp of row is stored in the column of designated
+ * timestamp. Every commit is given transaction number by {@link TableSequencer} and rows of
+ * committed transactions are copied to the table by {@link WalApplyJob} in that order.
+ * <p>
+ * Writer reports name and structure version of its table, it can be used by code written for
+ * {@link TableWriter} as long as that code does not change structure of the table other than
+ * by adding columns.
+ */
+public class WalWriter extends TableWriter {
+    final WalWriterPool.Entry entry;
+    private final WriterSource writerSource;
+    private final long walId;
+    private final int timestampIndex;
+    private final long rolloverRowCount;
+    private long structureVersion;
+    private long committedRowCount;
+    private long lastTxn = -1;
+    private boolean walClosed = false;
+    // time writer was returned to the pool
+    long releaseTime;
+
+    WalWriter(
+            CairoConfiguration configuration,
+            MessageBus messageBus,
+            WriterSource writerSource,
+            WalWriterPool.Entry entry,
+            CharSequence walRoot,
+            long walId,
+            int timestampIndex,
+            long structureVersion
+    ) {
+        super(configuration, Long.toString(walId), messageBus, false, DefaultLifecycleManager.INSTANCE, walRoot);
+        this.entry = entry;
+        this.writerSource = writerSource;
+        this.walId = walId;
+        this.timestampIndex = timestampIndex;
+        this.structureVersion = structureVersion;
+        this.rolloverRowCount = configuration.getWalSegmentRolloverRowCount();
+        this.committedRowCount = size();
+    }
+
+    @Override
+    public void addColumn(
+            CharSequence name,
+            int type,
+            int symbolCapacity,
+            boolean symbolCacheFlag,
+            boolean isIndexed,
+            int indexValueBlockCapacity,
+            boolean isSequential
+    ) {
+        // rows of WAL are applied to columns that table has, column is added to the table first
+        try (TableWriter writer = writerSource.getWriter(AllowAllCairoSecurityContext.INSTANCE, entry.tableName)) {
+            final int columnIndex = writer.getMetadata().getColumnIndexQuiet(name);
+            if (columnIndex == -1) {
+                writer.addColumn(name, type, symbolCapacity, symbolCacheFlag, isIndexed, indexValueBlockCapacity, isSequential);
+                // writer with structure version that does not match the table is not reused by the pool
+                if (writer.getStructureVersion() == structureVersion + 1) {
+                    structureVersion++;
+                }
+            } else {
+                type = writer.getMetadata().getColumnType(columnIndex);
+            }
+        }
+        super.addColumn(name, type, symbolCapacity, symbolCacheFlag, false, indexValueBlockCapacity, false);
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        if (!isOpen() && !walClosed) {
+            walClosed = true;
+            entry.sequencer.closeWal(walId);
+        }
+    }
+
+    @Override
+    public void commit(int commitMode) {
+        super.commit(commitMode);
+        final long rowCount = size();
+        if (rowCount > committedRowCount) {
+            lastTxn = entry.sequencer.nextTxn(walId, committedRowCount, rowCount);
+            committedRowCount = rowCount;
+        }
+    }
+
+    @Override
+    public void commitHysteresis() {
+        commit();
+    }
+
+    @Override
+    public void commitHysteresis(long lastTimestampHysteresisInMicros) {
+        commit();
+    }
+
+    @Override
+    public long getStructureVersion() {
+        return structureVersion;
+    }
+
+    @Override
+    public CharSequence getTableName() {
+        return entry.tableName;
+    }
+
+    public long getWalId() {
+        return walId;
+    }
+
+    @Override
+    public Row newRow(long timestamp) {
+        rollover();
+        final Row row = super.newRow(timestamp);
+        if (timestampIndex > -1) {
+            row.putTimestamp(timestampIndex, timestamp);
+        }
+        return row;
+    }
+
+    private void rollover() {
+        // segment starts over before first row of transaction once all its rows are in the table
+        if (committedRowCount >= rolloverRowCount && size() == committedRowCount && entry.sequencer.getAppliedTxn() > lastTxn) {
+            truncate();
+            committedRowCount = 0;
+        }
+    }
+}
@@ -0,0 +1,359 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.wal;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.pool.WriterSource;
+import io.questdb.cairo.vm.AppendOnlyVirtualMemory;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Pool of {@link WalWriter} instances and {@link TableSequencer} of tables they write to.
+ * Any number of writers can be taken from the pool for the same table. Returned writers are
+ * kept open for reuse as long as structure of the table does not change, they are closed once
+ * they stay idle for longer than inactive writer TTL.
+ */
+public class WalWriterPool implements Closeable {
+    private static final Log LOG = LogFactory.getLog(WalWriterPool.class);
+    private final CairoConfiguration configuration;
+    private final MessageBus messageBus;
+    private final WriterSource writerSource;
+    private final MicrosecondClock clock;
+    private final long inactiveTtlUs;
+    private final CharSequenceObjHashMap<Entry> entries = new CharSequenceObjHashMap<>();
+    private final Path path = new Path();
+    private final AppendOnlyVirtualMemory mem = new AppendOnlyVirtualMemory();
+    private final SegmentStructure segmentStructure = new SegmentStructure();
+    private boolean closed = false;
+
+    public WalWriterPool(CairoConfiguration configuration, MessageBus messageBus, WriterSource writerSource) {
+        this.configuration = configuration;
+        this.messageBus = messageBus;
+        this.writerSource = writerSource;
+        this.clock = configuration.getMicrosecondClock();
+        this.inactiveTtlUs = configuration.getInactiveWriterTTL() * 1000;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        releaseAll(Long.MAX_VALUE);
+        synchronized (this) {
+            Misc.free(path);
+            Misc.free(mem);
+        }
+    }
+
+    /**
+     * Collects names of tables, which have transactions to apply.
+     *
+     * @param sink receives table names
+     */
+    public synchronized void collectPendingTables(ObjList<CharSequence> sink) {
+        for (int i = 0, n = entries.size(); i < n; i++) {
+            final Entry e = entries.valueQuick(i);
+            if (e.sequencer.hasPendingTxns()) {
+                sink.add(e.tableName);
+            }
+        }
+    }
+
+    /**
+     * Returns writer for table reader belongs to. Writer has the same structure as the table has
+     * at the moment of the call.
+     *
+     * @param reader reader of WAL table
+     * @return writer, which has to be closed to return it to the pool
+     */
+    public TableWriter get(TableReader reader) {
+        final long structureVersion = reader.getVersion();
+        final Entry e;
+        WalWriter writer = null;
+        synchronized (this) {
+            e = getEntry(reader.getTableName());
+            while (e.idleWriters.size() > 0) {
+                final WalWriter w = e.idleWriters.getLast();
+                e.idleWriters.setPos(e.idleWriters.size() - 1);
+                if (w.getStructureVersion() == structureVersion) {
+                    writer = w;
+                    break;
+                }
+                closeWriter(w);
+            }
+            if (writer == null) {
+                writer = newWriter(e, reader);
+            }
+            e.busyCount++;
+        }
+        return writer;
+    }
+
+    public synchronized int getBusyCount() {
+        int count = 0;
+        for (int i = 0, n = entries.size(); i < n; i++) {
+            count += entries.valueQuick(i).busyCount;
+        }
+        return count;
+    }
+
+    /**
+     * @param tableName name of WAL table
+     * @return sequencer of table, which is opened when necessary
+     */
+    public synchronized TableSequencer getSequencer(CharSequence tableName) {
+        return getEntry(tableName).sequencer;
+    }
+
+    public synchronized boolean isWalTable(CharSequence tableName) {
+        return entries.keyIndex(tableName) < 0 || TableSequencer.isWalTable(configuration.getFilesFacade(), path.of(configuration.getRoot()).concat(tableName));
+    }
+
+    public boolean releaseAll() {
+        return releaseAll(Long.MAX_VALUE);
+    }
+
+    public boolean releaseInactive() {
+        return releaseAll(clock.getTicks() - inactiveTtlUs);
+    }
+
+    /**
+     * Forgets about table, which is about to be dropped or renamed. Writers that are in use
+     * fail to commit from now on.
+     *
+     * @param tableName name of table
+     */
+    public synchronized void remove(CharSequence tableName) {
+        final int index = entries.keyIndex(tableName);
+        if (index < 0) {
+            final Entry e = entries.valueAt(index);
+            entries.removeAt(index);
+            closeIdleWriters(e, Long.MAX_VALUE);
+            // in use writers do not write "closed" records for removed table
+            e.sequencer.close();
+        }
+    }
+
+    private void closeIdleWriters(Entry e, long deadline) {
+        for (int i = e.idleWriters.size() - 1; i > -1; i--) {
+            final WalWriter w = e.idleWriters.getQuick(i);
+            if (deadline >= w.releaseTime) {
+                e.idleWriters.remove(i);
+                closeWriter(w);
+            }
+        }
+    }
+
+    private void closeWriter(WalWriter writer) {
+        LOG.info().$("closing [table=`").utf8(writer.getTableName()).$("`, wal=").$(writer.getWalId()).$(']').$();
+        writer.setLifecycleManager(DefaultLifecycleManager.INSTANCE);
+        try {
+            writer.close();
+        } catch (CairoException | CairoError e) {
+            LOG.error().$("could not close [table=`").utf8(writer.getTableName()).$("`, wal=").$(writer.getWalId()).$(", ex=").$(e.getMessage()).$(']').$();
+        }
+    }
+
+    private Entry getEntry(CharSequence tableName) {
+        if (closed) {
+            throw CairoException.instance(0).put("wal writer pool is closed");
+        }
+        final int index = entries.keyIndex(tableName);
+        if (index < 0) {
+            return entries.valueAt(index);
+        }
+        final String name = tableName.toString();
+        final Entry e = new Entry(name, new TableSequencer(configuration, path.of(configuration.getRoot()).concat(name)));
+        entries.putAt(index, name, e);
+        return e;
+    }
+
+    private WalWriter newWriter(Entry e, TableReader reader) {
+        final long walId = e.sequencer.nextWalId();
+        path.of(configuration.getRoot()).concat(e.tableName).concat(TableUtils.WAL_DIR_NAME);
+        final String walRoot = path.toString();
+        TableUtils.createTable(
+                configuration.getFilesFacade(),
+                mem,
+                path,
+                walRoot,
+                segmentStructure.of(reader, walId),
+                configuration.getMkDirMode(),
+                0
+        );
+        LOG.info().$("new wal [table=`").utf8(e.tableName).$("`, wal=").$(walId).$(']').$();
+        final WalWriter writer = new WalWriter(
+                configuration,
+                messageBus,
+                writerSource,
+                e,
+                walRoot,
+                walId,
+                reader.getMetadata().getTimestampIndex(),
+                reader.getVersion()
+        );
+        writer.setLifecycleManager(() -> !returnToPool(writer));
+        return writer;
+    }
+
+    private boolean releaseAll(long deadline) {
+        boolean useful = false;
+        synchronized (this) {
+            for (int i = entries.size() - 1; i > -1; i--) {
+                final CharSequence tableName = entries.keys().getQuick(i);
+                final Entry e = entries.get(tableName);
+                final int idleCount = e.idleWriters.size();
+                closeIdleWriters(e, deadline);
+                useful |= idleCount > e.idleWriters.size();
+                if (deadline == Long.MAX_VALUE && e.busyCount == 0) {
+                    entries.remove(tableName);
+                    e.sequencer.close();
+                }
+            }
+        }
+        return useful;
+    }
+
+    private boolean returnToPool(WalWriter writer) {
+        final Entry e = writer.entry;
+        boolean distressed = false;
+        try {
+            writer.rollback();
+        } catch (CairoException | CairoError ex) {
+            distressed = true;
+        }
+        synchronized (this) {
+            e.busyCount--;
+            if (distressed || closed || !e.sequencer.isOpen()) {
+                return false;
+            }
+            writer.releaseTime = clock.getTicks();
+            e.idleWriters.add(writer);
+            return true;
+        }
+    }
+
+    static class Entry {
+        final String tableName;
+        final TableSequencer sequencer;
+        private final ObjList<WalWriter> idleWriters = new ObjList<>();
+        private int busyCount;
+
+        private Entry(String tableName, TableSequencer sequencer) {
+            this.tableName = tableName;
+            this.sequencer = sequencer;
+        }
+    }
+
+    private class SegmentStructure implements TableStructure {
+        private TableReader reader;
+        private TableReaderMetadata metadata;
+        private String name;
+
+        @Override
+        public int getColumnCount() {
+            return metadata.getColumnCount();
+        }
+
+        @Override
+        public CharSequence getColumnName(int columnIndex) {
+            return metadata.getColumnName(columnIndex);
+        }
+
+        @Override
+        public int getColumnType(int columnIndex) {
+            return metadata.getColumnType(columnIndex);
+        }
+
+        @Override
+        public int getIndexBlockCapacity(int columnIndex) {
+            return configuration.getIndexValueBlockSize();
+        }
+
+        @Override
+        public boolean isIndexed(int columnIndex) {
+            return false;
+        }
+
+        @Override
+        public boolean isSequential(int columnIndex) {
+            return false;
+        }
+
+        @Override
+        public int getPartitionBy() {
+            return PartitionBy.NONE;
+        }
+
+        @Override
+        public boolean getSymbolCacheFlag(int columnIndex) {
+            return reader.getSymbolMapReader(columnIndex).isCached();
+        }
+
+        @Override
+        public int getSymbolCapacity(int columnIndex) {
+            return reader.getSymbolMapReader(columnIndex).getSymbolCapacity();
+        }
+
+        @Override
+        public CharSequence getTableName() {
+            return name;
+        }
+
+        @Override
+        public int getTimestampIndex() {
+            // rows of segment are not ordered by time, timestamp is kept as regular column
+            return -1;
+        }
+
+        @Override
+        public int getO3MaxUncommittedRows() {
+            return configuration.getO3MaxUncommittedRows();
+        }
+
+        @Override
+        public long getO3CommitHysteresisInMicros() {
+            return configuration.getO3CommitHysteresis();
+        }
+
+        SegmentStructure of(TableReader reader, long walId) {
+            this.reader = reader;
+            this.metadata = reader.getMetadata();
+            this.name = Long.toString(walId);
+            return this;
+        }
+    }
+}
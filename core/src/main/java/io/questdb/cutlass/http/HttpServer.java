@@ -31,8 +31,13 @@ import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.ColumnIndexerJob;
 import io.questdb.cairo.TableBlockWriter.TableBlockWriterJob;
 import io.questdb.cutlass.http.processors.*;
+import io.questdb.cutlass.text.TextImportJob;
 import io.questdb.griffin.FunctionFactoryCache;
+import io.questdb.griffin.engine.groupby.PageFrameGroupByJob;
 import io.questdb.griffin.engine.groupby.vect.GroupByJob;
+import io.questdb.griffin.engine.join.PageFrameJoinJob;
+import io.questdb.griffin.engine.table.LatestByJob;
+import io.questdb.griffin.engine.table.PageFrameFilterJob;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.EagerThreadSetup;
@@ -186,6 +191,11 @@ public class HttpServer implements Closeable {
         // jobs that help parallel execution of queries
         workerPool.assign(new ColumnIndexerJob(messageBus));
         workerPool.assign(new GroupByJob(messageBus));
+        workerPool.assign(new PageFrameFilterJob(messageBus));
+        workerPool.assign(new PageFrameGroupByJob(messageBus));
+        workerPool.assign(new PageFrameJoinJob(messageBus));
+        workerPool.assign(new LatestByJob(messageBus));
+        workerPool.assign(new TextImportJob(messageBus));
         workerPool.assign(new TableBlockWriterJob(messageBus));
     }
 
@@ -116,9 +116,7 @@ public class LineProtoSender extends AbstractCharSink implements Closeable {
 
     public void $() {
         put('\n');
-        lineStart = ptr;
-        hasMetric = false;
-        noFields = true;
+        endLine();
     }
 
     @Override
@@ -223,6 +221,39 @@ public class LineProtoSender extends AbstractCharSink implements Closeable {
         throw CairoException.instance(0).put("metric expected");
     }
 
+    protected void endLine() {
+        lineStart = ptr;
+        hasMetric = false;
+        noFields = true;
+    }
+
+    protected final int getLineLength() {
+        return (int) (ptr - lineStart);
+    }
+
+    protected final long getLineStart() {
+        return lineStart;
+    }
+
+    /**
+     * Appends given number of bytes to current line. Line can be moved to another buffer, so that
+     * addresses of its earlier bytes should be taken relative to {@link #getLineStart()}.
+     *
+     * @param len number of bytes
+     * @return address of appended bytes
+     */
+    protected final long reserve(int len) {
+        if (ptr + len > hi) {
+            send00();
+            if (ptr + len > hi) {
+                throw CairoException.instance(0).put("value too long");
+            }
+        }
+        final long p = ptr;
+        ptr += len;
+        return p;
+    }
+
     private LineProtoSender putUtf8Escaped(CharSequence cs) {
         for (int i = 0, n = cs.length(); i < n; i++) {
             char c = cs.charAt(i);
@@ -0,0 +1,262 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.std.IntList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+
+/**
+ * Parser of binary dialect of line protocol. Connection switches to this dialect when it starts with
+ * {@link #HEADER_LEN} bytes of header: zero byte, "ILP" and {@link #VERSION}. Text line never starts
+ * with zero byte. Header is followed by records of little-endian values:
+ * <pre>
+ * int    length of the rest of the record
+ * name   table name
+ * long   timestamp, {@link #NULL_TIMESTAMP} when server is to assign it
+ * short  unsigned number of entities, each of which is
+ *        name, type byte and value of the type
+ * </pre>
+ * Types are ENTITY_TYPE_ constants. Values of tag, string and long256 are int length followed by UTF-8 bytes,
+ * integer is a long, float is a double and boolean is a byte. Name is an int id of a name that was defined
+ * earlier on the same connection. Negative int -n defines name of n UTF-8 bytes that follow it, the name
+ * gets the next id. As dictionary of names cannot be re-synchronised, malformed record cannot be skipped.
+ */
+public class BinaryLineProtoParser extends NewLineProtoParser {
+    public static final int HEADER_LEN = 5;
+    // zero byte followed by "ILP"
+    public static final int HEADER_MAGIC = 0x504c4900;
+    public static final byte VERSION = 1;
+    private static final int MIN_RECORD_LEN = Integer.BYTES + Long.BYTES + Short.BYTES;
+    // offsets of names in dictionary, name id is index of its start
+    private final IntList nameOffsets = new IntList();
+    private final long maxNamesSize;
+    private long namesAddr;
+    private long namesCapacity;
+    private long nameLo;
+    private long nameHi;
+    // end of record parsed by last call of parseMeasurement()
+    private long recordHi;
+
+    public BinaryLineProtoParser(long maxNamesSize) {
+        this.maxNamesSize = maxNamesSize;
+        nameOffsets.add(0);
+    }
+
+    public static boolean isHeader(long address) {
+        return Unsafe.getUnsafe().getInt(address) == HEADER_MAGIC
+                && Unsafe.getUnsafe().getByte(address + Integer.BYTES) == VERSION;
+    }
+
+    public void clearNames() {
+        nameOffsets.clear();
+        nameOffsets.add(0);
+    }
+
+    @Override
+    public void close() {
+        if (namesAddr != 0) {
+            Unsafe.free(namesAddr, namesCapacity);
+            namesAddr = 0;
+            namesCapacity = 0;
+        }
+    }
+
+    public int getNameCount() {
+        return nameOffsets.size() - 1;
+    }
+
+    @Override
+    public ParseResult parseMeasurement(long bufHi) {
+        assert bufAt != 0 && bufHi >= bufAt;
+        if (recordHi != 0) {
+            // record has been parsed, it is yet to be committed
+            return ParseResult.MEASUREMENT_COMPLETE;
+        }
+
+        if (bufHi - bufAt < Integer.BYTES) {
+            return ParseResult.BUFFER_UNDERFLOW;
+        }
+        final int len = Unsafe.getUnsafe().getInt(bufAt);
+        if (len < MIN_RECORD_LEN) {
+            errorCode = ErrorCode.INVALID_RECORD_LENGTH;
+            return ParseResult.ERROR;
+        }
+        final long hi = bufAt + Integer.BYTES + len;
+        if (hi > bufHi) {
+            return ParseResult.BUFFER_UNDERFLOW;
+        }
+
+        // names defined by record cannot be longer than the record
+        ensureNamesCapacity(len);
+        long p = parseName(bufAt + Integer.BYTES, hi);
+        if (p == -1) {
+            return ParseResult.ERROR;
+        }
+        measurementName.of(nameLo, nameHi);
+
+        if (hi - p < Long.BYTES + Short.BYTES) {
+            errorCode = ErrorCode.INVALID_RECORD_LENGTH;
+            return ParseResult.ERROR;
+        }
+        timestamp = Unsafe.getUnsafe().getLong(p);
+        p += Long.BYTES;
+        final int n = Unsafe.getUnsafe().getShort(p) & 0xffff;
+        p += Short.BYTES;
+        if (n == 0) {
+            errorCode = ErrorCode.NO_FIELDS;
+            return ParseResult.ERROR;
+        }
+
+        for (int i = 0; i < n; i++) {
+            p = parseEntity(p, hi);
+            if (p == -1) {
+                return ParseResult.ERROR;
+            }
+        }
+
+        if (p != hi) {
+            errorCode = ErrorCode.INVALID_RECORD_LENGTH;
+            return ParseResult.ERROR;
+        }
+        recordHi = hi;
+        // same as text parser, buffer address is last byte of complete measurement
+        bufAt = hi - 1;
+        return ParseResult.MEASUREMENT_COMPLETE;
+    }
+
+    @Override
+    public ParseResult skipMeasurement(long bufHi) {
+        throw CairoException.instance(0).put("invalid binary line protocol record [code=").put(errorCode.name()).put(']');
+    }
+
+    @Override
+    public void startNextMeasurement() {
+        super.startNextMeasurement();
+        recordHi = 0;
+    }
+
+    private void ensureNamesCapacity(int len) {
+        final long size = nameOffsets.getLast();
+        if (size + len > namesCapacity && namesCapacity < maxNamesSize) {
+            final long capacity = Math.min(Math.max(size + len, namesCapacity * 2), maxNamesSize);
+            namesAddr = Unsafe.realloc(namesAddr, namesCapacity, capacity);
+            namesCapacity = capacity;
+        }
+    }
+
+    private long parseEntity(long p, long hi) {
+        p = parseName(p, hi);
+        if (p == -1) {
+            return -1;
+        }
+        if (p == hi) {
+            errorCode = ErrorCode.INVALID_RECORD_LENGTH;
+            return -1;
+        }
+
+        final ProtoEntity entity = nextEntity();
+        final byte type = Unsafe.getUnsafe().getByte(p++);
+        entity.ofBinary(nameLo, nameHi, type);
+        switch (type) {
+            case ENTITY_TYPE_TAG:
+            case ENTITY_TYPE_STRING:
+            case ENTITY_TYPE_LONG256: {
+                if (hi - p < Integer.BYTES) {
+                    errorCode = ErrorCode.INVALID_RECORD_LENGTH;
+                    return -1;
+                }
+                final int len = Unsafe.getUnsafe().getInt(p);
+                p += Integer.BYTES;
+                if (len < 0 || len > hi - p) {
+                    errorCode = ErrorCode.INVALID_RECORD_LENGTH;
+                    return -1;
+                }
+                if (len == 0 && type != ENTITY_TYPE_STRING) {
+                    errorCode = ErrorCode.INVALID_FIELD_VALUE;
+                    return -1;
+                }
+                entity.setBinaryValue(p, p + len);
+                return p + len;
+            }
+            case ENTITY_TYPE_INTEGER:
+                if (hi - p < Long.BYTES) {
+                    errorCode = ErrorCode.INVALID_RECORD_LENGTH;
+                    return -1;
+                }
+                entity.setBinaryValue(Unsafe.getUnsafe().getLong(p));
+                return p + Long.BYTES;
+            case ENTITY_TYPE_FLOAT:
+                if (hi - p < Double.BYTES) {
+                    errorCode = ErrorCode.INVALID_RECORD_LENGTH;
+                    return -1;
+                }
+                entity.setBinaryValue(Unsafe.getUnsafe().getDouble(p));
+                return p + Double.BYTES;
+            case ENTITY_TYPE_BOOLEAN:
+                if (p == hi) {
+                    errorCode = ErrorCode.INVALID_RECORD_LENGTH;
+                    return -1;
+                }
+                entity.setBinaryValue(Unsafe.getUnsafe().getByte(p) != 0);
+                return p + 1;
+            default:
+                errorCode = ErrorCode.INVALID_FIELD_TYPE;
+                return -1;
+        }
+    }
+
+    private long parseName(long p, long hi) {
+        if (hi - p < Integer.BYTES) {
+            errorCode = ErrorCode.INVALID_RECORD_LENGTH;
+            return -1;
+        }
+        final int id = Unsafe.getUnsafe().getInt(p);
+        p += Integer.BYTES;
+        if (id > -1) {
+            if (id < nameOffsets.size() - 1) {
+                nameLo = namesAddr + nameOffsets.getQuick(id);
+                nameHi = namesAddr + nameOffsets.getQuick(id + 1);
+                return p;
+            }
+            errorCode = ErrorCode.INVALID_NAME;
+            return -1;
+        }
+
+        // -Integer.MIN_VALUE remains negative
+        final int len = -id;
+        final int offset = nameOffsets.getLast();
+        if (len < 0 || len > hi - p || offset + len > namesCapacity) {
+            errorCode = ErrorCode.INVALID_NAME;
+            return -1;
+        }
+        Vect.memcpy(p, namesAddr + offset, len);
+        nameOffsets.add(offset + len);
+        nameLo = namesAddr + offset;
+        nameHi = nameLo + len;
+        return p + len;
+    }
+}
@@ -87,6 +87,11 @@ public class DefaultLineTcpReceiverConfiguration implements LineTcpReceiverConfi
         return 64;
     }
 
+    @Override
+    public int getSymbolCacheCapacity() {
+        return 1024;
+    }
+
     @Override
     public MicrosecondClock getMicrosecondClock() {
         return MicrosecondClockImpl.INSTANCE;
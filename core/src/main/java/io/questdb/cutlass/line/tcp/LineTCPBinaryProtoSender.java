@@ -0,0 +1,158 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cutlass.line.LineProtoSender;
+import io.questdb.std.CharSequenceIntHashMap;
+import io.questdb.std.Unsafe;
+
+/**
+ * Sends measurements in binary dialect of line protocol, see {@link BinaryLineProtoParser}. Names of tables
+ * and columns are sent once per connection and referred to by id after that. Server keeps names in
+ * a dictionary as large as its message buffer, which limits number of distinct names a connection can use.
+ */
+public class LineTCPBinaryProtoSender extends LineTCPProtoSender {
+    private static final int MAX_ENTITY_COUNT = 0xffff;
+    private final CharSequenceIntHashMap nameIds = new CharSequenceIntHashMap();
+    private boolean hasMetric = false;
+    // offset of timestamp and entity count in current line
+    private int timestampOffset;
+    private int entityCount;
+
+    public LineTCPBinaryProtoSender(int sendToIPv4Address, int sendToPort, int bufferCapacity) {
+        super(sendToIPv4Address, sendToPort, bufferCapacity);
+        Unsafe.getUnsafe().putInt(reserve(Integer.BYTES), BinaryLineProtoParser.HEADER_MAGIC);
+        Unsafe.getUnsafe().putByte(reserve(Byte.BYTES), BinaryLineProtoParser.VERSION);
+        endLine();
+    }
+
+    @Override
+    public void $(long timestamp) {
+        if (!hasMetric) {
+            throw CairoException.instance(0).put("metric expected");
+        }
+        final long lineStart = getLineStart();
+        Unsafe.getUnsafe().putLong(lineStart + timestampOffset, timestamp);
+        Unsafe.getUnsafe().putShort(lineStart + timestampOffset + Long.BYTES, (short) entityCount);
+        Unsafe.getUnsafe().putInt(lineStart, getLineLength() - Integer.BYTES);
+        hasMetric = false;
+        endLine();
+    }
+
+    @Override
+    public void $() {
+        $(NewLineProtoParser.NULL_TIMESTAMP);
+    }
+
+    @Override
+    public LineProtoSender field(CharSequence name, long value) {
+        putEntity(name, NewLineProtoParser.ENTITY_TYPE_INTEGER);
+        Unsafe.getUnsafe().putLong(reserve(Long.BYTES), value);
+        return this;
+    }
+
+    @Override
+    public LineProtoSender field(CharSequence name, CharSequence value) {
+        putEntity(name, NewLineProtoParser.ENTITY_TYPE_STRING);
+        putUtf8Value(value);
+        return this;
+    }
+
+    @Override
+    public LineProtoSender field(CharSequence name, double value) {
+        putEntity(name, NewLineProtoParser.ENTITY_TYPE_FLOAT);
+        Unsafe.getUnsafe().putDouble(reserve(Double.BYTES), value);
+        return this;
+    }
+
+    @Override
+    public LineProtoSender field(CharSequence name, boolean value) {
+        putEntity(name, NewLineProtoParser.ENTITY_TYPE_BOOLEAN);
+        Unsafe.getUnsafe().putByte(reserve(Byte.BYTES), (byte) (value ? 1 : 0));
+        return this;
+    }
+
+    @Override
+    public LineProtoSender metric(CharSequence metric) {
+        if (hasMetric) {
+            throw CairoException.instance(0).put("duplicate metric");
+        }
+        hasMetric = true;
+        entityCount = 0;
+        // record length is written by $()
+        reserve(Integer.BYTES);
+        putName(metric);
+        timestampOffset = getLineLength();
+        reserve(Long.BYTES + Short.BYTES);
+        return this;
+    }
+
+    @Override
+    public LineProtoSender tag(CharSequence tag, CharSequence value) {
+        putEntity(tag, NewLineProtoParser.ENTITY_TYPE_TAG);
+        putUtf8Value(value);
+        return this;
+    }
+
+    @Override
+    public LineProtoSender tagEscaped(CharSequence tag, CharSequence value) {
+        // binary names and values need no escaping
+        return tag(tag, value);
+    }
+
+    private void putEntity(CharSequence name, byte type) {
+        if (!hasMetric) {
+            throw CairoException.instance(0).put("metric expected");
+        }
+        if (entityCount == MAX_ENTITY_COUNT) {
+            throw CairoException.instance(0).put("too many fields");
+        }
+        entityCount++;
+        putName(name);
+        Unsafe.getUnsafe().putByte(reserve(Byte.BYTES), type);
+    }
+
+    private void putName(CharSequence name) {
+        final int index = nameIds.keyIndex(name);
+        if (index < 0) {
+            Unsafe.getUnsafe().putInt(reserve(Integer.BYTES), nameIds.valueAt(index));
+            return;
+        }
+        nameIds.putAt(index, name, nameIds.size());
+        // new name is defined by negative length of its UTF-8 bytes
+        final int offset = getLineLength();
+        reserve(Integer.BYTES);
+        encodeUtf8(name);
+        Unsafe.getUnsafe().putInt(getLineStart() + offset, offset + Integer.BYTES - getLineLength());
+    }
+
+    private void putUtf8Value(CharSequence value) {
+        final int offset = getLineLength();
+        reserve(Integer.BYTES);
+        encodeUtf8(value);
+        Unsafe.getUnsafe().putInt(getLineStart() + offset, getLineLength() - offset - Integer.BYTES);
+    }
+}
@@ -24,6 +24,7 @@
 
 package io.questdb.cutlass.line.tcp;
 
+import io.questdb.cairo.CairoException;
 import io.questdb.cutlass.line.tcp.LineTcpMeasurementScheduler.NetworkIOJob;
 import io.questdb.cutlass.line.tcp.NewLineProtoParser.ParseResult;
 import io.questdb.log.Log;
@@ -52,7 +53,10 @@ class LineTcpConnectionContext implements IOContext, Mutable {
     protected long recvBufPos;
     protected boolean peerDisconnected;
     private long lastQueueFullLogMillis = 0;
-    private final NewLineProtoParser protoParser = new NewLineProtoParser();
+    private final NewLineProtoParser textParser = new NewLineProtoParser();
+    private final BinaryLineProtoParser binaryParser;
+    private NewLineProtoParser protoParser = textParser;
+    private boolean dialectNegotiated;
     private boolean goodMeasurement;
     protected long recvBufStartOfMeasurement;
     private final FloatingDirectCharSink charSink = new FloatingDirectCharSink();
@@ -63,6 +67,8 @@ class LineTcpConnectionContext implements IOContext, Mutable {
         this.milliClock = configuration.getMillisecondClock();
         recvBufStart = Unsafe.malloc(configuration.getNetMsgBufferSize());
         recvBufEnd = recvBufStart + configuration.getNetMsgBufferSize();
+        // dictionary of binary dialect names should not outgrow a message
+        binaryParser = new BinaryLineProtoParser(configuration.getNetMsgBufferSize());
         clear();
     }
 
@@ -70,6 +76,9 @@ class LineTcpConnectionContext implements IOContext, Mutable {
     public void clear() {
         recvBufPos = recvBufStart;
         peerDisconnected = false;
+        protoParser = textParser;
+        dialectNegotiated = false;
+        binaryParser.clearNames();
         resetParser();
     }
 
@@ -84,7 +93,8 @@ class LineTcpConnectionContext implements IOContext, Mutable {
         this.fd = -1;
         Unsafe.free(recvBufStart, recvBufEnd - recvBufStart);
         recvBufStart = recvBufEnd = recvBufPos = 0;
-        protoParser.close();
+        textParser.close();
+        binaryParser.close();
         charSink.close();
     }
 
@@ -147,8 +157,25 @@ class LineTcpConnectionContext implements IOContext, Mutable {
     }
 
     protected final IOContextResult parseMeasurements(NetworkIOJob netIoJob) {
+        try {
+            return parseMeasurements0(netIoJob);
+        } finally {
+            scheduler.commitMeasurements(netIoJob);
+        }
+    }
+
+    private IOContextResult parseMeasurements0(NetworkIOJob netIoJob) {
         while (true) {
             try {
+                if (!dialectNegotiated && !negotiateDialect()) {
+                    if (!read()) {
+                        if (peerDisconnected) {
+                            return IOContextResult.NEEDS_DISCONNECT;
+                        }
+                        return IOContextResult.NEEDS_READ;
+                    }
+                    continue;
+                }
                 ParseResult rc = goodMeasurement ? protoParser.parseMeasurement(recvBufPos) : protoParser.skipMeasurement(recvBufPos);
                 switch (rc) {
                     case MEASUREMENT_COMPLETE: {
@@ -205,6 +232,29 @@ class LineTcpConnectionContext implements IOContext, Mutable {
         }
     }
 
+    // Binary dialect is requested by header, which starts with zero byte. Text never starts with it.
+    private boolean negotiateDialect() {
+        if (recvBufPos == recvBufStart) {
+            return false;
+        }
+        if (Unsafe.getUnsafe().getByte(recvBufStart) != 0) {
+            dialectNegotiated = true;
+            return true;
+        }
+        if (recvBufPos - recvBufStart < BinaryLineProtoParser.HEADER_LEN) {
+            return false;
+        }
+        if (!BinaryLineProtoParser.isHeader(recvBufStart)) {
+            throw CairoException.instance(0).put("unsupported binary line protocol header");
+        }
+        compactBuffer(recvBufStart + BinaryLineProtoParser.HEADER_LEN);
+        protoParser = binaryParser;
+        dialectNegotiated = true;
+        resetParser();
+        LOG.info().$('[').$(fd).$("] binary line protocol").$();
+        return true;
+    }
+
     LineTcpConnectionContext of(long clientFd, IODispatcher<LineTcpConnectionContext> dispatcher) {
         this.fd = clientFd;
         this.dispatcher = dispatcher;
@@ -41,6 +41,7 @@ import io.questdb.network.IORequestProcessor;
 import io.questdb.std.*;
 import io.questdb.std.datetime.microtime.MicrosecondClock;
 import io.questdb.std.datetime.millitime.MillisecondClock;
+import io.questdb.std.str.DirectByteCharSequence;
 import io.questdb.std.str.DirectCharSink;
 import io.questdb.std.str.FloatingDirectCharSink;
 import io.questdb.std.str.Path;
@@ -73,7 +74,10 @@ class LineTcpMeasurementScheduler implements Closeable {
     private final long maintenanceInterval;
     private final long writerIdleTimeout;
     private final int defaultPartitionBy;
+    private final int symbolCacheCapacity;
     private final NetworkIOJob[] netIoJobs;
+    // sequence of event, which network IO worker is appending measurements to, -1 when there is none
+    private final long[] batchSeqByWorker;
     private final TableStructureAdapter tableStructureAdapter = new TableStructureAdapter();
     private final Path path = new Path();
     private final AppendOnlyVirtualMemory mem = new AppendOnlyVirtualMemory();
@@ -92,6 +96,7 @@ class LineTcpMeasurementScheduler implements Closeable {
         this.securityContext = lineConfiguration.getCairoSecurityContext();
         this.cairoConfiguration = engine.getConfiguration();
         this.milliClock = cairoConfiguration.getMillisecondClock();
+        this.symbolCacheCapacity = lineConfiguration.getSymbolCacheCapacity();
 
         this.netIoJobs = new NetworkIOJob[ioWorkerPool.getWorkerCount()];
         for (int i = 0; i < ioWorkerPool.getWorkerCount(); i++) {
@@ -100,6 +105,8 @@ class LineTcpMeasurementScheduler implements Closeable {
             ioWorkerPool.assign(i, netIoJob);
             ioWorkerPool.assign(i, netIoJob::close);
         }
+        batchSeqByWorker = new long[netIoJobs.length];
+        Arrays.fill(batchSeqByWorker, -1);
 
         // Worker count is set to 1 because we do not use this execution context
         // in worker threads.
@@ -373,23 +380,30 @@ class LineTcpMeasurementScheduler implements Closeable {
             return false;
         }
         if (null != tableUpdateDetails) {
-            long seq = getNextPublisherEventSequence();
-            if (seq >= 0) {
-                try {
-                    LineTcpMeasurementEvent event = queue.get(seq);
-                    event.threadId = INCOMPLETE_EVENT_ID;
-                    TableUpdateDetails.ThreadLocalDetails localDetails = tableUpdateDetails.startNewMeasurementEvent(netIoJob.getWorkerId());
-                    event.createMeasurementEvent(tableUpdateDetails, localDetails, protoParser, charSink);
-                    return false;
-                } finally {
-                    pubSeq.done(seq);
-                    if (++tableUpdateDetails.nUpdates > nUpdatesPerLoadRebalance) {
-                        if (tableUpdateDetailsLock.writeLock().tryLock()) {
-                            try {
-                                loadRebalance();
-                            } finally {
-                                tableUpdateDetailsLock.writeLock().unlock();
-                            }
+            final int workerId = netIoJob.getWorkerId();
+            long seq = batchSeqByWorker[workerId];
+            LineTcpMeasurementEvent event = seq > -1 ? queue.get(seq) : null;
+            if (event == null || event.tableUpdateDetails != tableUpdateDetails || !event.hasCapacity(protoParser)) {
+                commitMeasurements(netIoJob);
+                seq = getNextPublisherEventSequence();
+                if (seq < 0) {
+                    return true;
+                }
+                batchSeqByWorker[workerId] = seq;
+                event = queue.get(seq);
+                event.createMeasurementBatch(tableUpdateDetails);
+            }
+            try {
+                TableUpdateDetails.ThreadLocalDetails localDetails = tableUpdateDetails.startNewMeasurementEvent(workerId);
+                event.appendMeasurement(localDetails, protoParser, charSink);
+                return false;
+            } finally {
+                if (++tableUpdateDetails.nUpdates > nUpdatesPerLoadRebalance) {
+                    if (tableUpdateDetailsLock.writeLock().tryLock()) {
+                        try {
+                            loadRebalance();
+                        } finally {
+                            tableUpdateDetailsLock.writeLock().unlock();
                         }
                     }
                 }
@@ -398,6 +412,22 @@ class LineTcpMeasurementScheduler implements Closeable {
         return true;
     }
 
+    /**
+     * Publishes measurements, which network IO worker has batched since its last call. Writer threads
+     * cannot process queue past unpublished event, so batch must not outlive current parse pass.
+     *
+     * @param netIoJob network IO job of the calling worker
+     */
+    void commitMeasurements(NetworkIOJob netIoJob) {
+        final int workerId = netIoJob.getWorkerId();
+        final long seq = batchSeqByWorker[workerId];
+        if (seq > -1) {
+            batchSeqByWorker[workerId] = -1;
+            queue.get(seq).commitMeasurementBatch();
+            pubSeq.done(seq);
+        }
+    }
+
     interface NetworkIOJob extends Job {
         void addTableUpdateDetails(TableUpdateDetails tableUpdateDetails);
 
@@ -417,6 +447,10 @@ class LineTcpMeasurementScheduler implements Closeable {
         private int threadId;
         private TableUpdateDetails tableUpdateDetails;
         private long bufLo;
+        // measurements of the same table are appended to event as rows of [int rowLen][long timestamp][int nEntities][entities]
+        private long bufPos;
+        private int nRows;
+        private int batchThreadId;
         private int rebalanceFromThreadId;
         private int rebalanceToThreadId;
         private volatile boolean rebalanceReleasedByFromThread;
@@ -435,19 +469,18 @@ class LineTcpMeasurementScheduler implements Closeable {
             bufLo = 0;
         }
 
-        void createMeasurementEvent(
-                TableUpdateDetails tableUpdateDetails,
+        void appendMeasurement(
                 TableUpdateDetails.ThreadLocalDetails localDetails,
                 NewLineProtoParser protoParser,
                 FloatingDirectCharSink floatingCharSink
         ) {
-            threadId = INCOMPLETE_EVENT_ID;
-            this.tableUpdateDetails = tableUpdateDetails;
             long timestamp = protoParser.getTimestamp();
             if (timestamp != NewLineProtoParser.NULL_TIMESTAMP) {
                 timestamp = timestampAdapter.getMicros(timestamp);
             }
-            long bufPos = bufLo;
+            // row is not counted until it is fully written, exception leaves previous rows of the batch intact
+            final long rowLo = this.bufPos;
+            long bufPos = rowLo + Integer.BYTES;
             Unsafe.getUnsafe().putLong(bufPos, timestamp);
             bufPos += Long.BYTES;
             int nEntities = protoParser.getnEntities();
@@ -470,23 +503,22 @@ class LineTcpMeasurementScheduler implements Closeable {
                 byte entityType = entity.getType();
                 switch (entityType) {
                     case NewLineProtoParser.ENTITY_TYPE_TAG: {
-                        long tmpBufPos = bufPos;
-                        int l = entity.getValue().length();
-                        bufPos += Integer.BYTES + Byte.BYTES;
-                        long hi = bufPos + 2L * l;
-                        floatingCharSink.of(bufPos, hi);
-                        if (!Chars.utf8Decode(entity.getValue().getLo(), entity.getValue().getHi(), floatingCharSink)) {
-                            throw CairoException.instance(0).put("invalid UTF8 in value for ").put(entity.getName());
-                        }
-
-                        int symIndex = tableUpdateDetails.getSymbolIndex(localDetails, colIndex, floatingCharSink);
+                        // symbol cache looks up UTF-8 value, it is decoded only when symbol is new
+                        int symIndex = tableUpdateDetails.getSymbolIndex(localDetails, colIndex, entity.getValue());
                         if (symIndex != SymbolTable.VALUE_NOT_FOUND) {
-                            bufPos = tmpBufPos;
                             Unsafe.getUnsafe().putByte(bufPos, NewLineProtoParser.ENTITY_TYPE_CACHED_TAG);
                             bufPos += Byte.BYTES;
                             Unsafe.getUnsafe().putInt(bufPos, symIndex);
                             bufPos += Integer.BYTES;
                         } else {
+                            long tmpBufPos = bufPos;
+                            int l = entity.getValue().length();
+                            bufPos += Integer.BYTES + Byte.BYTES;
+                            long hi = bufPos + 2L * l;
+                            floatingCharSink.of(bufPos, hi);
+                            if (!Chars.utf8Decode(entity.getValue().getLo(), entity.getValue().getHi(), floatingCharSink)) {
+                                throw CairoException.instance(0).put("invalid UTF8 in value for ").put(entity.getName());
+                            }
                             Unsafe.getUnsafe().putByte(tmpBufPos, entity.getType());
                             tmpBufPos += Byte.BYTES;
                             Unsafe.getUnsafe().putInt(tmpBufPos, l);
@@ -532,7 +564,45 @@ class LineTcpMeasurementScheduler implements Closeable {
                     }
                 }
             }
-            threadId = tableUpdateDetails.writerThreadId;
+            Unsafe.getUnsafe().putInt(rowLo, (int) (bufPos - rowLo));
+            this.bufPos = bufPos;
+            nRows++;
+        }
+
+        void commitMeasurementBatch() {
+            if (nRows > 0) {
+                threadId = batchThreadId;
+            }
+        }
+
+        void createMeasurementBatch(TableUpdateDetails tableUpdateDetails) {
+            threadId = INCOMPLETE_EVENT_ID;
+            this.tableUpdateDetails = tableUpdateDetails;
+            // writer thread is captured when event is claimed, rebalance event that moves the table
+            // can only be published after this event and will be processed after the batch
+            batchThreadId = tableUpdateDetails.writerThreadId;
+            bufPos = bufLo;
+            nRows = 0;
+        }
+
+        boolean hasCapacity(NewLineProtoParser protoParser) {
+            // upper bound of row size, names are counted even when column index is known
+            long size = Integer.BYTES + Long.BYTES + Integer.BYTES;
+            for (int nEntity = 0, n = protoParser.getnEntities(); nEntity < n; nEntity++) {
+                ProtoEntity entity = protoParser.getEntity(nEntity);
+                size += Integer.BYTES + entity.getName().length() + Byte.BYTES;
+                switch (entity.getType()) {
+                    case NewLineProtoParser.ENTITY_TYPE_TAG:
+                    case NewLineProtoParser.ENTITY_TYPE_STRING:
+                    case NewLineProtoParser.ENTITY_TYPE_LONG256:
+                        size += Integer.BYTES + 2L * entity.getValue().length();
+                        break;
+                    default:
+                        size += Long.BYTES;
+                        break;
+                }
+            }
+            return bufPos + size <= bufLo + bufSize;
         }
 
         void createRebalanceEvent(int fromThreadId, int toThreadId, TableUpdateDetails tableUpdateDetails) {
@@ -548,12 +618,19 @@ class LineTcpMeasurementScheduler implements Closeable {
             this.tableUpdateDetails = tableUpdateDetails;
         }
 
-        @SuppressWarnings("resource")
         void processMeasurementEvent(WriterJob job) {
+            long rowLo = bufLo;
+            for (int n = 0; n < nRows; n++) {
+                processMeasurement(job, rowLo + Integer.BYTES);
+                rowLo += Unsafe.getUnsafe().getInt(rowLo);
+            }
+        }
+
+        @SuppressWarnings("resource")
+        private void processMeasurement(WriterJob job, long bufPos) {
             Row row = null;
             try {
                 TableWriter writer = tableUpdateDetails.getWriter();
-                long bufPos = bufLo;
                 long timestamp = Unsafe.getUnsafe().getLong(bufPos);
                 bufPos += Long.BYTES;
                 if (timestamp == NewLineProtoParser.NULL_TIMESTAMP) {
@@ -732,6 +809,8 @@ class LineTcpMeasurementScheduler implements Closeable {
     class TableUpdateDetails implements Closeable {
         final String tableName;
         private final ThreadLocalDetails[] localDetailsArray;
+        // rows of WAL table go to WAL writer, symbol keys of the table do not apply to it
+        private final boolean wal;
         private int writerThreadId;
         // Number of updates since the last load rebalance, this is an estimate because its incremented by
         // multiple threads without synchronisation
@@ -744,6 +823,7 @@ class LineTcpMeasurementScheduler implements Closeable {
 
         private TableUpdateDetails(String tableName, int writerThreadId, NetworkIOJob[] netIoJobs) {
             this.tableName = tableName;
+            this.wal = engine.isWalTable(tableName);
             this.writerThreadId = writerThreadId;
             final int n = netIoJobs.length;
             localDetailsArray = new ThreadLocalDetails[n];
@@ -770,7 +850,7 @@ class LineTcpMeasurementScheduler implements Closeable {
             }
         }
 
-        int getSymbolIndex(ThreadLocalDetails localDetails, int colIndex, CharSequence symValue) {
+        int getSymbolIndex(ThreadLocalDetails localDetails, int colIndex, DirectByteCharSequence symValue) {
             if (colIndex >= 0) {
                 return localDetails.getSymbolIndex(colIndex, symValue);
             }
@@ -781,7 +861,7 @@ class LineTcpMeasurementScheduler implements Closeable {
             if (null != writer) {
                 return writer;
             }
-            return writer = engine.getWriter(securityContext, tableName);
+            return writer = wal ? engine.getWalWriter(securityContext, tableName) : engine.getWriter(securityContext, tableName);
         }
 
         void handleRowAppended() {
@@ -793,7 +873,8 @@ class LineTcpMeasurementScheduler implements Closeable {
         void handleWriterRelease() {
             if (null != writer) {
                 LOG.debug().$("release commit [table=").$(writer.getTableName()).I$();
-                writer.commit();
+                // protocol has no acknowledgement, there is no need to wait for group commit
+                writer.commit(cairoConfiguration.getCommitMode());
                 writer = Misc.free(writer);
                 lastCommitMillis = milliClock.getTicks();
             }
@@ -805,7 +886,7 @@ class LineTcpMeasurementScheduler implements Closeable {
             }
             if (null != writer) {
                 LOG.debug().$("maintenance commit [table=").$(writer.getTableName()).I$();
-                writer.commit();
+                writer.commit(cairoConfiguration.getCommitMode());
                 lastCommitMillis = milliClock.getTicks();
             }
         }
@@ -846,7 +927,7 @@ class LineTcpMeasurementScheduler implements Closeable {
                         symCache = unusedSymbolCaches.get(lastUnusedSymbolCacheIndex);
                         unusedSymbolCaches.remove(lastUnusedSymbolCacheIndex);
                     } else {
-                        symCache = new SymbolCache();
+                        symCache = new SymbolCache(symbolCacheCapacity);
                     }
                     int symIndex = resolveSymbolIndex(reader.getMetadata(), colIndex);
                     symCache.of(cairoConfiguration, path, reader.getMetadata().getColumnName(colIndex), symIndex);
@@ -868,6 +949,10 @@ class LineTcpMeasurementScheduler implements Closeable {
             }
 
             int getColumnIndex(CharSequence colName) {
+                if (wal) {
+                    // column names are sent to writer, which resolves them against its WAL segment
+                    return -1;
+                }
                 final int colIndex = columnIndexByName.get(colName);
                 if (colIndex != CharSequenceIntHashMap.NO_ENTRY_VALUE) {
                     return colIndex;
@@ -891,7 +976,7 @@ class LineTcpMeasurementScheduler implements Closeable {
                 }
             }
 
-            int getSymbolIndex(int colIndex, CharSequence symValue) {
+            int getSymbolIndex(int colIndex, DirectByteCharSequence symValue) {
                 SymbolCache symCache = symbolCacheByColumnIndex.getQuiet(colIndex);
                 if (null == symCache) {
                     symCache = addSymbolCache(colIndex);
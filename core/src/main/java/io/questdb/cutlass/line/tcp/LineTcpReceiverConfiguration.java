@@ -69,6 +69,14 @@ public interface LineTcpReceiverConfiguration {
 
     NetworkFacade getNetworkFacade();
 
+    /**
+     * Number of symbol keys each IO worker caches per symbol column, least used keys are evicted
+     * when cache is full. Cache takes 8 bytes per key.
+     *
+     * @return number of keys, rounded up to power of 2
+     */
+    int getSymbolCacheCapacity();
+
     LineProtoTimestampAdapter getTimestampAdapter();
 
     int getWriterQueueCapacity();
@@ -40,7 +40,8 @@ public class NewLineProtoParser implements Closeable {
     }
 
     public enum ErrorCode {
-        EMPTY_LINE, NO_FIELDS, INCOMPLETE_TAG, INCOMPLETE_FIELD, INVALID_FIELD_SEPERATOR, INVALID_TIMESTAMP, INVALID_FIELD_VALUE
+        EMPTY_LINE, NO_FIELDS, INCOMPLETE_TAG, INCOMPLETE_FIELD, INVALID_FIELD_SEPERATOR, INVALID_TIMESTAMP, INVALID_FIELD_VALUE,
+        INVALID_RECORD_LENGTH, INVALID_NAME, INVALID_FIELD_TYPE
     }
 
     private static final byte ENTITY_TYPE_NONE = (byte) 0xff;
@@ -53,18 +54,18 @@ public class NewLineProtoParser implements Closeable {
     public static final byte ENTITY_TYPE_CACHED_TAG = 6;
     public static final int N_ENTITY_TYPES = ENTITY_TYPE_CACHED_TAG + 1;
 
-    private final DirectByteCharSequence measurementName = new DirectByteCharSequence();
+    protected final DirectByteCharSequence measurementName = new DirectByteCharSequence();
     private final DirectByteCharSequence charSeq = new DirectByteCharSequence();
     private final ObjList<ProtoEntity> entityCache = new ObjList<>();
-    private long bufAt;
+    protected long bufAt;
     private long entityLo;
     private boolean tagsComplete;
     private int nEscapedChars;
-    private int nEntities;
+    protected int nEntities;
     private ProtoEntity currentEntity;
-    private ErrorCode errorCode;
+    protected ErrorCode errorCode;
     private EntityHandler entityHandler;
-    private long timestamp;
+    protected long timestamp;
 
     private final EntityHandler entityTableHandler = this::expectTableName;
     private final EntityHandler entityNameHandler = this::expectEntityName;
@@ -211,15 +212,7 @@ public class NewLineProtoParser implements Closeable {
 
     private boolean expectEntityName(byte endOfEntityByte) {
         if (endOfEntityByte == (byte) '=') {
-            if (entityCache.size() <= nEntities) {
-                currentEntity = new ProtoEntity();
-                entityCache.add(currentEntity);
-            } else {
-                currentEntity = entityCache.get(nEntities);
-                currentEntity.clear();
-            }
-
-            nEntities++;
+            currentEntity = nextEntity();
             currentEntity.setName();
             entityHandler = entityValueHandler;
             return true;
@@ -249,6 +242,19 @@ public class NewLineProtoParser implements Closeable {
         return false;
     }
 
+    protected ProtoEntity nextEntity() {
+        final ProtoEntity entity;
+        if (entityCache.size() <= nEntities) {
+            entity = new ProtoEntity();
+            entityCache.add(entity);
+        } else {
+            entity = entityCache.get(nEntities);
+            entity.clear();
+        }
+        nEntities++;
+        return entity;
+    }
+
     private boolean expectEntityValue(byte endOfEntityByte) {
         boolean endOfSet = endOfEntityByte == (byte) ' ';
         if (endOfSet || endOfEntityByte == (byte) ',' || endOfEntityByte == (byte) '\n') {
@@ -387,6 +393,27 @@ public class NewLineProtoParser implements Closeable {
             type = ENTITY_TYPE_NONE;
         }
 
+        void ofBinary(long nameLo, long nameHi, byte type) {
+            name.of(nameLo, nameHi);
+            this.type = type;
+        }
+
+        void setBinaryValue(long lo, long hi) {
+            value.of(lo, hi);
+        }
+
+        void setBinaryValue(long value) {
+            integerValue = value;
+        }
+
+        void setBinaryValue(double value) {
+            floatValue = value;
+        }
+
+        void setBinaryValue(boolean value) {
+            booleanValue = value;
+        }
+
         public byte getType() {
             return type;
         }
@@ -32,17 +32,114 @@ import io.questdb.cairo.TableUtils;
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.cairo.vm.MappedReadOnlyMemory;
 import io.questdb.cairo.vm.SinglePageMappedReadOnlyPageMemory;
+import io.questdb.std.Chars;
 import io.questdb.std.FilesFacade;
-import io.questdb.std.ObjIntHashMap;
+import io.questdb.std.Hash;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.std.str.FloatingDirectCharSink;
 import io.questdb.std.str.Path;
 
+/**
+ * Cache of symbol keys by UTF-8 bytes of symbol values. Values are hashed and compared as they are in
+ * receive buffer, they are decoded only to look up symbol map on a miss.
+ * <p>
+ * Cache is an off-heap set-associative table: a set of {@link #WAYS} entries is a cache line and every
+ * value maps to a single set. Entry is int hash of value and int key, cache does not keep values, hit
+ * is confirmed by comparing value with chars of the symbol in symbol map. Table grows up to given
+ * capacity, after that full set evicts entry chosen by CLOCK algorithm. New entries are not referenced
+ * until they are hit, so that values seen once do not push out values that repeat.
+ */
 class SymbolCache implements Closeable {
-    private final ObjIntHashMap<CharSequence> indexBySym = new ObjIntHashMap<>(256, 0.5, SymbolTable.VALUE_NOT_FOUND);
+    private static final int WAYS = 8;
+    private static final int ENTRY_SIZE = 2 * Integer.BYTES;
+    private static final int SET_SHIFT = 6;
+    private static final int INITIAL_SET_COUNT = 8;
+    // entry value is key + 1, 0 is an empty entry
+    private static final int REFERENCED = 0x80000000;
     private final MappedReadOnlyMemory txMem = new SinglePageMappedReadOnlyPageMemory();
     private final SymbolMapReaderImpl symMapReader = new SymbolMapReaderImpl();
+    private final FloatingDirectCharSink charSink = new FloatingDirectCharSink();
+    private final int maxSetCount;
     private long transientSymCountOffset;
+    private long table;
+    private int setCount;
+    private int size;
+    private int clockHand;
+    private long charBuf;
+    private long charBufCapacity;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
 
-    SymbolCache() {
+    SymbolCache(int capacity) {
+        this.maxSetCount = Math.max(1, Numbers.ceilPow2(capacity) / WAYS);
+    }
+
+    @Override
+    public void close() {
+        symMapReader.close();
+        txMem.close();
+        if (table != 0) {
+            Unsafe.free(table, (long) setCount << SET_SHIFT);
+            table = 0;
+            setCount = 0;
+            size = 0;
+        }
+        if (charBuf != 0) {
+            Unsafe.free(charBuf, charBufCapacity);
+            charBuf = 0;
+            charBufCapacity = 0;
+        }
+    }
+
+    long getEvictionCount() {
+        return evictionCount;
+    }
+
+    long getHitCount() {
+        return hitCount;
+    }
+
+    long getMissCount() {
+        return missCount;
+    }
+
+    int getNCached() {
+        return size;
+    }
+
+    int getSymIndex(DirectByteCharSequence utf8Value) {
+        final long lo = utf8Value.getLo();
+        final long hi = utf8Value.getHi();
+        final int hash = (int) Hash.hashMem64(lo, hi - lo);
+
+        if (table != 0) {
+            final long set = table + ((long) (hash & (setCount - 1)) << SET_SHIFT);
+            for (long e = set, lim = set + WAYS * ENTRY_SIZE; e < lim; e += ENTRY_SIZE) {
+                final int value = Unsafe.getUnsafe().getInt(e + Integer.BYTES);
+                if (value != 0 && Unsafe.getUnsafe().getInt(e) == hash) {
+                    final int symIndex = (value & ~REFERENCED) - 1;
+                    if (equalsSymbol(lo, hi, symIndex)) {
+                        Unsafe.getUnsafe().putInt(e + Integer.BYTES, value | REFERENCED);
+                        hitCount++;
+                        return symIndex;
+                    }
+                }
+            }
+        }
+
+        missCount++;
+        int symCount = txMem.getInt(transientSymCountOffset);
+        symMapReader.updateSymbolCount(symCount);
+        final int symIndex = symMapReader.keyOf(decode(lo, hi));
+
+        if (SymbolTable.VALUE_NOT_FOUND != symIndex) {
+            insert(hash, symIndex);
+        }
+
+        return symIndex;
     }
 
     void of(CairoConfiguration configuration, Path path, CharSequence name, int symIndex) {
@@ -53,35 +150,112 @@ class SymbolCache implements Closeable {
         int symCount = txMem.getInt(transientSymCountOffset);
         path.trimTo(plen);
         symMapReader.of(configuration, path, name, symCount);
-        indexBySym.clear(symCount);
+        if (table != 0) {
+            Unsafe.getUnsafe().setMemory(table, (long) setCount << SET_SHIFT, (byte) 0);
+        }
+        size = 0;
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
     }
 
-    int getSymIndex(CharSequence symValue) {
-        int symIndex = indexBySym.get(symValue);
-
-        if (SymbolTable.VALUE_NOT_FOUND != symIndex) {
-            return symIndex;
+    private static boolean insert0(long table, int setCount, int hash, int value) {
+        final long set = table + ((long) (hash & (setCount - 1)) << SET_SHIFT);
+        for (long e = set, lim = set + WAYS * ENTRY_SIZE; e < lim; e += ENTRY_SIZE) {
+            if (Unsafe.getUnsafe().getInt(e + Integer.BYTES) == 0) {
+                Unsafe.getUnsafe().putInt(e, hash);
+                Unsafe.getUnsafe().putInt(e + Integer.BYTES, value);
+                return true;
+            }
         }
+        return false;
+    }
 
-        int symCount = txMem.getInt(transientSymCountOffset);
-        symMapReader.updateSymbolCount(symCount);
-        symIndex = symMapReader.keyOf(symValue);
-
-        if (SymbolTable.VALUE_NOT_FOUND != symIndex) {
-            indexBySym.put(symValue.toString(), symIndex);
+    private CharSequence decode(long lo, long hi) {
+        // UTF-8 value does not decode into more chars than it has bytes
+        final long len = 2 * (hi - lo);
+        if (len > charBufCapacity) {
+            charBuf = Unsafe.realloc(charBuf, charBufCapacity, len);
+            charBufCapacity = len;
+        }
+        charSink.of(charBuf, charBuf + charBufCapacity);
+        if (!Chars.utf8Decode(lo, hi, charSink)) {
+            charSink.clear();
         }
+        return charSink;
+    }
 
-        return symIndex;
+    private boolean equalsSymbol(long lo, long hi, int symIndex) {
+        final long address = symMapReader.symbolCharsAddressOf(symIndex);
+        final long charsLo = address + Integer.BYTES;
+        final long charsHi = charsLo + Unsafe.getUnsafe().getInt(address) * 2L;
+        long c = charsLo;
+        long p = lo;
+        // ASCII is compared without decoding
+        while (p < hi) {
+            final byte b = Unsafe.getUnsafe().getByte(p);
+            if (b < 0) {
+                final CharSequence tail = decode(p, hi);
+                if (charsHi - c != tail.length() * 2L) {
+                    return false;
+                }
+                for (int i = 0, n = tail.length(); i < n; i++, c += 2) {
+                    if (Unsafe.getUnsafe().getChar(c) != tail.charAt(i)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            if (c == charsHi || Unsafe.getUnsafe().getChar(c) != b) {
+                return false;
+            }
+            p++;
+            c += 2;
+        }
+        return c == charsHi;
     }
 
-    int getNCached() {
-        return indexBySym.size();
+    private void grow() {
+        final int newSetCount = setCount * 2;
+        final long newTable = Unsafe.calloc((long) newSetCount << SET_SHIFT);
+        // entries of a set are split between two sets of new table, they always fit
+        for (long e = table, lim = table + ((long) setCount << SET_SHIFT); e < lim; e += ENTRY_SIZE) {
+            final int value = Unsafe.getUnsafe().getInt(e + Integer.BYTES);
+            if (value != 0) {
+                insert0(newTable, newSetCount, Unsafe.getUnsafe().getInt(e), value);
+            }
+        }
+        Unsafe.free(table, (long) setCount << SET_SHIFT);
+        table = newTable;
+        setCount = newSetCount;
     }
 
-    @Override
-    public void close() {
-        symMapReader.close();
-        indexBySym.clear();
-        txMem.close();
+    private void insert(int hash, int symIndex) {
+        if (table == 0) {
+            setCount = Math.min(INITIAL_SET_COUNT, maxSetCount);
+            table = Unsafe.calloc((long) setCount << SET_SHIFT);
+        }
+
+        while (!insert0(table, setCount, hash, symIndex + 1)) {
+            if (setCount < maxSetCount) {
+                grow();
+                continue;
+            }
+
+            // CLOCK: hand clears reference bits until it finds entry that has not been hit since
+            final long set = table + ((long) (hash & (setCount - 1)) << SET_SHIFT);
+            while (true) {
+                final long e = set + (long) (clockHand++ & (WAYS - 1)) * ENTRY_SIZE;
+                final int value = Unsafe.getUnsafe().getInt(e + Integer.BYTES);
+                if ((value & REFERENCED) == 0) {
+                    Unsafe.getUnsafe().putInt(e, hash);
+                    Unsafe.getUnsafe().putInt(e + Integer.BYTES, symIndex + 1);
+                    evictionCount++;
+                    return;
+                }
+                Unsafe.getUnsafe().putInt(e + Integer.BYTES, value & ~REFERENCED);
+            }
+        }
+        size++;
     }
 }
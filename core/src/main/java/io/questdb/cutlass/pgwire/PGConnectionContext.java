@@ -321,6 +321,15 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
         return engine.getWriter(context, name);
     }
 
+    @Override
+    public TableWriter getWalWriter(CairoSecurityContext context, CharSequence name) {
+        final int index = pendingWriters.keyIndex(name);
+        if (index < 0) {
+            return pendingWriters.valueAt(index);
+        }
+        return engine.getWalWriter(context, name);
+    }
+
     public void handleClientOperation(
             @Transient SqlCompiler compiler,
             @Transient AssociativeCache<TypesAndSelect> selectAndTypesCache,
@@ -128,6 +128,19 @@ public class CairoTextWriter implements Closeable, Mutable {
         return timestampAdapter != null ? partitionedListener : nonPartitionedListener;
     }
 
+    TimestampAdapter getTimestampAdapter() {
+        return timestampAdapter;
+    }
+
+    int getTimestampIndex() {
+        return timestampIndex;
+    }
+
+    // rows can be loaded in timestamp order and committed one partition at a time
+    boolean isPartitionOrderSupported() {
+        return timestampAdapter != null && partitionBy != PartitionBy.NONE && atomicity != Atomicity.SKIP_ALL && !durable;
+    }
+
     public CharSequence getTimestampCol() {
         return designatedTimestampColumnName;
     }
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.text;
+
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.AbstractLockable;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.ObjList;
+
+import java.io.Closeable;
+
+/**
+ * Indexes one chunk of text, a run of whole lines, using the indexer that belongs to the executing
+ * thread. Result is a list of (timestamp, line ordinal) pairs in the order lines appear in the chunk
+ * and a list of field offsets, see {@link TextImportIndexer#index(long, long, long, DirectLongList, DirectLongList)}.
+ */
+public class TextImportEntry extends AbstractLockable implements Closeable {
+    private final DirectLongList rows = new DirectLongList(1024);
+    private final DirectLongList fields = new DirectLongList(1024);
+    private ObjList<TextImportIndexer> indexers;
+    private CountDownLatchSPI doneLatch;
+    private Throwable error;
+    private long errorCount;
+    private boolean unbalanced;
+    private long base;
+    private long lo;
+    private long hi;
+
+    @Override
+    public void close() {
+        rows.close();
+        fields.close();
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    public boolean run(int slot) {
+        if (slot < indexers.size() && tryLock()) {
+            try {
+                final TextImportIndexer indexer = indexers.getQuick(slot);
+                unbalanced = !indexer.index(lo, hi, base, rows, fields);
+                errorCount = indexer.getErrorCount();
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                doneLatch.countDown();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    long getErrorCount() {
+        return errorCount;
+    }
+
+    DirectLongList getFields() {
+        return fields;
+    }
+
+    DirectLongList getRows() {
+        return rows;
+    }
+
+    // chunk boundary falls inside quoted value, chunks cannot be lexed independently
+    boolean isUnbalanced() {
+        return unbalanced;
+    }
+
+    void of(
+            int sequence,
+            long base,
+            long lo,
+            long hi,
+            ObjList<TextImportIndexer> indexers,
+            CountDownLatchSPI doneLatch
+    ) {
+        this.base = base;
+        this.lo = lo;
+        this.hi = hi;
+        this.indexers = indexers;
+        this.doneLatch = doneLatch;
+        this.error = null;
+        this.errorCount = 0;
+        this.unbalanced = false;
+        rows.clear();
+        fields.clear();
+        // entry becomes available to workers only after all of the above is set
+        of(sequence);
+    }
+}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.text;
+
+import io.questdb.cutlass.text.types.TimestampAdapter;
+import io.questdb.cutlass.text.types.TypeManager;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.std.str.DirectCharSink;
+
+import java.io.Closeable;
+
+/**
+ * Thread-bound part of parallel text import. Lexes a chunk of whole lines and records designated
+ * timestamp of each line together with offsets of its fields, so that lines are written without
+ * being lexed again. Lines without valid timestamp are recorded with Long.MIN_VALUE, they are
+ * reported as errors when data is loaded.
+ */
+class TextImportIndexer implements TextLexer.Listener, Closeable {
+    private final DirectCharSink utf8Sink;
+    private final TextLexer textLexer;
+    private TimestampAdapter timestampAdapter;
+    private int timestampIndex;
+    private long base;
+    private DirectLongList rows;
+    private DirectLongList fields;
+    private long errorCount;
+
+    TextImportIndexer(TextConfiguration configuration) {
+        this.utf8Sink = new DirectCharSink(configuration.getUtf8SinkSize());
+        this.textLexer = new TextLexer(configuration, new TypeManager(configuration, utf8Sink));
+    }
+
+    static long lineEnd(long lo, long hi) {
+        while (lo < hi) {
+            if (Unsafe.getUnsafe().getByte(lo++) == '\n') {
+                break;
+            }
+        }
+        return lo;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(textLexer);
+        Misc.free(utf8Sink);
+    }
+
+    @Override
+    public void onFields(long line, ObjList<DirectByteCharSequence> values, int hi) {
+        long timestamp = Long.MIN_VALUE;
+        if (timestampIndex < hi) {
+            try {
+                timestamp = timestampAdapter.getTimestamp(values.getQuick(timestampIndex));
+            } catch (Exception ignore) {
+                // logged when line is loaded
+            }
+        }
+        // line ordinal within chunk
+        final long ordinal = rows.size() >> 1;
+        rows.add(timestamp);
+        rows.add(ordinal);
+        for (int i = 0; i < hi; i++) {
+            final DirectByteCharSequence value = values.getQuick(i);
+            fields.add(value.getLo() - base);
+            fields.add(value.getHi() - base);
+        }
+    }
+
+    long getErrorCount() {
+        return errorCount;
+    }
+
+    int getFieldCount() {
+        return textLexer.getFieldCount();
+    }
+
+    /**
+     * Indexes lines of chunk [lo, hi) into (timestamp, line ordinal) pairs of rows and (lo, hi) offsets
+     * from base of every field of line into fields. Lines that lexer rejects are counted as errors and
+     * are not recorded.
+     *
+     * @return false when chunk ends inside quoted value, i.e. chunk does not end at line end
+     */
+    boolean index(long lo, long hi, long base, DirectLongList rows, DirectLongList fields) {
+        this.base = base;
+        this.rows = rows;
+        this.fields = fields;
+        final long errorCount = textLexer.getErrorCount();
+        try {
+            return textLexer.parseChunk(lo, hi, this);
+        } finally {
+            this.errorCount = textLexer.getErrorCount() - errorCount;
+            this.rows = null;
+            this.fields = null;
+        }
+    }
+
+    /**
+     * Prepares lexer with the first line of text, so that field count is established the same way
+     * as in serial load. Designated timestamp adapters keep no parse state, one instance is shared
+     * by all indexers.
+     */
+    void of(byte columnDelimiter, long firstLineLo, long firstLineHi, int timestampIndex, TimestampAdapter timestampAdapter) {
+        this.timestampIndex = timestampIndex;
+        this.timestampAdapter = timestampAdapter;
+        textLexer.of(columnDelimiter);
+        textLexer.restart(true);
+        textLexer.parseLine(firstLineLo, firstLineHi, this);
+    }
+}
@@ -105,6 +105,14 @@ public class TextLexer implements Closeable, Mutable {
         metadataDetector.close();
     }
 
+    byte getColumnDelimiter() {
+        return columnDelimiter;
+    }
+
+    int getFieldCount() {
+        return fieldMax + 1;
+    }
+
     public long getErrorCount() {
         return errorCount;
     }
@@ -146,6 +154,60 @@ public class TextLexer implements Closeable, Mutable {
         }
     }
 
+    /**
+     * Parses chunk of text that starts at line start. Unlike {@link #parse(long, long, int, Listener)}
+     * incomplete last line is not carried over to the next call, it is completed in place, so that
+     * fields passed to listener always point into [lo, hi).
+     *
+     * @return false when chunk ends inside quoted value, last line is then discarded
+     */
+    boolean parseChunk(long lo, long hi, Listener textLexerListener) {
+        this.textLexerListener = textLexerListener;
+        this.fieldLo = this.fieldHi = lo;
+        this.lineCountLimit = Integer.MAX_VALUE;
+        try {
+            parseBytes(lo, hi);
+        } catch (LineLimitException ignore) {
+            // line count is not limited
+        }
+
+        if (eol) {
+            this.fieldLo = 0;
+            return true;
+        }
+
+        if (inQuote && lastQuotePos < fieldHi) {
+            discardLine();
+            return false;
+        }
+
+        // last line of text has no line end
+        this.inQuote = this.delayedOutQuote = false;
+        this.fieldHi++;
+        stashField(fieldIndex);
+        if (ignoreEolOnce) {
+            ignoreEolOnce();
+        } else {
+            triggerLine(0);
+        }
+        return true;
+    }
+
+    /**
+     * Parses a single line held entirely in [lo, hi), line end is optional. Line that cannot be
+     * completed, e.g. because of an unbalanced quote, is discarded so that the next call starts
+     * with a clean line.
+     */
+    void parseLine(long lo, long hi, Listener textLexerListener) {
+        parse(lo, hi, Integer.MAX_VALUE, textLexerListener);
+        if (useLineRollBuf) {
+            parseLast();
+            if (useLineRollBuf) {
+                discardLine();
+            }
+        }
+    }
+
     public final void restart(boolean header) {
         this.fieldLo = 0;
         this.eol = false;
@@ -179,6 +241,15 @@ public class TextLexer implements Closeable, Mutable {
         this.fieldLo = this.fieldHi = ptr;
     }
 
+    private void discardLine() {
+        clearRollBuffer(0);
+        this.inQuote = false;
+        this.delayedOutQuote = false;
+        this.lastQuotePos = -1;
+        this.eol = true;
+        this.fieldIndex = 0;
+    }
+
     private void eol(long ptr, byte c) {
         if (c == '\n' || c == '\r') {
             eol = true;
@@ -310,40 +381,8 @@ public class TextLexer implements Closeable, Mutable {
     }
 
     private void parse(long lo, long hi) {
-        long ptr = lo;
-
         try {
-            while (ptr < hi) {
-                final byte c = Unsafe.getUnsafe().getByte(ptr++);
-
-                if (rollBufferUnusable) {
-                    eol(ptr, c);
-                    continue;
-                }
-
-                if (useLineRollBuf) {
-                    putToRollBuf(c);
-                    if (rollBufferUnusable) {
-                        continue;
-                    }
-                }
-
-                this.fieldHi++;
-
-                if (delayedOutQuote && c != '"') {
-                    inQuote = delayedOutQuote = false;
-                }
-
-                if (c == columnDelimiter) {
-                    onColumnDelimiter(lo);
-                } else if (c == '"') {
-                    onQuote();
-                } else if (c == '\n' || c == '\r') {
-                    onLineEnd(ptr);
-                } else {
-                    checkEol(lo);
-                }
-            }
+            parseBytes(lo, hi);
         } catch (LineLimitException ignore) {
             // loop exit
         }
@@ -360,6 +399,41 @@ public class TextLexer implements Closeable, Mutable {
         }
     }
 
+    private void parseBytes(long lo, long hi) throws LineLimitException {
+        long ptr = lo;
+        while (ptr < hi) {
+            final byte c = Unsafe.getUnsafe().getByte(ptr++);
+
+            if (rollBufferUnusable) {
+                eol(ptr, c);
+                continue;
+            }
+
+            if (useLineRollBuf) {
+                putToRollBuf(c);
+                if (rollBufferUnusable) {
+                    continue;
+                }
+            }
+
+            this.fieldHi++;
+
+            if (delayedOutQuote && c != '"') {
+                inQuote = delayedOutQuote = false;
+            }
+
+            if (c == columnDelimiter) {
+                onColumnDelimiter(lo);
+            } else if (c == '"') {
+                onQuote();
+            } else if (c == '\n' || c == '\r') {
+                onLineEnd(ptr);
+            } else {
+                checkEol(lo);
+            }
+        }
+    }
+
     private void putToRollBuf(byte c) {
         if (lineRollBufCur - lineRollBufPtr == lineRollBufLen) {
             growRollBufAndPut(c);
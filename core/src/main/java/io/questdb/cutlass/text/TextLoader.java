@@ -24,21 +24,23 @@
 
 package io.questdb.cutlass.text;
 
-import io.questdb.cairo.CairoEngine;
-import io.questdb.cairo.CairoSecurityContext;
-import io.questdb.cairo.PartitionBy;
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.cutlass.json.JsonException;
 import io.questdb.cutlass.json.JsonLexer;
 import io.questdb.cutlass.text.types.TypeManager;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
-import io.questdb.std.LongList;
-import io.questdb.std.Misc;
-import io.questdb.std.Mutable;
-import io.questdb.std.ObjList;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.std.str.DirectByteCharSequence;
 import io.questdb.std.str.DirectCharSink;
 import io.questdb.std.str.Path;
+import io.questdb.tasks.TextImportTask;
 
 import java.io.Closeable;
 
@@ -57,12 +59,23 @@ public class TextLoader implements Closeable, Mutable {
     private final DirectCharSink utf8Sink;
     private final TypeManager typeManager;
     private final ObjList<ParserMethod> parseMethods = new ObjList<>();
+    private final TextConfiguration textConfiguration;
+    private final MessageBus messageBus;
+    private final CairoConfiguration configuration;
+    private final ObjList<TextImportIndexer> indexers = new ObjList<>();
+    private final ObjList<TextImportEntry> entries = new ObjList<>();
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final ObjList<DirectByteCharSequence> values = new ObjList<>();
+    private long parallelLineCount;
+    private long parallelErrorCount;
     private int state;
     private boolean forceHeaders = false;
     private byte columnDelimiter = -1;
 
     public TextLoader(CairoEngine engine) {
-        final TextConfiguration textConfiguration = engine.getConfiguration().getTextConfiguration();
+        this.configuration = engine.getConfiguration();
+        this.textConfiguration = configuration.getTextConfiguration();
+        this.messageBus = engine.getMessageBus();
         this.utf8Sink = new DirectCharSink(textConfiguration.getUtf8SinkSize());
         jsonLexer = new JsonLexer(
                 textConfiguration.getJsonCacheSize(),
@@ -89,6 +102,9 @@ public class TextLoader implements Closeable, Mutable {
         forceHeaders = false;
         columnDelimiter = -1;
         typeManager.clear();
+        parallelLineCount = 0;
+        parallelErrorCount = 0;
+        freeParallelState();
     }
 
     @Override
@@ -100,6 +116,7 @@ public class TextLoader implements Closeable, Mutable {
         Misc.free(path);
         Misc.free(textDelimiterScanner);
         Misc.free(utf8Sink);
+        freeParallelState();
     }
 
     public void closeWriter() {
@@ -140,11 +157,11 @@ public class TextLoader implements Closeable, Mutable {
     }
 
     public long getParsedLineCount() {
-        return textLexer.getLineCount();
+        return textLexer.getLineCount() + parallelLineCount;
     }
 
     public long getErrorLineCount() {
-        return textLexer.getErrorCount();
+        return textLexer.getErrorCount() + parallelErrorCount;
     }
 
     public int getPartitionBy() {
@@ -187,6 +204,143 @@ public class TextLoader implements Closeable, Mutable {
         parseMethods.getQuick(state).parse(lo, hi, cairoSecurityContext);
     }
 
+    /**
+     * Loads text that is mapped in its entirety at [lo, hi). When the target table is partitioned
+     * lines are lexed and indexed by designated timestamp in parallel, chunk by chunk, then they are
+     * sorted and written from field offsets recorded by indexers in timestamp order with one commit
+     * per partition, which keeps rows off the out-of-order path. Field offsets take 16 bytes per field
+     * of every line. Chunks are split at line ends, when a chunk ends inside quoted value, i.e. quoted
+     * value contains line break at chunk boundary, text is loaded serially. Other tables are loaded
+     * serially too.
+     */
+    public void parseParallel(long lo, long hi, int workerCount, CairoSecurityContext cairoSecurityContext) throws TextException {
+        analyseStructure(lo, hi, cairoSecurityContext);
+        state = LOAD_DATA;
+        if (!textWriter.isPartitionOrderSupported()) {
+            textLexer.parse(lo, hi, Integer.MAX_VALUE, textWriter.getTextListener());
+            wrapUp();
+            return;
+        }
+
+        final byte delimiter = textLexer.getColumnDelimiter();
+        final long firstLineHi = TextImportIndexer.lineEnd(lo, hi);
+        final long dataLo = textLexer.isHeaderDetected() ? firstLineHi : lo;
+
+        // one slot per worker plus the calling thread
+        final int slotCount = workerCount + 1;
+        final int ownerSlot = workerCount;
+        while (indexers.size() < slotCount) {
+            indexers.add(new TextImportIndexer(textConfiguration));
+        }
+        for (int i = 0; i < slotCount; i++) {
+            indexers.getQuick(i).of(delimiter, lo, firstLineHi, textWriter.getTimestampIndex(), textWriter.getTimestampAdapter());
+        }
+
+        final RingQueue<TextImportTask> queue = messageBus.getTextImportQueue();
+        final Sequence pubSeq = messageBus.getTextImportPubSeq();
+        final int batchSize = queue.getCapacity();
+        final long chunkSize = configuration.getParallelImportChunkSize();
+
+        int entryCount = 0;
+        int batchLo = 0;
+        int reclaimed = 0;
+        boolean unbalanced = false;
+        doneLatch.reset();
+        for (long chunkLo = dataLo; chunkLo < hi && !unbalanced; ) {
+            final long chunkHi = hi - chunkLo > chunkSize ? TextImportIndexer.lineEnd(chunkLo + chunkSize - 1, hi) : hi;
+            if (entryCount == entries.size()) {
+                entries.add(new TextImportEntry());
+            }
+            final TextImportEntry entry = entries.getQuick(entryCount);
+            entry.of(entryCount++, lo, chunkLo, chunkHi, indexers, doneLatch);
+            chunkLo = chunkHi;
+
+            final long seq = pubSeq.next();
+            if (seq < 0) {
+                entry.run(ownerSlot);
+            } else {
+                queue.get(seq).entry = entry;
+                pubSeq.done(seq);
+            }
+
+            if (entryCount - batchLo == batchSize) {
+                reclaimed += awaitEntries(batchLo, entryCount, ownerSlot);
+                unbalanced = isUnbalanced(batchLo, entryCount);
+                batchLo = entryCount;
+            }
+        }
+        if (entryCount > batchLo) {
+            reclaimed += awaitEntries(batchLo, entryCount, ownerSlot);
+            unbalanced = isUnbalanced(batchLo, entryCount);
+        }
+
+        if (unbalanced) {
+            // nothing is written yet
+            LOG.info().$("quoted value spans chunks, loading serially [table=`").$(textWriter.getTableName()).$("`]").$();
+            freeParallelEntries();
+            textLexer.parse(lo, hi, Integer.MAX_VALUE, textWriter.getTextListener());
+            wrapUp();
+            return;
+        }
+
+        long rowCount = 0;
+        long errorCount = 0;
+        for (int i = 0; i < entryCount; i++) {
+            final TextImportEntry entry = entries.getQuick(i);
+            rowCount += entry.getRows().size() >> 1;
+            errorCount += entry.getErrorCount();
+        }
+        parallelLineCount = rowCount;
+        parallelErrorCount = errorCount;
+        LOG.info().$("indexed [table=`").$(textWriter.getTableName())
+                .$("`, chunks=").$(entryCount)
+                .$(", reclaimed=").$(reclaimed)
+                .$(", rows=").$(rowCount)
+                .$(", errors=").$(errorCount)
+                .$(']').$();
+
+        if (rowCount > 0) {
+            final int fieldCount = indexers.getQuick(ownerSlot).getFieldCount();
+            // (timestamp, line ordinal) pairs and (lo, hi) offsets of fields of each line in line order
+            final long indexSize = rowCount << 4;
+            final long fieldsSize = rowCount * fieldCount << 4;
+            final long index = Unsafe.malloc(indexSize);
+            final long fields = Unsafe.malloc(fieldsSize);
+            try {
+                long p = index;
+                long f = fields;
+                long ordinal = 0;
+                for (int i = 0; i < entryCount; i++) {
+                    final TextImportEntry entry = entries.getQuick(i);
+                    final DirectLongList rows = entry.getRows();
+                    for (long j = 0, n = rows.size(); j < n; j += 2) {
+                        Unsafe.getUnsafe().putLong(p, rows.get(j));
+                        Unsafe.getUnsafe().putLong(p + 8, rows.get(j + 1) + ordinal);
+                        p += 16;
+                    }
+                    ordinal += rows.size() >> 1;
+                    final long len = entry.getFields().size() << 3;
+                    Vect.memcpy(entry.getFields().getAddress(), f, len);
+                    f += len;
+                }
+                freeParallelEntries();
+
+                // sort is stable, lines with the same timestamp keep their order in text
+                final long cpy = Unsafe.malloc(indexSize);
+                try {
+                    Vect.radixSortLongIndexAscInPlace(index, rowCount, cpy);
+                } finally {
+                    Unsafe.free(cpy, indexSize);
+                }
+                loadIndexed(lo, index, rowCount, fields, fieldCount);
+            } finally {
+                Unsafe.free(index, indexSize);
+                Unsafe.free(fields, fieldsSize);
+            }
+        }
+        textWriter.commit();
+    }
+
     public void setState(int state) {
         LOG.debug().$("state change [old=").$(this.state).$(", new=").$(state).$(']').$();
         this.state = state;
@@ -212,19 +366,7 @@ public class TextLoader implements Closeable, Mutable {
         }
     }
 
-    private void parseData(long lo, long hi, CairoSecurityContext cairoSecurityContext) {
-        textLexer.parse(lo, hi, Integer.MAX_VALUE, textWriter.getTextListener());
-    }
-
-    private void parseJsonMetadata(long lo, long hi, CairoSecurityContext cairoSecurityContext) throws TextException {
-        try {
-            jsonLexer.parse(lo, hi, textMetadataParser);
-        } catch (JsonException e) {
-            throw TextException.$(e.getFlyweightMessage());
-        }
-    }
-
-    private void parseStructure(long lo, long hi, CairoSecurityContext cairoSecurityContext) throws TextException {
+    private void analyseStructure(long lo, long hi, CairoSecurityContext cairoSecurityContext) throws TextException {
         if (columnDelimiter > 0) {
             textLexer.of(columnDelimiter);
         } else {
@@ -239,6 +381,94 @@ public class TextLoader implements Closeable, Mutable {
                 textMetadataParser.getColumnTypes()
         );
         textWriter.prepareTable(cairoSecurityContext, textLexer.getColumnNames(), textLexer.getColumnTypes());
+    }
+
+    private int awaitEntries(int entryLo, int entryHi, int ownerSlot) {
+        final int entryCount = entryHi - entryLo;
+        int reclaimed = 0;
+        // start at the back to reduce chance of clashing with workers
+        for (int i = entryHi - 1; i >= entryLo && doneLatch.getCount() > -entryCount; i--) {
+            if (entries.getQuick(i).run(ownerSlot)) {
+                reclaimed++;
+            }
+        }
+        doneLatch.await(entryCount);
+        doneLatch.reset();
+
+        for (int i = entryLo; i < entryHi; i++) {
+            final Throwable error = entries.getQuick(i).getError();
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if (error != null) {
+                throw CairoException.instance(0).put("parallel import failed: ").put(error.getMessage());
+            }
+        }
+        return reclaimed;
+    }
+
+    private void freeParallelEntries() {
+        Misc.freeObjList(entries);
+        entries.clear();
+    }
+
+    private void freeParallelState() {
+        freeParallelEntries();
+        Misc.freeObjList(indexers);
+        indexers.clear();
+    }
+
+    private boolean isUnbalanced(int entryLo, int entryHi) {
+        for (int i = entryLo; i < entryHi; i++) {
+            if (entries.getQuick(i).isUnbalanced()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void loadIndexed(long lo, long index, long rowCount, long fields, int fieldCount) {
+        final TextLexer.Listener listener = textWriter.getTextListener();
+        final Timestamps.TimestampFloorMethod partitionFloor = TableUtils.getPartitionFloor(textWriter.getPartitionBy());
+        final long lineSize = (long) fieldCount << 4;
+        while (values.size() < fieldCount) {
+            values.add(new DirectByteCharSequence());
+        }
+
+        long partitionLo = Long.MIN_VALUE;
+        for (long p = index, limit = index + (rowCount << 4); p < limit; p += 16) {
+            final long timestamp = Unsafe.getUnsafe().getLong(p);
+            if (timestamp != Long.MIN_VALUE) {
+                final long floor = partitionFloor.floor(timestamp);
+                if (floor != partitionLo) {
+                    if (partitionLo != Long.MIN_VALUE) {
+                        textWriter.commit();
+                    }
+                    partitionLo = floor;
+                }
+            }
+            final long ordinal = Unsafe.getUnsafe().getLong(p + 8);
+            for (long f = fields + ordinal * lineSize, i = 0; i < fieldCount; i++, f += 16) {
+                values.getQuick((int) i).of(lo + Unsafe.getUnsafe().getLong(f), lo + Unsafe.getUnsafe().getLong(f + 8));
+            }
+            listener.onFields(ordinal, values, fieldCount);
+        }
+    }
+
+    private void parseData(long lo, long hi, CairoSecurityContext cairoSecurityContext) {
+        textLexer.parse(lo, hi, Integer.MAX_VALUE, textWriter.getTextListener());
+    }
+
+    private void parseJsonMetadata(long lo, long hi, CairoSecurityContext cairoSecurityContext) throws TextException {
+        try {
+            jsonLexer.parse(lo, hi, textMetadataParser);
+        } catch (JsonException e) {
+            throw TextException.$(e.getFlyweightMessage());
+        }
+    }
+
+    private void parseStructure(long lo, long hi, CairoSecurityContext cairoSecurityContext) throws TextException {
+        analyseStructure(lo, hi, cairoSecurityContext);
         textLexer.parse(lo, hi, Integer.MAX_VALUE, textWriter.getTextListener());
         state = LOAD_DATA;
     }
@@ -44,6 +44,7 @@ public class InsertStatementImpl implements InsertStatement {
     private final String tableName;
     private final InsertMethodImpl insertMethod = new InsertMethodImpl();
     private final CairoEngine engine;
+    private final boolean wal;
 
     public InsertStatementImpl(
             CairoEngine engine,
@@ -51,7 +52,8 @@ public class InsertStatementImpl implements InsertStatement {
             VirtualRecord virtualRecord,
             SqlCompiler.RecordToRowCopier copier,
             Function timestampFunction,
-            long structureVersion
+            long structureVersion,
+            boolean wal
     ) {
         this.engine = engine;
         this.tableName = tableName;
@@ -68,7 +70,9 @@ public class InsertStatementImpl implements InsertStatement {
             rowFactory = this::getRowWithoutTimestamp;
         }
         this.structureVersion = structureVersion;
+        this.wal = wal;
     }
+
     @Override
     public void close() {
         detachWriter();
@@ -83,7 +87,9 @@ public class InsertStatementImpl implements InsertStatement {
     public InsertMethod createMethod(SqlExecutionContext executionContext, WriterSource writerSource) {
         initContext(executionContext);
         if (insertMethod.writer == null) {
-            final TableWriter writer = writerSource.getWriter(executionContext.getCairoSecurityContext(), tableName);
+            final TableWriter writer = wal
+                    ? writerSource.getWalWriter(executionContext.getCairoSecurityContext(), tableName)
+                    : writerSource.getWriter(executionContext.getCairoSecurityContext(), tableName);
             if (writer.getStructureVersion() != getStructureVersion()) {
                 writer.close();
                 throw WriterOutOfDateException.INSTANCE;
@@ -40,6 +40,7 @@ import io.questdb.griffin.engine.groupby.*;
 import io.questdb.griffin.engine.groupby.vect.GroupByRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.vect.*;
 import io.questdb.griffin.engine.join.*;
+import io.questdb.griffin.engine.orderby.LimitedSizeSortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.RecordComparatorCompiler;
 import io.questdb.griffin.engine.orderby.SortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.SortedRecordCursorFactory;
@@ -47,16 +48,22 @@ import io.questdb.griffin.engine.table.*;
 import io.questdb.griffin.engine.union.*;
 import io.questdb.griffin.model.*;
 import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import static io.questdb.griffin.SqlKeywords.*;
+import static io.questdb.griffin.model.ExpressionNode.CONSTANT;
 import static io.questdb.griffin.model.ExpressionNode.FUNCTION;
 import static io.questdb.griffin.model.ExpressionNode.LITERAL;
 
 public class SqlCodeGenerator implements Mutable {
     public static final int GKK_VANILLA_INT = 0;
     public static final int GKK_HOUR_INT = 1;
+    // largest magnitude below which long values and their double representations compare alike
+    private static final double PARTITION_PRUNER_EXACT_LIMIT = 9007199254740992.0;
+    // tolerance of double equality in "=" function
+    private static final double PARTITION_PRUNER_EPSILON = 0.0000000001;
     private static final IntHashSet limitTypes = new IntHashSet();
     private static final FullFatJoinGenerator CREATE_FULL_FAT_LT_JOIN = SqlCodeGenerator::createFullFatLtJoin;
     private static final FullFatJoinGenerator CREATE_FULL_FAT_AS_OF_JOIN = SqlCodeGenerator::createFullFatAsOfJoin;
@@ -80,6 +87,7 @@ public class SqlCodeGenerator implements Mutable {
     private final ListColumnFilter listColumnFilterB = new ListColumnFilter();
     private final CairoConfiguration configuration;
     private final RecordComparatorCompiler recordComparatorCompiler;
+    private final FilterCompiler filterCompiler;
     private final IntHashSet intHashSet = new IntHashSet();
     private final ArrayColumnTypes keyTypes = new ArrayColumnTypes();
     private final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
@@ -88,6 +96,7 @@ public class SqlCodeGenerator implements Mutable {
     private final ObjList<VectorAggregateFunction> tempVaf = new ObjList<>();
     private final GenericRecordMetadata tempMetadata = new GenericRecordMetadata();
     private final ArrayColumnTypes arrayColumnTypes = new ArrayColumnTypes();
+    private final ArrayColumnTypes tempValueTypes = new ArrayColumnTypes();
     private final IntList tempKeyIndexesInBase = new IntList();
     private final IntList tempSymbolSkewIndexes = new IntList();
     private final IntList tempKeyIndex = new IntList();
@@ -95,6 +104,13 @@ public class SqlCodeGenerator implements Mutable {
     private final ObjList<VectorAggregateFunctionConstructor> tempVecConstructors = new ObjList<>();
     private final IntList tempVecConstructorArgIndexes = new IntList();
     private final IntList tempKeyKinds = new IntList();
+    private final LongList partitionPrunerHashes = new LongList();
+    private final Long256FromCharSequenceDecoder partitionPrunerLong256Decoder = new Long256FromCharSequenceDecoder() {
+        @Override
+        public void onDecoded(long l0, long l1, long l2, long l3) {
+            partitionPrunerHashes.add(BloomFilter.hash(l0, l1, l2, l3));
+        }
+    };
     private final ObjObjHashMap<IntList, ObjList<AnalyticFunction>> grouppedAnalytic = new ObjObjHashMap<>();
     private boolean fullFatJoins = false;
 
@@ -107,6 +123,7 @@ public class SqlCodeGenerator implements Mutable {
         this.configuration = configuration;
         this.functionParser = functionParser;
         this.recordComparatorCompiler = new RecordComparatorCompiler(asm);
+        this.filterCompiler = new FilterCompiler(asm);
     }
 
     @Override
@@ -118,6 +135,15 @@ public class SqlCodeGenerator implements Mutable {
     public Function compileFilter(ExpressionNode expr, RecordMetadata metadata, SqlExecutionContext executionContext) throws SqlException {
         final Function filter = functionParser.parseFunction(expr, metadata, executionContext);
         if (filter.getType() == ColumnType.BOOLEAN) {
+            // parsed function validates the expression and tells constant filters apart,
+            // the rest are compiled when possible
+            if (configuration.isFilterCompilerEnabled() && !filter.isConstant()) {
+                final Function compiledFilter = filterCompiler.compile(expr, metadata);
+                if (compiledFilter != null) {
+                    Misc.free(filter);
+                    return compiledFilter;
+                }
+            }
             return filter;
         }
         Misc.free(filter);
@@ -164,6 +190,239 @@ public class SqlCodeGenerator implements Mutable {
         );
     }
 
+    private void addPartitionPrunerPredicates(
+            PartitionPruner pruner,
+            ExpressionNode node,
+            RecordMetadata metadata,
+            IntList columnIndexes,
+            TableReaderMetadata readerMetadata,
+            SqlExecutionContext executionContext
+    ) {
+        // "in" with list of values is parsed as function
+        if ((node.type == FUNCTION || node.type == ExpressionNode.SET_OPERATION) && isInKeyword(node.token)) {
+            addPartitionPrunerInPredicate(pruner, node, metadata, columnIndexes, readerMetadata, executionContext);
+            return;
+        }
+
+        if (node.type != ExpressionNode.OPERATION) {
+            return;
+        }
+
+        if (isAndKeyword(node.token)) {
+            addPartitionPrunerPredicates(pruner, node.lhs, metadata, columnIndexes, readerMetadata, executionContext);
+            addPartitionPrunerPredicates(pruner, node.rhs, metadata, columnIndexes, readerMetadata, executionContext);
+            return;
+        }
+
+        if (node.paramCount != 2) {
+            return;
+        }
+
+        // normalise comparison to "column op constant"
+        final ExpressionNode constant;
+        boolean swapped = false;
+        int columnIndex = getPartitionPrunerColumnIndex(node.lhs, metadata);
+        if (columnIndex != -1) {
+            constant = node.rhs;
+        } else {
+            columnIndex = getPartitionPrunerColumnIndex(node.rhs, metadata);
+            if (columnIndex == -1) {
+                return;
+            }
+            constant = node.lhs;
+            swapped = true;
+        }
+
+        final int columnType = metadata.getColumnType(columnIndex);
+        final int readerColumnIndex = columnIndexes.getQuick(columnIndex);
+        final boolean hasStats = configuration.isPartitionStatsEnabled() && ColumnStats.isSupported(columnType);
+        final CharSequence op = node.token;
+        if (Chars.equals(op, '=')) {
+            if (readerMetadata.isColumnBloomFilter(readerColumnIndex)) {
+                partitionPrunerHashes.clear();
+                if (addPartitionPrunerHash(constant, columnType, metadata, executionContext)) {
+                    pruner.addBloomFilter(readerColumnIndex, partitionPrunerHashes);
+                }
+            }
+
+            if (!hasStats) {
+                return;
+            }
+
+            final double value = getPartitionPrunerValue(constant, columnType, false, metadata, executionContext);
+            if (value == value) {
+                pruner.addRange(
+                        readerColumnIndex,
+                        columnType,
+                        Math.nextDown(value - PARTITION_PRUNER_EPSILON),
+                        Math.nextUp(value + PARTITION_PRUNER_EPSILON)
+                );
+            } else if (constant.type == CONSTANT && isNanKeyword(constant.token)) {
+                pruner.addNull(readerColumnIndex);
+            }
+            return;
+        }
+
+        if (!hasStats) {
+            return;
+        }
+
+        final boolean less;
+        final boolean strict;
+        if (Chars.equals(op, '<')) {
+            less = !swapped;
+            strict = true;
+        } else if (Chars.equals(op, "<=")) {
+            less = !swapped;
+            strict = false;
+        } else if (Chars.equals(op, '>')) {
+            less = swapped;
+            strict = true;
+        } else if (Chars.equals(op, ">=")) {
+            less = swapped;
+            strict = false;
+        } else {
+            return;
+        }
+
+        final double value = getPartitionPrunerValue(constant, columnType, true, metadata, executionContext);
+        if (value != value) {
+            return;
+        }
+
+        // comparison of long values can be exact, in which case strict boundary is only
+        // safe to exclude when it survives conversion to double
+        final boolean exclusive = strict && Math.abs(value) < PARTITION_PRUNER_EXACT_LIMIT;
+        if (less) {
+            pruner.addRange(readerColumnIndex, columnType, Double.NEGATIVE_INFINITY, exclusive ? Math.nextDown(value) : value);
+        } else {
+            pruner.addRange(readerColumnIndex, columnType, exclusive ? Math.nextUp(value) : value, Double.POSITIVE_INFINITY);
+        }
+    }
+
+    /**
+     * Adds lookup of list of constant values on column with bloom filter, "in" with other
+     * arguments does not contribute to pruning.
+     */
+    private void addPartitionPrunerInPredicate(
+            PartitionPruner pruner,
+            ExpressionNode node,
+            RecordMetadata metadata,
+            IntList columnIndexes,
+            TableReaderMetadata readerMetadata,
+            SqlExecutionContext executionContext
+    ) {
+        if (node.paramCount < 2) {
+            return;
+        }
+
+        final ExpressionNode column = node.paramCount < 3 ? node.lhs : node.args.getLast();
+        final int columnIndex = getPartitionPrunerColumnIndex(column, metadata);
+        if (columnIndex == -1 || !readerMetadata.isColumnBloomFilter(columnIndexes.getQuick(columnIndex))) {
+            return;
+        }
+
+        final int columnType = metadata.getColumnType(columnIndex);
+        partitionPrunerHashes.clear();
+        if (node.paramCount < 3) {
+            if (!addPartitionPrunerHash(node.rhs, columnType, metadata, executionContext)) {
+                return;
+            }
+        } else {
+            // arguments are in reverse order, column is the last one
+            for (int i = 0, n = node.paramCount - 1; i < n; i++) {
+                if (!addPartitionPrunerHash(node.args.getQuick(i), columnType, metadata, executionContext)) {
+                    return;
+                }
+            }
+        }
+        pruner.addBloomFilter(columnIndexes.getQuick(columnIndex), partitionPrunerHashes);
+    }
+
+    /**
+     * Adds bloom filter hash of constant to {@link #partitionPrunerHashes}.
+     *
+     * @return false when value is not a constant of the column type or it is null
+     */
+    private boolean addPartitionPrunerHash(
+            ExpressionNode node,
+            int columnType,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext
+    ) {
+        if (!isPartitionPrunerConstant(node)) {
+            return false;
+        }
+
+        Function function = null;
+        try {
+            function = functionParser.parseFunction(node, metadata, executionContext);
+            if (!function.isConstant()) {
+                return false;
+            }
+            final int type = function.getType();
+            switch (columnType) {
+                case ColumnType.INT:
+                case ColumnType.LONG:
+                    if (type == ColumnType.BYTE || type == ColumnType.SHORT || type == ColumnType.INT) {
+                        final int i = function.getInt(null);
+                        if (i != Numbers.INT_NaN) {
+                            partitionPrunerHashes.add(BloomFilter.hash(i));
+                            return true;
+                        }
+                    } else if (type == ColumnType.LONG) {
+                        final long l = function.getLong(null);
+                        if (l != Numbers.LONG_NaN) {
+                            partitionPrunerHashes.add(BloomFilter.hash(l));
+                            return true;
+                        }
+                    }
+                    return false;
+                case ColumnType.STRING:
+                    if (type == ColumnType.STRING) {
+                        final CharSequence value = function.getStr(null);
+                        if (value != null) {
+                            partitionPrunerHashes.add(BloomFilter.hash(value));
+                            return true;
+                        }
+                    } else if (type == ColumnType.CHAR) {
+                        final char c = function.getChar(null);
+                        if (c != 0) {
+                            partitionPrunerHashes.add(BloomFilter.hash(String.valueOf(c)));
+                            return true;
+                        }
+                    }
+                    return false;
+                case ColumnType.LONG256:
+                    if (type == ColumnType.LONG256) {
+                        final Long256 value = function.getLong256A(null);
+                        if (value != null && value.getLong0() != Numbers.LONG_NaN) {
+                            partitionPrunerHashes.add(BloomFilter.hash(value));
+                            return true;
+                        }
+                    } else if (type == ColumnType.STRING) {
+                        // long256 is compared to hex string, which is decoded the same way as "=" does
+                        final CharSequence value = function.getStr(null);
+                        if (value != null && value.length() > 2) {
+                            try {
+                                Long256FromCharSequenceDecoder.decode(value, 2, value.length(), partitionPrunerLong256Decoder);
+                                return true;
+                            } catch (NumericException ignore) {
+                            }
+                        }
+                    }
+                    return false;
+                default:
+                    return false;
+            }
+        } catch (SqlException e) {
+            // filter compilation reports the error
+            return false;
+        } finally {
+            Misc.free(function);
+        }
+    }
+
     private VectorAggregateFunctionConstructor assembleFunctionReference(RecordMetadata metadata, ExpressionNode ast) {
         int columnIndex;
         if (ast.type == FUNCTION && ast.paramCount == 1 && SqlKeywords.isSumKeyword(ast.token) && ast.rhs.type == LITERAL) {
@@ -222,6 +481,12 @@ public class SqlCodeGenerator implements Mutable {
                         tempKeyIndex.add(i);
                         arrayColumnTypes.add(ColumnType.INT);
                         tempKeyKinds.add(GKK_VANILLA_INT);
+                    } else if (type == ColumnType.BYTE || type == ColumnType.SHORT || type == ColumnType.CHAR) {
+                        // narrow keys are widened to INT by the factory before they reach Rosti
+                        tempKeyIndexesInBase.add(columnIndex);
+                        tempKeyIndex.add(i);
+                        arrayColumnTypes.add(type);
+                        tempKeyKinds.add(GKK_VANILLA_INT);
                     } else if (type == ColumnType.SYMBOL) {
                         tempKeyIndexesInBase.add(columnIndex);
                         tempKeyIndex.add(i);
@@ -229,6 +494,8 @@ public class SqlCodeGenerator implements Mutable {
                         arrayColumnTypes.add(ColumnType.SYMBOL);
                         tempKeyKinds.add(GKK_VANILLA_INT);
                     } else {
+                        // todo: LONG keys need long-keyed Rosti functions in native code, until then
+                        // they take FastMap aggregation, which is parallel when workers are available
                         return false;
                     }
                 }
@@ -282,6 +549,45 @@ public class SqlCodeGenerator implements Mutable {
         );
     }
 
+    private RecordCursorFactory createAsOfJoinPageFrame(
+            RecordMetadata metadata,
+            RecordCursorFactory master,
+            RecordMetadata masterMetadata,
+            RecordCursorFactory slave,
+            RecordMetadata slaveMetadata,
+            int columnSplit,
+            boolean strict
+    ) {
+        if (listColumnFilterA.size() > 0 && listColumnFilterB.size() > 0) {
+            valueTypes.clear();
+            valueTypes.add(ColumnType.LONG);
+            return new AsOfJoinPageFrameRecordCursorFactory(
+                    configuration,
+                    metadata,
+                    master,
+                    slave,
+                    keyTypes,
+                    valueTypes,
+                    RecordSinkFactory.getInstance(asm, masterMetadata, listColumnFilterB, true),
+                    RecordSinkFactory.getInstance(asm, slaveMetadata, listColumnFilterA, true),
+                    columnSplit,
+                    strict
+            );
+        }
+        return new AsOfJoinPageFrameRecordCursorFactory(
+                configuration,
+                metadata,
+                master,
+                slave,
+                null,
+                null,
+                null,
+                null,
+                columnSplit,
+                strict
+        );
+    }
+
     @NotNull
     private RecordCursorFactory createFullFatJoin(
             RecordCursorFactory master,
@@ -450,7 +756,8 @@ public class SqlCodeGenerator implements Mutable {
             RecordMetadata metadata,
             RecordCursorFactory master,
             RecordCursorFactory slave,
-            int joinType
+            int joinType,
+            SqlExecutionContext executionContext
     ) {
         /*
          * JoinContext provides the following information:
@@ -485,6 +792,20 @@ public class SqlCodeGenerator implements Mutable {
 
         if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
             if (joinType == QueryModel.JOIN_INNER) {
+                if (isParallelHashJoinSupported(master, slave, executionContext)) {
+                    return new ParallelHashJoinLightRecordCursorFactory(
+                            configuration,
+                            metadata,
+                            master,
+                            slave,
+                            keyTypes,
+                            valueTypes,
+                            masterKeySink,
+                            slaveKeySink,
+                            masterMetadata.getColumnCount(),
+                            executionContext.getWorkerCount()
+                    );
+                }
                 return new HashJoinLightRecordCursorFactory(
                         configuration,
                         metadata,
@@ -612,6 +933,34 @@ public class SqlCodeGenerator implements Mutable {
         );
     }
 
+    /**
+     * Extracts value ranges of numeric columns from filter to skip partitions using column
+     * statistics, and equality lookups on columns that have bloom filter. Only conjunctions of
+     * comparisons between column and constant are considered, everything else in the filter
+     * does not contribute to pruning.
+     *
+     * @return pruner or null when filter has nothing to prune by
+     */
+    @Nullable
+    private PartitionPruner createPartitionPruner(
+            ExpressionNode filter,
+            RecordMetadata metadata,
+            IntList columnIndexes,
+            TableReaderMetadata readerMetadata,
+            SqlExecutionContext executionContext
+    ) {
+        if (filter == null) {
+            return null;
+        }
+        final PartitionPruner pruner = new PartitionPruner();
+        addPartitionPrunerPredicates(pruner, filter, metadata, columnIndexes, readerMetadata, executionContext);
+        if (pruner.isEmpty()) {
+            pruner.close();
+            return null;
+        }
+        return pruner;
+    }
+
     private RecordCursorFactory createSpliceJoin(
             RecordMetadata metadata,
             RecordCursorFactory master,
@@ -663,9 +1012,220 @@ public class SqlCodeGenerator implements Mutable {
                 f.close();
             }
         }
+
+        final int workerCount = executionContext.getWorkerCount();
+        if (
+                workerCount > 1
+                        && configuration.isParallelFilterEnabled()
+                        && executionContext.getMessageBus() != null
+                        && factory.supportPageFrameCursor()
+        ) {
+            final PageFrameFilterKernel kernel = configuration.isFilterKernelEnabled()
+                    ? PageFrameFilterKernel.compile(filter, factory.getMetadata())
+                    : null;
+            // filter that is entirely evaluated by the kernel does not look up symbol tables
+            if ((kernel == null || !kernel.isExact()) && !isParallelExecutionSupported(filter, factory.getMetadata())) {
+                return new FilteredRecordCursorFactory(factory, f);
+            }
+
+            // each worker gets its own instance of filter function, functions are not thread safe
+            final ObjList<Function> filters = new ObjList<>(workerCount + 1);
+            try {
+                for (int i = 0; i < workerCount; i++) {
+                    filters.add(compileFilter(filter, factory.getMetadata(), executionContext));
+                }
+            } catch (SqlException e) {
+                Misc.freeObjList(filters);
+                Misc.free(f);
+                throw e;
+            }
+            filters.add(f);
+            return new ParallelFilteredRecordCursorFactory(configuration, factory, filters, kernel);
+        }
         return new FilteredRecordCursorFactory(factory, f);
     }
 
+    // Both sides are read as page frames by worker threads. Symbol join keys are read via
+    // symbol tables, which are not safe for concurrent lookups; symbol keys are typed as STRING.
+    private boolean isParallelHashJoinSupported(RecordCursorFactory master, RecordCursorFactory slave, SqlExecutionContext executionContext) {
+        if (
+                executionContext.getWorkerCount() < 2
+                        || !configuration.isParallelHashJoinEnabled()
+                        || executionContext.getMessageBus() == null
+                        || !master.supportPageFrameCursor()
+                        || !slave.supportPageFrameCursor()
+        ) {
+            return false;
+        }
+        for (int i = 0, n = keyTypes.getColumnCount(); i < n; i++) {
+            if (keyTypes.getColumnType(i) == ColumnType.STRING) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Symbol keys are read as raw ints by worker threads, so only a single non-indexed
+    // symbol column qualifies. Indexed columns have their own cursor.
+    private boolean isParallelLatestBySupported(RecordMetadata metadata, SqlExecutionContext executionContext) {
+        if (
+                executionContext.getWorkerCount() < 2
+                        || !configuration.isParallelLatestByEnabled()
+                        || executionContext.getMessageBus() == null
+                        || listColumnFilterA.size() != 1
+        ) {
+            return false;
+        }
+        final int columnIndex = listColumnFilterA.getColumnIndexFactored(0);
+        return metadata.getColumnType(columnIndex) == ColumnType.SYMBOL && !metadata.isColumnIndexed(columnIndex);
+    }
+
+    // Expressions are evaluated concurrently by worker threads. Sub-queries are out, they own
+    // cursors, so are symbol columns - symbol tables are not safe for concurrent lookups.
+    private static boolean isParallelExecutionSupported(ExpressionNode node, RecordMetadata metadata) {
+        if (node == null) {
+            return true;
+        }
+
+        switch (node.type) {
+            case ExpressionNode.QUERY:
+                return false;
+            case LITERAL:
+                final int columnIndex = metadata.getColumnIndexQuiet(node.token);
+                return columnIndex == -1 || metadata.getColumnType(columnIndex) != ColumnType.SYMBOL;
+            default:
+                for (int i = 0, n = node.args.size(); i < n; i++) {
+                    if (!isParallelExecutionSupported(node.args.getQuick(i), metadata)) {
+                        return false;
+                    }
+                }
+                return isParallelExecutionSupported(node.lhs, metadata) && isParallelExecutionSupported(node.rhs, metadata);
+        }
+    }
+
+    private static int getPartitionPrunerColumnIndex(ExpressionNode node, RecordMetadata metadata) {
+        return node.type == LITERAL ? metadata.getColumnIndexQuiet(node.token) : -1;
+    }
+
+    private static boolean isPartitionPrunerConstant(ExpressionNode node) {
+        return node.type == CONSTANT
+                || (node.type == ExpressionNode.OPERATION && node.paramCount == 1 && Chars.equals(node.token, '-') && node.rhs.type == CONSTANT);
+    }
+
+    /**
+     * Evaluates constant side of comparison in double domain.
+     *
+     * @return constant value or NaN when value is null or cannot be used for pruning
+     */
+    private double getPartitionPrunerValue(
+            ExpressionNode node,
+            int columnType,
+            boolean range,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext
+    ) {
+        // bind variables and functions can change value between executions
+        if (!isPartitionPrunerConstant(node)) {
+            return Double.NaN;
+        }
+
+        Function function = null;
+        try {
+            function = functionParser.parseFunction(node, metadata, executionContext);
+            if (!function.isConstant()) {
+                return Double.NaN;
+            }
+            switch (function.getType()) {
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                case ColumnType.INT:
+                    final int i = function.getInt(null);
+                    return i == Numbers.INT_NaN ? Double.NaN : i;
+                case ColumnType.LONG:
+                case ColumnType.DATE:
+                case ColumnType.TIMESTAMP:
+                    final long l = function.getLong(null);
+                    return l == Numbers.LONG_NaN ? Double.NaN : l;
+                case ColumnType.FLOAT:
+                case ColumnType.DOUBLE:
+                    return function.getDouble(null);
+                case ColumnType.STRING:
+                    // timestamp equality to string is an interval match, only ranges are parsed
+                    if (range && columnType == ColumnType.TIMESTAMP) {
+                        final CharSequence value = function.getStr(null);
+                        if (value != null) {
+                            return value.length() >= TimestampFormatUtils.TIMESTAMP_FORMAT_MIN_LENGTH ?
+                                    TimestampFormatUtils.parseTimestamp(value) :
+                                    IntervalUtils.parseFloorPartialDate(value);
+                        }
+                    }
+                    return Double.NaN;
+                default:
+                    return Double.NaN;
+            }
+        } catch (SqlException | NumericException e) {
+            // filter compilation reports the error
+            return Double.NaN;
+        } finally {
+            Misc.free(function);
+        }
+    }
+
+    // number of rows ORDER BY has to produce when it is followed by constant LIMIT, -1 otherwise
+    private static long getOrderByLimit(QueryModel model) {
+        final ExpressionNode limitLo = model.getLimitLo();
+        final ExpressionNode limitHi = model.getLimitHi();
+        if (limitLo == null && limitHi == null) {
+            return -1;
+        }
+
+        if ((limitLo != null && limitLo.type != CONSTANT) || (limitHi != null && limitHi.type != CONSTANT)) {
+            return -1;
+        }
+
+        try {
+            final long lo = limitLo == null ? 0 : Numbers.parseLong(limitLo.token);
+            if (lo < 0) {
+                // last N rows
+                return -1;
+            }
+
+            if (limitHi == null) {
+                return lo;
+            }
+
+            final long hi = Numbers.parseLong(limitHi.token);
+            return hi < 0 ? -1 : Math.max(lo, hi);
+        } catch (NumericException e) {
+            // let limit code report invalid values
+            return -1;
+        }
+    }
+
+    private static boolean isParallelGroupBySupported(
+            QueryModel model,
+            ObjList<GroupByFunction> groupByFunctions,
+            RecordMetadata metadata,
+            boolean orderedMerge
+    ) {
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            final GroupByFunction function = groupByFunctions.getQuick(i);
+            if (!function.isMergeSupported() || (!orderedMerge && function.isMergeOrderSensitive())) {
+                return false;
+            }
+        }
+
+        // symbol keys are copied to map as int values, which is safe, function arguments are not
+        final ObjList<QueryColumn> columns = model.getColumns();
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final ExpressionNode node = columns.getQuick(i).getAst();
+            if (node.type != LITERAL && !isParallelExecutionSupported(node, metadata)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private RecordCursorFactory generateFunctionQuery(QueryModel model) throws SqlException {
         final Function function = model.getTableNameFunction();
         assert function != null;
@@ -721,7 +1281,17 @@ public class SqlCodeGenerator implements Mutable {
                             try {
                                 validateBothTimestamps(slaveModel, masterMetadata, slaveMetadata);
                                 processJoinContext(index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
-                                if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
+                                if (slave.supportPageFrameCursor() && configuration.isAsOfJoinFrameSearchEnabled() && !fullFatJoins) {
+                                    master = createAsOfJoinPageFrame(
+                                            createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
+                                            master,
+                                            masterMetadata,
+                                            slave,
+                                            slaveMetadata,
+                                            masterMetadata.getColumnCount(),
+                                            false
+                                    );
+                                } else if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
                                     if (listColumnFilterA.size() > 0 && listColumnFilterB.size() > 0) {
                                         master = createAsOfJoin(
                                                 createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
@@ -771,7 +1341,17 @@ public class SqlCodeGenerator implements Mutable {
                             try {
                                 validateBothTimestamps(slaveModel, masterMetadata, slaveMetadata);
                                 processJoinContext(index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
-                                if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
+                                if (slave.supportPageFrameCursor() && configuration.isAsOfJoinFrameSearchEnabled() && !fullFatJoins) {
+                                    master = createAsOfJoinPageFrame(
+                                            createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
+                                            master,
+                                            masterMetadata,
+                                            slave,
+                                            slaveMetadata,
+                                            masterMetadata.getColumnCount(),
+                                            true
+                                    );
+                                } else if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
                                     if (listColumnFilterA.size() > 0 && listColumnFilterB.size() > 0) {
                                         master = createLtJoin(
                                                 createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
@@ -854,7 +1434,8 @@ public class SqlCodeGenerator implements Mutable {
                                     createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                     master,
                                     slave,
-                                    joinType
+                                    joinType,
+                                    executionContext
                             );
                             masterAlias = null;
                             break;
@@ -917,6 +1498,10 @@ public class SqlCodeGenerator implements Mutable {
         if (listColumnFilterA.size() == 1) {
             final int latestByIndex = listColumnFilterA.getColumnIndexFactored(0);
             final boolean indexed = metadata.isColumnIndexed(latestByIndex);
+            if (indexed) {
+                // rows are looked up by index, columns are read at scattered offsets
+                dataFrameCursorFactory.setAccessPattern(Files.MADV_RANDOM, columnIndexes);
+            }
 
             if (metadata.getColumnType(latestByIndex) != ColumnType.SYMBOL) {
                 return new LatestByAllFilteredRecordCursorFactory(
@@ -1057,6 +1642,17 @@ public class SqlCodeGenerator implements Mutable {
             }
         }
 
+        if (filter == null && isParallelLatestBySupported(metadata, executionContext)) {
+            return new ParallelLatestByAllRecordCursorFactory(
+                    metadata,
+                    configuration,
+                    dataFrameCursorFactory,
+                    listColumnFilterA.getColumnIndexFactored(0),
+                    columnIndexes,
+                    executionContext.getWorkerCount()
+            );
+        }
+
         return new LatestByAllFilteredRecordCursorFactory(
                 metadata,
                 configuration,
@@ -1181,6 +1777,18 @@ public class SqlCodeGenerator implements Mutable {
                 orderedMetadata = GenericRecordMetadata.copyOfSansTimestamp(metadata);
 
                 if (recordCursorFactory.recordCursorSupportsRandomAccess()) {
+                    // sorted rows are read back in key order
+                    recordCursorFactory.setAccessPattern(Files.MADV_RANDOM);
+                    final long limit = getOrderByLimit(model);
+                    if (limit > -1) {
+                        return new LimitedSizeSortedLightRecordCursorFactory(
+                                orderedMetadata,
+                                recordCursorFactory,
+                                recordComparatorCompiler.compile(metadata, listColumnFilterA),
+                                limit
+                        );
+                    }
+
                     return new SortedLightRecordCursorFactory(
                             configuration,
                             orderedMetadata,
@@ -1311,7 +1919,52 @@ public class SqlCodeGenerator implements Mutable {
                         timestampIndex
                 );
 
-                if (fillCount == 1 && Chars.equalsLowerCaseAscii(sampleByFill.getQuick(0).token, "prev")) {
+                final int fillMode;
+                if (fillCount == 0 || fillCount == 1 && Chars.equalsLowerCaseAscii(sampleByFill.getQuick(0).token, "none")) {
+                    fillMode = ParallelSampleByRecordCursorFactory.FILL_NONE;
+                } else if (fillCount == 1 && Chars.equalsLowerCaseAscii(sampleByFill.getQuick(0).token, "prev")) {
+                    fillMode = ParallelSampleByRecordCursorFactory.FILL_PREV;
+                } else if (fillCount == 1 && isNullKeyword(sampleByFill.getQuick(0).token)) {
+                    fillMode = ParallelSampleByRecordCursorFactory.FILL_NULL;
+                } else {
+                    fillMode = ParallelSampleByRecordCursorFactory.FILL_VALUE;
+                }
+
+                final int workerCount = executionContext.getWorkerCount();
+                if (workerCount > 1
+                        && configuration.isParallelSampleByEnabled()
+                        && executionContext.getMessageBus() != null
+                        && factory.supportPageFrameCursor()
+                        && isParallelGroupBySupported(model, groupByFunctions, metadata, true)
+                        && ParallelSampleByRecordCursorFactory.isFillSupported(fillMode, keyTypes.getColumnCount() > 0, groupByFunctions)
+                ) {
+                    final ObjList<ObjList<GroupByFunction>> workerGroupByFunctions;
+                    try {
+                        workerGroupByFunctions = prepareWorkerGroupByFunctions(model, metadata, executionContext, workerCount, true);
+                    } catch (Throwable e) {
+                        Misc.freeObjList(recordFunctions);
+                        throw e;
+                    }
+
+                    return new ParallelSampleByRecordCursorFactory(
+                            configuration,
+                            factory,
+                            timestampSampler,
+                            listColumnFilterA,
+                            asm,
+                            sampleByFill,
+                            keyTypes,
+                            valueTypes,
+                            groupByMetadata,
+                            workerGroupByFunctions,
+                            groupByFunctions,
+                            recordFunctions,
+                            fillMode,
+                            timestampIndex
+                    );
+                }
+
+                if (fillMode == ParallelSampleByRecordCursorFactory.FILL_PREV) {
                     if (keyTypes.getColumnCount() == 0) {
                         return new SampleByFillPrevNotKeyedRecordCursorFactory(
                                 factory,
@@ -1339,7 +1992,7 @@ public class SqlCodeGenerator implements Mutable {
                     );
                 }
 
-                if (fillCount == 0 || fillCount == 1 && Chars.equalsLowerCaseAscii(sampleByFill.getQuick(0).token, "none")) {
+                if (fillMode == ParallelSampleByRecordCursorFactory.FILL_NONE) {
 
                     if (keyTypes.getColumnCount() == 0) {
                         // this sample by is not keyed
@@ -1369,7 +2022,7 @@ public class SqlCodeGenerator implements Mutable {
                     );
                 }
 
-                if (fillCount == 1 && isNullKeyword(sampleByFill.getQuick(0).token)) {
+                if (fillMode == ParallelSampleByRecordCursorFactory.FILL_NULL) {
                     if (keyTypes.getColumnCount() == 0) {
                         return new SampleByFillNullNotKeyedRecordCursorFactory(
                                 factory,
@@ -2015,6 +2668,35 @@ public class SqlCodeGenerator implements Mutable {
                 );
             }
 
+            final int workerCount = executionContext.getWorkerCount();
+            if (workerCount > 1
+                    && configuration.isParallelGroupByEnabled()
+                    && executionContext.getMessageBus() != null
+                    && factory.supportPageFrameCursor()
+                    && isParallelGroupBySupported(model, groupByFunctions, metadata, false)
+            ) {
+                final ObjList<ObjList<GroupByFunction>> workerGroupByFunctions;
+                try {
+                    workerGroupByFunctions = prepareWorkerGroupByFunctions(model, metadata, executionContext, workerCount, false);
+                } catch (Throwable e) {
+                    Misc.freeObjList(recordFunctions);
+                    throw e;
+                }
+
+                return new ParallelGroupByRecordCursorFactory(
+                        configuration,
+                        factory,
+                        listColumnFilterA,
+                        asm,
+                        keyTypes,
+                        valueTypes,
+                        groupByMetadata,
+                        workerGroupByFunctions,
+                        groupByFunctions,
+                        recordFunctions
+                );
+            }
+
             return new io.questdb.griffin.engine.groupby.GroupByRecordCursorFactory(
                     configuration,
                     factory,
@@ -2244,7 +2926,7 @@ public class SqlCodeGenerator implements Mutable {
                         myMeta.setTimestampIndex(myMeta.getColumnCount() - 1);
 
                         columnIndexes.add(readerTimestampIndex);
-                        columnSizes.add((Numbers.msb(ColumnType.TIMESTAMP)));
+                        columnSizes.add((Numbers.msb(ColumnType.sizeOf(ColumnType.TIMESTAMP))));
                     }
                 } else {
                     framingSupported = false;
@@ -2334,13 +3016,14 @@ public class SqlCodeGenerator implements Mutable {
 
                 // below code block generates index-based filter
 
+                final PartitionPruner pruner = createPartitionPruner(intrinsicModel.filter, myMeta, columnIndexes, reader.getMetadata(), executionContext);
                 final boolean intervalHitsOnlyOnePartition;
                 if (intrinsicModel.hasIntervalFilters()) {
                     RuntimeIntrinsicIntervalModel intervalModel = intrinsicModel.buildIntervalModel();
-                    dfcFactory = new IntervalFwdDataFrameCursorFactory(engine, tableName, model.getTableVersion(), intervalModel, readerTimestampIndex);
+                    dfcFactory = new IntervalFwdDataFrameCursorFactory(engine, tableName, model.getTableVersion(), intervalModel, readerTimestampIndex, pruner);
                     intervalHitsOnlyOnePartition = intervalModel.allIntervalsHitOnePartition(reader.getPartitionedBy());
                 } else {
-                    dfcFactory = new FullFwdDataFrameCursorFactory(engine, tableName, model.getTableVersion());
+                    dfcFactory = new FullFwdDataFrameCursorFactory(engine, tableName, model.getTableVersion(), pruner);
                     intervalHitsOnlyOnePartition = false;
                 }
 
@@ -2533,7 +3216,9 @@ public class SqlCodeGenerator implements Mutable {
                 }
 
                 model.setWhereClause(intrinsicModel.filter);
-                return new DataFrameRecordCursorFactory(myMeta, dfcFactory, new DataFrameRowCursorFactory(), false, null, framingSupported, columnIndexes, columnSizes);
+                final RecordCursorFactory factory = new DataFrameRecordCursorFactory(myMeta, dfcFactory, new DataFrameRowCursorFactory(), false, null, framingSupported, columnIndexes, columnSizes);
+                factory.setAccessPattern(Files.MADV_SEQUENTIAL);
+                return factory;
             }
 
             // no where clause
@@ -2542,7 +3227,7 @@ public class SqlCodeGenerator implements Mutable {
                 // construct new metadata, which is a copy of what we constructed just above, but
                 // in the interest of isolating problems we will only affect this factory
 
-                return new TableReaderRecordCursorFactory(
+                final RecordCursorFactory factory = new TableReaderRecordCursorFactory(
                         myMeta,
                         engine,
                         tableName,
@@ -2551,19 +3236,34 @@ public class SqlCodeGenerator implements Mutable {
                         columnSizes,
                         framingSupported
                 );
+                factory.setAccessPattern(Files.MADV_SEQUENTIAL);
+                return factory;
             }
 
             if (latestByColumnCount == 1 && myMeta.isColumnIndexed(listColumnFilterA.getColumnIndexFactored(0))) {
+                final DataFrameCursorFactory dfcFactory = new FullBwdDataFrameCursorFactory(engine, tableName, model.getTableVersion());
+                dfcFactory.setAccessPattern(Files.MADV_RANDOM, columnIndexes);
                 return new LatestByAllIndexedFilteredRecordCursorFactory(
                         configuration,
                         myMeta,
-                        new FullBwdDataFrameCursorFactory(engine, tableName, model.getTableVersion()),
+                        dfcFactory,
                         columnIndexes.getQuick(listColumnFilterA.getColumnIndexFactored(0)),
                         null,
                         columnIndexes
                 );
             }
 
+            if (isParallelLatestBySupported(myMeta, executionContext)) {
+                return new ParallelLatestByAllRecordCursorFactory(
+                        myMeta,
+                        configuration,
+                        new FullBwdDataFrameCursorFactory(engine, tableName, model.getTableVersion()),
+                        listColumnFilterA.getColumnIndexFactored(0),
+                        columnIndexes,
+                        executionContext.getWorkerCount()
+                );
+            }
+
             return new LatestByAllFilteredRecordCursorFactory(
                     myMeta,
                     configuration,
@@ -2701,6 +3401,42 @@ public class SqlCodeGenerator implements Mutable {
         }
     }
 
+    // each worker aggregates with its own function instances, functions are not thread safe
+    private ObjList<ObjList<GroupByFunction>> prepareWorkerGroupByFunctions(
+            QueryModel model,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext,
+            int workerCount,
+            boolean sampleBy
+    ) throws SqlException {
+        final ObjList<ObjList<GroupByFunction>> workerGroupByFunctions = new ObjList<>(workerCount);
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                final ObjList<GroupByFunction> functions = new ObjList<>();
+                workerGroupByFunctions.add(functions);
+                tempValueTypes.clear();
+                // value layout must match the one of the owner functions
+                if (sampleBy) {
+                    tempValueTypes.add(ColumnType.TIMESTAMP);
+                }
+                GroupByUtils.prepareGroupByFunctions(
+                        model,
+                        metadata,
+                        functionParser,
+                        executionContext,
+                        functions,
+                        tempValueTypes
+                );
+            }
+        } catch (Throwable e) {
+            for (int i = 0, n = workerGroupByFunctions.size(); i < n; i++) {
+                Misc.freeObjList(workerGroupByFunctions.getQuick(i));
+            }
+            throw e;
+        }
+        return workerGroupByFunctions;
+    }
+
     private void processJoinContext(
             boolean vanillaMaster,
             JoinContext jc,
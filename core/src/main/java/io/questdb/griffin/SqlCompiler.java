@@ -28,6 +28,7 @@ import io.questdb.MessageBus;
 import io.questdb.cairo.*;
 import io.questdb.cairo.sql.*;
 import io.questdb.cairo.vm.AppendOnlyVirtualMemory;
+import io.questdb.cairo.wal.TableSequencer;
 import io.questdb.cutlass.text.Atomicity;
 import io.questdb.cutlass.text.TextException;
 import io.questdb.cutlass.text.TextLoader;
@@ -88,6 +89,7 @@ public class SqlCompiler implements Closeable {
     private final CharSequenceObjHashMap<RecordToRowCopier> tableBackupRowCopieCache = new CharSequenceObjHashMap<>();
     private transient SqlExecutionContext currentExecutionContext;
     private transient String cachedTmpBackupRoot;
+    private transient boolean backupSnapshot;
     private final FindVisitor sqlDatabaseBackupOnFind = (file, type) -> {
         nativeLPSZ.of(file);
         if (type == Files.DT_DIR && nativeLPSZ.charAt(0) != '.') {
@@ -789,10 +791,17 @@ public class SqlCompiler implements Closeable {
                         final int columnNameNamePosition = lexer.getPosition();
                         tok = expectToken(lexer, "column name");
                         final CharSequence columnName = GenericLexer.immutableOf(tok);
-                        tok = expectToken(lexer, "'add index' or 'cache' or 'nocache'");
+                        tok = expectToken(lexer, "'add index', 'add bloom filter', 'cache' or 'nocache'");
                         if (SqlKeywords.isAddKeyword(tok)) {
-                            expectKeyword(lexer, "index");
-                            alterTableColumnAddIndex(tableNamePosition, columnNameNamePosition, columnName, writer);
+                            tok = expectToken(lexer, "'index' or 'bloom'");
+                            if (SqlKeywords.isIndexKeyword(tok)) {
+                                alterTableColumnAddIndex(tableNamePosition, columnNameNamePosition, columnName, writer);
+                            } else if (SqlKeywords.isBloomKeyword(tok)) {
+                                expectKeyword(lexer, "filter");
+                                alterTableColumnAddBloomFilter(tableNamePosition, columnNameNamePosition, columnName, writer);
+                            } else {
+                                throw SqlException.$(lexer.lastTokenPosition(), "'index' or 'bloom' expected");
+                            }
                         } else {
                             if (SqlKeywords.isCacheKeyword(tok)) {
                                 alterTableColumnCacheFlag(tableNamePosition, columnName, writer, true);
@@ -871,6 +880,12 @@ public class SqlCompiler implements Closeable {
                 throw SqlException.$(paramNameNamePosition, "O3CommitHysteresis must be non negative");
             }
             writer.setMetaO3CommitHysteresis(o3CommitHysteresisInMicros);
+        } else if (isColdPartitionAgeParam(paramName)) {
+            long coldPartitionAgeInMicros = SqlUtil.expectMicros(value, paramNameNamePosition);
+            if (coldPartitionAgeInMicros < 0) {
+                throw SqlException.$(paramNameNamePosition, "coldPartitionAge must be non negative");
+            }
+            writer.setMetaColdPartitionAge(coldPartitionAgeInMicros);
         } else {
             throw SqlException.$(paramNameNamePosition, "unknown parameter '").put(paramName).put('\'');
         }
@@ -1018,6 +1033,18 @@ public class SqlCompiler implements Closeable {
         } while (true);
     }
 
+    private void alterTableColumnAddBloomFilter(int tableNamePosition, int columnNamePosition, CharSequence columnName, TableWriter w) throws SqlException {
+        try {
+            if (w.getMetadata().getColumnIndexQuiet(columnName) == -1) {
+                throw SqlException.invalidColumn(columnNamePosition, columnName);
+            }
+            w.addBloomFilter(columnName);
+        } catch (CairoException e) {
+            throw SqlException.position(tableNamePosition).put(e.getFlyweightMessage())
+                    .put("[errno=").put(e.getErrno()).put(']');
+        }
+    }
+
     private void alterTableColumnAddIndex(int tableNamePosition, int columnNamePosition, CharSequence columnName, TableWriter w) throws SqlException {
         try {
             if (w.getMetadata().getColumnIndexQuiet(columnName) == -1) {
@@ -1221,21 +1248,28 @@ public class SqlCompiler implements Closeable {
         int renameRootLen = renamePath.length();
         try {
             CairoSecurityContext securityContext = executionContext.getCairoSecurityContext();
-            try (TableReader reader = engine.getReader(securityContext, tableName)) {
-                cloneMetaData(tableName, cachedTmpBackupRoot, configuration.getBackupMkDirMode(), reader);
-                try (TableWriter backupWriter = engine.getBackupWriter(securityContext, tableName, cachedTmpBackupRoot)) {
-                    RecordMetadata writerMetadata = backupWriter.getMetadata();
-                    path.of(tableName).slash().put(reader.getVersion()).$();
-                    RecordToRowCopier recordToRowCopier = tableBackupRowCopieCache.get(path);
-                    if (null == recordToRowCopier) {
-                        entityColumnFilter.of(writerMetadata.getColumnCount());
-                        recordToRowCopier = assembleRecordToRowCopier(asm, reader.getMetadata(), writerMetadata, entityColumnFilter);
-                        tableBackupRowCopieCache.put(path.toString(), recordToRowCopier);
-                    }
+            if (backupSnapshot) {
+                try (TableWriter writer = engine.getWriter(securityContext, tableName)) {
+                    final int linkCount = writer.snapshot(cachedTmpBackupRoot, configuration.getBackupMkDirMode());
+                    LOG.info().$("snapshot [table=").$(tableName).$(", linkedFiles=").$(linkCount).$(']').$();
+                }
+            } else {
+                try (TableReader reader = engine.getReader(securityContext, tableName)) {
+                    cloneMetaData(tableName, cachedTmpBackupRoot, configuration.getBackupMkDirMode(), reader);
+                    try (TableWriter backupWriter = engine.getBackupWriter(securityContext, tableName, cachedTmpBackupRoot)) {
+                        RecordMetadata writerMetadata = backupWriter.getMetadata();
+                        path.of(tableName).slash().put(reader.getVersion()).$();
+                        RecordToRowCopier recordToRowCopier = tableBackupRowCopieCache.get(path);
+                        if (null == recordToRowCopier) {
+                            entityColumnFilter.of(writerMetadata.getColumnCount());
+                            recordToRowCopier = assembleRecordToRowCopier(asm, reader.getMetadata(), writerMetadata, entityColumnFilter);
+                            tableBackupRowCopieCache.put(path.toString(), recordToRowCopier);
+                        }
 
-                    RecordCursor cursor = reader.getCursor();
-                    copyTableData(cursor, reader.getMetadata(), backupWriter, writerMetadata, recordToRowCopier);
-                    backupWriter.commit();
+                        RecordCursor cursor = reader.getCursor();
+                        copyTableData(cursor, reader.getMetadata(), backupWriter, writerMetadata, recordToRowCopier);
+                        backupWriter.commit();
+                    }
                 }
             }
 
@@ -1483,22 +1517,28 @@ public class SqlCompiler implements Closeable {
                 }
                 try {
                     long fileLen = ff.length(fd);
-                    long n = ff.read(fd, buf, len, 0);
-                    if (n > 0) {
-                        textLoader.setForceHeaders(model.isHeader());
-                        textLoader.setSkipRowsWithExtraValues(false);
-                        textLoader.parse(buf, buf + n, executionContext.getCairoSecurityContext());
-                        textLoader.setState(TextLoader.LOAD_DATA);
-                        int read;
-                        while (n < fileLen) {
-                            read = (int) ff.read(fd, buf, len, n);
-                            if (read < 1) {
-                                throw SqlException.$(model.getFileName().position, "could not read file [errno=").put(ff.errno()).put(']');
+                    if (configuration.isParallelImportEnabled()) {
+                        if (fileLen > 0) {
+                            copyTableParallel(executionContext, model, fd, fileLen);
+                        }
+                    } else {
+                        long n = ff.read(fd, buf, len, 0);
+                        if (n > 0) {
+                            textLoader.setForceHeaders(model.isHeader());
+                            textLoader.setSkipRowsWithExtraValues(false);
+                            textLoader.parse(buf, buf + n, executionContext.getCairoSecurityContext());
+                            textLoader.setState(TextLoader.LOAD_DATA);
+                            int read;
+                            while (n < fileLen) {
+                                read = (int) ff.read(fd, buf, len, n);
+                                if (read < 1) {
+                                    throw SqlException.$(model.getFileName().position, "could not read file [errno=").put(ff.errno()).put(']');
+                                }
+                                textLoader.parse(buf, buf + read, executionContext.getCairoSecurityContext());
+                                n += read;
                             }
-                            textLoader.parse(buf, buf + read, executionContext.getCairoSecurityContext());
-                            n += read;
+                            textLoader.wrapUp();
                         }
-                        textLoader.wrapUp();
                     }
                 } finally {
                     ff.close(fd);
@@ -1514,6 +1554,20 @@ public class SqlCompiler implements Closeable {
         }
     }
 
+    private void copyTableParallel(SqlExecutionContext executionContext, CopyModel model, long fd, long fileLen) throws SqlException, TextException {
+        final long address = ff.mmap(fd, fileLen, 0, Files.MAP_RO);
+        if (address == -1) {
+            throw SqlException.$(model.getFileName().position, "could not mmap file [errno=").put(ff.errno()).put(']');
+        }
+        try {
+            textLoader.setForceHeaders(model.isHeader());
+            textLoader.setSkipRowsWithExtraValues(false);
+            textLoader.parseParallel(address, address + fileLen, executionContext.getWorkerCount(), executionContext.getCairoSecurityContext());
+        } finally {
+            ff.munmap(address, fileLen);
+        }
+    }
+
     private TableWriter copyTableData(CharSequence tableName, RecordCursor cursor, RecordMetadata cursorMetadata) {
         TableWriter writer = new TableWriter(configuration, tableName, messageBus, false, DefaultLifecycleManager.INSTANCE);
         try {
@@ -1567,6 +1621,7 @@ public class SqlCompiler implements Closeable {
                 try {
                     if (createTableModel.getQueryModel() == null) {
                         engine.createTableUnsafe(executionContext.getCairoSecurityContext(), mem, path, createTableModel);
+                        createTableWal(createTableModel);
                         newTable = true;
                     } else {
                         writer = createTableFromCursor(createTableModel, executionContext);
@@ -1585,6 +1640,21 @@ public class SqlCompiler implements Closeable {
         return compiledQuery.ofCreateTable();
     }
 
+    private void createTableWal(CreateTableModel model) throws SqlException {
+        if (model.isWal()) {
+            try {
+                TableSequencer.create(configuration.getFilesFacade(), path.of(configuration.getRoot()).concat(model.getName().token), configuration.getMkDirMode());
+            } catch (CairoException e) {
+                // table without txn log would be taken for a non-WAL table
+                LOG.error().$(e.getFlyweightMessage()).$(" [errno=").$(e.getErrno()).$(']').$();
+                if (removeTableDirectory(model)) {
+                    throw e;
+                }
+                throw SqlException.$(0, "Could not create WAL of table. Failed to clean up. See log for more details.");
+            }
+        }
+    }
+
     private TableWriter createTableFromCursor(CreateTableModel model, SqlExecutionContext executionContext) throws SqlException {
         try (final RecordCursorFactory factory = generate(model.getQueryModel(), executionContext);
              final RecordCursor cursor = factory.getCursor(executionContext)
@@ -1598,6 +1668,7 @@ public class SqlCompiler implements Closeable {
                     path,
                     tableStructureAdapter.of(model, metadata, typeCast)
             );
+            createTableWal(model);
 
             try {
                 return copyTableData(model.getName().token, cursor, metadata);
@@ -1766,7 +1837,7 @@ public class SqlCompiler implements Closeable {
 
             VirtualRecord record = new VirtualRecord(valueFunctions);
             RecordToRowCopier copier = assembleRecordToRowCopier(asm, record, metadata, listColumnFilter);
-            return compiledQuery.ofInsert(new InsertStatementImpl(engine, Chars.toString(name.token), record, copier, timestampFunction, structureVersion));
+            return compiledQuery.ofInsert(new InsertStatementImpl(engine, Chars.toString(name.token), record, copier, timestampFunction, structureVersion, engine.isWalTable(name.token)));
         } catch (SqlException e) {
             Misc.freeObjList(valueFunctions);
             throw e;
@@ -2008,14 +2079,20 @@ public class SqlCompiler implements Closeable {
         throw SqlException.position(lexer.lastTokenPosition()).put("expected 'table' or 'database'");
     }
 
-    private CompiledQuery sqlDatabaseBackup(SqlExecutionContext executionContext) {
+    private CompiledQuery sqlDatabaseBackup(SqlExecutionContext executionContext) throws SqlException {
+        final CharSequence tok = SqlUtil.fetchNext(lexer);
+        if (null != tok && !Chars.equals(tok, ';') && !isSnapshotKeyword(tok)) {
+            throw SqlException.position(lexer.lastTokenPosition()).put("'snapshot' expected");
+        }
         currentExecutionContext = executionContext;
+        backupSnapshot = null != tok && isSnapshotKeyword(tok);
         try {
             setupBackupRenamePath();
             ff.iterateDir(path.of(configuration.getRoot()).$(), sqlDatabaseBackupOnFind);
             return compiledQuery.ofBackupTable();
         } finally {
             currentExecutionContext = null;
+            backupSnapshot = false;
         }
     }
 
@@ -2096,6 +2173,14 @@ public class SqlCompiler implements Closeable {
                 if (null == tok || Chars.equals(tok, ';')) {
                     break;
                 }
+                if (isSnapshotKeyword(tok)) {
+                    backupSnapshot = true;
+                    tok = SqlUtil.fetchNext(lexer);
+                    if (null == tok || Chars.equals(tok, ';')) {
+                        break;
+                    }
+                    throw SqlException.$(lexer.lastTokenPosition(), "unexpected token");
+                }
                 if (!Chars.equals(tok, ',')) {
                     throw SqlException.position(lexer.lastTokenPosition()).put("expected ','");
                 }
@@ -2108,6 +2193,7 @@ public class SqlCompiler implements Closeable {
             return compiledQuery.ofBackupTable();
         } finally {
             tableNames.clear();
+            backupSnapshot = false;
         }
     }
 
@@ -68,6 +68,7 @@ import static io.questdb.griffin.SqlKeywords.isTimestampKeyword;
 import static io.questdb.griffin.SqlKeywords.isTrueKeyword;
 import static io.questdb.griffin.SqlKeywords.isUnionKeyword;
 import static io.questdb.griffin.SqlKeywords.isValuesKeyword;
+import static io.questdb.griffin.SqlKeywords.isWalKeyword;
 import static io.questdb.griffin.SqlKeywords.isWhereKeyword;
 import static io.questdb.griffin.SqlKeywords.isWithKeyword;
 
@@ -493,7 +494,7 @@ public final class SqlParser {
         ExpressionNode partitionBy = parseCreateTablePartition(lexer, tok);
         if (partitionBy != null) {
             if (PartitionBy.fromString(partitionBy.token) == -1) {
-                throw SqlException.$(partitionBy.position, "'NONE', 'DAY', 'MONTH' or 'YEAR' expected");
+                throw SqlException.$(partitionBy.position, "'NONE', 'HOUR', 'DAY', 'WEEK', 'MONTH' or 'YEAR' expected");
             }
             model.setPartitionBy(partitionBy);
             tok = optTok(lexer);
@@ -526,6 +527,15 @@ public final class SqlParser {
         model.setO3MaxUncommittedRows(o3MaxUncommittedRows);
         model.setO3CommitHysteresisInMicros(o3CommitHysteresisInMicros);
 
+        if (tok != null && isWalKeyword(tok)) {
+            // rows of WAL writers are applied out of order, table has to be partitioned by designated timestamp
+            if (model.getTimestamp() == null || model.getPartitionBy() == PartitionBy.NONE) {
+                throw SqlException.$(lexer.lastTokenPosition(), "WAL table must have designated timestamp and partition");
+            }
+            model.setWal(true);
+            tok = optTok(lexer);
+        }
+
         if (tok == null || Chars.equals(tok, ';')) {
             return model;
         }
@@ -49,10 +49,25 @@ public interface GroupByFunction extends Function {
 
     void computeNext(MapValue mapValue, Record record);
 
+    // true when merge() expects srcValue to aggregate rows that follow rows of destValue
+    default boolean isMergeOrderSensitive() {
+        return false;
+    }
+
+    // true when partial aggregates of this function can be combined via merge()
+    default boolean isMergeSupported() {
+        return false;
+    }
+
     default boolean isScalar() {
         return true;
     }
 
+    // combines partial aggregate held in srcValue into destValue, both values must have the same layout
+    default void merge(MapValue destValue, MapValue srcValue) {
+        throw new UnsupportedOperationException();
+    }
+
     void pushValueTypes(ArrayColumnTypes columnTypes);
 
     default void setByte(MapValue mapValue, byte value) {
@@ -49,6 +49,16 @@ public class CountGroupByFunction extends LongFunction implements GroupByFunctio
         mapValue.addLong(valueIndex, 1);
     }
 
+    @Override
+    public boolean isMergeSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        destValue.addLong(valueIndex, srcValue.getLong(valueIndex));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -36,7 +36,7 @@ import org.jetbrains.annotations.NotNull;
 
 public class FirstByteGroupByFunction extends ByteFunction implements GroupByFunction, UnaryFunction {
     private final Function arg;
-    private int valueIndex;
+    protected int valueIndex;
 
     public FirstByteGroupByFunction(int position, @NotNull Function arg) {
         super(position);
@@ -53,6 +53,21 @@ public class FirstByteGroupByFunction extends ByteFunction implements GroupByFun
         // empty
     }
 
+    @Override
+    public boolean isMergeOrderSensitive() {
+        return true;
+    }
+
+    @Override
+    public boolean isMergeSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        // destValue aggregates earlier rows, it already holds the first value
+    }
+
     @Override
     public Function getArg() {
         return this.arg;
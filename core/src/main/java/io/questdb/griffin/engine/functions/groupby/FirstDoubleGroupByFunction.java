@@ -36,7 +36,7 @@ import org.jetbrains.annotations.NotNull;
 
 public class FirstDoubleGroupByFunction extends DoubleFunction implements GroupByFunction, UnaryFunction {
     private final Function arg;
-    private int valueIndex;
+    protected int valueIndex;
 
     public FirstDoubleGroupByFunction(int position, @NotNull Function arg) {
         super(position);
@@ -53,6 +53,21 @@ public class FirstDoubleGroupByFunction extends DoubleFunction implements GroupB
         // empty
     }
 
+    @Override
+    public boolean isMergeOrderSensitive() {
+        return true;
+    }
+
+    @Override
+    public boolean isMergeSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        // destValue aggregates earlier rows, it already holds the first value
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -37,7 +37,7 @@ import org.jetbrains.annotations.NotNull;
 
 public class FirstIntGroupByFunction extends IntFunction implements GroupByFunction, UnaryFunction {
     private final Function arg;
-    private int valueIndex;
+    protected int valueIndex;
 
     public FirstIntGroupByFunction(int position, @NotNull Function arg) {
         super(position);
@@ -53,6 +53,21 @@ public class FirstIntGroupByFunction extends IntFunction implements GroupByFunct
     public void computeNext(MapValue mapValue, Record record) {
     }
 
+    @Override
+    public boolean isMergeOrderSensitive() {
+        return true;
+    }
+
+    @Override
+    public boolean isMergeSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        // destValue aggregates earlier rows, it already holds the first value
+    }
+
     @Override
     public Function getArg() {
         return this.arg;
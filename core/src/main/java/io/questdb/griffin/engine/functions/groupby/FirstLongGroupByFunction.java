@@ -37,7 +37,7 @@ import org.jetbrains.annotations.NotNull;
 
 public class FirstLongGroupByFunction extends LongFunction implements GroupByFunction, UnaryFunction {
     private final Function arg;
-    private int valueIndex;
+    protected int valueIndex;
 
     public FirstLongGroupByFunction(int position, @NotNull Function arg) {
         super(position);
@@ -54,6 +54,21 @@ public class FirstLongGroupByFunction extends LongFunction implements GroupByFun
         // empty
     }
 
+    @Override
+    public boolean isMergeOrderSensitive() {
+        return true;
+    }
+
+    @Override
+    public boolean isMergeSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        // destValue aggregates earlier rows, it already holds the first value
+    }
+
     @Override
     public Function getArg() {
         return this.arg;
@@ -37,7 +37,7 @@ import org.jetbrains.annotations.NotNull;
 
 public class FirstSymbolGroupByFunction extends SymbolFunction implements GroupByFunction, UnaryFunction {
     private final SymbolFunction arg;
-    private int valueIndex;
+    protected int valueIndex;
 
     public FirstSymbolGroupByFunction(int position, @NotNull SymbolFunction arg) {
         super(position);
@@ -53,6 +53,21 @@ public class FirstSymbolGroupByFunction extends SymbolFunction implements GroupB
     public void computeNext(MapValue mapValue, Record record) {
     }
 
+    @Override
+    public boolean isMergeOrderSensitive() {
+        return true;
+    }
+
+    @Override
+    public boolean isMergeSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        // destValue aggregates earlier rows, it already holds the first value
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -71,6 +71,23 @@ public class KSumDoubleGroupByFunction extends DoubleFunction implements GroupBy
         }
     }
 
+    @Override
+    public boolean isMergeSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        // compensated partial sum is (sum - c), add it the same way computeNext adds a value
+        final double sum = destValue.getDouble(valueIndex);
+        final double c = destValue.getDouble(valueIndex + 1);
+        final double y = srcValue.getDouble(valueIndex) - srcValue.getDouble(valueIndex + 1) - c;
+        final double t = sum + y;
+        destValue.putDouble(valueIndex, t);
+        destValue.putDouble(valueIndex + 1, t - sum - y);
+        destValue.addLong(valueIndex + 2, srcValue.getLong(valueIndex + 2));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
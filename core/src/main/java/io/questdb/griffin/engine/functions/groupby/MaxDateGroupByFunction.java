@@ -58,6 +58,20 @@ public class MaxDateGroupByFunction extends DateFunction implements GroupByFunct
         }
     }
 
+    @Override
+    public boolean isMergeSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        long max = destValue.getDate(valueIndex);
+        long next = srcValue.getDate(valueIndex);
+        if (next > max) {
+            destValue.putDate(valueIndex, next);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
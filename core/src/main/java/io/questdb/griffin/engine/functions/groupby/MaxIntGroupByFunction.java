@@ -58,6 +58,20 @@ public class MaxIntGroupByFunction extends IntFunction implements GroupByFunctio
         }
     }
 
+    @Override
+    public boolean isMergeSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        int max = destValue.getInt(valueIndex);
+        int next = srcValue.getInt(valueIndex);
+        if (next > max) {
+            destValue.putInt(valueIndex, next);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -58,6 +58,20 @@ public class MaxLongGroupByFunction extends LongFunction implements GroupByFunct
         }
     }
 
+    @Override
+    public boolean isMergeSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        long max = destValue.getLong(valueIndex);
+        long next = srcValue.getLong(valueIndex);
+        if (next > max) {
+            destValue.putLong(valueIndex, next);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -58,6 +58,20 @@ public class MaxTimestampGroupByFunction extends TimestampFunction implements Gr
         }
     }
 
+    @Override
+    public boolean isMergeSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        long max = destValue.getTimestamp(valueIndex);
+        long next = srcValue.getTimestamp(valueIndex);
+        if (next > max) {
+            destValue.putTimestamp(valueIndex, next);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -57,6 +57,20 @@ public class MinCharGroupByFunction extends CharFunction implements GroupByFunct
         }
     }
 
+    @Override
+    public boolean isMergeSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        char min = destValue.getChar(valueIndex);
+        char next = srcValue.getChar(valueIndex);
+        if (next > 0 && next < min) {
+            destValue.putChar(valueIndex, next);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -58,6 +58,20 @@ public class MinDateGroupByFunction extends DateFunction implements GroupByFunct
         }
     }
 
+    @Override
+    public boolean isMergeSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        long min = destValue.getDate(valueIndex);
+        long next = srcValue.getDate(valueIndex);
+        if (next != Numbers.LONG_NaN && next < min || min == Numbers.LONG_NaN) {
+            destValue.putDate(valueIndex, next);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
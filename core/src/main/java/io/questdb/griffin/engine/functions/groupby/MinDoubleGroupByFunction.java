@@ -57,6 +57,20 @@ public class MinDoubleGroupByFunction extends DoubleFunction implements GroupByF
         }
     }
 
+    @Override
+    public boolean isMergeSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        double min = destValue.getDouble(valueIndex);
+        double next = srcValue.getDouble(valueIndex);
+        if (next < min || Double.isNaN(min)) {
+            destValue.putDouble(valueIndex, next);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
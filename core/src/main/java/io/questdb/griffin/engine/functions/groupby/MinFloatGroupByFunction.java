@@ -57,6 +57,20 @@ public class MinFloatGroupByFunction extends FloatFunction implements GroupByFun
         }
     }
 
+    @Override
+    public boolean isMergeSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        float min = destValue.getFloat(valueIndex);
+        float next = srcValue.getFloat(valueIndex);
+        if (next < min || Float.isNaN(min)) {
+            destValue.putFloat(valueIndex, next);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -58,6 +58,20 @@ public class MinTimestampGroupByFunction extends TimestampFunction implements Gr
         }
     }
 
+    @Override
+    public boolean isMergeSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        long min = destValue.getTimestamp(valueIndex);
+        long next = srcValue.getTimestamp(valueIndex);
+        if (next != Numbers.LONG_NaN && next < min || min == Numbers.LONG_NaN) {
+            destValue.putTimestamp(valueIndex, next);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -65,6 +65,17 @@ public class SumDoubleGroupByFunction extends DoubleFunction implements GroupByF
         }
     }
 
+    @Override
+    public boolean isMergeSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        destValue.addDouble(valueIndex, srcValue.getDouble(valueIndex));
+        destValue.addLong(valueIndex + 1, srcValue.getLong(valueIndex + 1));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
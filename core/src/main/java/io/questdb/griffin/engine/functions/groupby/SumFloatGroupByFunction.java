@@ -61,6 +61,19 @@ public class SumFloatGroupByFunction extends FloatFunction implements GroupByFun
         }
     }
 
+    @Override
+    public boolean isMergeSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        final float value = srcValue.getFloat(valueIndex);
+        if (value == value) {
+            destValue.addFloat(valueIndex, value);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -65,6 +65,17 @@ public class SumIntGroupByFunction extends LongFunction implements GroupByFuncti
         }
     }
 
+    @Override
+    public boolean isMergeSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        destValue.addLong(valueIndex, srcValue.getLong(valueIndex));
+        destValue.addLong(valueIndex + 1, srcValue.getLong(valueIndex + 1));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.table.PageFrameRecord;
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.AbstractLockable;
+import io.questdb.std.LongList;
+import io.questdb.std.ObjList;
+
+/**
+ * Aggregates a row range of a single page frame into the map that belongs to the
+ * executing thread. Maps, functions and records are indexed by slot, which is either
+ * worker id or the dedicated slot of the publishing thread.
+ * <p>
+ * SAMPLE BY entries aggregate into the map owned by the entry instead, so that partial
+ * aggregates can be merged in time order. Sample bucket is appended to map key and is
+ * also stored in the value column 0.
+ */
+public class PageFrameGroupByEntry extends AbstractLockable {
+    private final LongList columnAddresses = new LongList();
+    private ObjList<FastMap> maps;
+    private FastMap taskMap;
+    private TimestampSampler timestampSampler;
+    private ObjList<ObjList<GroupByFunction>> functions;
+    private ObjList<PageFrameRecord> records;
+    private RecordSink mapSink;
+    private SymbolTableSource symbolTableSource;
+    private CountDownLatchSPI doneLatch;
+    private Throwable error;
+    private long rowLo;
+    private long rowHi;
+    private long baselineOffset;
+    private int timestampIndex;
+
+    public Throwable getError() {
+        return error;
+    }
+
+    public boolean run(int slot) {
+        if (slot < functions.size() && tryLock()) {
+            try {
+                final ObjList<GroupByFunction> functions = this.functions.getQuick(slot);
+                final PageFrameRecord record = records.getQuick(slot);
+                record.of(columnAddresses, symbolTableSource);
+                if (timestampSampler == null) {
+                    aggregate(maps.getQuick(slot), functions, record);
+                } else {
+                    sample(functions, record);
+                }
+            } catch (Throwable e) {
+                // map can run out of its resize limit, publisher rethrows this once all tasks are done
+                error = e;
+            } finally {
+                doneLatch.countDown();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void aggregate(FastMap map, ObjList<GroupByFunction> functions, PageFrameRecord record) {
+        final int n = functions.size();
+        for (long r = rowLo; r < rowHi; r++) {
+            record.setRow(r);
+            final MapKey key = map.withKey();
+            mapSink.copy(record, key);
+            GroupByUtils.updateFunctions(functions, n, key.createValue(), record);
+        }
+    }
+
+    private void sample(ObjList<GroupByFunction> functions, PageFrameRecord record) {
+        final int n = functions.size();
+        long bucketLo = Long.MAX_VALUE;
+        long bucketHi = Long.MIN_VALUE;
+        for (long r = rowLo; r < rowHi; r++) {
+            record.setRow(r);
+            final long timestamp = record.getTimestamp(timestampIndex) - baselineOffset;
+            // rows are in timestamp order, rounding is only needed when bucket changes
+            if (timestamp < bucketLo || timestamp >= bucketHi) {
+                bucketLo = timestampSampler.round(timestamp);
+                bucketHi = timestampSampler.nextTimestamp(bucketLo);
+            }
+            final MapKey key = taskMap.withKey();
+            mapSink.copy(record, key);
+            key.putLong(bucketLo);
+            final MapValue value = key.createValue();
+            if (value.isNew()) {
+                value.putTimestamp(0, bucketLo);
+                GroupByUtils.updateNew(functions, n, value, record);
+            } else {
+                GroupByUtils.updateExisting(functions, n, value, record);
+            }
+        }
+    }
+
+    void of(
+            int sequence,
+            LongList frameAddresses,
+            long rowLo,
+            long rowHi,
+            ObjList<FastMap> maps,
+            ObjList<ObjList<GroupByFunction>> functions,
+            ObjList<PageFrameRecord> records,
+            RecordSink mapSink,
+            SymbolTableSource symbolTableSource,
+            CountDownLatchSPI doneLatch
+    ) {
+        this.columnAddresses.clear();
+        this.columnAddresses.add(frameAddresses);
+        this.rowLo = rowLo;
+        this.rowHi = rowHi;
+        this.maps = maps;
+        this.taskMap = null;
+        this.timestampSampler = null;
+        this.functions = functions;
+        this.records = records;
+        this.mapSink = mapSink;
+        this.symbolTableSource = symbolTableSource;
+        this.doneLatch = doneLatch;
+        this.error = null;
+        // entry becomes available to workers only after all of the above is set
+        of(sequence);
+    }
+
+    void of(
+            int sequence,
+            LongList frameAddresses,
+            long rowLo,
+            long rowHi,
+            FastMap taskMap,
+            TimestampSampler timestampSampler,
+            int timestampIndex,
+            long baselineOffset,
+            ObjList<ObjList<GroupByFunction>> functions,
+            ObjList<PageFrameRecord> records,
+            RecordSink mapSink,
+            SymbolTableSource symbolTableSource,
+            CountDownLatchSPI doneLatch
+    ) {
+        this.columnAddresses.clear();
+        this.columnAddresses.add(frameAddresses);
+        this.rowLo = rowLo;
+        this.rowHi = rowHi;
+        this.maps = null;
+        this.taskMap = taskMap;
+        this.timestampSampler = timestampSampler;
+        this.timestampIndex = timestampIndex;
+        this.baselineOffset = baselineOffset;
+        this.functions = functions;
+        this.records = records;
+        this.mapSink = mapSink;
+        this.symbolTableSource = symbolTableSource;
+        this.doneLatch = doneLatch;
+        this.error = null;
+        // entry becomes available to workers only after all of the above is set
+        of(sequence);
+    }
+}
@@ -0,0 +1,296 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.AbstractVirtualFunctionRecordCursor;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.table.PageFrameRecord;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.tasks.PageFrameGroupByTask;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Keyed GROUP BY that aggregates page frames on the shared worker pool. Each worker
+ * aggregates into its own map using its own instances of group-by functions. Once all
+ * frames are done, maps are merged into the map of the thread that owns the cursor.
+ * All group-by functions must support merge of partial aggregates.
+ */
+public class ParallelGroupByRecordCursorFactory implements RecordCursorFactory {
+    private static final Log LOG = LogFactory.getLog(ParallelGroupByRecordCursorFactory.class);
+    private final RecordCursorFactory base;
+    private final RecordMetadata metadata;
+    private final ObjList<FastMap> maps;
+    private final ObjList<ObjList<GroupByFunction>> functions;
+    private final ObjList<GroupByFunction> groupByFunctions;
+    private final ObjList<Function> recordFunctions;
+    private final ObjList<PageFrameRecord> records;
+    private final ObjList<PageFrameGroupByEntry> entries = new ObjList<>();
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final LongList frameAddresses = new LongList();
+    private final RecordSink mapSink;
+    private final ParallelGroupByRecordCursor cursor;
+    private final SymbolTableSource symbolTableSource = this::getBaseSymbolTable;
+    private final FastMap.MergeFunction mergeFunction = this::merge;
+    private final long maxTaskRowCount;
+    private final int firstColumnShift;
+    private final int columnCount;
+    private final int ownerSlot;
+    private PageFrameCursor pageFrameCursor;
+
+    public ParallelGroupByRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordCursorFactory base,
+            @Transient @NotNull ListColumnFilter listColumnFilter,
+            @Transient @NotNull BytecodeAssembler asm,
+            @Transient @NotNull ArrayColumnTypes keyTypes,
+            @Transient @NotNull ArrayColumnTypes valueTypes,
+            RecordMetadata groupByMetadata,
+            ObjList<ObjList<GroupByFunction>> workerGroupByFunctions,
+            ObjList<GroupByFunction> groupByFunctions,
+            ObjList<Function> recordFunctions
+    ) {
+        assert base.supportPageFrameCursor();
+        final int slotCount = workerGroupByFunctions.size() + 1;
+        this.maps = new ObjList<>(slotCount);
+        try {
+            for (int i = 0; i < slotCount; i++) {
+                maps.add(new FastMap(
+                        configuration.getSqlMapPageSize(),
+                        keyTypes,
+                        valueTypes,
+                        configuration.getSqlMapKeyCapacity(),
+                        configuration.getSqlFastMapLoadFactor(),
+                        configuration.getSqlMapMaxResizes()
+                ));
+            }
+            this.mapSink = RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, false);
+        } catch (Throwable e) {
+            Misc.freeObjList(maps);
+            Misc.freeObjList(recordFunctions);
+            for (int i = 0, n = workerGroupByFunctions.size(); i < n; i++) {
+                Misc.freeObjList(workerGroupByFunctions.getQuick(i));
+            }
+            throw e;
+        }
+        this.base = base;
+        this.metadata = groupByMetadata;
+        this.groupByFunctions = groupByFunctions;
+        this.recordFunctions = recordFunctions;
+        // last slot is reserved for the thread that owns the cursor
+        this.functions = new ObjList<>(slotCount);
+        this.functions.addAll(workerGroupByFunctions);
+        this.functions.add(groupByFunctions);
+        this.ownerSlot = slotCount - 1;
+        this.records = new ObjList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            records.add(new PageFrameRecord());
+        }
+        this.maxTaskRowCount = configuration.getParallelGroupByFrameRowCount();
+        this.firstColumnShift = ColumnType.pow2SizeOf(base.getMetadata().getColumnType(0));
+        this.columnCount = base.getMetadata().getColumnCount();
+        this.cursor = new ParallelGroupByRecordCursor(recordFunctions);
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(recordFunctions);
+        // owner functions are part of record functions
+        for (int i = 0; i < ownerSlot; i++) {
+            Misc.freeObjList(functions.getQuick(i));
+        }
+        Misc.freeObjList(maps);
+        Misc.free(base);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        pageFrameCursor = base.getPageFrameCursor(executionContext);
+        try {
+            for (int i = 0, n = maps.size(); i < n; i++) {
+                maps.getQuick(i).clear();
+                Function.init(functions.getQuick(i), symbolTableSource, executionContext);
+            }
+            aggregate(executionContext);
+
+            final FastMap dataMap = maps.getQuick(ownerSlot);
+            for (int i = 0; i < ownerSlot; i++) {
+                final FastMap map = maps.getQuick(i);
+                if (map.size() > 0) {
+                    dataMap.merge(map, mergeFunction);
+                }
+            }
+
+            cursor.of(pageFrameCursor, dataMap.getCursor());
+            // init all record function for this cursor, in case functions require metadata and/or symbol tables
+            Function.init(recordFunctions, symbolTableSource, executionContext);
+            return cursor;
+        } catch (Throwable e) {
+            pageFrameCursor = Misc.free(pageFrameCursor);
+            throw e;
+        }
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    private void aggregate(SqlExecutionContext executionContext) {
+        final MessageBus bus = executionContext.getMessageBus();
+        final RingQueue<PageFrameGroupByTask> queue = bus.getPageFrameGroupByQueue();
+        final Sequence pubSeq = bus.getPageFrameGroupByPubSeq();
+        final int batchSize = queue.getCapacity();
+
+        int sequence = 0;
+        int total = 0;
+        int ownCount = 0;
+        int reclaimed = 0;
+        int entryCount = 0;
+        long frameRowLo = 0;
+        long frameRowHi = 0;
+        boolean framesExhausted = false;
+        doneLatch.reset();
+
+        while (true) {
+            if (frameRowLo == frameRowHi) {
+                final PageFrame frame = pageFrameCursor.next();
+                if (frame != null) {
+                    frameAddresses.clear();
+                    for (int i = 0; i < columnCount; i++) {
+                        frameAddresses.add(frame.getPageAddress(i));
+                    }
+                    frameRowLo = 0;
+                    // column top frames report size in rows rather than bytes
+                    frameRowHi = frameAddresses.getQuick(0) == 0 ? frame.getPageSize(0) : frame.getPageSize(0) >> firstColumnShift;
+                    continue;
+                }
+                framesExhausted = true;
+            } else {
+                final long rowHi = Math.min(frameRowHi, frameRowLo + maxTaskRowCount);
+                final PageFrameGroupByEntry entry = nextEntry(entryCount++);
+                entry.of(sequence++, frameAddresses, frameRowLo, rowHi, maps, functions, records, mapSink, symbolTableSource, doneLatch);
+                frameRowLo = rowHi;
+
+                final long seq = pubSeq.next();
+                if (seq < 0) {
+                    entry.run(ownerSlot);
+                    ownCount++;
+                } else {
+                    queue.get(seq).entry = entry;
+                    pubSeq.done(seq);
+                }
+
+                if (entryCount < batchSize) {
+                    continue;
+                }
+            }
+
+            // batch is full or there are no more frames, help with published work and wait for the rest
+            reclaimed += awaitEntries(entryCount);
+            total += entryCount;
+            if (framesExhausted) {
+                break;
+            }
+            entryCount = 0;
+            executionContext.getSqlExecutionInterruptor().checkInterrupted();
+        }
+
+        LOG.debug().$("aggregated [total=").$(total).$(", ownCount=").$(ownCount).$(", reclaimed=").$(reclaimed).$(']').$();
+    }
+
+    private int awaitEntries(int entryCount) {
+        int reclaimed = 0;
+        // start at the back to reduce chance of clashing with workers
+        for (int i = entryCount - 1; i > -1 && doneLatch.getCount() > -entryCount; i--) {
+            if (entries.getQuick(i).run(ownerSlot)) {
+                reclaimed++;
+            }
+        }
+        doneLatch.await(entryCount);
+        doneLatch.reset();
+
+        for (int i = 0; i < entryCount; i++) {
+            final Throwable error = entries.getQuick(i).getError();
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if (error != null) {
+                throw CairoException.instance(0).put("parallel group by failed: ").put(error.getMessage());
+            }
+        }
+        return reclaimed;
+    }
+
+    private SymbolTable getBaseSymbolTable(int columnIndex) {
+        return pageFrameCursor.getSymbolMapReader(columnIndex);
+    }
+
+    private void merge(MapValue destValue, MapValue srcValue) {
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            groupByFunctions.getQuick(i).merge(destValue, srcValue);
+        }
+    }
+
+    private PageFrameGroupByEntry nextEntry(int index) {
+        if (index == entries.size()) {
+            entries.add(new PageFrameGroupByEntry());
+        }
+        return entries.getQuick(index);
+    }
+
+    private static class ParallelGroupByRecordCursor extends AbstractVirtualFunctionRecordCursor {
+        private PageFrameCursor pageFrameCursor;
+
+        public ParallelGroupByRecordCursor(ObjList<Function> functions) {
+            super(functions, true);
+        }
+
+        @Override
+        public void close() {
+            pageFrameCursor = Misc.free(pageFrameCursor);
+        }
+
+        void of(PageFrameCursor pageFrameCursor, RecordCursor mapCursor) {
+            this.pageFrameCursor = pageFrameCursor;
+            of(mapCursor);
+        }
+    }
+}
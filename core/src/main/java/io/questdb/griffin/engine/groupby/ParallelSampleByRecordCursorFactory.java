@@ -0,0 +1,635 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.FastMapCursor;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapRecord;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.EmptyTableNoSizeRecordCursor;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.functions.TimestampFunction;
+import io.questdb.griffin.engine.table.PageFrameRecord;
+import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.tasks.PageFrameGroupByTask;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * SAMPLE BY that aggregates page frames on the shared worker pool. Frames are split into
+ * row ranges, each range is aggregated into its own map keyed by sample bucket and
+ * group-by keys. Range maps are merged in time order, which keeps result map ordered by
+ * bucket and allows first() and last() to be merged. Gaps are filled once all data is
+ * aggregated, fill semantics are the same as those of sequential SAMPLE BY cursors.
+ */
+public class ParallelSampleByRecordCursorFactory implements RecordCursorFactory {
+    public static final int FILL_NONE = 0;
+    public static final int FILL_NULL = 1;
+    public static final int FILL_PREV = 2;
+    public static final int FILL_VALUE = 3;
+    private static final Log LOG = LogFactory.getLog(ParallelSampleByRecordCursorFactory.class);
+    // row ranges are small compared to the whole data set, range maps start small and grow on demand
+    private static final int TASK_MAP_PAGE_SIZE = 64 * 1024;
+    private static final int TASK_MAP_KEY_CAPACITY = 1024;
+    private final RecordCursorFactory base;
+    private final RecordMetadata metadata;
+    private final FastMap dataMap;
+    private final FastMap fillMap;
+    private final ObjList<FastMap> taskMaps = new ObjList<>();
+    private final ArrayColumnTypes mapKeyTypes = new ArrayColumnTypes();
+    private final ArrayColumnTypes mapValueTypes = new ArrayColumnTypes();
+    private final ObjList<ObjList<GroupByFunction>> functions;
+    private final ObjList<GroupByFunction> groupByFunctions;
+    private final ObjList<Function> recordFunctions;
+    private final ObjList<PageFrameRecord> records;
+    private final ObjList<PageFrameGroupByEntry> entries = new ObjList<>();
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final LongList frameAddresses = new LongList();
+    private final RecordSink mapSink;
+    private final RecordSink fillMapSink;
+    private final TimestampSampler timestampSampler;
+    private final ParallelSampleByRecordCursor cursor;
+    private final SymbolTableSource symbolTableSource = this::getBaseSymbolTable;
+    private final FastMap.MergeFunction mergeFunction = this::merge;
+    private final CairoConfiguration configuration;
+    private final long maxTaskRowCount;
+    private final int timestampIndex;
+    private final int timestampShift;
+    private final int columnCount;
+    private final int ownerSlot;
+    private PageFrameCursor pageFrameCursor;
+    private long baselineOffset;
+
+    public ParallelSampleByRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordCursorFactory base,
+            @NotNull TimestampSampler timestampSampler,
+            @Transient @NotNull ListColumnFilter listColumnFilter,
+            @Transient @NotNull BytecodeAssembler asm,
+            @Transient @NotNull ObjList<ExpressionNode> fillValues,
+            @Transient @NotNull ArrayColumnTypes keyTypes,
+            @Transient @NotNull ArrayColumnTypes valueTypes,
+            RecordMetadata groupByMetadata,
+            ObjList<ObjList<GroupByFunction>> workerGroupByFunctions,
+            ObjList<GroupByFunction> groupByFunctions,
+            ObjList<Function> recordFunctions,
+            int fillMode,
+            int timestampIndex
+    ) throws SqlException {
+        assert base.supportPageFrameCursor();
+        final int keyCount = keyTypes.getColumnCount();
+        final int valueCount = valueTypes.getColumnCount();
+        final boolean fillKeys = keyCount > 0 && fillMode != FILL_NONE;
+        FastMap dataMap = null;
+        FastMap fillMap = null;
+        final ObjList<Function> placeholderFunctions;
+        try {
+            // sample bucket is the last key column
+            for (int i = 0; i < keyCount; i++) {
+                mapKeyTypes.add(keyTypes.getColumnType(i));
+            }
+            mapKeyTypes.add(ColumnType.TIMESTAMP);
+            for (int i = 0; i < valueCount; i++) {
+                mapValueTypes.add(valueTypes.getColumnType(i));
+            }
+            dataMap = new FastMap(
+                    configuration.getSqlMapPageSize(),
+                    mapKeyTypes,
+                    mapValueTypes,
+                    configuration.getSqlMapKeyCapacity(),
+                    configuration.getSqlFastMapLoadFactor(),
+                    configuration.getSqlMapMaxResizes()
+            );
+            this.mapSink = RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, false);
+
+            if (fillKeys) {
+                // fill map holds all keys in order of their first appearance, values are
+                // row ids of the last and the first data map entries of the key
+                final ArrayColumnTypes fillValueTypes = new ArrayColumnTypes();
+                fillValueTypes.add(ColumnType.LONG);
+                fillValueTypes.add(ColumnType.LONG);
+                fillMap = new FastMap(
+                        configuration.getSqlMapPageSize(),
+                        keyTypes,
+                        fillValueTypes,
+                        configuration.getSqlMapKeyCapacity(),
+                        configuration.getSqlFastMapLoadFactor(),
+                        configuration.getSqlMapMaxResizes()
+                );
+
+                // data map record has value columns followed by key columns
+                final ArrayColumnTypes dataRecordTypes = new ArrayColumnTypes();
+                final ListColumnFilter dataRecordKeyFilter = new ListColumnFilter();
+                for (int i = 0; i < valueCount; i++) {
+                    dataRecordTypes.add(valueTypes.getColumnType(i));
+                }
+                for (int i = 0; i < keyCount; i++) {
+                    dataRecordTypes.add(keyTypes.getColumnType(i));
+                    dataRecordKeyFilter.add(valueCount + i + 1);
+                }
+                this.fillMapSink = RecordSinkFactory.getInstance(asm, dataRecordTypes, dataRecordKeyFilter, false);
+            } else {
+                this.fillMapSink = null;
+            }
+
+            switch (fillMode) {
+                case FILL_NULL:
+                    placeholderFunctions = SampleByFillNullRecordCursorFactory.createPlaceholderFunctions(recordFunctions);
+                    break;
+                case FILL_VALUE:
+                    placeholderFunctions = SampleByFillValueRecordCursorFactory.createPlaceholderFunctions(recordFunctions, fillValues);
+                    break;
+                case FILL_PREV:
+                    // keys that have not appeared yet have no previous values, these are null
+                    placeholderFunctions = fillKeys ? SampleByFillNullRecordCursorFactory.createPlaceholderFunctions(recordFunctions) : new ObjList<>(recordFunctions);
+                    break;
+                default:
+                    placeholderFunctions = new ObjList<>(recordFunctions);
+                    break;
+            }
+        } catch (Throwable e) {
+            Misc.free(dataMap);
+            Misc.free(fillMap);
+            Misc.freeObjList(recordFunctions);
+            for (int i = 0, n = workerGroupByFunctions.size(); i < n; i++) {
+                Misc.freeObjList(workerGroupByFunctions.getQuick(i));
+            }
+            throw e;
+        }
+        this.configuration = configuration;
+        this.dataMap = dataMap;
+        this.fillMap = fillMap;
+        this.base = base;
+        this.metadata = groupByMetadata;
+        this.timestampSampler = timestampSampler;
+        this.timestampIndex = timestampIndex;
+        this.groupByFunctions = groupByFunctions;
+        this.recordFunctions = recordFunctions;
+        // last slot is reserved for the thread that owns the cursor
+        final int slotCount = workerGroupByFunctions.size() + 1;
+        this.functions = new ObjList<>(slotCount);
+        this.functions.addAll(workerGroupByFunctions);
+        this.functions.add(groupByFunctions);
+        this.ownerSlot = slotCount - 1;
+        this.records = new ObjList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            records.add(new PageFrameRecord());
+        }
+        this.maxTaskRowCount = configuration.getParallelGroupByFrameRowCount();
+        this.timestampShift = ColumnType.pow2SizeOf(ColumnType.TIMESTAMP);
+        this.columnCount = base.getMetadata().getColumnCount();
+        this.cursor = new ParallelSampleByRecordCursor(recordFunctions, placeholderFunctions, fillMode);
+    }
+
+    /**
+     * Null placeholders can only be created for numeric functions. Keyed FILL(PREV) needs
+     * them for keys that have no previous values yet.
+     */
+    public static boolean isFillSupported(int fillMode, boolean keyed, ObjList<GroupByFunction> groupByFunctions) {
+        if (fillMode == FILL_PREV && keyed) {
+            for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+                switch (groupByFunctions.getQuick(i).getType()) {
+                    case ColumnType.INT:
+                    case ColumnType.LONG:
+                    case ColumnType.FLOAT:
+                    case ColumnType.DOUBLE:
+                    case ColumnType.BYTE:
+                    case ColumnType.SHORT:
+                        break;
+                    default:
+                        return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(recordFunctions);
+        // owner functions are part of record functions
+        for (int i = 0; i < ownerSlot; i++) {
+            Misc.freeObjList(functions.getQuick(i));
+        }
+        Misc.freeObjList(taskMaps);
+        Misc.free(dataMap);
+        Misc.free(fillMap);
+        Misc.free(base);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        pageFrameCursor = base.getPageFrameCursor(executionContext);
+        try {
+            dataMap.clear();
+            for (int i = 0, n = functions.size(); i < n; i++) {
+                Function.init(functions.getQuick(i), symbolTableSource, executionContext);
+            }
+            aggregate(executionContext);
+
+            if (dataMap.size() == 0) {
+                pageFrameCursor = Misc.free(pageFrameCursor);
+                return EmptyTableNoSizeRecordCursor.INSTANCE;
+            }
+
+            cursor.of();
+            // init all record function for this cursor, in case functions require metadata and/or symbol tables
+            Function.init(recordFunctions, symbolTableSource, executionContext);
+            return cursor;
+        } catch (Throwable e) {
+            pageFrameCursor = Misc.free(pageFrameCursor);
+            throw e;
+        }
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    private void aggregate(SqlExecutionContext executionContext) {
+        final MessageBus bus = executionContext.getMessageBus();
+        final RingQueue<PageFrameGroupByTask> queue = bus.getPageFrameGroupByQueue();
+        final Sequence pubSeq = bus.getPageFrameGroupByPubSeq();
+        final int batchSize = queue.getCapacity();
+
+        int sequence = 0;
+        int total = 0;
+        int ownCount = 0;
+        int reclaimed = 0;
+        int entryCount = 0;
+        long frameRowLo = 0;
+        long frameRowHi = 0;
+        boolean framesExhausted = false;
+        boolean firstRow = true;
+        doneLatch.reset();
+
+        while (true) {
+            if (frameRowLo == frameRowHi) {
+                final PageFrame frame = pageFrameCursor.next();
+                if (frame != null) {
+                    frameAddresses.clear();
+                    for (int i = 0; i < columnCount; i++) {
+                        frameAddresses.add(frame.getPageAddress(i));
+                    }
+                    frameRowLo = 0;
+                    // designated timestamp column cannot have column top
+                    frameRowHi = frame.getPageSize(timestampIndex) >> timestampShift;
+                    if (firstRow && frameRowHi > 0) {
+                        // buckets are aligned to the timestamp of the first row
+                        final long timestamp = Unsafe.getUnsafe().getLong(frame.getPageAddress(timestampIndex));
+                        baselineOffset = timestamp - timestampSampler.round(timestamp);
+                        firstRow = false;
+                    }
+                    continue;
+                }
+                framesExhausted = true;
+            } else {
+                final long rowHi = Math.min(frameRowHi, frameRowLo + maxTaskRowCount);
+                final PageFrameGroupByEntry entry = nextEntry(entryCount);
+                entry.of(
+                        sequence++,
+                        frameAddresses,
+                        frameRowLo,
+                        rowHi,
+                        nextTaskMap(entryCount),
+                        timestampSampler,
+                        timestampIndex,
+                        baselineOffset,
+                        functions,
+                        records,
+                        mapSink,
+                        symbolTableSource,
+                        doneLatch
+                );
+                entryCount++;
+                frameRowLo = rowHi;
+
+                final long seq = pubSeq.next();
+                if (seq < 0) {
+                    entry.run(ownerSlot);
+                    ownCount++;
+                } else {
+                    queue.get(seq).entry = entry;
+                    pubSeq.done(seq);
+                }
+
+                if (entryCount < batchSize) {
+                    continue;
+                }
+            }
+
+            // batch is full or there are no more frames, help with published work and wait for the rest
+            reclaimed += awaitEntries(entryCount);
+            total += entryCount;
+
+            // merge in order of row ranges, this keeps data map ordered by sample bucket
+            for (int i = 0; i < entryCount; i++) {
+                final FastMap taskMap = taskMaps.getQuick(i);
+                dataMap.merge(taskMap, mergeFunction);
+                taskMap.clear();
+            }
+
+            if (framesExhausted) {
+                break;
+            }
+            entryCount = 0;
+            executionContext.getSqlExecutionInterruptor().checkInterrupted();
+        }
+
+        LOG.debug().$("sampled [total=").$(total).$(", ownCount=").$(ownCount).$(", reclaimed=").$(reclaimed).$(']').$();
+    }
+
+    private int awaitEntries(int entryCount) {
+        int reclaimed = 0;
+        // start at the back to reduce chance of clashing with workers
+        for (int i = entryCount - 1; i > -1 && doneLatch.getCount() > -entryCount; i--) {
+            if (entries.getQuick(i).run(ownerSlot)) {
+                reclaimed++;
+            }
+        }
+        doneLatch.await(entryCount);
+        doneLatch.reset();
+
+        for (int i = 0; i < entryCount; i++) {
+            final Throwable error = entries.getQuick(i).getError();
+            if (error != null) {
+                for (int j = 0; j < entryCount; j++) {
+                    taskMaps.getQuick(j).clear();
+                }
+                if (error instanceof RuntimeException) {
+                    throw (RuntimeException) error;
+                }
+                throw CairoException.instance(0).put("parallel sample by failed: ").put(error.getMessage());
+            }
+        }
+        return reclaimed;
+    }
+
+    private SymbolTable getBaseSymbolTable(int columnIndex) {
+        return pageFrameCursor.getSymbolMapReader(columnIndex);
+    }
+
+    private void merge(MapValue destValue, MapValue srcValue) {
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            groupByFunctions.getQuick(i).merge(destValue, srcValue);
+        }
+    }
+
+    private PageFrameGroupByEntry nextEntry(int index) {
+        if (index == entries.size()) {
+            entries.add(new PageFrameGroupByEntry());
+        }
+        return entries.getQuick(index);
+    }
+
+    private FastMap nextTaskMap(int index) {
+        if (index == taskMaps.size()) {
+            taskMaps.add(new FastMap(
+                    TASK_MAP_PAGE_SIZE,
+                    mapKeyTypes,
+                    mapValueTypes,
+                    TASK_MAP_KEY_CAPACITY,
+                    configuration.getSqlFastMapLoadFactor(),
+                    configuration.getSqlMapMaxResizes()
+            ));
+        }
+        return taskMaps.getQuick(index);
+    }
+
+    private class ParallelSampleByRecordCursor implements NoRandomAccessRecordCursor {
+        private final SplitVirtualRecord record;
+        private final FastMapCursor dataCursor;
+        private final MapRecord dataRecord;
+        private final MapRecord outRecord;
+        private final ObjList<Function> recordFunctions;
+        private final int fillMode;
+        private RecordCursor fillCursor;
+        private long bucket;
+        private long lastBucket;
+        private long lastRowId;
+        private boolean started;
+        private boolean pending;
+
+        public ParallelSampleByRecordCursor(ObjList<Function> recordFunctions, ObjList<Function> placeholderFunctions, int fillMode) {
+            final TimestampFunc timestampFunc = new TimestampFunc(0);
+            for (int i = 0, n = recordFunctions.size(); i < n; i++) {
+                if (recordFunctions.getQuick(i) == null) {
+                    recordFunctions.setQuick(i, timestampFunc);
+                    placeholderFunctions.setQuick(i, timestampFunc);
+                }
+            }
+            this.recordFunctions = recordFunctions;
+            this.record = new SplitVirtualRecord(recordFunctions, placeholderFunctions);
+            this.dataCursor = (FastMapCursor) dataMap.getCursor();
+            this.dataRecord = dataCursor.getRecord();
+            this.outRecord = dataCursor.getRecordB();
+            this.record.of(outRecord);
+            this.record.setActiveA();
+            this.fillMode = fillMode;
+        }
+
+        @Override
+        public void close() {
+            pageFrameCursor = Misc.free(pageFrameCursor);
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return (SymbolTable) recordFunctions.getQuick(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (fillMode == FILL_NONE) {
+                if (dataCursor.hasNext()) {
+                    bucket = dataRecord.getTimestamp(0);
+                    dataCursor.recordAt(outRecord, dataRecord.getRowId());
+                    return true;
+                }
+                return false;
+            }
+
+            if (fillCursor != null) {
+                if (fillCursor.hasNext()) {
+                    positionFillRecord();
+                    return true;
+                }
+            }
+
+            if (!nextBucket()) {
+                return false;
+            }
+
+            if (fillCursor == null) {
+                // not keyed, there is either data row or gap in this bucket
+                if (pending && dataRecord.getTimestamp(0) == bucket) {
+                    lastRowId = dataRecord.getRowId();
+                    pending = dataCursor.hasNext();
+                    dataCursor.recordAt(outRecord, lastRowId);
+                    record.setActiveA();
+                } else {
+                    dataCursor.recordAt(outRecord, lastRowId);
+                    if (fillMode == FILL_PREV) {
+                        record.setActiveA();
+                    } else {
+                        record.setActiveB();
+                    }
+                }
+                return true;
+            }
+
+            while (pending && dataRecord.getTimestamp(0) == bucket) {
+                final MapKey key = fillMap.withKey();
+                fillMapSink.copy(dataRecord, key);
+                final MapValue value = key.findValue();
+                assert value != null;
+                value.putLong(0, dataRecord.getRowId());
+                pending = dataCursor.hasNext();
+            }
+
+            fillCursor = fillMap.getCursor();
+            final boolean next = fillCursor.hasNext();
+            assert next;
+            positionFillRecord();
+            return true;
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            GroupByUtils.toTop(recordFunctions);
+            dataCursor.toTop();
+            if (fillMode == FILL_NONE) {
+                return;
+            }
+
+            started = false;
+            pending = dataCursor.hasNext();
+            if (fillMap != null) {
+                fillCursor = fillMap.getCursor();
+                final MapRecord fillRecord = fillMap.getRecord();
+                while (fillCursor.hasNext()) {
+                    fillRecord.getValue().putLong(0, -1);
+                }
+            } else {
+                lastRowId = dataRecord.getRowId();
+            }
+        }
+
+        private boolean nextBucket() {
+            if (started) {
+                final long next = timestampSampler.nextTimestamp(bucket);
+                if (next > lastBucket) {
+                    return false;
+                }
+                bucket = next;
+            } else {
+                bucket = dataRecord.getTimestamp(0);
+                started = true;
+            }
+            return true;
+        }
+
+        void of() {
+            // map memory can move while it grows, cursor has to be taken once aggregation is done
+            dataMap.getCursor();
+            if (fillMap != null) {
+                // collect all keys in order of their first appearance, every bucket
+                // streams all of them
+                fillMap.clear();
+                dataCursor.toTop();
+                while (dataCursor.hasNext()) {
+                    final MapKey key = fillMap.withKey();
+                    fillMapSink.copy(dataRecord, key);
+                    final MapValue value = key.createValue();
+                    if (value.isNew()) {
+                        value.putLong(1, dataRecord.getRowId());
+                    }
+                    lastBucket = dataRecord.getTimestamp(0);
+                }
+            } else if (fillMode != FILL_NONE) {
+                dataCursor.toTop();
+                while (dataCursor.hasNext()) {
+                    lastBucket = dataRecord.getTimestamp(0);
+                }
+            }
+            // data map is ordered by bucket, the last entry has the last bucket
+            toTop();
+        }
+
+        private void positionFillRecord() {
+            final MapValue value = fillMap.getRecord().getValue();
+            final long rowId = value.getLong(0);
+            if (rowId != -1) {
+                dataCursor.recordAt(outRecord, rowId);
+                if (fillMode == FILL_PREV || outRecord.getTimestamp(0) == bucket) {
+                    record.setActiveA();
+                    return;
+                }
+            }
+            // key has no data in this bucket, key columns are read from its first entry
+            dataCursor.recordAt(outRecord, value.getLong(1));
+            record.setActiveB();
+        }
+
+        private class TimestampFunc extends TimestampFunction implements Function {
+
+            public TimestampFunc(int position) {
+                super(position);
+            }
+
+            @Override
+            public long getTimestamp(Record rec) {
+                return bucket + baselineOffset;
+            }
+        }
+    }
+}
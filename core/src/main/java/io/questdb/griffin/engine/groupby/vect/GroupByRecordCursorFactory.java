@@ -25,6 +25,7 @@
 package io.questdb.griffin.engine.groupby.vect;
 
 import io.questdb.MessageBus;
+import io.questdb.cairo.ArrayColumnTypes;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.ColumnTypes;
@@ -54,6 +55,8 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
     private final long[] pRosti;
     private final int keyColumnIndex;
     private final RostiRecordCursor cursor;
+    private final RostiKeyWidener keyWidener;
+    private final IntList valueShifts;
 
     public GroupByRecordCursorFactory(
             CairoConfiguration configuration,
@@ -78,12 +81,35 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
 
         this.base = base;
         this.metadata = metadata;
-        // first column is INT or SYMBOL
+        // first column is INT or SYMBOL, BYTE, SHORT and CHAR keys are widened to INT
         this.pRosti = new long[workerCount];
         final int vafCount = vafList.size();
         this.vafList = new ObjList<>(vafCount);
+
+        final int keyType = columnTypes.getColumnType(0);
+        final ColumnTypes rostiTypes;
+        if (RostiKeyWidener.isWidened(keyType)) {
+            final ArrayColumnTypes widenedTypes = new ArrayColumnTypes();
+            widenedTypes.add(ColumnType.INT);
+            for (int i = 1, n = columnTypes.getColumnCount(); i < n; i++) {
+                widenedTypes.add(columnTypes.getColumnType(i));
+            }
+            rostiTypes = widenedTypes;
+            this.keyWidener = new RostiKeyWidener(keyType, workerCount);
+            final RecordMetadata baseMetadata = base.getMetadata();
+            this.valueShifts = new IntList(vafCount);
+            for (int i = 0; i < vafCount; i++) {
+                final int columnIndex = vafList.getQuick(i).getColumnIndex();
+                valueShifts.add(columnIndex > -1 ? ColumnType.pow2SizeOf(baseMetadata.getColumnType(columnIndex)) : keyWidener.getKeyShift());
+            }
+        } else {
+            rostiTypes = columnTypes;
+            this.keyWidener = null;
+            this.valueShifts = null;
+        }
+
         for (int i = 0; i < workerCount; i++) {
-            pRosti[i] = Rosti.alloc(columnTypes, configuration.getGroupByMapCapacity());
+            pRosti[i] = Rosti.alloc(rostiTypes, configuration.getGroupByMapCapacity());
 
             // todo: init key to null value
 
@@ -95,6 +121,11 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
                 case ColumnType.SYMBOL:
                     Unsafe.getUnsafe().putInt(Rosti.getInitialValueSlot(pRosti[i], 0), SymbolTable.VALUE_IS_NULL);
                     break;
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                case ColumnType.CHAR:
+                    Unsafe.getUnsafe().putInt(Rosti.getInitialValueSlot(pRosti[i], 0), 0);
+                    break;
                 default:
             }
 
@@ -151,6 +182,7 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
     @Override
     public void close() {
         Misc.freeObjList(vafList);
+        Misc.free(keyWidener);
         for (int i = 0, n = pRosti.length; i < n; i++) {
             Rosti.free(pRosti[i]);
         }
@@ -218,6 +250,8 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
                 if (seq < 0) {
                     if (keyAddress == 0) {
                         vaf.aggregate(valueAddress, valueAddressSize, workerId);
+                    } else if (keyWidener != null) {
+                        keyWidener.aggregate(vaf, pRosti[workerId], keyAddress, frame.getPageSize(keyColumnIndex), valueAddress, valueShifts.getQuick(i), workerId);
                     } else {
                         vaf.aggregate(pRosti[workerId], keyAddress, valueAddress, valueAddressSize, workerId);
                     }
@@ -227,6 +261,8 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
                         final VectorAggregateEntry entry = entryPool.next();
                         if (keyAddress == 0) {
                             entry.of(queuedCount++, vaf, null, 0, valueAddress, valueAddressSize, doneLatch);
+                        } else if (keyWidener != null) {
+                            entry.of(queuedCount++, vaf, pRosti, keyWidener, keyAddress, frame.getPageSize(keyColumnIndex), valueAddress, valueShifts.getQuick(i), doneLatch);
                         } else {
                             entry.of(queuedCount++, vaf, pRosti, keyAddress, valueAddress, valueAddressSize, doneLatch);
                         }
@@ -389,12 +425,12 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
 
             @Override
             public byte getByte(int col) {
-                throw new UnsupportedOperationException();
+                return (byte) getInt(col);
             }
 
             @Override
             public char getChar(int col) {
-                throw new UnsupportedOperationException();
+                return (char) getInt(col);
             }
 
             @Override
@@ -448,7 +484,7 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
 
             @Override
             public short getShort(int col) {
-                return 0;
+                return (short) getInt(col);
             }
 
             @Override
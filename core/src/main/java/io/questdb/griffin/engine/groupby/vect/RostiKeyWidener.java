@@ -0,0 +1,121 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.std.Unsafe;
+
+import java.io.Closeable;
+
+/**
+ * Feeds BYTE, SHORT and CHAR keys into int-keyed Rosti functions. Keys are widened
+ * into per-worker int buffer one chunk at a time, so buffer size does not depend on
+ * page frame size. LONG keys cannot be narrowed without collisions and are not
+ * handled here, native Rosti functions are keyed by int only.
+ */
+class RostiKeyWidener implements Closeable {
+    static final int CHUNK_ROW_COUNT = 64 * 1024;
+    private final int keyType;
+    private final int keyShift;
+    private final long[] pKeys;
+
+    RostiKeyWidener(int keyType, int workerCount) {
+        this.keyType = keyType;
+        this.keyShift = ColumnType.pow2SizeOf(keyType);
+        this.pKeys = new long[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            pKeys[i] = Unsafe.malloc((long) CHUNK_ROW_COUNT * Integer.BYTES);
+        }
+    }
+
+    static boolean isWidened(int keyType) {
+        switch (keyType) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    void aggregate(
+            VectorAggregateFunction vaf,
+            long pRosti,
+            long keyAddress,
+            long keyAddressSize,
+            long valueAddress,
+            int valueShift,
+            int workerId
+    ) {
+        final long pKey = pKeys[workerId];
+        final long rowCount = keyAddressSize >>> keyShift;
+        for (long lo = 0; lo < rowCount; lo += CHUNK_ROW_COUNT) {
+            final long n = Math.min(CHUNK_ROW_COUNT, rowCount - lo);
+            widen(keyAddress + (lo << keyShift), n, pKey);
+            vaf.aggregate(
+                    pRosti,
+                    pKey,
+                    valueAddress == 0 ? 0 : valueAddress + (lo << valueShift),
+                    n << valueShift,
+                    workerId
+            );
+        }
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0, n = pKeys.length; i < n; i++) {
+            if (pKeys[i] != 0) {
+                Unsafe.free(pKeys[i], (long) CHUNK_ROW_COUNT * Integer.BYTES);
+                pKeys[i] = 0;
+            }
+        }
+    }
+
+    int getKeyShift() {
+        return keyShift;
+    }
+
+    private void widen(long src, long count, long dst) {
+        switch (keyType) {
+            case ColumnType.BYTE:
+                for (long i = 0; i < count; i++) {
+                    Unsafe.getUnsafe().putInt(dst + (i << 2), Unsafe.getUnsafe().getByte(src + i));
+                }
+                break;
+            case ColumnType.SHORT:
+                for (long i = 0; i < count; i++) {
+                    Unsafe.getUnsafe().putInt(dst + (i << 2), Unsafe.getUnsafe().getShort(src + (i << 1)));
+                }
+                break;
+            default:
+                for (long i = 0; i < count; i++) {
+                    Unsafe.getUnsafe().putInt(dst + (i << 2), Unsafe.getUnsafe().getChar(src + (i << 1)));
+                }
+                break;
+        }
+    }
+}
@@ -31,6 +31,9 @@ import io.questdb.std.Mutable;
 public class VectorAggregateEntry extends AbstractLockable implements Mutable {
     private long[] pRosti;
     private long keyAddress;
+    private long keyAddressSize;
+    private RostiKeyWidener keyWidener;
+    private int valueShift;
     private long valueAddress;
     private long valueCount;
     private VectorAggregateFunction func;
@@ -40,12 +43,15 @@ public class VectorAggregateEntry extends AbstractLockable implements Mutable {
     public void clear() {
         this.valueAddress = 0;
         this.valueCount = 0;
+        this.keyWidener = null;
         func = null;
     }
 
     public boolean run(int workerId) {
         if (tryLock()) {
-            if (pRosti != null) {
+            if (keyWidener != null) {
+                keyWidener.aggregate(func, pRosti[workerId], keyAddress, keyAddressSize, valueAddress, valueShift, workerId);
+            } else if (pRosti != null) {
                 func.aggregate(pRosti[workerId], keyAddress, valueAddress, valueCount, workerId);
             } else {
                 func.aggregate(valueAddress, valueCount, workerId);
@@ -72,5 +78,23 @@ public class VectorAggregateEntry extends AbstractLockable implements Mutable {
         this.valueCount = valuePageCount;
         this.func = vaf;
         this.doneLatch = doneLatch;
+        this.keyWidener = null;
+    }
+
+    void of(
+            int sequence,
+            VectorAggregateFunction vaf,
+            long[] pRosti,
+            RostiKeyWidener keyWidener,
+            long keyPageAddress,
+            long keyPageSize,
+            long valuePageAddress,
+            int valueShift,
+            CountDownLatchSPI doneLatch
+    ) {
+        of(sequence, vaf, pRosti, keyPageAddress, valuePageAddress, 0, doneLatch);
+        this.keyWidener = keyWidener;
+        this.keyAddressSize = keyPageSize;
+        this.valueShift = valueShift;
     }
 }
@@ -0,0 +1,308 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.BinarySearch;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.table.PageFrameRecord;
+import io.questdb.std.*;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * ASOF and LT join where slave is read via page frames. Instead of stepping slave cursor
+ * one row at a time, slave timestamp column is binary searched for the last row that
+ * qualifies for current master timestamp. Frames entirely behind master timestamp are
+ * skipped by comparing their last timestamp only.
+ * <p>
+ * Without join key slave rows between two master timestamps are not looked at at all. With
+ * join key every skipped slave row still has to be put into the key map, but this is done in
+ * a tight loop over the frame and map values are frame-local row references rather than
+ * row ids, which avoids random access to the slave cursor.
+ */
+public class AsOfJoinPageFrameRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory masterFactory;
+    private final RecordCursorFactory slaveFactory;
+    private final Map joinKeyMap;
+    private final RecordSink masterKeySink;
+    private final RecordSink slaveKeySink;
+    private final AsOfJoinPageFrameRecordCursor cursor;
+
+    public AsOfJoinPageFrameRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordMetadata metadata,
+            RecordCursorFactory masterFactory,
+            RecordCursorFactory slaveFactory,
+            @Nullable @Transient ColumnTypes joinColumnTypes,
+            @Nullable @Transient ColumnTypes valueTypes, // this expected to be just LONG, we store slave row references in map
+            @Nullable RecordSink masterKeySink,
+            @Nullable RecordSink slaveKeySink,
+            int columnSplit,
+            boolean strict
+    ) {
+        super(metadata);
+        assert slaveFactory.supportPageFrameCursor();
+        this.masterFactory = masterFactory;
+        this.slaveFactory = slaveFactory;
+        this.joinKeyMap = joinColumnTypes != null ? MapFactory.createMap(configuration, joinColumnTypes, valueTypes) : null;
+        this.masterKeySink = masterKeySink;
+        this.slaveKeySink = slaveKeySink;
+        this.cursor = new AsOfJoinPageFrameRecordCursor(
+                columnSplit,
+                NullRecordFactory.getInstance(slaveFactory.getMetadata()),
+                masterFactory.getMetadata().getTimestampIndex(),
+                slaveFactory.getMetadata().getTimestampIndex(),
+                slaveFactory.getMetadata().getColumnCount(),
+                strict
+        );
+    }
+
+    @Override
+    public void close() {
+        Misc.free(joinKeyMap);
+        ((JoinRecordMetadata) getMetadata()).close();
+        masterFactory.close();
+        slaveFactory.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        final RecordCursor masterCursor = masterFactory.getCursor(executionContext);
+        try {
+            cursor.of(masterCursor, slaveFactory.getPageFrameCursor(executionContext));
+            return cursor;
+        } catch (Throwable e) {
+            masterCursor.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    private class AsOfJoinPageFrameRecordCursor implements NoRandomAccessRecordCursor {
+        private final OuterJoinRecord record;
+        private final PageFrameRecord slaveRecord = new PageFrameRecord();
+        private final PageFrameRecord slaveKeyRecord = new PageFrameRecord();
+        private final SymbolTableSource slaveSymbolTableSource = this::getSlaveSymbolTable;
+        // addresses of slave frames visited so far, matches may refer to any of them
+        private final ObjList<LongList> frameAddresses = new ObjList<>();
+        private final int columnSplit;
+        private final int masterTimestampIndex;
+        private final int slaveTimestampIndex;
+        private final int slaveColumnCount;
+        // LT join matches slave timestamps strictly less than master timestamp
+        private final boolean strict;
+        private RecordCursor masterCursor;
+        private PageFrameCursor slaveCursor;
+        private Record masterRecord;
+        private int frameCount;
+        private long frameTimestampAddress;
+        private long frameRowCount;
+        // first row of current frame that is not consumed yet
+        private long frameRow;
+        // timestamp of first not consumed row
+        private long nextSlaveTimestamp;
+        // latest consumed slave row, used when there is no join key
+        private long latestSlaveRef;
+
+        public AsOfJoinPageFrameRecordCursor(
+                int columnSplit,
+                Record nullRecord,
+                int masterTimestampIndex,
+                int slaveTimestampIndex,
+                int slaveColumnCount,
+                boolean strict
+        ) {
+            this.record = new OuterJoinRecord(columnSplit, nullRecord);
+            this.columnSplit = columnSplit;
+            this.masterTimestampIndex = masterTimestampIndex;
+            this.slaveTimestampIndex = slaveTimestampIndex;
+            this.slaveColumnCount = slaveColumnCount;
+            this.strict = strict;
+        }
+
+        @Override
+        public void close() {
+            masterCursor = Misc.free(masterCursor);
+            slaveCursor = Misc.free(slaveCursor);
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            if (columnIndex < columnSplit) {
+                return masterCursor.getSymbolTable(columnIndex);
+            }
+            return slaveCursor.getSymbolMapReader(columnIndex - columnSplit);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (masterCursor.hasNext()) {
+                final long masterTimestamp = masterRecord.getTimestamp(masterTimestampIndex);
+                if (strict) {
+                    // ts < masterTimestamp is the same as ts <= masterTimestamp - 1
+                    if (masterTimestamp != Long.MIN_VALUE) {
+                        consume(masterTimestamp - 1);
+                    }
+                } else {
+                    consume(masterTimestamp);
+                }
+
+                final long ref;
+                if (joinKeyMap == null) {
+                    ref = latestSlaveRef;
+                } else {
+                    final MapKey key = joinKeyMap.withKey();
+                    key.put(masterRecord, masterKeySink);
+                    final MapValue value = key.findValue();
+                    ref = value != null ? value.getLong(0) : -1;
+                }
+
+                if (ref != -1) {
+                    slaveRecord.of(frameAddresses.getQuick(Rows.toPartitionIndex(ref)), slaveSymbolTableSource);
+                    slaveRecord.setRow(Rows.toLocalRowID(ref));
+                    record.hasSlave(true);
+                } else {
+                    record.hasSlave(false);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public long size() {
+            return masterCursor.size();
+        }
+
+        @Override
+        public void toTop() {
+            masterCursor.toTop();
+            slaveCursor.toTop();
+            resetState();
+        }
+
+        // consumes slave rows with timestamp less or equal to the given value
+        private void consume(long timestamp) {
+            while (frameRow < frameRowCount && nextSlaveTimestamp <= timestamp) {
+                final long lastRow = frameRowCount - 1;
+                final long hi;
+                if (Unsafe.getUnsafe().getLong(frameTimestampAddress + (lastRow << 3)) <= timestamp) {
+                    // the rest of the frame is behind master
+                    hi = lastRow;
+                } else {
+                    // there is at least one row in [frameRow, lastRow) that qualifies
+                    hi = Vect.boundedBinarySearch64Bit(frameTimestampAddress, timestamp, frameRow, lastRow, BinarySearch.SCAN_DOWN);
+                }
+                consumeRows(hi);
+                if (frameRow < frameRowCount) {
+                    nextSlaveTimestamp = Unsafe.getUnsafe().getLong(frameTimestampAddress + (frameRow << 3));
+                } else {
+                    nextFrame();
+                }
+            }
+        }
+
+        // consumes rows of current frame up to and including hi
+        private void consumeRows(long hi) {
+            final int frameIndex = frameCount - 1;
+            if (joinKeyMap != null) {
+                slaveKeyRecord.of(frameAddresses.getQuick(frameIndex), slaveSymbolTableSource);
+                for (long row = frameRow; row <= hi; row++) {
+                    slaveKeyRecord.setRow(row);
+                    final MapKey key = joinKeyMap.withKey();
+                    key.put(slaveKeyRecord, slaveKeySink);
+                    final MapValue value = key.createValue();
+                    value.putLong(0, Rows.toRowID(frameIndex, row));
+                }
+            }
+            latestSlaveRef = Rows.toRowID(frameIndex, hi);
+            frameRow = hi + 1;
+        }
+
+        private SymbolTable getSlaveSymbolTable(int columnIndex) {
+            return slaveCursor.getSymbolMapReader(columnIndex);
+        }
+
+        // moves to the next non-empty frame, frames are kept mapped while slave cursor is open
+        private void nextFrame() {
+            PageFrame frame;
+            while ((frame = slaveCursor.next()) != null) {
+                final long rowCount = frame.getPageSize(slaveTimestampIndex) >> 3;
+                if (rowCount > 0) {
+                    if (frameCount == frameAddresses.size()) {
+                        frameAddresses.add(new LongList(slaveColumnCount));
+                    }
+                    final LongList addresses = frameAddresses.getQuick(frameCount++);
+                    addresses.clear();
+                    for (int i = 0; i < slaveColumnCount; i++) {
+                        addresses.add(frame.getPageAddress(i));
+                    }
+                    frameTimestampAddress = frame.getPageAddress(slaveTimestampIndex);
+                    frameRowCount = rowCount;
+                    frameRow = 0;
+                    nextSlaveTimestamp = Unsafe.getUnsafe().getLong(frameTimestampAddress);
+                    return;
+                }
+            }
+        }
+
+        private void of(RecordCursor masterCursor, PageFrameCursor slaveCursor) {
+            this.masterCursor = masterCursor;
+            this.slaveCursor = slaveCursor;
+            this.masterRecord = masterCursor.getRecord();
+            record.of(masterRecord, slaveRecord);
+            resetState();
+        }
+
+        private void resetState() {
+            if (joinKeyMap != null) {
+                joinKeyMap.clear();
+            }
+            frameCount = 0;
+            frameRowCount = 0;
+            frameRow = 0;
+            latestSlaveRef = -1;
+            record.hasSlave(false);
+            nextFrame();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.RecordSinkSPI;
+import io.questdb.cairo.sql.Record;
+import io.questdb.std.BinarySequence;
+import io.questdb.std.Long256;
+
+/**
+ * Hashes join key written by {@link RecordSink} to pick partition of parallel hash join. Values are
+ * hashed the way they are stored in map key, so that equal keys of master and slave records land in
+ * the same partition. Partition is taken from high bits of the hash to keep it independent of slot
+ * the key takes in partition map.
+ */
+class JoinKeyHashSink implements RecordSinkSPI {
+    private long hash;
+
+    int partitionOf(Record record, RecordSink keySink, int partitionCount) {
+        hash = 0;
+        keySink.copy(record, this);
+        return (int) (((hash * 0x9E3779B97F4A7C15L) >>> 33) % partitionCount);
+    }
+
+    @Override
+    public void putBin(BinarySequence value) {
+        if (value == null) {
+            add(-1);
+        } else {
+            for (long i = 0, n = value.length(); i < n; i++) {
+                add(value.byteAt(i));
+            }
+        }
+    }
+
+    @Override
+    public void putBool(boolean value) {
+        add(value ? 1 : 0);
+    }
+
+    @Override
+    public void putByte(byte value) {
+        add(value);
+    }
+
+    @Override
+    public void putDate(long value) {
+        add(value);
+    }
+
+    @Override
+    public void putDouble(double value) {
+        add(Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public void putFloat(float value) {
+        add(Float.floatToRawIntBits(value));
+    }
+
+    @Override
+    public void putInt(int value) {
+        add(value);
+    }
+
+    @Override
+    public void putLong(long value) {
+        add(value);
+    }
+
+    @Override
+    public void putLong256(Long256 value) {
+        add(value.getLong0());
+        add(value.getLong1());
+        add(value.getLong2());
+        add(value.getLong3());
+    }
+
+    @Override
+    public void putShort(short value) {
+        add(value);
+    }
+
+    @Override
+    public void putChar(char value) {
+        add(value);
+    }
+
+    @Override
+    public void putStr(CharSequence value) {
+        if (value == null) {
+            add(-1);
+        } else {
+            putStr(value, 0, value.length());
+        }
+    }
+
+    @Override
+    public void putStr(CharSequence value, int lo, int hi) {
+        for (int i = lo; i < hi; i++) {
+            add(value.charAt(i));
+        }
+    }
+
+    @Override
+    public void putRecord(Record value) {
+        // noop
+    }
+
+    @Override
+    public void putTimestamp(long value) {
+        add(value);
+    }
+
+    @Override
+    public void skip(int bytes) {
+        // noop
+    }
+
+    private void add(long value) {
+        hash = hash * 31 + value;
+    }
+}
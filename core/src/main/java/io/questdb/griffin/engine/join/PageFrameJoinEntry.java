@@ -0,0 +1,246 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.griffin.engine.table.PageFrameRecord;
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.*;
+
+import java.io.Closeable;
+
+/**
+ * Unit of work of parallel hash join. There are two kinds of entries.
+ * <p>
+ * Range entry splits a row range of a single page frame by partition of join key. Row numbers
+ * are collected in ascending order into a list per partition. Range entries of master frames also
+ * hold the probe result, which is a chain reference per row.
+ * <p>
+ * Partition entry processes rows of a single partition across all range entries, in the order of
+ * range entries. It either adds slave rows to the partition map or looks up master rows in it.
+ * Each map is accessed by one partition entry at a time, so maps need no synchronisation.
+ */
+public class PageFrameJoinEntry extends AbstractLockable implements Closeable {
+    private static final int TYPE_RANGE = 0;
+    private static final int TYPE_BUILD = 1;
+    private static final int TYPE_PROBE = 2;
+    private static final long ROWS_CAPACITY = 64;
+    private final LongList columnAddresses = new LongList();
+    private final ObjList<DirectLongList> partitionRows = new ObjList<>();
+    private final DirectLongList chainRefs = new DirectLongList(ROWS_CAPACITY);
+    private int type;
+    private int partitionIndex;
+    private int partitionCount;
+    private long rowLo;
+    private long rowHi;
+    private boolean probeSide;
+    private RecordSink keySink;
+    private Map map;
+    private LongChain chain;
+    private ObjList<PageFrameJoinEntry> rangeEntries;
+    private int rangeEntryCount;
+    private ObjList<PageFrameRecord> records;
+    private ObjList<JoinKeyHashSink> hashSinks;
+    private CountDownLatchSPI doneLatch;
+    private Throwable error;
+
+    @Override
+    public void close() {
+        Misc.freeObjList(partitionRows);
+        partitionRows.clear();
+        chainRefs.close();
+    }
+
+    /**
+     * Reference to the slave chain of the row of master range entry.
+     *
+     * @param row frame-relative row number
+     * @return -1 when row has no match, otherwise chain offset multiplied by partition count plus partition index
+     */
+    public long getChainRef(long row) {
+        return chainRefs.get(row - rowLo);
+    }
+
+    public LongList getColumnAddresses() {
+        return columnAddresses;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    public long getRowHi() {
+        return rowHi;
+    }
+
+    public long getRowLo() {
+        return rowLo;
+    }
+
+    public boolean run(int slot) {
+        if (slot < records.size() && tryLock()) {
+            try {
+                final PageFrameRecord record = records.getQuick(slot);
+                switch (type) {
+                    case TYPE_RANGE:
+                        split(record, hashSinks.getQuick(slot));
+                        break;
+                    case TYPE_BUILD:
+                        build(record);
+                        break;
+                    default:
+                        probe(record);
+                        break;
+                }
+            } catch (Throwable e) {
+                // map or chain can run out of memory limits, publisher rethrows this once all tasks are done
+                error = e;
+            } finally {
+                doneLatch.countDown();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void build(PageFrameRecord record) {
+        for (int i = 0; i < rangeEntryCount; i++) {
+            final PageFrameJoinEntry entry = rangeEntries.getQuick(i);
+            final DirectLongList rows = entry.partitionRows.getQuick(partitionIndex);
+            record.of(entry.columnAddresses, null);
+            for (long j = 0, n = rows.size(); j < n; j++) {
+                final long row = rows.get(j);
+                record.setRow(row);
+                final MapKey key = map.withKey();
+                key.put(record, keySink);
+                final MapValue value = key.createValue();
+                // slave row is referenced by range entry index and row number, chains keep slave order
+                if (value.isNew()) {
+                    final long offset = chain.put(Rows.toRowID(i, row), -1);
+                    value.putLong(0, offset);
+                    value.putLong(1, offset);
+                } else {
+                    value.putLong(1, chain.put(Rows.toRowID(i, row), value.getLong(1)));
+                }
+            }
+        }
+    }
+
+    private void probe(PageFrameRecord record) {
+        for (int i = 0; i < rangeEntryCount; i++) {
+            final PageFrameJoinEntry entry = rangeEntries.getQuick(i);
+            final DirectLongList rows = entry.partitionRows.getQuick(partitionIndex);
+            record.of(entry.columnAddresses, null);
+            // each row belongs to exactly one partition, entries of different partitions write different slots
+            for (long j = 0, n = rows.size(); j < n; j++) {
+                final long row = rows.get(j);
+                record.setRow(row);
+                final MapKey key = map.withKey();
+                key.put(record, keySink);
+                final MapValue value = key.findValue();
+                if (value != null) {
+                    entry.chainRefs.set(row - entry.rowLo, value.getLong(0) * partitionCount + partitionIndex);
+                }
+            }
+        }
+    }
+
+    private void split(PageFrameRecord record, JoinKeyHashSink hashSink) {
+        for (int i = partitionRows.size(); i < partitionCount; i++) {
+            partitionRows.add(new DirectLongList(ROWS_CAPACITY));
+        }
+        for (int i = 0; i < partitionCount; i++) {
+            partitionRows.getQuick(i).clear();
+        }
+        record.of(columnAddresses, null);
+        chainRefs.clear();
+        for (long r = rowLo; r < rowHi; r++) {
+            record.setRow(r);
+            partitionRows.getQuick(hashSink.partitionOf(record, keySink, partitionCount)).add(r);
+            if (probeSide) {
+                chainRefs.add(-1);
+            }
+        }
+    }
+
+    void of(
+            int sequence,
+            LongList frameAddresses,
+            long rowLo,
+            long rowHi,
+            boolean probeSide,
+            int partitionCount,
+            RecordSink keySink,
+            ObjList<PageFrameRecord> records,
+            ObjList<JoinKeyHashSink> hashSinks,
+            CountDownLatchSPI doneLatch
+    ) {
+        this.type = TYPE_RANGE;
+        this.columnAddresses.clear();
+        this.columnAddresses.add(frameAddresses);
+        this.rowLo = rowLo;
+        this.rowHi = rowHi;
+        this.probeSide = probeSide;
+        this.partitionCount = partitionCount;
+        this.keySink = keySink;
+        this.records = records;
+        this.hashSinks = hashSinks;
+        this.doneLatch = doneLatch;
+        this.error = null;
+        // entry becomes available to workers only after all of the above is set
+        of(sequence);
+    }
+
+    void of(
+            int sequence,
+            boolean build,
+            int partitionIndex,
+            int partitionCount,
+            Map map,
+            LongChain chain,
+            ObjList<PageFrameJoinEntry> rangeEntries,
+            int rangeEntryCount,
+            RecordSink keySink,
+            ObjList<PageFrameRecord> records,
+            CountDownLatchSPI doneLatch
+    ) {
+        this.type = build ? TYPE_BUILD : TYPE_PROBE;
+        this.partitionIndex = partitionIndex;
+        this.partitionCount = partitionCount;
+        this.map = map;
+        this.chain = chain;
+        this.rangeEntries = rangeEntries;
+        this.rangeEntryCount = rangeEntryCount;
+        this.keySink = keySink;
+        this.records = records;
+        this.doneLatch = doneLatch;
+        this.error = null;
+        // entry becomes available to workers only after all of the above is set
+        of(sequence);
+    }
+}
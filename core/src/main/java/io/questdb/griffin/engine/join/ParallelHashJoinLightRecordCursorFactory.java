@@ -0,0 +1,421 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.table.PageFrameRecord;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.tasks.PageFrameJoinTask;
+
+/**
+ * Inner hash join of two factories that support page frames, executed on the shared worker pool.
+ * Join keys are split into partitions by hash, each partition has its own map and chain of slave rows.
+ * <p>
+ * Build phase splits slave frames by partition in parallel, then builds partition maps in parallel,
+ * one thread per map. Probe phase does the same with a batch of master frames: rows are split by
+ * partition, then each partition map is probed by one thread, which records slave chain reference
+ * for every master row. The thread that owns the cursor walks batch rows in frame order, so output
+ * order is the same as that of the single-threaded hash join: master rows in their natural order,
+ * slave rows of each master row in their natural order.
+ * <p>
+ * Join key columns must not be symbols, symbol tables are not safe to use concurrently.
+ */
+public class ParallelHashJoinLightRecordCursorFactory extends AbstractRecordCursorFactory {
+    private static final Log LOG = LogFactory.getLog(ParallelHashJoinLightRecordCursorFactory.class);
+    private final RecordCursorFactory masterFactory;
+    private final RecordCursorFactory slaveFactory;
+    private final RecordSink masterKeySink;
+    private final RecordSink slaveKeySink;
+    private final ObjList<Map> maps;
+    private final ObjList<LongChain> chains;
+    private final ObjList<PageFrameRecord> records;
+    private final ObjList<JoinKeyHashSink> hashSinks;
+    private final ObjList<PageFrameJoinEntry> slaveEntries = new ObjList<>();
+    private final ObjList<PageFrameJoinEntry> masterEntries = new ObjList<>();
+    private final ObjList<PageFrameJoinEntry> partitionEntries = new ObjList<>();
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final FrameRanges slaveRanges;
+    private final FrameRanges masterRanges;
+    private final ParallelHashJoinRecordCursor cursor;
+    private final long maxTaskRowCount;
+    private final int partitionCount;
+    private final int ownerSlot;
+    private int sequence;
+
+    public ParallelHashJoinLightRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordMetadata metadata,
+            RecordCursorFactory masterFactory,
+            RecordCursorFactory slaveFactory,
+            @Transient ColumnTypes joinColumnTypes,
+            @Transient ColumnTypes valueTypes, // this expected to be just LONG, we store chain references in map
+            RecordSink masterKeySink,
+            RecordSink slaveKeySink,
+            int columnSplit,
+            int workerCount
+    ) {
+        super(metadata);
+        assert masterFactory.supportPageFrameCursor() && slaveFactory.supportPageFrameCursor();
+        // one partition and one slot per worker plus the thread that owns the cursor
+        this.partitionCount = workerCount + 1;
+        this.ownerSlot = workerCount;
+        this.maps = new ObjList<>(partitionCount);
+        this.chains = new ObjList<>(partitionCount);
+        try {
+            for (int i = 0; i < partitionCount; i++) {
+                maps.add(MapFactory.createMap(configuration, joinColumnTypes, valueTypes));
+                chains.add(new LongChain(configuration.getSqlHashJoinLightValuePageSize(), configuration.getSqlHashJoinLightValueMaxPages()));
+            }
+        } catch (Throwable e) {
+            Misc.freeObjList(maps);
+            Misc.freeObjList(chains);
+            throw e;
+        }
+        this.records = new ObjList<>(partitionCount);
+        this.hashSinks = new ObjList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            records.add(new PageFrameRecord());
+            hashSinks.add(new JoinKeyHashSink());
+            partitionEntries.add(new PageFrameJoinEntry());
+        }
+        this.masterFactory = masterFactory;
+        this.slaveFactory = slaveFactory;
+        this.masterKeySink = masterKeySink;
+        this.slaveKeySink = slaveKeySink;
+        this.maxTaskRowCount = configuration.getParallelHashJoinFrameRowCount();
+        this.masterRanges = new FrameRanges(masterFactory.getMetadata());
+        this.slaveRanges = new FrameRanges(slaveFactory.getMetadata());
+        this.cursor = new ParallelHashJoinRecordCursor(columnSplit);
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(maps);
+        Misc.freeObjList(chains);
+        Misc.freeObjList(slaveEntries);
+        Misc.freeObjList(masterEntries);
+        Misc.freeObjList(partitionEntries);
+        ((JoinRecordMetadata) getMetadata()).close();
+        masterFactory.close();
+        slaveFactory.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        final PageFrameCursor slaveCursor = slaveFactory.getPageFrameCursor(executionContext);
+        try {
+            final int slaveEntryCount = build(slaveCursor, executionContext);
+            cursor.of(masterFactory.getPageFrameCursor(executionContext), slaveCursor, slaveEntryCount, executionContext);
+            return cursor;
+        } catch (Throwable e) {
+            slaveCursor.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    private int awaitEntries(ObjList<PageFrameJoinEntry> entries, int lo, int hi) {
+        int reclaimed = 0;
+        // start at the back to reduce chance of clashing with workers
+        for (int i = hi - 1; i >= lo && doneLatch.getCount() > lo - hi; i--) {
+            if (entries.getQuick(i).run(ownerSlot)) {
+                reclaimed++;
+            }
+        }
+        doneLatch.await(hi - lo);
+        doneLatch.reset();
+
+        for (int i = lo; i < hi; i++) {
+            final Throwable error = entries.getQuick(i).getError();
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if (error != null) {
+                throw CairoException.instance(0).put("parallel hash join failed: ").put(error.getMessage());
+            }
+        }
+        return reclaimed;
+    }
+
+    private int build(PageFrameCursor slaveCursor, SqlExecutionContext executionContext) {
+        final MessageBus bus = executionContext.getMessageBus();
+        final int batchSize = bus.getPageFrameJoinQueue().getCapacity();
+        for (int i = 0; i < partitionCount; i++) {
+            maps.getQuick(i).clear();
+            chains.getQuick(i).clear();
+        }
+
+        // slave frames stay referenced by their range entries until the cursor is closed
+        slaveRanges.of(slaveCursor);
+        int entryCount = 0;
+        int reclaimed = 0;
+        while (true) {
+            final int lo = entryCount;
+            entryCount = publishRanges(bus, slaveRanges, slaveEntries, lo, lo + batchSize, false, slaveKeySink);
+            if (entryCount == lo) {
+                break;
+            }
+            reclaimed += awaitEntries(slaveEntries, lo, entryCount);
+            executionContext.getSqlExecutionInterruptor().checkInterrupted();
+        }
+
+        if (entryCount > 0) {
+            reclaimed += publishPartitions(bus, true, slaveEntries, entryCount, slaveKeySink);
+        }
+        LOG.debug().$("built [ranges=").$(entryCount).$(", partitions=").$(partitionCount).$(", reclaimed=").$(reclaimed).$(']').$();
+        return entryCount;
+    }
+
+    private PageFrameJoinEntry nextEntry(ObjList<PageFrameJoinEntry> entries, int index) {
+        if (index == entries.size()) {
+            entries.add(new PageFrameJoinEntry());
+        }
+        return entries.getQuick(index);
+    }
+
+    private void publish(MessageBus bus, PageFrameJoinEntry entry) {
+        final RingQueue<PageFrameJoinTask> queue = bus.getPageFrameJoinQueue();
+        final Sequence pubSeq = bus.getPageFrameJoinPubSeq();
+        final long seq = pubSeq.next();
+        if (seq < 0) {
+            entry.run(ownerSlot);
+        } else {
+            queue.get(seq).entry = entry;
+            pubSeq.done(seq);
+        }
+    }
+
+    private int publishPartitions(MessageBus bus, boolean build, ObjList<PageFrameJoinEntry> rangeEntries, int rangeEntryCount, RecordSink keySink) {
+        for (int i = 0; i < partitionCount; i++) {
+            final PageFrameJoinEntry entry = partitionEntries.getQuick(i);
+            entry.of(sequence++, build, i, partitionCount, maps.getQuick(i), chains.getQuick(i), rangeEntries, rangeEntryCount, keySink, records, doneLatch);
+            publish(bus, entry);
+        }
+        return awaitEntries(partitionEntries, 0, partitionCount);
+    }
+
+    // publishes range entries [lo, hi) or fewer when frames run out, returns index past the last published entry
+    private int publishRanges(
+            MessageBus bus,
+            FrameRanges ranges,
+            ObjList<PageFrameJoinEntry> entries,
+            int lo,
+            int hi,
+            boolean probeSide,
+            RecordSink keySink
+    ) {
+        int index = lo;
+        while (index < hi && ranges.next()) {
+            final long rowHi = Math.min(ranges.frameRowHi, ranges.frameRowLo + maxTaskRowCount);
+            final PageFrameJoinEntry entry = nextEntry(entries, index++);
+            entry.of(sequence++, ranges.frameAddresses, ranges.frameRowLo, rowHi, probeSide, partitionCount, keySink, records, hashSinks, doneLatch);
+            ranges.frameRowLo = rowHi;
+            publish(bus, entry);
+        }
+        return index;
+    }
+
+    private static class FrameRanges {
+        private final LongList frameAddresses = new LongList();
+        private final int firstColumnShift;
+        private final int columnCount;
+        private PageFrameCursor pageFrameCursor;
+        private long frameRowLo;
+        private long frameRowHi;
+
+        private FrameRanges(RecordMetadata metadata) {
+            this.firstColumnShift = ColumnType.pow2SizeOf(metadata.getColumnType(0));
+            this.columnCount = metadata.getColumnCount();
+        }
+
+        // true when current frame has rows left, moves to the next frame when needed
+        private boolean next() {
+            while (frameRowLo == frameRowHi) {
+                final PageFrame frame = pageFrameCursor.next();
+                if (frame == null) {
+                    return false;
+                }
+                frameAddresses.clear();
+                for (int i = 0; i < columnCount; i++) {
+                    frameAddresses.add(frame.getPageAddress(i));
+                }
+                frameRowLo = 0;
+                // column top frames report size in rows rather than bytes
+                frameRowHi = frameAddresses.getQuick(0) == 0 ? frame.getPageSize(0) : frame.getPageSize(0) >> firstColumnShift;
+            }
+            return true;
+        }
+
+        private void of(PageFrameCursor pageFrameCursor) {
+            this.pageFrameCursor = pageFrameCursor;
+            this.frameRowLo = 0;
+            this.frameRowHi = 0;
+        }
+    }
+
+    private class ParallelHashJoinRecordCursor implements NoRandomAccessRecordCursor {
+        private final JoinRecord record;
+        private final PageFrameRecord masterRecord = new PageFrameRecord();
+        private final PageFrameRecord slaveRecord = new PageFrameRecord();
+        private final SymbolTableSource slaveSymbolTableSource = this::getSlaveSymbolTable;
+        private final int columnSplit;
+        private PageFrameCursor masterCursor;
+        private PageFrameCursor slaveCursor;
+        private SqlExecutionContext executionContext;
+        private LongChain.TreeCursor slaveChainCursor;
+        private PageFrameJoinEntry masterEntry;
+        private int slaveEntryCount;
+        private int entryCount;
+        private int entryIndex;
+        private long masterRow;
+        private long masterRowHi;
+
+        public ParallelHashJoinRecordCursor(int columnSplit) {
+            this.record = new JoinRecord(columnSplit);
+            this.record.of(masterRecord, slaveRecord);
+            this.columnSplit = columnSplit;
+        }
+
+        @Override
+        public void close() {
+            masterCursor = Misc.free(masterCursor);
+            slaveCursor = Misc.free(slaveCursor);
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            if (columnIndex < columnSplit) {
+                return masterCursor.getSymbolMapReader(columnIndex);
+            }
+            return slaveCursor.getSymbolMapReader(columnIndex - columnSplit);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (true) {
+                if (slaveChainCursor != null && slaveChainCursor.hasNext()) {
+                    final long rowId = slaveChainCursor.next();
+                    slaveRecord.of(slaveEntries.getQuick(Rows.toPartitionIndex(rowId)).getColumnAddresses(), slaveSymbolTableSource);
+                    slaveRecord.setRow(Rows.toLocalRowID(rowId));
+                    return true;
+                }
+                slaveChainCursor = null;
+
+                if (masterRow < masterRowHi) {
+                    final long ref = masterEntry.getChainRef(masterRow);
+                    masterRecord.setRow(masterRow++);
+                    if (ref != -1) {
+                        slaveChainCursor = chains.getQuick((int) (ref % partitionCount)).getCursor(ref / partitionCount);
+                    }
+                    continue;
+                }
+
+                if (entryIndex < entryCount) {
+                    masterEntry = masterEntries.getQuick(entryIndex++);
+                    masterRecord.of(masterEntry.getColumnAddresses(), this);
+                    masterRow = masterEntry.getRowLo();
+                    masterRowHi = masterEntry.getRowHi();
+                    continue;
+                }
+
+                if (!probe()) {
+                    return false;
+                }
+            }
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            masterCursor.toTop();
+            resetState();
+        }
+
+        private SymbolTable getSlaveSymbolTable(int columnIndex) {
+            return slaveCursor.getSymbolMapReader(columnIndex);
+        }
+
+        private void of(PageFrameCursor masterCursor, PageFrameCursor slaveCursor, int slaveEntryCount, SqlExecutionContext executionContext) {
+            this.masterCursor = masterCursor;
+            this.slaveCursor = slaveCursor;
+            this.slaveEntryCount = slaveEntryCount;
+            this.executionContext = executionContext;
+            resetState();
+        }
+
+        // splits and probes the next batch of master frames
+        private boolean probe() {
+            if (slaveEntryCount == 0) {
+                // nothing to join with
+                return false;
+            }
+            final MessageBus bus = executionContext.getMessageBus();
+            final int batchSize = bus.getPageFrameJoinQueue().getCapacity();
+            entryCount = publishRanges(bus, masterRanges, masterEntries, 0, batchSize, true, masterKeySink);
+            entryIndex = 0;
+            if (entryCount == 0) {
+                return false;
+            }
+            int reclaimed = awaitEntries(masterEntries, 0, entryCount);
+            reclaimed += publishPartitions(bus, false, masterEntries, entryCount, masterKeySink);
+            LOG.debug().$("probed [ranges=").$(entryCount).$(", reclaimed=").$(reclaimed).$(']').$();
+            executionContext.getSqlExecutionInterruptor().checkInterrupted();
+            return true;
+        }
+
+        private void resetState() {
+            masterRanges.of(masterCursor);
+            slaveChainCursor = null;
+            masterEntry = null;
+            entryCount = 0;
+            entryIndex = 0;
+            masterRow = 0;
+            masterRowHi = 0;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.sql.DelegatingRecordCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.std.DirectLongList;
+
+/**
+ * Keeps row ids of the first N rows in sort order using bounded binary heap. Heap root
+ * is the last of the kept rows, base rows that sort after it are discarded straight away.
+ * Rows that compare equal come out in reverse base cursor order, same as with full sort.
+ */
+class LimitedSizeSortedLightRecordCursor implements DelegatingRecordCursor {
+    // pairs of row id and sequence number of the row in base cursor
+    private final DirectLongList heap;
+    private final RecordComparator comparator;
+    private final long limit;
+    private RecordCursor base;
+    private Record baseRecord;
+    private Record placeHolderRecord;
+    private long size;
+    private long index;
+
+    public LimitedSizeSortedLightRecordCursor(DirectLongList heap, RecordComparator comparator, long limit) {
+        this.heap = heap;
+        this.comparator = comparator;
+        this.limit = limit;
+    }
+
+    @Override
+    public void close() {
+        heap.clear();
+        base.close();
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public Record getRecord() {
+        return baseRecord;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (index < size) {
+            base.recordAt(baseRecord, heap.get(2 * index++));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Record getRecordB() {
+        return base.getRecordB();
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        base.recordAt(record, atRowId);
+    }
+
+    @Override
+    public void toTop() {
+        index = 0;
+    }
+
+    @Override
+    public void of(RecordCursor base, SqlExecutionContext executionContext) {
+        this.base = base;
+        this.baseRecord = base.getRecord();
+        // heap re-positions this record to compare rows, base record must not be moved
+        // while base cursor is iterated
+        this.placeHolderRecord = base.getRecordB();
+        final SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
+
+        heap.clear();
+        size = 0;
+        long sequence = 0;
+        while (base.hasNext()) {
+            interruptor.checkInterrupted();
+            final long rowId = baseRecord.getRowId();
+            if (size < limit) {
+                heap.add(rowId);
+                heap.add(sequence);
+                siftUp(size++);
+            } else if (limit > 0) {
+                // row is kept when it sorts before the last kept row, equal
+                // row arrived later and therefore goes first
+                comparator.setLeft(baseRecord);
+                base.recordAt(placeHolderRecord, heap.get(0));
+                if (comparator.compare(placeHolderRecord) <= 0) {
+                    heap.set(0, rowId);
+                    heap.set(1, sequence);
+                    siftDown(0, size);
+                }
+            }
+            sequence++;
+        }
+
+        // heap sort, rows end up in ascending order
+        for (long n = size - 1; n > 0; n--) {
+            swap(0, n);
+            siftDown(0, n);
+        }
+        index = 0;
+    }
+
+    private int compare(long i, long j) {
+        base.recordAt(placeHolderRecord, heap.get(2 * i));
+        comparator.setLeft(placeHolderRecord);
+        base.recordAt(placeHolderRecord, heap.get(2 * j));
+        final int cmp = comparator.compare(placeHolderRecord);
+        return cmp != 0 ? cmp : Long.compare(heap.get(2 * j + 1), heap.get(2 * i + 1));
+    }
+
+    private void siftDown(long i, long n) {
+        while (true) {
+            long child = 2 * i + 1;
+            if (child >= n) {
+                break;
+            }
+            if (child + 1 < n && compare(child + 1, child) > 0) {
+                child++;
+            }
+            if (compare(child, i) <= 0) {
+                break;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void siftUp(long i) {
+        while (i > 0) {
+            final long parent = (i - 1) / 2;
+            if (compare(i, parent) <= 0) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void swap(long i, long j) {
+        final long rowId = heap.get(2 * i);
+        final long sequence = heap.get(2 * i + 1);
+        heap.set(2 * i, heap.get(2 * j));
+        heap.set(2 * i + 1, heap.get(2 * j + 1));
+        heap.set(2 * j, rowId);
+        heap.set(2 * j + 1, sequence);
+    }
+}
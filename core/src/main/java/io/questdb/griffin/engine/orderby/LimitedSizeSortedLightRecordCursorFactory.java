@@ -0,0 +1,81 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.std.DirectLongList;
+
+/**
+ * ORDER BY followed by constant LIMIT. Only the rows that can make it through the limit
+ * are kept, memory is proportional to the limit rather than to the size of base cursor.
+ */
+public class LimitedSizeSortedLightRecordCursorFactory extends AbstractRecordCursorFactory {
+    private static final long INITIAL_HEAP_CAPACITY = 1024;
+    private final RecordCursorFactory base;
+    private final DirectLongList heap;
+    private final LimitedSizeSortedLightRecordCursor cursor;
+
+    public LimitedSizeSortedLightRecordCursorFactory(
+            RecordMetadata metadata,
+            RecordCursorFactory base,
+            RecordComparator comparator,
+            long limit
+    ) {
+        super(metadata);
+        // heap entry is a pair of longs, list grows when limit is larger than initial capacity
+        this.heap = new DirectLongList(2 * Math.max(1, Math.min(limit, INITIAL_HEAP_CAPACITY)));
+        this.base = base;
+        this.cursor = new LimitedSizeSortedLightRecordCursor(heap, comparator, limit);
+    }
+
+    @Override
+    public void close() {
+        base.close();
+        heap.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        RecordCursor baseCursor = base.getCursor(executionContext);
+        try {
+            cursor.of(baseCursor, executionContext);
+            return cursor;
+        } catch (RuntimeException ex) {
+            baseCursor.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+}
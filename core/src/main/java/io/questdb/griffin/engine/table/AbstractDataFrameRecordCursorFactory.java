@@ -31,6 +31,7 @@ import io.questdb.cairo.sql.DataFrameCursorFactory;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Misc;
 
 abstract class AbstractDataFrameRecordCursorFactory extends AbstractRecordCursorFactory {
     protected final DataFrameCursorFactory dataFrameCursorFactory;
@@ -40,6 +41,11 @@ abstract class AbstractDataFrameRecordCursorFactory extends AbstractRecordCursor
         this.dataFrameCursorFactory = dataFrameCursorFactory;
     }
 
+    @Override
+    public void close() {
+        Misc.free(dataFrameCursorFactory);
+    }
+
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) {
         DataFrameCursor dataFrameCursor = dataFrameCursorFactory.getCursor(executionContext);
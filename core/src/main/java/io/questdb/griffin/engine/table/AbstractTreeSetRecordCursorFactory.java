@@ -47,6 +47,7 @@ abstract class AbstractTreeSetRecordCursorFactory extends AbstractDataFrameRecor
 
     @Override
     public void close() {
+        super.close();
         rows.close();
         cursor = Misc.free(cursor);
     }
@@ -68,7 +68,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
     @Override
     public void close() {
         Misc.free(filter);
-        Misc.free(dataFrameCursorFactory);
+        super.close();
     }
 
     @Override
@@ -94,6 +94,11 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         return true;
     }
 
+    @Override
+    public void setAccessPattern(int advice) {
+        dataFrameCursorFactory.setAccessPattern(advice, columnIndexes);
+    }
+
     @Override
     public boolean supportPageFrameCursor() {
         return framingSupported;
@@ -0,0 +1,639 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlKeywords;
+import io.questdb.griffin.engine.functions.BooleanFunction;
+import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.std.*;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Compiles simple filter expressions into a single generated {@link BooleanFunction}. Supported
+ * expressions are BOOLEAN, INT, LONG and DOUBLE columns, numeric and boolean constants, arithmetic,
+ * comparison and logical operators. Generated code reads column values via {@link Record} getters
+ * and calls static methods of this class, which mirror null handling and type resolution of the
+ * interpreted functions, so that both produce the same result. Branches are evaluated eagerly,
+ * which keeps bytecode free of jumps.
+ */
+public class FilterCompiler {
+    private static final int OP_AND = 1;
+    private static final int OP_OR = 2;
+    private static final int OP_NOT = 3;
+    private static final int OP_EQ = 4;
+    private static final int OP_NE = 5;
+    private static final int OP_LT = 6;
+    private static final int OP_LE = 7;
+    private static final int OP_GT = 8;
+    private static final int OP_GE = 9;
+    private static final int OP_ADD = 10;
+    private static final int OP_SUB = 11;
+    private static final int OP_MUL = 12;
+    private static final int OP_DIV = 13;
+    private static final int OP_NEG = 14;
+    private static final LowerCaseAsciiCharSequenceIntHashMap binaryOps = new LowerCaseAsciiCharSequenceIntHashMap();
+    private static final LowerCaseAsciiCharSequenceIntHashMap unaryOps = new LowerCaseAsciiCharSequenceIntHashMap();
+    private final BytecodeAssembler asm;
+    private final CharSequenceIntHashMap methodIndices = new CharSequenceIntHashMap();
+    // pool indexes of constants in the order constants are visited, -1 for constants that need no pool entry
+    private final IntList constantIndices = new IntList();
+    private RecordMetadata metadata;
+    private int recordClassIndex;
+    private int helperClassIndex;
+    private int numbersClassIndex;
+    private int constantPos;
+
+    public FilterCompiler(BytecodeAssembler asm) {
+        this.asm = asm;
+    }
+
+    public static int addInt(int l, int r) {
+        if (l == Numbers.INT_NaN || r == Numbers.INT_NaN) {
+            return Numbers.INT_NaN;
+        }
+        return l + r;
+    }
+
+    public static long addLong(long l, long r) {
+        if (l == Numbers.LONG_NaN || r == Numbers.LONG_NaN) {
+            return Numbers.LONG_NaN;
+        }
+        return l + r;
+    }
+
+    public static double addDouble(double l, double r) {
+        return l + r;
+    }
+
+    public static boolean and(boolean l, boolean r) {
+        return l & r;
+    }
+
+    public static double divDouble(double l, double r) {
+        return l / r;
+    }
+
+    public static long divLong(long l, long r) {
+        if (l == Numbers.LONG_NaN || r == Numbers.LONG_NaN || r == 0) {
+            return Numbers.LONG_NaN;
+        }
+        return l / r;
+    }
+
+    public static boolean eq(int l, int r) {
+        return l == r;
+    }
+
+    public static boolean eq(long l, long r) {
+        return l == r;
+    }
+
+    public static boolean eq(double l, double r) {
+        return l != l && r != r || Math.abs(l - r) < 0.0000000001;
+    }
+
+    public static boolean ge(double l, double r) {
+        return l >= r;
+    }
+
+    public static boolean gt(double l, double r) {
+        return l > r;
+    }
+
+    public static boolean le(double l, double r) {
+        return l <= r;
+    }
+
+    public static boolean lt(double l, double r) {
+        return l < r;
+    }
+
+    public static double mulDouble(double l, double r) {
+        return l * r;
+    }
+
+    public static int mulInt(int l, int r) {
+        return l * r;
+    }
+
+    public static long mulLong(long l, long r) {
+        return l * r;
+    }
+
+    public static boolean ne(int l, int r) {
+        return l != r;
+    }
+
+    public static boolean ne(long l, long r) {
+        return l != r;
+    }
+
+    public static boolean ne(double l, double r) {
+        return !eq(l, r);
+    }
+
+    public static double negDouble(double value) {
+        return -value;
+    }
+
+    public static int negInt(int value) {
+        if (value == Numbers.INT_NaN) {
+            return Numbers.INT_NaN;
+        }
+        return -value;
+    }
+
+    public static boolean not(boolean value) {
+        return !value;
+    }
+
+    public static boolean or(boolean l, boolean r) {
+        return l | r;
+    }
+
+    public static double subDouble(double l, double r) {
+        return l - r;
+    }
+
+    public static int subInt(int l, int r) {
+        if (l == Numbers.INT_NaN || r == Numbers.INT_NaN) {
+            return Numbers.INT_NaN;
+        }
+        return l - r;
+    }
+
+    public static long subLong(long l, long r) {
+        if (l == Numbers.LONG_NaN || r == Numbers.LONG_NaN) {
+            return Numbers.LONG_NaN;
+        }
+        return l - r;
+    }
+
+    /**
+     * Generates filter function for given expression.
+     *
+     * @param node     boolean filter expression
+     * @param metadata metadata of the record filter is applied to
+     * @return filter function or null when expression cannot be compiled and has to be interpreted
+     */
+    @Nullable
+    public Function compile(ExpressionNode node, RecordMetadata metadata) {
+        this.metadata = metadata;
+        if (typeOf(node) != ColumnType.BOOLEAN) {
+            return null;
+        }
+
+        asm.init(FilterCompiler.class);
+        asm.setupPool();
+        final int thisClassIndex = asm.poolClass(asm.poolUtf8("io/questdb/griffin/engine/table/compiledFilter"));
+        final int superClassIndex = asm.poolClass(BooleanFunction.class);
+        final int superConstructorIndex = asm.poolMethod(superClassIndex, "<init>", "(I)V");
+        final int constructorNameIndex = asm.poolUtf8("<init>");
+        final int constructorDescIndex = asm.poolUtf8("()V");
+        final int getBoolNameIndex = asm.poolUtf8("getBool");
+        final int getBoolDescIndex = asm.poolUtf8("(Lio/questdb/cairo/sql/Record;)Z");
+        final int positionIndex = asm.poolIntConst(node.position);
+        recordClassIndex = asm.poolClass(Record.class);
+        helperClassIndex = asm.poolClass(FilterCompiler.class);
+        numbersClassIndex = asm.poolClass(Numbers.class);
+        methodIndices.clear();
+        constantIndices.clear();
+        final int maxStack = pool(node, ColumnType.BOOLEAN);
+        asm.finishPool();
+
+        asm.defineClass(thisClassIndex, superClassIndex);
+        // interfaces
+        asm.interfaceCount(0);
+        // fields
+        asm.fieldCount(0);
+        asm.methodCount(2);
+
+        // constructor passes expression position to BooleanFunction
+        asm.startMethod(constructorNameIndex, constructorDescIndex, 2, 1);
+        asm.aload(0);
+        asm.ldc_w(positionIndex);
+        asm.invokeSpecial(superConstructorIndex);
+        asm.return_();
+        asm.endMethodCode();
+        // exceptions
+        asm.putShort(0);
+        // attributes
+        asm.putShort(0);
+        asm.endMethod();
+
+        // getBool(Record)
+        asm.startMethod(getBoolNameIndex, getBoolDescIndex, maxStack, 2);
+        constantPos = 0;
+        emit(node, ColumnType.BOOLEAN);
+        asm.ireturn();
+        asm.endMethodCode();
+        // exceptions
+        asm.putShort(0);
+        // attributes
+        asm.putShort(0);
+        asm.endMethod();
+
+        // class attribute count
+        asm.putShort(0);
+        return asm.newInstance();
+    }
+
+    private static int arithmeticType(int leftType, int rightType) {
+        if (leftType == ColumnType.INT && rightType == ColumnType.INT) {
+            return ColumnType.INT;
+        }
+        if (leftType == ColumnType.DOUBLE || rightType == ColumnType.DOUBLE) {
+            return ColumnType.DOUBLE;
+        }
+        return ColumnType.LONG;
+    }
+
+    private static int constantType(CharSequence tok) {
+        if (SqlKeywords.isNullKeyword(tok) || Chars.isQuoted(tok)) {
+            return ColumnType.UNDEFINED;
+        }
+
+        if (SqlKeywords.isTrueKeyword(tok) || SqlKeywords.isFalseKeyword(tok)) {
+            return ColumnType.BOOLEAN;
+        }
+
+        // same order of attempts as when function parser creates constants
+        try {
+            Numbers.parseInt(tok);
+            return ColumnType.INT;
+        } catch (NumericException ignore) {
+        }
+
+        try {
+            Numbers.parseLong(tok);
+            return ColumnType.LONG;
+        } catch (NumericException ignore) {
+        }
+
+        try {
+            // NaN constants are special cased by function parser
+            return Double.isNaN(Numbers.parseDouble(tok)) ? ColumnType.UNDEFINED : ColumnType.DOUBLE;
+        } catch (NumericException ignore) {
+        }
+        return ColumnType.UNDEFINED;
+    }
+
+    private static boolean isNumeric(int type) {
+        return type == ColumnType.INT || type == ColumnType.LONG || type == ColumnType.DOUBLE;
+    }
+
+    // type both operands are converted to before operator is applied, this follows
+    // signature that function parser picks for the operator
+    private static int operandType(int op, int leftType, int rightType) {
+        switch (op) {
+            case OP_AND:
+            case OP_OR:
+            case OP_NOT:
+                return ColumnType.BOOLEAN;
+            case OP_LT:
+            case OP_LE:
+            case OP_GT:
+            case OP_GE:
+                return ColumnType.DOUBLE;
+            case OP_DIV:
+                // there is no INT division, ints are divided as doubles
+                return leftType == ColumnType.DOUBLE || rightType == ColumnType.DOUBLE || (leftType == ColumnType.INT && rightType == ColumnType.INT)
+                        ? ColumnType.DOUBLE
+                        : ColumnType.LONG;
+            default:
+                return arithmeticType(leftType, rightType);
+        }
+    }
+
+    private static int widthOf(int type) {
+        return type == ColumnType.LONG || type == ColumnType.DOUBLE ? 2 : 1;
+    }
+
+    private int binaryOp(ExpressionNode node) {
+        return node.paramCount == 2 ? binaryOps.get(node.token) : -1;
+    }
+
+    private void convert(int fromType, int toType) {
+        if (fromType != toType) {
+            asm.invokeStatic(conversionIndex(fromType, toType));
+        }
+    }
+
+    private int conversionIndex(int fromType, int toType) {
+        if (fromType == ColumnType.INT) {
+            return toType == ColumnType.LONG
+                    ? methodIndex(numbersClassIndex, "intToLong", "(I)J")
+                    : methodIndex(numbersClassIndex, "intToDouble", "(I)D");
+        }
+        return methodIndex(numbersClassIndex, "longToDouble", "(J)D");
+    }
+
+    private void emit(ExpressionNode node, int targetType) {
+        final int type = typeOf(node);
+        switch (node.type) {
+            case ExpressionNode.LITERAL:
+                asm.aload(1);
+                asm.iconst(metadata.getColumnIndexQuiet(node.token));
+                asm.invokeInterface(getterIndex(type), 1);
+                convert(type, targetType);
+                break;
+            case ExpressionNode.CONSTANT:
+                emitConstant(node.token, type, targetType, constantIndices.getQuick(constantPos++));
+                break;
+            default:
+                final int op = binaryOp(node);
+                if (op != -1) {
+                    final int operandType = operandType(op, typeOf(node.lhs), typeOf(node.rhs));
+                    emit(node.lhs, operandType);
+                    emit(node.rhs, operandType);
+                    asm.invokeStatic(operatorIndex(op, operandType, 2));
+                } else {
+                    final ExpressionNode arg = unaryArg(node);
+                    final int operandType = typeOf(arg);
+                    emit(arg, operandType);
+                    asm.invokeStatic(operatorIndex(unaryOps.get(node.token), operandType, 1));
+                }
+                convert(type, targetType);
+                break;
+        }
+    }
+
+    private void emitConstant(CharSequence tok, int type, int targetType, int poolIndex) {
+        if (type == ColumnType.BOOLEAN) {
+            asm.iconst(SqlKeywords.isTrueKeyword(tok) ? 1 : 0);
+        } else if (poolIndex == -1) {
+            asm.iconst(parseInt(tok));
+        } else if (targetType == ColumnType.INT) {
+            asm.ldc_w(poolIndex);
+        } else {
+            asm.ldc2_w(poolIndex);
+        }
+    }
+
+    private int getterIndex(int type) {
+        switch (type) {
+            case ColumnType.BOOLEAN:
+                return interfaceMethodIndex("getBool", "(I)Z");
+            case ColumnType.INT:
+                return interfaceMethodIndex("getInt", "(I)I");
+            case ColumnType.LONG:
+                return interfaceMethodIndex("getLong", "(I)J");
+            default:
+                return interfaceMethodIndex("getDouble", "(I)D");
+        }
+    }
+
+    private int interfaceMethodIndex(String name, String desc) {
+        final int index = methodIndices.keyIndex(name);
+        if (index > -1) {
+            final int methodIndex = asm.poolInterfaceMethod(recordClassIndex, name, desc);
+            methodIndices.putAt(index, name, methodIndex);
+            return methodIndex;
+        }
+        return methodIndices.valueAt(index);
+    }
+
+    private int methodIndex(int classIndex, String name, String desc) {
+        // helper and conversion method names do not clash with record getter names
+        final String key = name + desc;
+        final int index = methodIndices.keyIndex(key);
+        if (index > -1) {
+            final int methodIndex = asm.poolMethod(classIndex, name, desc);
+            methodIndices.putAt(index, key, methodIndex);
+            return methodIndex;
+        }
+        return methodIndices.valueAt(index);
+    }
+
+    private int operatorIndex(int op, int operandType, int argCount) {
+        final String t;
+        switch (operandType) {
+            case ColumnType.BOOLEAN:
+                t = "Z";
+                break;
+            case ColumnType.INT:
+                t = "I";
+                break;
+            case ColumnType.LONG:
+                t = "J";
+                break;
+            default:
+                t = "D";
+                break;
+        }
+        final String args = argCount == 2 ? "(" + t + t + ")" : "(" + t + ")";
+        switch (op) {
+            case OP_AND:
+                return methodIndex(helperClassIndex, "and", "(ZZ)Z");
+            case OP_OR:
+                return methodIndex(helperClassIndex, "or", "(ZZ)Z");
+            case OP_NOT:
+                return methodIndex(helperClassIndex, "not", "(Z)Z");
+            case OP_EQ:
+                return methodIndex(helperClassIndex, "eq", args + "Z");
+            case OP_NE:
+                return methodIndex(helperClassIndex, "ne", args + "Z");
+            case OP_LT:
+                return methodIndex(helperClassIndex, "lt", args + "Z");
+            case OP_LE:
+                return methodIndex(helperClassIndex, "le", args + "Z");
+            case OP_GT:
+                return methodIndex(helperClassIndex, "gt", args + "Z");
+            case OP_GE:
+                return methodIndex(helperClassIndex, "ge", args + "Z");
+            case OP_ADD:
+                return methodIndex(helperClassIndex, "add" + typeSuffix(operandType), args + t);
+            case OP_SUB:
+                return methodIndex(helperClassIndex, "sub" + typeSuffix(operandType), args + t);
+            case OP_MUL:
+                return methodIndex(helperClassIndex, "mul" + typeSuffix(operandType), args + t);
+            case OP_DIV:
+                return methodIndex(helperClassIndex, "div" + typeSuffix(operandType), args + t);
+            default:
+                return methodIndex(helperClassIndex, "neg" + typeSuffix(operandType), args + t);
+        }
+    }
+
+    private static int parseInt(CharSequence tok) {
+        try {
+            return Numbers.parseInt(tok);
+        } catch (NumericException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Adds constants and methods used by generated code to constant pool.
+     *
+     * @return stack depth required to evaluate the node
+     */
+    private int pool(ExpressionNode node, int targetType) {
+        final int type = typeOf(node);
+        switch (node.type) {
+            case ExpressionNode.LITERAL:
+                getterIndex(type);
+                if (type != targetType) {
+                    conversionIndex(type, targetType);
+                }
+                return 2;
+            case ExpressionNode.CONSTANT:
+                constantIndices.add(poolConstant(node.token, type, targetType));
+                return widthOf(targetType);
+            default:
+                final int op = binaryOp(node);
+                int depth;
+                if (op != -1) {
+                    final int operandType = operandType(op, typeOf(node.lhs), typeOf(node.rhs));
+                    depth = Math.max(pool(node.lhs, operandType), widthOf(operandType) + pool(node.rhs, operandType));
+                    operatorIndex(op, operandType, 2);
+                } else {
+                    final ExpressionNode arg = unaryArg(node);
+                    final int operandType = typeOf(arg);
+                    depth = pool(arg, operandType);
+                    operatorIndex(unaryOps.get(node.token), operandType, 1);
+                }
+                if (type != targetType) {
+                    conversionIndex(type, targetType);
+                }
+                return Math.max(depth, widthOf(targetType));
+        }
+    }
+
+    private int poolConstant(CharSequence tok, int type, int targetType) {
+        try {
+            switch (type) {
+                case ColumnType.INT:
+                    final int value = Numbers.parseInt(tok);
+                    switch (targetType) {
+                        case ColumnType.INT:
+                            return value >= Short.MIN_VALUE && value <= Short.MAX_VALUE ? -1 : asm.poolIntConst(value);
+                        case ColumnType.LONG:
+                            return asm.poolLongConst(value);
+                        default:
+                            return asm.poolDoubleConst(value);
+                    }
+                case ColumnType.LONG:
+                    final long l = Numbers.parseLong(tok);
+                    return targetType == ColumnType.LONG ? asm.poolLongConst(l) : asm.poolDoubleConst(Numbers.longToDouble(l));
+                case ColumnType.DOUBLE:
+                    return asm.poolDoubleConst(Numbers.parseDouble(tok));
+                default:
+                    return -1;
+            }
+        } catch (NumericException e) {
+            // constant type has been resolved from the same token
+            throw new AssertionError(e);
+        }
+    }
+
+    private int typeOf(ExpressionNode node) {
+        switch (node.type) {
+            case ExpressionNode.LITERAL:
+                final int columnIndex = metadata.getColumnIndexQuiet(node.token);
+                if (columnIndex == -1) {
+                    return ColumnType.UNDEFINED;
+                }
+                final int columnType = metadata.getColumnType(columnIndex);
+                return columnType == ColumnType.BOOLEAN || isNumeric(columnType) ? columnType : ColumnType.UNDEFINED;
+            case ExpressionNode.CONSTANT:
+                return constantType(node.token);
+            case ExpressionNode.OPERATION:
+            case ExpressionNode.FUNCTION:
+                final int op = binaryOp(node);
+                if (op != -1) {
+                    final int leftType = typeOf(node.lhs);
+                    final int rightType = typeOf(node.rhs);
+                    switch (op) {
+                        case OP_AND:
+                        case OP_OR:
+                            return leftType == ColumnType.BOOLEAN && rightType == ColumnType.BOOLEAN ? ColumnType.BOOLEAN : ColumnType.UNDEFINED;
+                        case OP_EQ:
+                        case OP_NE:
+                        case OP_LT:
+                        case OP_LE:
+                        case OP_GT:
+                        case OP_GE:
+                            return isNumeric(leftType) && isNumeric(rightType) ? ColumnType.BOOLEAN : ColumnType.UNDEFINED;
+                        default:
+                            return isNumeric(leftType) && isNumeric(rightType) ? operandType(op, leftType, rightType) : ColumnType.UNDEFINED;
+                    }
+                }
+
+                if (node.paramCount == 1) {
+                    final int argType = typeOf(unaryArg(node));
+                    switch (unaryOps.get(node.token)) {
+                        case OP_NOT:
+                            return argType == ColumnType.BOOLEAN ? ColumnType.BOOLEAN : ColumnType.UNDEFINED;
+                        case OP_NEG:
+                            // there is no LONG negation, function parser resolves it differently
+                            return argType == ColumnType.INT || argType == ColumnType.DOUBLE ? argType : ColumnType.UNDEFINED;
+                        default:
+                            return ColumnType.UNDEFINED;
+                    }
+                }
+                return ColumnType.UNDEFINED;
+            default:
+                return ColumnType.UNDEFINED;
+        }
+    }
+
+    private static String typeSuffix(int type) {
+        switch (type) {
+            case ColumnType.INT:
+                return "Int";
+            case ColumnType.LONG:
+                return "Long";
+            default:
+                return "Double";
+        }
+    }
+
+    private static ExpressionNode unaryArg(ExpressionNode node) {
+        return node.rhs != null ? node.rhs : node.lhs;
+    }
+
+    static {
+        binaryOps.put("and", OP_AND);
+        binaryOps.put("or", OP_OR);
+        binaryOps.put("=", OP_EQ);
+        binaryOps.put("!=", OP_NE);
+        binaryOps.put("<>", OP_NE);
+        binaryOps.put("<", OP_LT);
+        binaryOps.put("<=", OP_LE);
+        binaryOps.put(">", OP_GT);
+        binaryOps.put(">=", OP_GE);
+        binaryOps.put("+", OP_ADD);
+        binaryOps.put("-", OP_SUB);
+        binaryOps.put("*", OP_MUL);
+        binaryOps.put("/", OP_DIV);
+        unaryOps.put("not", OP_NOT);
+        unaryOps.put("-", OP_NEG);
+    }
+}
@@ -77,6 +77,7 @@ public class FilterOnExcludedValuesRecordCursorFactory extends AbstractDataFrame
 
     @Override
     public void close() {
+        super.close();
         Misc.free(filter);
         Misc.free(includedValues);
         Misc.free(keyExcludedValueFunctions);
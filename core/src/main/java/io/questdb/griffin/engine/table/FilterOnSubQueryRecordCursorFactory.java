@@ -69,6 +69,7 @@ public class FilterOnSubQueryRecordCursorFactory extends AbstractDataFrameRecord
 
     @Override
     public void close() {
+        super.close();
         Misc.free(filter);
         recordCursorFactory.close();
         factoriesA.clear();
@@ -84,6 +84,7 @@ public class FilterOnValuesRecordCursorFactory extends AbstractDataFrameRecordCu
 
     @Override
     public void close() {
+        super.close();
         Misc.free(filter);
     }
 
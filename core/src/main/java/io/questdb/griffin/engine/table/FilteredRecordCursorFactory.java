@@ -64,4 +64,9 @@ public class FilteredRecordCursorFactory implements RecordCursorFactory {
     public boolean recordCursorSupportsRandomAccess() {
         return base.recordCursorSupportsRandomAccess();
     }
+
+    @Override
+    public void setAccessPattern(int advice) {
+        base.setAccessPattern(advice);
+    }
 }
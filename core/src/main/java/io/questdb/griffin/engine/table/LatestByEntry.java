@@ -0,0 +1,110 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.AbstractLockable;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.ObjList;
+import io.questdb.std.Rows;
+import io.questdb.std.Unsafe;
+
+/**
+ * Scans a row range of one partition backwards and records the latest row id of every
+ * symbol key into the array that belongs to the executing thread. Arrays are indexed by
+ * symbol key plus one, slot 0 is for null. Symbol values are read as raw ints, symbol
+ * tables are not touched.
+ */
+public class LatestByEntry extends AbstractLockable {
+    private ObjList<DirectLongList> latestRows;
+    private CountDownLatchSPI doneLatch;
+    private Throwable error;
+    private long columnAddress;
+    private long columnTop;
+    private long rowLo;
+    private long rowHi;
+    private int partitionIndex;
+
+    public Throwable getError() {
+        return error;
+    }
+
+    public boolean run(int slot) {
+        if (slot < latestRows.size() && tryLock()) {
+            try {
+                scan(latestRows.getQuick(slot));
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                doneLatch.countDown();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void scan(DirectLongList latest) {
+        // rows below column top are null, the last of them is enough
+        final long valueLo = Math.max(rowLo, columnTop);
+        if (valueLo > rowLo) {
+            update(latest, 0, Rows.toRowID(partitionIndex, Math.min(rowHi, columnTop) - 1));
+        }
+
+        final long addressLo = columnAddress - (columnTop << 2);
+        for (long row = rowHi - 1; row >= valueLo; row--) {
+            final int key = Unsafe.getUnsafe().getInt(addressLo + (row << 2));
+            update(latest, key == SymbolTable.VALUE_IS_NULL ? 0 : key + 1, Rows.toRowID(partitionIndex, row));
+        }
+    }
+
+    private static void update(DirectLongList latest, int index, long rowId) {
+        if (latest.get(index) < rowId) {
+            latest.set(index, rowId);
+        }
+    }
+
+    void of(
+            int sequence,
+            int partitionIndex,
+            long rowLo,
+            long rowHi,
+            long columnAddress,
+            long columnTop,
+            ObjList<DirectLongList> latestRows,
+            CountDownLatchSPI doneLatch
+    ) {
+        this.partitionIndex = partitionIndex;
+        this.rowLo = rowLo;
+        this.rowHi = rowHi;
+        this.columnAddress = columnAddress;
+        this.columnTop = columnTop;
+        this.latestRows = latestRows;
+        this.doneLatch = doneLatch;
+        this.error = null;
+        // entry becomes available to workers only after all of the above is set
+        of(sequence);
+    }
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.AbstractLockable;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+import java.io.Closeable;
+
+/**
+ * Filters a row range of a single page frame. Rows that pass the filter are collected
+ * as frame-relative row numbers, in ascending order. Entry can be executed either by
+ * a worker thread or by the thread that published it, whichever locks it first.
+ */
+public class PageFrameFilterEntry extends AbstractLockable implements Closeable {
+    private final LongList columnAddresses = new LongList();
+    private final DirectLongList rows;
+    private final ObjList<DirectLongList> scratch = new ObjList<>();
+    private final long rowCapacity;
+    private ObjList<Function> filters;
+    private PageFrameFilterKernel kernel;
+    private ObjList<PageFrameRecord> records;
+    private SymbolTableSource symbolTableSource;
+    private CountDownLatchSPI doneLatch;
+    private long rowLo;
+    private long rowHi;
+    private Throwable error;
+
+    public PageFrameFilterEntry(long rowCapacity) {
+        this.rows = new DirectLongList(rowCapacity);
+        this.rowCapacity = rowCapacity;
+    }
+
+    @Override
+    public void close() {
+        rows.close();
+        Misc.freeObjList(scratch);
+    }
+
+    public LongList getColumnAddresses() {
+        return columnAddresses;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    public DirectLongList getRows() {
+        return rows;
+    }
+
+    /**
+     * Runs filter using function instance that belongs to the given slot. Slots are
+     * either worker ids or the dedicated slot of the publishing thread.
+     *
+     * @param slot index of filter function and record to use
+     * @return true if entry was executed by this call
+     */
+    public boolean run(int slot) {
+        if (slot < filters.size() && tryLock()) {
+            try {
+                final Function filter = filters.getQuick(slot);
+                final PageFrameRecord record = records.getQuick(slot);
+                record.of(columnAddresses, symbolTableSource);
+                if (kernel != null) {
+                    kernel.filter(columnAddresses, rowLo, rowHi, rows, getScratch(kernel.getScratchSize()));
+                    if (!kernel.isExact()) {
+                        // rows are pre-selected, check them with the filter and keep those that pass
+                        long count = 0;
+                        for (long i = 0, n = rows.size(); i < n; i++) {
+                            final long r = rows.get(i);
+                            record.setRow(r);
+                            if (filter.getBool(record)) {
+                                rows.set(count++, r);
+                            }
+                        }
+                        rows.setPos(count);
+                    }
+                } else {
+                    rows.clear();
+                    for (long r = rowLo; r < rowHi; r++) {
+                        record.setRow(r);
+                        if (filter.getBool(record)) {
+                            rows.add(r);
+                        }
+                    }
+                }
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                // publisher waits for every entry, it rethrows the error once all of them are done
+                doneLatch.countDown();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private ObjList<DirectLongList> getScratch(int size) {
+        for (int i = scratch.size(); i < size; i++) {
+            scratch.add(new DirectLongList(rowCapacity));
+        }
+        return scratch;
+    }
+
+    void of(
+            int sequence,
+            LongList frameAddresses,
+            long rowLo,
+            long rowHi,
+            ObjList<Function> filters,
+            PageFrameFilterKernel kernel,
+            ObjList<PageFrameRecord> records,
+            SymbolTableSource symbolTableSource,
+            CountDownLatchSPI doneLatch
+    ) {
+        this.columnAddresses.clear();
+        this.columnAddresses.add(frameAddresses);
+        this.rowLo = rowLo;
+        this.rowHi = rowHi;
+        this.error = null;
+        // memory grown by earlier larger tasks is released, publisher bounds only rows in flight
+        final long capacity = Math.max(rowCapacity, rowHi - rowLo);
+        if (rows.getCapacity() > capacity) {
+            rows.shrink(capacity);
+        }
+        for (int i = 0, n = scratch.size(); i < n; i++) {
+            final DirectLongList list = scratch.getQuick(i);
+            if (list.getCapacity() > capacity) {
+                list.shrink(capacity);
+            }
+        }
+        this.filters = filters;
+        this.kernel = kernel;
+        this.records = records;
+        this.symbolTableSource = symbolTableSource;
+        this.doneLatch = doneLatch;
+        // entry becomes available to workers only after all of the above is set
+        of(sequence);
+    }
+}
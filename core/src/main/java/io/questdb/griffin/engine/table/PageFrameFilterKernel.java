@@ -0,0 +1,695 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlKeywords;
+import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.std.*;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Evaluates filter over column memory of a page frame a whole column at a time. Supported
+ * predicates compare INT, LONG, TIMESTAMP or DOUBLE column to a numeric constant, check INT,
+ * LONG, TIMESTAMP, DOUBLE or SYMBOL column for null and combine these with AND and OR.
+ * Each predicate runs a tight loop over raw column values and produces ascending frame-relative
+ * row numbers. AND evaluates right hand side only on rows selected by left hand side, OR merges
+ * row numbers selected by both sides.
+ * <p>
+ * Comparisons are reduced to range checks on raw column values that produce the same result
+ * as interpreted functions, including treatment of nulls. When only some of top level AND arguments
+ * are supported kernel pre-selects rows and the filter function has to be applied to the
+ * selected rows, see {@link #isExact()}.
+ * <p>
+ * Kernel is immutable and can be shared between threads.
+ */
+public class PageFrameFilterKernel {
+    private static final int OP_AND = 1;
+    private static final int OP_OR = 2;
+    private static final int OP_EQ = 3;
+    private static final int OP_NE = 4;
+    private static final int OP_LT = 5;
+    private static final int OP_LE = 6;
+    private static final int OP_GT = 7;
+    private static final int OP_GE = 8;
+    // kinds of predicate nodes, AND and OR nodes use operator as their kind
+    // raw int values in [lo, hi]
+    private static final int KIND_INT_RANGE = 11;
+    // raw long values in [lo, hi]
+    private static final int KIND_LONG_RANGE = 12;
+    // non-null long values converted to double in [dLo, dHi]
+    private static final int KIND_LONG_DOUBLE_RANGE = 13;
+    // double values in [dLo, dHi], NaN is never in range
+    private static final int KIND_DOUBLE_RANGE = 14;
+    private static final int KIND_DOUBLE_NAN = 15;
+    // column value converted to double is equal to constant within epsilon, same as EqDoubleFunction
+    private static final int KIND_DOUBLE_EQ = 16;
+    private static final double EPSILON = 0.0000000001;
+    private static final double INT_BOUND = 1L << 32;
+    private static final LowerCaseAsciiCharSequenceIntHashMap ops = new LowerCaseAsciiCharSequenceIntHashMap();
+    private final Node root;
+    private final boolean exact;
+    private final int depth;
+
+    private PageFrameFilterKernel(Node root, boolean exact) {
+        this.root = root;
+        this.exact = exact;
+        this.depth = root.depth();
+    }
+
+    /**
+     * Creates kernel for the given filter expression.
+     *
+     * @param filter   filter expression
+     * @param metadata metadata of page frame columns
+     * @return kernel or null when filter has no supported predicates
+     */
+    @Nullable
+    public static PageFrameFilterKernel compile(ExpressionNode filter, RecordMetadata metadata) {
+        final Node node = compile0(filter, metadata);
+        if (node != null) {
+            return new PageFrameFilterKernel(node, true);
+        }
+        // filter as a whole is not supported, try its top level AND arguments
+        Node conjunction = null;
+        final ObjList<ExpressionNode> stack = new ObjList<>();
+        stack.add(filter);
+        while (stack.size() > 0) {
+            final ExpressionNode n = stack.getLast();
+            stack.setPos(stack.size() - 1);
+            if (binaryOp(n) == OP_AND) {
+                stack.add(n.rhs);
+                stack.add(n.lhs);
+            } else {
+                final Node predicate = compile0(n, metadata);
+                if (predicate != null) {
+                    conjunction = conjunction == null ? predicate : Node.binary(OP_AND, conjunction, predicate);
+                }
+            }
+        }
+        return conjunction != null ? new PageFrameFilterKernel(conjunction, false) : null;
+    }
+
+    /**
+     * Selects rows of a page frame that pass the filter.
+     *
+     * @param columnAddresses page addresses of frame columns, 0 address stands for column top
+     * @param rowLo           first row to filter, inclusive
+     * @param rowHi           last row to filter, exclusive
+     * @param rows            receives ascending numbers of selected rows
+     * @param scratch         temporary row lists, at least {@link #getScratchSize()} of them
+     */
+    public void filter(LongList columnAddresses, long rowLo, long rowHi, DirectLongList rows, ObjList<DirectLongList> scratch) {
+        rows.clear();
+        filter(root, columnAddresses, rowLo, rowHi, null, rows, scratch, 0);
+    }
+
+    public int getScratchSize() {
+        return 2 * depth;
+    }
+
+    /**
+     * @return true when kernel evaluates the whole filter, false when rows selected by the kernel
+     * still have to be checked with filter function
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    private static int binaryOp(ExpressionNode node) {
+        return node.type == ExpressionNode.OPERATION && node.paramCount == 2 ? ops.get(node.token) : -1;
+    }
+
+    private static long ceilToLong(double value) {
+        return (long) Math.ceil(value);
+    }
+
+    @Nullable
+    private static Node compile0(ExpressionNode node, RecordMetadata metadata) {
+        final int op = binaryOp(node);
+        switch (op) {
+            case OP_AND:
+            case OP_OR:
+                final Node left = compile0(node.lhs, metadata);
+                if (left == null) {
+                    return null;
+                }
+                final Node right = compile0(node.rhs, metadata);
+                return right != null ? Node.binary(op, left, right) : null;
+            case OP_EQ:
+            case OP_NE:
+            case OP_LT:
+            case OP_LE:
+            case OP_GT:
+            case OP_GE:
+                if (node.lhs.type == ExpressionNode.LITERAL) {
+                    return predicate(op, node.lhs, node.rhs, metadata);
+                }
+                if (node.rhs.type == ExpressionNode.LITERAL) {
+                    return predicate(flip(op), node.rhs, node.lhs, metadata);
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    // type of numeric constant as function parser would create it, UNDEFINED when constant is not numeric
+    private static int constantType(ExpressionNode node) {
+        if (isNegation(node)) {
+            // unary minus keeps INT as INT and turns LONG into DOUBLE, there is no LONG negation
+            final ExpressionNode arg = unaryArg(node);
+            if (arg.type != ExpressionNode.CONSTANT) {
+                return ColumnType.UNDEFINED;
+            }
+            final int type = constantType(arg);
+            return type == ColumnType.LONG ? ColumnType.DOUBLE : type;
+        }
+
+        if (node.type != ExpressionNode.CONSTANT) {
+            return ColumnType.UNDEFINED;
+        }
+
+        final CharSequence tok = node.token;
+        try {
+            Numbers.parseInt(tok);
+            return ColumnType.INT;
+        } catch (NumericException ignore) {
+        }
+
+        try {
+            Numbers.parseLong(tok);
+            return ColumnType.LONG;
+        } catch (NumericException ignore) {
+        }
+
+        try {
+            return Double.isNaN(Numbers.parseDouble(tok)) ? ColumnType.UNDEFINED : ColumnType.DOUBLE;
+        } catch (NumericException ignore) {
+        }
+        return ColumnType.UNDEFINED;
+    }
+
+    private static double doubleValue(ExpressionNode node) throws NumericException {
+        if (isNegation(node)) {
+            return -Numbers.parseDouble(unaryArg(node).token);
+        }
+        return Numbers.parseDouble(node.token);
+    }
+
+    private static boolean filterDoubleEq(Node node, long address, int columnType, long r) {
+        final double value;
+        switch (columnType) {
+            case ColumnType.INT:
+                final int i = Unsafe.getUnsafe().getInt(address + (r << 2));
+                value = i == Numbers.INT_NaN ? Double.NaN : i;
+                break;
+            case ColumnType.LONG:
+                final long l = Unsafe.getUnsafe().getLong(address + (r << 3));
+                value = l == Numbers.LONG_NaN ? Double.NaN : l;
+                break;
+            default:
+                value = Unsafe.getUnsafe().getDouble(address + (r << 3));
+                break;
+        }
+        return node.negated != (Math.abs(value - node.dLo) < EPSILON);
+    }
+
+    private static void filter(
+            Node node,
+            LongList columnAddresses,
+            long rowLo,
+            long rowHi,
+            DirectLongList in,
+            DirectLongList out,
+            ObjList<DirectLongList> scratch,
+            int scratchLo
+    ) {
+        switch (node.kind) {
+            case OP_AND:
+                final DirectLongList selected = scratch.getQuick(scratchLo);
+                selected.clear();
+                filter(node.left, columnAddresses, rowLo, rowHi, in, selected, scratch, scratchLo + 2);
+                if (selected.size() > 0) {
+                    filter(node.right, columnAddresses, rowLo, rowHi, selected, out, scratch, scratchLo + 2);
+                }
+                break;
+            case OP_OR:
+                final DirectLongList a = scratch.getQuick(scratchLo);
+                final DirectLongList b = scratch.getQuick(scratchLo + 1);
+                a.clear();
+                b.clear();
+                filter(node.left, columnAddresses, rowLo, rowHi, in, a, scratch, scratchLo + 2);
+                filter(node.right, columnAddresses, rowLo, rowHi, in, b, scratch, scratchLo + 2);
+                merge(a, b, out);
+                break;
+            default:
+                final long address = columnAddresses.getQuick(node.columnIndex);
+                if (address == 0) {
+                    // column top, all rows are null
+                    if (node.matchesNull()) {
+                        selectAll(rowLo, rowHi, in, out);
+                    }
+                } else if (in == null) {
+                    filterRange(node, address, rowLo, rowHi, out);
+                } else {
+                    filterRows(node, address, in, out);
+                }
+                break;
+        }
+    }
+
+    private static void filterRange(Node node, long address, long rowLo, long rowHi, DirectLongList out) {
+        final boolean negated = node.negated;
+        switch (node.kind) {
+            case KIND_INT_RANGE: {
+                final long lo = node.lo;
+                final long hi = node.hi;
+                for (long r = rowLo; r < rowHi; r++) {
+                    final int value = Unsafe.getUnsafe().getInt(address + (r << 2));
+                    if (negated != (value >= lo && value <= hi)) {
+                        out.add(r);
+                    }
+                }
+                break;
+            }
+            case KIND_LONG_RANGE: {
+                final long lo = node.lo;
+                final long hi = node.hi;
+                for (long r = rowLo; r < rowHi; r++) {
+                    final long value = Unsafe.getUnsafe().getLong(address + (r << 3));
+                    if (negated != (value >= lo && value <= hi)) {
+                        out.add(r);
+                    }
+                }
+                break;
+            }
+            case KIND_LONG_DOUBLE_RANGE: {
+                final double lo = node.dLo;
+                final double hi = node.dHi;
+                for (long r = rowLo; r < rowHi; r++) {
+                    final long value = Unsafe.getUnsafe().getLong(address + (r << 3));
+                    if (negated != (value != Numbers.LONG_NaN && value >= lo && value <= hi)) {
+                        out.add(r);
+                    }
+                }
+                break;
+            }
+            case KIND_DOUBLE_RANGE: {
+                final double lo = node.dLo;
+                final double hi = node.dHi;
+                for (long r = rowLo; r < rowHi; r++) {
+                    final double value = Unsafe.getUnsafe().getDouble(address + (r << 3));
+                    if (negated != (value >= lo && value <= hi)) {
+                        out.add(r);
+                    }
+                }
+                break;
+            }
+            case KIND_DOUBLE_NAN:
+                for (long r = rowLo; r < rowHi; r++) {
+                    final double value = Unsafe.getUnsafe().getDouble(address + (r << 3));
+                    if (negated != (value != value)) {
+                        out.add(r);
+                    }
+                }
+                break;
+            default:
+                final int columnType = node.columnType;
+                for (long r = rowLo; r < rowHi; r++) {
+                    if (filterDoubleEq(node, address, columnType, r)) {
+                        out.add(r);
+                    }
+                }
+                break;
+        }
+    }
+
+    private static void filterRows(Node node, long address, DirectLongList in, DirectLongList out) {
+        final boolean negated = node.negated;
+        final long n = in.size();
+        switch (node.kind) {
+            case KIND_INT_RANGE: {
+                final long lo = node.lo;
+                final long hi = node.hi;
+                for (long i = 0; i < n; i++) {
+                    final long r = in.get(i);
+                    final int value = Unsafe.getUnsafe().getInt(address + (r << 2));
+                    if (negated != (value >= lo && value <= hi)) {
+                        out.add(r);
+                    }
+                }
+                break;
+            }
+            case KIND_LONG_RANGE: {
+                final long lo = node.lo;
+                final long hi = node.hi;
+                for (long i = 0; i < n; i++) {
+                    final long r = in.get(i);
+                    final long value = Unsafe.getUnsafe().getLong(address + (r << 3));
+                    if (negated != (value >= lo && value <= hi)) {
+                        out.add(r);
+                    }
+                }
+                break;
+            }
+            case KIND_LONG_DOUBLE_RANGE: {
+                final double lo = node.dLo;
+                final double hi = node.dHi;
+                for (long i = 0; i < n; i++) {
+                    final long r = in.get(i);
+                    final long value = Unsafe.getUnsafe().getLong(address + (r << 3));
+                    if (negated != (value != Numbers.LONG_NaN && value >= lo && value <= hi)) {
+                        out.add(r);
+                    }
+                }
+                break;
+            }
+            case KIND_DOUBLE_RANGE: {
+                final double lo = node.dLo;
+                final double hi = node.dHi;
+                for (long i = 0; i < n; i++) {
+                    final long r = in.get(i);
+                    final double value = Unsafe.getUnsafe().getDouble(address + (r << 3));
+                    if (negated != (value >= lo && value <= hi)) {
+                        out.add(r);
+                    }
+                }
+                break;
+            }
+            case KIND_DOUBLE_NAN:
+                for (long i = 0; i < n; i++) {
+                    final long r = in.get(i);
+                    final double value = Unsafe.getUnsafe().getDouble(address + (r << 3));
+                    if (negated != (value != value)) {
+                        out.add(r);
+                    }
+                }
+                break;
+            default:
+                final int columnType = node.columnType;
+                for (long i = 0; i < n; i++) {
+                    final long r = in.get(i);
+                    if (filterDoubleEq(node, address, columnType, r)) {
+                        out.add(r);
+                    }
+                }
+                break;
+        }
+    }
+
+    private static int flip(int op) {
+        switch (op) {
+            case OP_LT:
+                return OP_GT;
+            case OP_LE:
+                return OP_GE;
+            case OP_GT:
+                return OP_LT;
+            case OP_GE:
+                return OP_LE;
+            default:
+                return op;
+        }
+    }
+
+    private static long floorToLong(double value) {
+        return (long) Math.floor(value);
+    }
+
+    private static boolean isNegation(ExpressionNode node) {
+        return node.type == ExpressionNode.OPERATION && node.paramCount == 1 && Chars.equals(node.token, '-');
+    }
+
+    private static void merge(DirectLongList a, DirectLongList b, DirectLongList out) {
+        final long n = a.size();
+        final long m = b.size();
+        long i = 0;
+        long j = 0;
+        while (i < n && j < m) {
+            final long x = a.get(i);
+            final long y = b.get(j);
+            if (x < y) {
+                out.add(x);
+                i++;
+            } else if (x > y) {
+                out.add(y);
+                j++;
+            } else {
+                out.add(x);
+                i++;
+                j++;
+            }
+        }
+        for (; i < n; i++) {
+            out.add(a.get(i));
+        }
+        for (; j < m; j++) {
+            out.add(b.get(j));
+        }
+    }
+
+    // predicate "column op constant"
+    @Nullable
+    private static Node predicate(int op, ExpressionNode column, ExpressionNode constant, RecordMetadata metadata) {
+        final int columnIndex = metadata.getColumnIndexQuiet(column.token);
+        if (columnIndex == -1) {
+            return null;
+        }
+        final int columnType = metadata.getColumnType(columnIndex);
+        final boolean equality = op == OP_EQ || op == OP_NE;
+        final boolean negated = op == OP_NE;
+
+        if (constant.type == ExpressionNode.CONSTANT && equality) {
+            // null and NaN constants are resolved to null checks
+            final boolean isNull = SqlKeywords.isNullKeyword(constant.token);
+            if (isNull || SqlKeywords.isNanKeyword(constant.token)) {
+                switch (columnType) {
+                    case ColumnType.SYMBOL:
+                        return isNull ? Node.range(KIND_INT_RANGE, columnIndex, columnType, Numbers.INT_NaN, Numbers.INT_NaN, negated) : null;
+                    case ColumnType.INT:
+                        return Node.range(KIND_INT_RANGE, columnIndex, columnType, Numbers.INT_NaN, Numbers.INT_NaN, negated);
+                    case ColumnType.LONG:
+                    case ColumnType.TIMESTAMP:
+                        return isNull ? null : Node.range(KIND_LONG_RANGE, columnIndex, columnType, Numbers.LONG_NaN, Numbers.LONG_NaN, negated);
+                    case ColumnType.DOUBLE:
+                        return isNull ? null : Node.range(KIND_DOUBLE_NAN, columnIndex, columnType, 0, 0, negated);
+                    default:
+                        return null;
+                }
+            }
+        }
+
+        final int constantType = constantType(constant);
+        if (constantType == ColumnType.UNDEFINED) {
+            return null;
+        }
+
+        final long value;
+        final double doubleValue;
+        try {
+            doubleValue = doubleValue(constant);
+            if (constantType == ColumnType.DOUBLE) {
+                value = 0;
+            } else if (isNegation(constant)) {
+                value = -Numbers.parseLong(unaryArg(constant).token);
+            } else {
+                value = Numbers.parseLong(constant.token);
+            }
+        } catch (NumericException e) {
+            return null;
+        }
+
+        switch (columnType) {
+            case ColumnType.INT:
+                if (equality) {
+                    // INT and LONG constants are compared to raw column value, null included
+                    if (constantType == ColumnType.DOUBLE) {
+                        return Node.doubleEq(columnIndex, columnType, doubleValue, negated);
+                    }
+                    return Node.range(KIND_INT_RANGE, columnIndex, columnType, value, value, negated);
+                }
+                // ordering compares values as doubles, null never passes; constant is clamped
+                // to a range that is wider than INT to keep bounds from overflowing
+                final double bound = Math.max(-INT_BOUND, Math.min(INT_BOUND, doubleValue));
+                switch (op) {
+                    case OP_LT:
+                        return Node.range(KIND_INT_RANGE, columnIndex, columnType, Numbers.INT_NaN + 1, ceilToLong(bound) - 1, false);
+                    case OP_LE:
+                        return Node.range(KIND_INT_RANGE, columnIndex, columnType, Numbers.INT_NaN + 1, floorToLong(bound), false);
+                    case OP_GT:
+                        return Node.range(KIND_INT_RANGE, columnIndex, columnType, Math.max(floorToLong(bound) + 1, Numbers.INT_NaN + 1), Integer.MAX_VALUE, false);
+                    default:
+                        return Node.range(KIND_INT_RANGE, columnIndex, columnType, Math.max(ceilToLong(bound), Numbers.INT_NaN + 1), Integer.MAX_VALUE, false);
+                }
+            case ColumnType.LONG:
+                if (equality) {
+                    if (constantType == ColumnType.DOUBLE) {
+                        return Node.doubleEq(columnIndex, columnType, doubleValue, negated);
+                    }
+                    return Node.range(KIND_LONG_RANGE, columnIndex, columnType, value, value, negated);
+                }
+                return doubleRange(KIND_LONG_DOUBLE_RANGE, op, columnIndex, columnType, doubleValue);
+            case ColumnType.TIMESTAMP:
+                // timestamps are compared to INT and LONG constants as raw longs, null included
+                if (constantType == ColumnType.DOUBLE) {
+                    return null;
+                }
+                switch (op) {
+                    case OP_EQ:
+                    case OP_NE:
+                        return Node.range(KIND_LONG_RANGE, columnIndex, columnType, value, value, negated);
+                    case OP_LT:
+                        return Node.range(KIND_LONG_RANGE, columnIndex, columnType, Long.MIN_VALUE, value - 1, false);
+                    case OP_LE:
+                        return Node.range(KIND_LONG_RANGE, columnIndex, columnType, Long.MIN_VALUE, value, false);
+                    case OP_GT:
+                        return value == Long.MAX_VALUE
+                                ? Node.range(KIND_LONG_RANGE, columnIndex, columnType, 1, 0, false)
+                                : Node.range(KIND_LONG_RANGE, columnIndex, columnType, value + 1, Long.MAX_VALUE, false);
+                    default:
+                        return Node.range(KIND_LONG_RANGE, columnIndex, columnType, value, Long.MAX_VALUE, false);
+                }
+            case ColumnType.DOUBLE:
+                if (equality) {
+                    return Node.doubleEq(columnIndex, columnType, doubleValue, negated);
+                }
+                // infinite bounds cannot be made inclusive
+                return Double.isInfinite(doubleValue) ? null : doubleRange(KIND_DOUBLE_RANGE, op, columnIndex, columnType, doubleValue);
+            default:
+                return null;
+        }
+    }
+
+    // strict comparisons of doubles are turned into inclusive ranges using adjacent double values
+    private static Node doubleRange(int kind, int op, int columnIndex, int columnType, double value) {
+        switch (op) {
+            case OP_LT:
+                return Node.doubleRange(kind, columnIndex, columnType, Double.NEGATIVE_INFINITY, Math.nextDown(value));
+            case OP_LE:
+                return Node.doubleRange(kind, columnIndex, columnType, Double.NEGATIVE_INFINITY, value);
+            case OP_GT:
+                return Node.doubleRange(kind, columnIndex, columnType, Math.nextUp(value), Double.POSITIVE_INFINITY);
+            default:
+                return Node.doubleRange(kind, columnIndex, columnType, value, Double.POSITIVE_INFINITY);
+        }
+    }
+
+    private static ExpressionNode unaryArg(ExpressionNode node) {
+        return node.rhs != null ? node.rhs : node.lhs;
+    }
+
+    private static void selectAll(long rowLo, long rowHi, DirectLongList in, DirectLongList out) {
+        if (in == null) {
+            for (long r = rowLo; r < rowHi; r++) {
+                out.add(r);
+            }
+        } else {
+            out.add(in);
+        }
+    }
+
+    private static class Node {
+        private int kind;
+        private Node left;
+        private Node right;
+        private int columnIndex;
+        private int columnType;
+        private boolean negated;
+        private long lo;
+        private long hi;
+        private double dLo;
+        private double dHi;
+
+        private static Node binary(int op, Node left, Node right) {
+            final Node node = new Node();
+            node.kind = op;
+            node.left = left;
+            node.right = right;
+            return node;
+        }
+
+        private static Node doubleEq(int columnIndex, int columnType, double value, boolean negated) {
+            final Node node = leaf(KIND_DOUBLE_EQ, columnIndex, columnType, negated);
+            node.dLo = value;
+            return node;
+        }
+
+        private static Node doubleRange(int kind, int columnIndex, int columnType, double lo, double hi) {
+            final Node node = leaf(kind, columnIndex, columnType, false);
+            node.dLo = lo;
+            node.dHi = hi;
+            return node;
+        }
+
+        private static Node leaf(int kind, int columnIndex, int columnType, boolean negated) {
+            final Node node = new Node();
+            node.kind = kind;
+            node.columnIndex = columnIndex;
+            node.columnType = columnType;
+            node.negated = negated;
+            return node;
+        }
+
+        private static Node range(int kind, int columnIndex, int columnType, long lo, long hi, boolean negated) {
+            final Node node = leaf(kind, columnIndex, columnType, negated);
+            node.lo = lo;
+            node.hi = hi;
+            return node;
+        }
+
+        private int depth() {
+            return left == null ? 0 : 1 + Math.max(left.depth(), right.depth());
+        }
+
+        // result of the predicate for column top rows
+        private boolean matchesNull() {
+            switch (kind) {
+                case KIND_INT_RANGE:
+                    return negated != (Numbers.INT_NaN >= lo && Numbers.INT_NaN <= hi);
+                case KIND_LONG_RANGE:
+                    return negated != (Numbers.LONG_NaN >= lo && Numbers.LONG_NaN <= hi);
+                case KIND_DOUBLE_NAN:
+                    return !negated;
+                default:
+                    // NaN is out of any double range and not equal to a non-NaN constant
+                    return negated;
+            }
+        }
+    }
+
+    static {
+        ops.put("and", OP_AND);
+        ops.put("or", OP_OR);
+        ops.put("=", OP_EQ);
+        ops.put("!=", OP_NE);
+        ops.put("<>", OP_NE);
+        ops.put("<", OP_LT);
+        ops.put("<=", OP_LE);
+        ops.put(">", OP_GT);
+        ops.put(">=", OP_GE);
+    }
+}
@@ -0,0 +1,241 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.tasks.PageFrameFilterTask;
+import org.jetbrains.annotations.Nullable;
+
+class ParallelFilteredRecordCursor implements NoRandomAccessRecordCursor {
+    private static final Log LOG = LogFactory.getLog(ParallelFilteredRecordCursor.class);
+    private final ObjList<Function> filters;
+    private final PageFrameFilterKernel kernel;
+    private final ObjList<PageFrameRecord> records = new ObjList<>();
+    private final ObjList<PageFrameFilterEntry> entries;
+    private final PageFrameRecord record = new PageFrameRecord();
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final LongList frameAddresses = new LongList();
+    private final long maxTaskRowCount;
+    private final long maxBatchRowCount;
+    private final int firstColumnShift;
+    private final int columnCount;
+    private final int ownerSlot;
+    private PageFrameCursor pageFrameCursor;
+    private MessageBus bus;
+    private int entryCount;
+    private int entryIndex;
+    private int sequence;
+    private DirectLongList rows;
+    private long rowIndex;
+    private long rowCount;
+    private long frameRowLo;
+    private long frameRowHi;
+
+    public ParallelFilteredRecordCursor(
+            CairoConfiguration configuration,
+            RecordMetadata metadata,
+            ObjList<Function> filters,
+            @Nullable PageFrameFilterKernel kernel,
+            ObjList<PageFrameFilterEntry> entries
+    ) {
+        this.filters = filters;
+        this.kernel = kernel;
+        this.entries = entries;
+        this.maxTaskRowCount = configuration.getParallelFilterFrameRowCount();
+        this.firstColumnShift = ColumnType.pow2SizeOf(metadata.getColumnType(0));
+        this.columnCount = metadata.getColumnCount();
+        for (int i = 0, n = filters.size(); i < n; i++) {
+            records.add(new PageFrameRecord());
+        }
+        // last filter instance is reserved for the thread iterating the cursor
+        this.ownerSlot = filters.size() - 1;
+        // a full size task per thread, row lists of a batch are kept until the cursor moves past it
+        this.maxBatchRowCount = maxTaskRowCount * filters.size();
+    }
+
+    @Override
+    public void close() {
+        pageFrameCursor = Misc.free(pageFrameCursor);
+    }
+
+    @Override
+    public Record getRecord() {
+        return record;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return pageFrameCursor.getSymbolMapReader(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            if (rowIndex < rowCount) {
+                record.setRow(rows.get(rowIndex++));
+                return true;
+            }
+
+            if (entryIndex < entryCount) {
+                final PageFrameFilterEntry entry = entries.getQuick(entryIndex++);
+                record.of(entry.getColumnAddresses(), this);
+                rows = entry.getRows();
+                rowIndex = 0;
+                rowCount = rows.size();
+                continue;
+            }
+
+            if (!dispatch()) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public void toTop() {
+        pageFrameCursor.toTop();
+        for (int i = 0, n = filters.size(); i < n; i++) {
+            filters.getQuick(i).toTop();
+        }
+        resetState();
+    }
+
+    private boolean dispatch() {
+        final RingQueue<PageFrameFilterTask> queue = bus.getPageFrameFilterQueue();
+        final Sequence pubSeq = bus.getPageFrameFilterPubSeq();
+        final int batchSize = queue.getCapacity();
+
+        entryCount = 0;
+        entryIndex = 0;
+        doneLatch.reset();
+
+        int queuedCount = 0;
+        int ownCount = 0;
+        int reclaimed = 0;
+        long batchRowCount = 0;
+
+        while (entryCount < batchSize && batchRowCount < maxBatchRowCount) {
+            if (frameRowLo == frameRowHi) {
+                final PageFrame frame = pageFrameCursor.next();
+                if (frame == null) {
+                    break;
+                }
+                frameAddresses.clear();
+                for (int i = 0; i < columnCount; i++) {
+                    frameAddresses.add(frame.getPageAddress(i));
+                }
+                frameRowLo = 0;
+                // column top frames report size in rows rather than bytes
+                frameRowHi = frameAddresses.getQuick(0) == 0 ? frame.getPageSize(0) : frame.getPageSize(0) >> firstColumnShift;
+                continue;
+            }
+
+            final long rowHi = Math.min(frameRowHi, frameRowLo + maxTaskRowCount);
+            final PageFrameFilterEntry entry = nextEntry();
+            entry.of(sequence++, frameAddresses, frameRowLo, rowHi, filters, kernel, records, this, doneLatch);
+            batchRowCount += rowHi - frameRowLo;
+            frameRowLo = rowHi;
+
+            final long seq = pubSeq.next();
+            if (seq < 0) {
+                entry.run(ownerSlot);
+                ownCount++;
+            } else {
+                queue.get(seq).entry = entry;
+                pubSeq.done(seq);
+                queuedCount++;
+            }
+        }
+
+        // help with the work we published, starting at the back to reduce chance of clashing with workers
+        for (int i = entryCount - 1; i > -1 && doneLatch.getCount() > -entryCount; i--) {
+            if (entries.getQuick(i).run(ownerSlot)) {
+                reclaimed++;
+            }
+        }
+        doneLatch.await(entryCount);
+
+        for (int i = 0; i < entryCount; i++) {
+            final Throwable error = entries.getQuick(i).getError();
+            if (error != null) {
+                // rows of the failed batch must not be returned by subsequent hasNext() calls
+                entryCount = 0;
+                if (error instanceof RuntimeException) {
+                    throw (RuntimeException) error;
+                }
+                throw CairoException.instance(0).put("parallel filter failed: ").put(error.getMessage());
+            }
+        }
+
+        if (entryCount > 0) {
+            LOG.debug().$("filtered [tasks=").$(entryCount).$(", ownCount=").$(ownCount).$(", reclaimed=").$(reclaimed).$(", queuedCount=").$(queuedCount).$(']').$();
+            return true;
+        }
+        return false;
+    }
+
+    private PageFrameFilterEntry nextEntry() {
+        if (entryCount == entries.size()) {
+            entries.add(new PageFrameFilterEntry(Math.min(maxTaskRowCount, 1024)));
+        }
+        return entries.getQuick(entryCount++);
+    }
+
+    private void resetState() {
+        entryCount = 0;
+        entryIndex = 0;
+        rowIndex = 0;
+        rowCount = 0;
+        frameRowLo = 0;
+        frameRowHi = 0;
+    }
+
+    ParallelFilteredRecordCursor of(PageFrameCursor pageFrameCursor, SqlExecutionContext executionContext) {
+        this.pageFrameCursor = pageFrameCursor;
+        this.bus = executionContext.getMessageBus();
+        Function.init(filters, this, executionContext);
+        resetState();
+        return this;
+    }
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Filters rows of page frames on the shared worker pool. Base factory must support page
+ * frames. There is one filter function instance per worker, the last instance in the list
+ * is used by the thread that owns the cursor. When filter kernel is present rows are selected
+ * by the kernel, which scans column memory directly, rather than by filter functions.
+ */
+public class ParallelFilteredRecordCursorFactory implements RecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final ObjList<Function> filters;
+    private final ObjList<PageFrameFilterEntry> entries = new ObjList<>();
+    private final ParallelFilteredRecordCursor cursor;
+
+    public ParallelFilteredRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordCursorFactory base,
+            ObjList<Function> filters,
+            @Nullable PageFrameFilterKernel kernel
+    ) {
+        assert base.supportPageFrameCursor();
+        this.base = base;
+        this.filters = filters;
+        this.cursor = new ParallelFilteredRecordCursor(configuration, base.getMetadata(), filters, kernel, entries);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(base);
+        Misc.freeObjList(filters);
+        Misc.freeObjList(entries);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        final PageFrameCursor pageFrameCursor = base.getPageFrameCursor(executionContext);
+        return cursor.of(pageFrameCursor, executionContext);
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return base.getMetadata();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+}
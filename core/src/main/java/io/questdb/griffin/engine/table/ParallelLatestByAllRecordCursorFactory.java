@@ -0,0 +1,232 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.NullColumn;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.DataFrameCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.ReadOnlyVirtualMemory;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.tasks.LatestByTask;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * LATEST BY on a single non-indexed symbol column, executed on the shared worker pool.
+ * Partitions are split into row ranges, which are scanned backwards concurrently. Every
+ * thread keeps the latest row id per symbol key in its own array indexed by symbol key,
+ * arrays are reduced by max row id once all ranges are scanned. Result rows are in the
+ * same order as those of the single-threaded cursor.
+ */
+public class ParallelLatestByAllRecordCursorFactory extends AbstractTreeSetRecordCursorFactory {
+    private static final Log LOG = LogFactory.getLog(ParallelLatestByAllRecordCursorFactory.class);
+    private final ObjList<DirectLongList> latestRows;
+    private final ObjList<LatestByEntry> entries = new ObjList<>();
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final long maxTaskRowCount;
+    private final int ownerSlot;
+
+    public ParallelLatestByAllRecordCursorFactory(
+            @NotNull RecordMetadata metadata,
+            @NotNull CairoConfiguration configuration,
+            @NotNull DataFrameCursorFactory dataFrameCursorFactory,
+            int columnIndex,
+            @NotNull IntList columnIndexes,
+            int workerCount
+    ) {
+        super(metadata, dataFrameCursorFactory, configuration);
+        // one slot per worker plus the thread that owns the cursor
+        final int slotCount = workerCount + 1;
+        this.latestRows = new ObjList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            latestRows.add(new DirectLongList(configuration.getSqlLatestByRowCount()));
+        }
+        this.ownerSlot = workerCount;
+        this.maxTaskRowCount = configuration.getParallelLatestByFrameRowCount();
+        this.cursor = new ParallelLatestByAllRecordCursor(rows, columnIndexes.getQuick(columnIndex), columnIndexes);
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        Misc.freeObjList(latestRows);
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    private int awaitEntries(int entryCount) {
+        int reclaimed = 0;
+        // start at the back to reduce chance of clashing with workers
+        for (int i = entryCount - 1; i > -1 && doneLatch.getCount() > -entryCount; i--) {
+            if (entries.getQuick(i).run(ownerSlot)) {
+                reclaimed++;
+            }
+        }
+        doneLatch.await(entryCount);
+        doneLatch.reset();
+
+        for (int i = 0; i < entryCount; i++) {
+            final Throwable error = entries.getQuick(i).getError();
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if (error != null) {
+                throw CairoException.instance(0).put("parallel latest by failed: ").put(error.getMessage());
+            }
+        }
+        return reclaimed;
+    }
+
+    private LatestByEntry nextEntry(int index) {
+        if (index == entries.size()) {
+            entries.add(new LatestByEntry());
+        }
+        return entries.getQuick(index);
+    }
+
+    private class ParallelLatestByAllRecordCursor extends AbstractDescendingRecordListCursor {
+        private final int readerColumnIndex;
+
+        public ParallelLatestByAllRecordCursor(DirectLongList rows, int readerColumnIndex, @NotNull IntList columnIndexes) {
+            super(rows, columnIndexes);
+            this.readerColumnIndex = readerColumnIndex;
+        }
+
+        @Override
+        protected void buildTreeMap(SqlExecutionContext executionContext) {
+            final TableReader reader = dataFrameCursor.getTableReader();
+            // symbol keys are in [0, symbolCount), null takes the extra slot
+            final long keyCount = reader.getSymbolMapReader(readerColumnIndex).size() + 1;
+            for (int i = 0, n = latestRows.size(); i < n; i++) {
+                latestRows.getQuick(i).setAll(keyCount, -1);
+            }
+
+            scan(reader, executionContext);
+
+            // reduce by max row id
+            for (long i = 0; i < keyCount; i++) {
+                long rowId = -1;
+                for (int j = 0, n = latestRows.size(); j < n; j++) {
+                    rowId = Math.max(rowId, latestRows.getQuick(j).get(i));
+                }
+                if (rowId > -1) {
+                    rows.add(rowId);
+                }
+            }
+
+            // cursor walks the list from the end, rows are expected in descending order
+            rows.sortAsUnsigned();
+            for (long lo = 0, hi = rows.size() - 1; lo < hi; lo++, hi--) {
+                final long rowId = rows.get(lo);
+                rows.set(lo, rows.get(hi));
+                rows.set(hi, rowId);
+            }
+        }
+
+        private void scan(TableReader reader, SqlExecutionContext executionContext) {
+            final MessageBus bus = executionContext.getMessageBus();
+            final RingQueue<LatestByTask> queue = bus.getLatestByQueue();
+            final Sequence pubSeq = bus.getLatestByPubSeq();
+            final int batchSize = queue.getCapacity();
+
+            int sequence = 0;
+            int total = 0;
+            int reclaimed = 0;
+            int entryCount = 0;
+            doneLatch.reset();
+
+            DataFrame frame;
+            while ((frame = dataFrameCursor.next()) != null) {
+                final int partitionIndex = frame.getPartitionIndex();
+                final long rowLo = frame.getRowLo();
+                final long rowHi = frame.getRowHi();
+                if (rowLo == rowHi) {
+                    continue;
+                }
+
+                final int base = reader.getColumnBase(partitionIndex);
+                final ReadOnlyVirtualMemory column = reader.getColumn(TableReader.getPrimaryColumnIndex(base, readerColumnIndex));
+                final long columnAddress;
+                final long columnTop;
+                if (column instanceof NullColumn) {
+                    columnAddress = 0;
+                    columnTop = rowHi;
+                } else {
+                    columnTop = reader.getColumnTop(base, readerColumnIndex);
+                    // memory is mapped on this thread, workers only read it
+                    columnAddress = column.getPageAddress(0);
+                    if (rowHi > columnTop && column.getPageSize(0) < (rowHi - columnTop) << 2) {
+                        throw CairoException.instance(0).put("partition is not mapped as single page, cannot perform parallel latest by");
+                    }
+                }
+
+                // ranges are published latest first, they are the most likely to be reclaimed by this thread
+                for (long hi = rowHi; hi > rowLo; ) {
+                    final long lo = Math.max(rowLo, hi - maxTaskRowCount);
+                    final LatestByEntry entry = nextEntry(entryCount++);
+                    entry.of(sequence++, partitionIndex, lo, hi, columnAddress, columnTop, latestRows, doneLatch);
+                    hi = lo;
+
+                    final long seq = pubSeq.next();
+                    if (seq < 0) {
+                        entry.run(ownerSlot);
+                    } else {
+                        queue.get(seq).entry = entry;
+                        pubSeq.done(seq);
+                    }
+
+                    if (entryCount == batchSize) {
+                        reclaimed += awaitEntries(entryCount);
+                        total += entryCount;
+                        entryCount = 0;
+                        executionContext.getSqlExecutionInterruptor().checkInterrupted();
+                    }
+                }
+            }
+
+            if (entryCount > 0) {
+                reclaimed += awaitEntries(entryCount);
+                total += entryCount;
+            }
+            LOG.debug().$("scanned [total=").$(total).$(", reclaimed=").$(reclaimed).$(']').$();
+        }
+    }
+}
@@ -62,4 +62,9 @@ public class SelectedRecordCursorFactory extends AbstractRecordCursorFactory {
     public boolean recordCursorSupportsRandomAccess() {
         return base.recordCursorSupportsRandomAccess();
     }
+
+    @Override
+    public void setAccessPattern(int advice) {
+        base.setAccessPattern(advice);
+    }
 }
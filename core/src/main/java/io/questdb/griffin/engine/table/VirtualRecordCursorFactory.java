@@ -79,4 +79,9 @@ public class VirtualRecordCursorFactory extends AbstractRecordCursorFactory {
     public boolean recordCursorSupportsRandomAccess() {
         return supportsRandomAccess;
     }
+
+    @Override
+    public void setAccessPattern(int advice) {
+        baseFactory.setAccessPattern(advice);
+    }
 }
@@ -45,6 +45,7 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
     private int o3MaxUncommittedRows;
     private long o3CommitHysteresisInMicros;
     private boolean ignoreIfExists = false;
+    private boolean wal = false;
 
     private CreateTableModel() {
     }
@@ -86,6 +87,7 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         columnNames.clear();
         columnNameIndexMap.clear();
         ignoreIfExists = false;
+        wal = false;
     }
 
     public CharSequenceObjHashMap<ColumnCastModel> getColumnCastModels() {
@@ -195,6 +197,14 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         this.ignoreIfExists = flag;
     }
 
+    public boolean isWal() {
+        return wal;
+    }
+
+    public void setWal(boolean wal) {
+        this.wal = wal;
+    }
+
     public void setIndexFlags(boolean indexFlag, int indexValueBlockSize) {
         setIndexFlags0(columnBits.size() - 1, indexFlag, indexValueBlockSize);
     }
@@ -293,6 +303,10 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         if (partitionBy != null) {
             sink.put(" partition by ").put(partitionBy.token);
         }
+
+        if (wal) {
+            sink.put(" wal");
+        }
     }
 
     private int getHighAt(int index) {
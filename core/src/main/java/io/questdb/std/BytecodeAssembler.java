@@ -307,6 +307,11 @@ public class BytecodeAssembler {
         putByte(0);
     }
 
+    public void invokeSpecial(int index) {
+        putByte(invokespecial);
+        putShort(index);
+    }
+
     public void invokeStatic(int index) {
         putByte(184);
         putShort(index);
@@ -358,6 +363,11 @@ public class BytecodeAssembler {
         putByte(index);
     }
 
+    public void ldc_w(int index) {
+        putByte(0x13);
+        putShort(index);
+    }
+
     public void ldc2_w(int index) {
         putByte(0x14);
         putShort(index);
@@ -428,6 +438,14 @@ public class BytecodeAssembler {
         return classCache.valueAt(index);
     }
 
+    public int poolDoubleConst(double value) {
+        putByte(0x06);
+        putLong(Double.doubleToRawLongBits(value));
+        int index = poolCount;
+        poolCount += 2;
+        return index;
+    }
+
     public int poolField(int classIndex, int nameAndTypeIndex) {
         return poolRef(0x09, classIndex, nameAndTypeIndex);
     }
@@ -440,6 +458,12 @@ public class BytecodeAssembler {
         return poolInterfaceMethod(classIndex, poolNameAndType(poolUtf8(name), poolUtf8(sig)));
     }
 
+    public int poolIntConst(int value) {
+        putByte(0x03);
+        putInt(value);
+        return poolCount++;
+    }
+
     public int poolLongConst(long value) {
         putByte(0x05);
         putLong(value);
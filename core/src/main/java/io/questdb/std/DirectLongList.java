@@ -63,6 +63,16 @@ public class DirectLongList implements Mutable, Closeable {
         this.pos += thatCapacity;
     }
 
+    // releases memory above given capacity, values that do not fit are discarded
+    public void shrink(long capacity) {
+        final long bytes = capacity * Long.BYTES;
+        if (bytes < this.capacity) {
+            final long size = Math.min(pos - start, bytes);
+            extend(bytes);
+            pos = start + size;
+        }
+    }
+
     public void sortAsUnsigned() {
         Vect.sortULongAscInPlace(address, size());
     }
@@ -107,6 +117,14 @@ public class DirectLongList implements Mutable, Closeable {
         }
     }
 
+    public long getAddress() {
+        return start;
+    }
+
+    public long getCapacity() {
+        return capacity / Long.BYTES;
+    }
+
     public long get(long p) {
         return Unsafe.getUnsafe().getLong(start + (p << 3));
     }
@@ -129,6 +147,15 @@ public class DirectLongList implements Mutable, Closeable {
         Unsafe.getUnsafe().putLong(start + (p << 3), v);
     }
 
+    // sets first count values to the given value, list grows when needed
+    public void setAll(long count, long value) {
+        if ((count << 3) > capacity) {
+            extend(count << 3);
+        }
+        Vect.setMemoryLong(start, value, count);
+        pos = start + (count << 3);
+    }
+
     public void setPos(long p) {
         pos = start + p * Long.BYTES;
     }
@@ -25,8 +25,11 @@
 package io.questdb.std;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import java.util.concurrent.atomic.AtomicLong;
 
 import io.questdb.std.str.LPSZ;
@@ -37,11 +40,19 @@ public final class Files {
     public static final Charset UTF_8;
     public static final long PAGE_SIZE;
     public static final int DT_DIR = 4;
+    public static final int DT_LNK = 10;
     public static final int MAP_RO = 1;
     public static final int MAP_RW = 2;
+    public static final int MADV_NORMAL = 0;
+    public static final int MADV_RANDOM = 1;
+    public static final int MADV_SEQUENTIAL = 2;
+    public static final int MADV_WILLNEED = 3;
+    public static final int MADV_DONTNEED = 4;
     public static final char SEPARATOR;
 
     static final AtomicLong OPEN_FILE_COUNT = new AtomicLong();
+    private static final boolean MADVISE_SUPPORTED;
+    private static final boolean SYNCFS_SUPPORTED;
     private static LongHashSet openFds;
 
     private Files() {
@@ -119,6 +130,18 @@ public final class Files {
 
     public static native int fsync(long fd);
 
+    /**
+     * Flushes dirty data of entire file system that file belongs to, this is what group commit
+     * uses to make writes to many files durable at once. Systems without per file system sync
+     * flush all file systems, sync is not supported on Windows.
+     *
+     * @param fd descriptor of any file or directory on file system
+     * @return 0 on success, -1 on error
+     */
+    public static int syncfs(long fd) {
+        return SYNCFS_SUPPORTED ? syncfs0(fd) : -1;
+    }
+
     public static long getLastModified(LPSZ lpsz) {
         return getLastModified(lpsz.address());
     }
@@ -129,6 +152,62 @@ public final class Files {
 
     public native static long getStdOutFd();
 
+    /**
+     * Creates hard link to a file, link has to be on the same file system as the file.
+     * Link is created via JDK, so that it does not depend on native library version.
+     *
+     * @param src      existing file
+     * @param hardLink path of link to create
+     * @return 0 on success, -1 otherwise, errno is not set
+     */
+    public static int hardLink(LPSZ src, LPSZ hardLink) {
+        try {
+            java.nio.file.Files.createLink(Paths.get(Chars.toString(hardLink)), Paths.get(Chars.toString(src)));
+            return 0;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return true when {@link #syncfs(long)} is available, it is not on Windows and with native library
+     * that predates the call
+     */
+    public static boolean isSyncfsSupported() {
+        return SYNCFS_SUPPORTED;
+    }
+
+    /**
+     * Checks whether path is a symbolic link. Link itself is checked, rather than file it points to.
+     *
+     * @param path path without trailing separator
+     * @return true when path is a symbolic link
+     */
+    public static boolean isSoftLink(LPSZ path) {
+        try {
+            return java.nio.file.Files.isSymbolicLink(Paths.get(Chars.toString(path)));
+        } catch (InvalidPathException | SecurityException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates symbolic link, unlike hard link it can point to directory on another file system.
+     * Link stores absolute path of the source, so that it does not depend on working directory.
+     *
+     * @param src      existing file or directory
+     * @param softLink path of link to create
+     * @return 0 on success, -1 otherwise, errno is not set
+     */
+    public static int softLink(LPSZ src, LPSZ softLink) {
+        try {
+            java.nio.file.Files.createSymbolicLink(Paths.get(Chars.toString(softLink)), Paths.get(Chars.toString(src)).toAbsolutePath());
+            return 0;
+        } catch (IOException | InvalidPathException | UnsupportedOperationException | SecurityException e) {
+            return -1;
+        }
+    }
+
     public static boolean isDots(CharSequence name) {
         return Chars.equals(name, '.') || Chars.equals(name, "..");
     }
@@ -171,6 +250,19 @@ public final class Files {
         return 0;
     }
 
+    /**
+     * Hints operating system about access pattern of mapped memory. Hint is ignored on platforms
+     * that do not support it and when native library predates the call.
+     *
+     * @param address page aligned address of mapped memory
+     * @param len     length of memory
+     * @param advice  one of MADV_* constants
+     * @return 0 on success, -1 otherwise with errno set
+     */
+    public static int madvise(long address, long len, int advice) {
+        return MADVISE_SUPPORTED ? madvise0(address, len, advice) : 0;
+    }
+
     public static long mmap(long fd, long len, long offset, int flags) {
         return mmap(fd, len, offset, flags, 0);
     }
@@ -222,6 +314,24 @@ public final class Files {
         return rename(oldName.address(), newName.address());
     }
 
+    /**
+     * Reads target of symbolic link. Relative target is resolved against directory of the link.
+     *
+     * @param path link path without trailing separator
+     * @param sink receives absolute target of the link
+     * @return false when path is not a link or target could not be read
+     */
+    public static boolean readLink(LPSZ path, Path sink) {
+        try {
+            final java.nio.file.Path link = Paths.get(Chars.toString(path)).toAbsolutePath();
+            final java.nio.file.Path target = link.resolveSibling(java.nio.file.Files.readSymbolicLink(link)).normalize();
+            sink.of(target.toString()).$();
+            return true;
+        } catch (IOException | InvalidPathException | UnsupportedOperationException | SecurityException e) {
+            return false;
+        }
+    }
+
     public static int rmdir(Path path) {
         long p = findFirst(path.address());
         int len = path.length();
@@ -300,6 +410,28 @@ public final class Files {
 
     private native static long getPageSize();
 
+    private static boolean isMadviseSupported() {
+        try {
+            madvise0(0, 0, MADV_NORMAL);
+            return true;
+        } catch (UnsatisfiedLinkError e) {
+            return false;
+        }
+    }
+
+    private static boolean isSyncfsSupported0() {
+        if (Os.type == Os.WINDOWS) {
+            return false;
+        }
+        try {
+            // invalid descriptor, call fails without side effects
+            syncfs0(-1);
+            return true;
+        } catch (UnsatisfiedLinkError e) {
+            return false;
+        }
+    }
+
     private native static boolean remove(long lpsz);
 
     private native static boolean rmdir(long lpsz);
@@ -322,10 +454,16 @@ public final class Files {
 
     private static native boolean rename(long lpszOld, long lpszNew);
 
+    private static native int madvise0(long address, long len, int advice);
+
+    private static native int syncfs0(long fd);
+
     static {
         Os.init();
         UTF_8 = StandardCharsets.UTF_8;
         PAGE_SIZE = getPageSize();
         SEPARATOR = Os.type == Os.WINDOWS ? '\\' : '/';
+        MADVISE_SUPPORTED = isMadviseSupported();
+        SYNCFS_SUPPORTED = isSyncfsSupported0();
     }
 }
@@ -58,14 +58,26 @@ public interface FilesFacade {
 
     int fsync(long fd);
 
+    int syncfs(long fd);
+
     long getMapPageSize();
 
     long getOpenFileCount();
 
     long getPageSize();
 
+    int hardLink(LPSZ src, LPSZ hardLink);
+
+    int softLink(LPSZ src, LPSZ softLink);
+
+    boolean isSoftLink(LPSZ path);
+
+    boolean readLink(LPSZ path, Path sink);
+
     boolean isRestrictedFileSystem();
 
+    boolean isSyncfsSupported();
+
     void iterateDir(LPSZ path, FindVisitor func);
 
     long length(long fd);
@@ -74,6 +86,8 @@ public interface FilesFacade {
 
     int lock(long fd);
 
+    int madvise(long address, long len, int advice);
+
     int mkdir(LPSZ path, int mode);
 
     int mkdirs(LPSZ path, int mode);
@@ -102,6 +102,26 @@ public class FilesFacadeImpl implements FilesFacade {
         return Files.getLastModified(path);
     }
 
+    @Override
+    public int hardLink(LPSZ src, LPSZ hardLink) {
+        return Files.hardLink(src, hardLink);
+    }
+
+    @Override
+    public int softLink(LPSZ src, LPSZ softLink) {
+        return Files.softLink(src, softLink);
+    }
+
+    @Override
+    public boolean isSoftLink(LPSZ path) {
+        return Files.isSoftLink(path);
+    }
+
+    @Override
+    public boolean readLink(LPSZ path, Path sink) {
+        return Files.readLink(path, sink);
+    }
+
     @Override
     public int msync(long addr, long len, boolean async) {
         return Files.msync(addr, len, async);
@@ -112,6 +132,11 @@ public class FilesFacadeImpl implements FilesFacade {
         return Files.fsync(fd);
     }
 
+    @Override
+    public int syncfs(long fd) {
+        return Files.syncfs(fd);
+    }
+
     @Override
     public long getMapPageSize() {
         if (mapPageSize == 0) {
@@ -135,6 +160,11 @@ public class FilesFacadeImpl implements FilesFacade {
         return Os.type == Os.WINDOWS;
     }
 
+    @Override
+    public boolean isSyncfsSupported() {
+        return Files.isSyncfsSupported();
+    }
+
     @Override
     public void iterateDir(LPSZ path, FindVisitor func) {
         long p = findFirst(path);
@@ -164,6 +194,11 @@ public class FilesFacadeImpl implements FilesFacade {
         return Files.lock(fd);
     }
 
+    @Override
+    public int madvise(long address, long len, int advice) {
+        return Files.madvise(address, len, advice);
+    }
+
     @Override
     public int mkdir(LPSZ path, int mode) {
         return Files.mkdir(path, mode);
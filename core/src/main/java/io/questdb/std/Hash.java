@@ -26,6 +26,7 @@ package io.questdb.std;
 
 public final class Hash {
     static final int HASH_BITS = 0x7fffffff;
+    private static final long M2 = 0x9e3779b97f4a7c15L;
 
     private Hash() {
     }
@@ -63,6 +64,31 @@ public final class Hash {
         return spread((int) hash);
     }
 
+    /**
+     * Calculates 64-bit hash of memory. Unlike {@link #hashMem(long, int)} all bits of every byte
+     * affect low bits of the hash, which makes it suitable for values that differ only at the end.
+     *
+     * @param p   memory pointer
+     * @param len memory length in bytes
+     * @return hash code
+     */
+    public static long hashMem64(long p, long len) {
+        long hash = len;
+        final long hi = p + len;
+        while (hi - p > 7) {
+            hash = (hash ^ Unsafe.getUnsafe().getLong(p)) * M2;
+            hash ^= hash >>> 31;
+            p += Long.BYTES;
+        }
+
+        while (p < hi) {
+            hash = (hash ^ Unsafe.getUnsafe().getByte(p++)) * M2;
+        }
+
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        return hash ^ (hash >>> 33);
+    }
+
     /**
      * (copied from ConcurrentHashMap)
      * Spreads (XORs) higher bits of hash to lower and also forces top
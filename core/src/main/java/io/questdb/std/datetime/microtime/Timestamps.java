@@ -72,6 +72,12 @@ final public class Timestamps {
     public static final TimestampCeilMethod CEIL_MM = Timestamps::ceilMM;
     public static final TimestampAddMethod ADD_MM = Timestamps::addMonths;
     public static final TimestampAddMethod ADD_YYYY = Timestamps::addYear;
+    public static final TimestampFloorMethod FLOOR_HH = Timestamps::floorHH;
+    public static final TimestampCeilMethod CEIL_HH = Timestamps::ceilHH;
+    public static final TimestampAddMethod ADD_HH = Timestamps::addHours;
+    public static final TimestampFloorMethod FLOOR_WW = Timestamps::floorWW;
+    public static final TimestampCeilMethod CEIL_WW = Timestamps::ceilWW;
+    public static final TimestampAddMethod ADD_WW = Timestamps::addWeeks;
     private static final char BEFORE_ZERO = '0' - 1;
     private static final char AFTER_NINE = '9' + 1;
 
@@ -181,6 +187,10 @@ final public class Timestamps {
                 ;
     }
 
+    public static long ceilHH(long micros) {
+        return floorHH(micros) + HOUR_MICROS - 1;
+    }
+
     public static long ceilMM(long micros) {
         int y, m;
         boolean l;
@@ -194,6 +204,10 @@ final public class Timestamps {
                 ;
     }
 
+    public static long ceilWW(long micros) {
+        return floorWW(micros) + WEEK_MICROS - 1;
+    }
+
     public static long ceilYYYY(long micros) {
         int y;
         boolean l;
@@ -216,7 +230,8 @@ final public class Timestamps {
     }
 
     public static long floorHH(long micros) {
-        return micros - micros % HOUR_MICROS;
+        // floorMod keeps pre-epoch timestamps in the hour they belong to
+        return micros - Math.floorMod(micros, HOUR_MICROS);
     }
 
     public static long floorMI(long micros) {
@@ -229,6 +244,11 @@ final public class Timestamps {
         return yearMicros(y = getYear(micros), l = isLeapYear(y)) + monthOfYearMicros(getMonthOfYear(micros, y, l), l);
     }
 
+    // weeks start on Monday
+    public static long floorWW(long micros) {
+        return floorDD(micros) - (getDayOfWeek(micros) - 1) * DAY_MICROS;
+    }
+
     public static long floorYYYY(long micros) {
         int y;
         return yearMicros(y = getYear(micros), isLeapYear(y));
@@ -61,6 +61,61 @@ public class FilesTest {
         }
     }
 
+    @Test
+    public void testDeleteDirWithSoftLinks() throws Exception {
+        if (Os.type == Os.WINDOWS) {
+            // soft links are not supported
+            return;
+        }
+        File r = temporaryFolder.newFolder("to_delete");
+        File cold = temporaryFolder.newFolder("cold");
+        Assert.assertTrue(new File(cold, "a").mkdirs());
+        touch(new File(cold, "a/1.txt"));
+        try (
+                Path path = new Path();
+                Path target = new Path()
+        ) {
+            target.of(cold.getAbsolutePath()).concat("a").$();
+            Assert.assertEquals(0, Files.softLink(target, path.of(r.getAbsolutePath()).concat("a.1").$()));
+            Assert.assertTrue(Files.isSoftLink(path));
+            Assert.assertFalse(Files.isSoftLink(target));
+            Assert.assertTrue(Files.exists(path.chop$().concat("1.txt").$()));
+
+            // links are removed, directories they point to are not
+            Assert.assertEquals(0, Files.rmdir(path.of(r.getAbsolutePath()).$()));
+            Assert.assertFalse(r.exists());
+            Assert.assertTrue(new File(cold, "a/1.txt").exists());
+        }
+    }
+
+    @Test
+    public void testReadLink() throws Exception {
+        if (Os.type == Os.WINDOWS) {
+            // soft links are not supported
+            return;
+        }
+        File r = temporaryFolder.newFolder("links");
+        File cold = temporaryFolder.newFolder("cold");
+        Assert.assertTrue(new File(cold, "a").mkdirs());
+        try (
+                Path path = new Path();
+                Path target = new Path()
+        ) {
+            // relative target is resolved against directory of the link, not working directory
+            java.nio.file.Files.createSymbolicLink(new File(r, "rel").toPath(), java.nio.file.Paths.get("..", "cold", "a"));
+            Assert.assertTrue(Files.readLink(path.of(r.getAbsolutePath()).concat("rel").$(), target));
+            TestUtils.assertEquals(new File(cold, "a").getAbsolutePath(), target);
+
+            // link stores absolute target
+            Assert.assertEquals(0, Files.softLink(target, path.of(r.getAbsolutePath()).concat("abs").$()));
+            Assert.assertTrue(java.nio.file.Files.readSymbolicLink(new File(r, "abs").toPath()).isAbsolute());
+            Assert.assertTrue(Files.readLink(path, target));
+            TestUtils.assertEquals(new File(cold, "a").getAbsolutePath(), target);
+
+            Assert.assertFalse(Files.readLink(path.of(cold.getAbsolutePath()).concat("a").$(), target));
+        }
+    }
+
     @Test
     public void testDeleteOpenFile() throws Exception {
         try (Path path = new Path()) {
@@ -186,6 +241,31 @@ public class FilesTest {
         }
     }
 
+    @Test
+    public void testMadvise() throws Exception {
+        File temp = temporaryFolder.newFile();
+        TestUtils.writeStringToFile(temp, "abcde");
+        try (Path path = new Path().of(temp.getAbsolutePath()).$()) {
+            long fd = Files.openRO(path);
+            Assert.assertTrue(fd > 0);
+            try {
+                long address = Files.mmap(fd, 5, 0, Files.MAP_RO);
+                Assert.assertNotEquals(-1, address);
+                try {
+                    Assert.assertEquals(0, Files.madvise(address, 5, Files.MADV_SEQUENTIAL));
+                    Assert.assertEquals(0, Files.madvise(address, 5, Files.MADV_WILLNEED));
+                    Assert.assertEquals(0, Files.madvise(address, 5, Files.MADV_RANDOM));
+                    Assert.assertEquals(0, Files.madvise(address, 5, Files.MADV_NORMAL));
+                    Assert.assertEquals('c', Unsafe.getUnsafe().getByte(address + 2));
+                } finally {
+                    Files.munmap(address, 5);
+                }
+            } finally {
+                Files.close(fd);
+            }
+        }
+    }
+
     @Test
     public void testFailsToAllocateWhenNotEnoughSpace() throws Exception {
         File temp = temporaryFolder.newFile();
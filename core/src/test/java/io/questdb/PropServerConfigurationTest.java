@@ -133,6 +133,8 @@ public class PropServerConfigurationTest {
 
         Assert.assertEquals(CommitMode.NOSYNC, configuration.getCairoConfiguration().getCommitMode());
         Assert.assertEquals(2097152, configuration.getCairoConfiguration().getSqlCopyBufferSize());
+        Assert.assertFalse(configuration.getCairoConfiguration().isParallelImportEnabled());
+        Assert.assertEquals(64 * 1024 * 1024, configuration.getCairoConfiguration().getParallelImportChunkSize());
         Assert.assertEquals(32, configuration.getCairoConfiguration().getCopyPoolCapacity());
         Assert.assertEquals(5, configuration.getCairoConfiguration().getCreateAsSelectRetryCount());
         Assert.assertEquals("fast", configuration.getCairoConfiguration().getDefaultMapType());
@@ -176,6 +178,32 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
         Assert.assertEquals(10000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
         Assert.assertTrue(configuration.getCairoConfiguration().isParallelIndexingEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isParallelFilterEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isParallelGroupByEnabled());
+        Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getParallelFilterFrameRowCount());
+        Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getParallelGroupByFrameRowCount());
+        Assert.assertTrue(configuration.getCairoConfiguration().isParallelSampleByEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isFilterCompilerEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isFilterKernelEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isParallelHashJoinEnabled());
+        Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getParallelHashJoinFrameRowCount());
+        Assert.assertTrue(configuration.getCairoConfiguration().isAsOfJoinFrameSearchEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isParallelLatestByEnabled());
+        Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getParallelLatestByFrameRowCount());
+        Assert.assertEquals(128, configuration.getCairoConfiguration().getPageFrameFilterQueueCapacity());
+        Assert.assertEquals(128, configuration.getCairoConfiguration().getPageFrameGroupByQueueCapacity());
+        Assert.assertEquals(128, configuration.getCairoConfiguration().getPageFrameJoinQueueCapacity());
+        Assert.assertEquals(128, configuration.getCairoConfiguration().getLatestByQueueCapacity());
+        Assert.assertEquals(64, configuration.getCairoConfiguration().getTextImportQueueCapacity());
+        Assert.assertFalse(configuration.getCairoConfiguration().isPartitionCompressionEnabled());
+        Assert.assertEquals(60_000, configuration.getCairoConfiguration().getPartitionCompressionCheckInterval());
+        Assert.assertEquals(256 * 1024 * 1024, configuration.getCairoConfiguration().getPartitionDecompressionMemoryLimit());
+        Assert.assertFalse(configuration.getCairoConfiguration().isStrUtf8Enabled());
+        Assert.assertFalse(configuration.getCairoConfiguration().isPartitionStatsEnabled());
+        Assert.assertEquals(1_048_576, configuration.getCairoConfiguration().getBloomFilterCapacity());
+        Assert.assertEquals(200_000, configuration.getCairoConfiguration().getWalSegmentRolloverRowCount());
+        Assert.assertNull(configuration.getCairoConfiguration().getColdRoot());
+        Assert.assertEquals(60_000, configuration.getCairoConfiguration().getColdPartitionCheckInterval());
         Assert.assertEquals(16 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlJoinMetadataMaxResizes());
         Assert.assertEquals(64, configuration.getCairoConfiguration().getAnalyticColumnPoolCapacity());
@@ -236,6 +264,7 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(32768, configuration.getLineTcpReceiverConfiguration().getNetMsgBufferSize());
         Assert.assertEquals(4096, configuration.getLineTcpReceiverConfiguration().getMaxMeasurementSize());
         Assert.assertEquals(128, configuration.getLineTcpReceiverConfiguration().getWriterQueueCapacity());
+        Assert.assertEquals(8192, configuration.getLineTcpReceiverConfiguration().getSymbolCacheCapacity());
         Assert.assertEquals(1, configuration.getLineTcpReceiverConfiguration().getWriterWorkerPoolConfiguration().getWorkerCount());
         Assert.assertEquals(10, configuration.getLineTcpReceiverConfiguration().getWriterWorkerPoolConfiguration().getYieldThreshold());
         Assert.assertEquals(10_000, configuration.getLineTcpReceiverConfiguration().getWriterWorkerPoolConfiguration().getSleepThreshold());
@@ -469,6 +498,8 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(2_000, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getConnectionCheckFrequency());
             Assert.assertEquals(4, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getFloatScale());
             Assert.assertEquals(4194304, configuration.getCairoConfiguration().getSqlCopyBufferSize());
+            Assert.assertTrue(configuration.getCairoConfiguration().isParallelImportEnabled());
+            Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getParallelImportChunkSize());
             Assert.assertEquals(64, configuration.getCairoConfiguration().getCopyPoolCapacity());
             Assert.assertSame(FilesFacadeImpl.INSTANCE, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getFilesFacade());
             Assert.assertEquals("Keep-Alive: timeout=10, max=50000" + Misc.EOL, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getKeepAliveHeader());
@@ -516,6 +547,32 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(1028, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
             Assert.assertEquals(1000000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
             Assert.assertFalse(configuration.getCairoConfiguration().isParallelIndexingEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isParallelFilterEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isParallelGroupByEnabled());
+            Assert.assertEquals(50_000, configuration.getCairoConfiguration().getParallelFilterFrameRowCount());
+            Assert.assertEquals(40_000, configuration.getCairoConfiguration().getParallelGroupByFrameRowCount());
+            Assert.assertFalse(configuration.getCairoConfiguration().isParallelSampleByEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isFilterCompilerEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isFilterKernelEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isParallelHashJoinEnabled());
+            Assert.assertEquals(30_000, configuration.getCairoConfiguration().getParallelHashJoinFrameRowCount());
+            Assert.assertFalse(configuration.getCairoConfiguration().isAsOfJoinFrameSearchEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isParallelLatestByEnabled());
+            Assert.assertEquals(30_000, configuration.getCairoConfiguration().getParallelLatestByFrameRowCount());
+            Assert.assertEquals(256, configuration.getCairoConfiguration().getPageFrameFilterQueueCapacity());
+            Assert.assertEquals(128, configuration.getCairoConfiguration().getPageFrameGroupByQueueCapacity());
+            Assert.assertEquals(128, configuration.getCairoConfiguration().getPageFrameJoinQueueCapacity());
+            Assert.assertEquals(128, configuration.getCairoConfiguration().getLatestByQueueCapacity());
+            Assert.assertEquals(32, configuration.getCairoConfiguration().getTextImportQueueCapacity());
+            Assert.assertTrue(configuration.getCairoConfiguration().isPartitionCompressionEnabled());
+            Assert.assertEquals(1000, configuration.getCairoConfiguration().getPartitionCompressionCheckInterval());
+            Assert.assertEquals(64 * 1024 * 1024, configuration.getCairoConfiguration().getPartitionDecompressionMemoryLimit());
+            Assert.assertTrue(configuration.getCairoConfiguration().isStrUtf8Enabled());
+            Assert.assertTrue(configuration.getCairoConfiguration().isPartitionStatsEnabled());
+            Assert.assertEquals(65_536, configuration.getCairoConfiguration().getBloomFilterCapacity());
+            Assert.assertEquals(1000, configuration.getCairoConfiguration().getWalSegmentRolloverRowCount());
+            Assert.assertEquals("/tmp/cold", configuration.getCairoConfiguration().getColdRoot());
+            Assert.assertEquals(1000, configuration.getCairoConfiguration().getColdPartitionCheckInterval());
             Assert.assertEquals(8 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
             Assert.assertEquals(10_000, configuration.getCairoConfiguration().getSqlJoinMetadataMaxResizes());
             Assert.assertEquals(16, configuration.getCairoConfiguration().getBindVariablePoolSize());
@@ -556,6 +613,7 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(2049, configuration.getLineTcpReceiverConfiguration().getNetMsgBufferSize());
             Assert.assertEquals(128, configuration.getLineTcpReceiverConfiguration().getMaxMeasurementSize());
             Assert.assertEquals(256, configuration.getLineTcpReceiverConfiguration().getWriterQueueCapacity());
+            Assert.assertEquals(4096, configuration.getLineTcpReceiverConfiguration().getSymbolCacheCapacity());
             Assert.assertEquals(2, configuration.getLineTcpReceiverConfiguration().getWriterWorkerPoolConfiguration().getWorkerCount());
             Assert.assertArrayEquals(new int[]{1, 2}, configuration.getLineTcpReceiverConfiguration().getWriterWorkerPoolConfiguration().getWorkerAffinity());
             Assert.assertEquals(20, configuration.getLineTcpReceiverConfiguration().getWriterWorkerPoolConfiguration().getYieldThreshold());
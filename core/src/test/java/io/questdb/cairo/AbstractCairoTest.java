@@ -56,9 +56,17 @@ public class AbstractCairoTest {
             () -> currentMicros >= 0 ? currentMicros : MicrosecondClockImpl.INSTANCE.getTicks();
     protected static CairoEngine engine;
     protected static String inputRoot = null;
+    protected static String coldRoot = null;
     protected static FilesFacade ff;
     protected static long configOverrideO3CommitHysteresisInMicros = -1;
     protected static int configOverrideMaxUncommittedRows = -1;
+    protected static Boolean configOverrideAsOfJoinFrameSearchEnabled = null;
+    protected static long configOverridePartitionDecompressionMemoryLimit = -1;
+    protected static Boolean configOverrideStrUtf8Enabled = null;
+    protected static Boolean configOverridePartitionStatsEnabled = null;
+    protected static long configOverrideWalSegmentRolloverRowCount = -1;
+    protected static Boolean configOverrideParallelImportEnabled = null;
+    protected static long configOverrideParallelImportChunkSize = -1;
 
     @Rule
     public TestName testName = new TestName();
@@ -94,6 +102,11 @@ public class AbstractCairoTest {
                 return inputRoot;
             }
 
+            @Override
+            public CharSequence getColdRoot() {
+                return coldRoot;
+            }
+
             @Override
             public long getO3CommitHysteresis() {
                 if (configOverrideO3CommitHysteresisInMicros >= 0) return configOverrideO3CommitHysteresisInMicros;
@@ -105,6 +118,48 @@ public class AbstractCairoTest {
                 if (configOverrideMaxUncommittedRows >= 0) return configOverrideMaxUncommittedRows;
                 return super.getO3MaxUncommittedRows();
             }
+
+            @Override
+            public long getPartitionDecompressionMemoryLimit() {
+                if (configOverridePartitionDecompressionMemoryLimit >= 0) return configOverridePartitionDecompressionMemoryLimit;
+                return super.getPartitionDecompressionMemoryLimit();
+            }
+
+            @Override
+            public long getWalSegmentRolloverRowCount() {
+                if (configOverrideWalSegmentRolloverRowCount >= 0) return configOverrideWalSegmentRolloverRowCount;
+                return super.getWalSegmentRolloverRowCount();
+            }
+
+            @Override
+            public boolean isParallelImportEnabled() {
+                if (configOverrideParallelImportEnabled != null) return configOverrideParallelImportEnabled;
+                return super.isParallelImportEnabled();
+            }
+
+            @Override
+            public long getParallelImportChunkSize() {
+                if (configOverrideParallelImportChunkSize >= 0) return configOverrideParallelImportChunkSize;
+                return super.getParallelImportChunkSize();
+            }
+
+            @Override
+            public boolean isAsOfJoinFrameSearchEnabled() {
+                if (configOverrideAsOfJoinFrameSearchEnabled != null) return configOverrideAsOfJoinFrameSearchEnabled;
+                return super.isAsOfJoinFrameSearchEnabled();
+            }
+
+            @Override
+            public boolean isStrUtf8Enabled() {
+                if (configOverrideStrUtf8Enabled != null) return configOverrideStrUtf8Enabled;
+                return super.isStrUtf8Enabled();
+            }
+
+            @Override
+            public boolean isPartitionStatsEnabled() {
+                if (configOverridePartitionStatsEnabled != null) return configOverridePartitionStatsEnabled;
+                return super.isPartitionStatsEnabled();
+            }
         };
         engine = new CairoEngine(configuration);
         messageBus = engine.getMessageBus();
@@ -131,6 +186,13 @@ public class AbstractCairoTest {
         TestUtils.removeTestPath(root);
         configOverrideMaxUncommittedRows = -1;
         configOverrideO3CommitHysteresisInMicros = -1;
+        configOverrideAsOfJoinFrameSearchEnabled = null;
+        configOverridePartitionDecompressionMemoryLimit = -1;
+        configOverrideStrUtf8Enabled = null;
+        configOverridePartitionStatsEnabled = null;
+        configOverrideWalSegmentRolloverRowCount = -1;
+        configOverrideParallelImportEnabled = null;
+        configOverrideParallelImportChunkSize = -1;
     }
 
     protected static void assertMemoryLeak(TestUtils.LeakProneCode code) throws Exception {
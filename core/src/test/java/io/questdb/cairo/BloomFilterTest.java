@@ -0,0 +1,231 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BloomFilterTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAddBloomFilter() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            addBloomFilters();
+            assertBloomFilters("x");
+
+            assertLookup("select l, s from x where l = 60", "l\ts\n60\ts60\n", 1);
+            assertLookup("select l, s from x where s = 's55'", "l\ts\n55\ts55\n", 1);
+            assertLookup("select l, s from x where i = 70", "l\ts\n70\ts70\n", 1);
+            assertLookup("select l, s from x where s in ('s50', 's65')", "l\ts\n50\ts50\n65\ts65\n", 1);
+            assertLookup("select l from x where h = '0x01'", "l\n", 0);
+            assertLookup("select l from x where l = 1000 order by ts desc", "l\n", 0);
+        });
+    }
+
+    @Test
+    public void testAddBloomFilterTwice() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            compiler.compile("alter table x alter column l add bloom filter", sqlExecutionContext);
+            try {
+                compiler.compile("alter table x alter column l add bloom filter", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "bloom filter already exists");
+            }
+        });
+    }
+
+    @Test
+    public void testCommits() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (l long, s string, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table x alter column l add bloom filter", sqlExecutionContext);
+            compiler.compile("alter table x alter column s add bloom filter", sqlExecutionContext);
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                for (int i = 0; i < 100; i++) {
+                    TableWriter.Row row = writer.newRow(i * 3600000000L);
+                    row.putLong(0, i);
+                    row.putStr(1, i % 9 == 0 ? null : "s" + i);
+                    row.append();
+                    if (i % 10 == 0) {
+                        writer.commit();
+                    }
+                }
+                writer.commit();
+            }
+
+            // reopened writer continues filter of the active partition
+            executeInsert("insert into x values(1000, 'last', '1970-01-05T10:00:00.000000Z')");
+            assertBloomFilters("x");
+            assertLookup("select l, s from x where s = 'last'", "l\ts\n1000\tlast\n", 1);
+            assertLookup("select l from x where l = 99", "l\n99\n", 1);
+        });
+    }
+
+    @Test
+    public void testOutOfOrder() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            addBloomFilters();
+            compiler.compile("insert into x select x + 1000, 's' || (x + 1000), cast(x + 1000 as int), rnd_long256(), cast(x * 7200000000L + 1 as timestamp) from long_sequence(30)", sqlExecutionContext);
+            assertBloomFilters("x");
+            assertLookup("select l, s from x where s = 's1002'", "l\ts\n1002\ts1002\n", 1);
+            assertLookup("select l from x where l = 1030", "l\n1030\n", 1);
+        });
+    }
+
+    @Test
+    public void testStrUtf8() throws Exception {
+        assertMemoryLeak(() -> {
+            configOverrideStrUtf8Enabled = true;
+            createTable();
+            compiler.compile("alter table x alter column s add bloom filter", sqlExecutionContext);
+            executeInsert("insert into x (l, s, i, ts) values(100, 'привет', 100, '1970-01-03T23:30:00.000000Z')");
+            assertBloomFilters("x");
+            assertLookup("select l, s from x where s = 'привет'", "l\ts\n100\tпривет\n", 1);
+        });
+    }
+
+    @Test
+    public void testTruncate() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select x l from long_sequence(100))", sqlExecutionContext);
+            compiler.compile("alter table x alter column l add bloom filter", sqlExecutionContext);
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                writer.truncate();
+                TableWriter.Row row = writer.newRow();
+                row.putLong(0, -1);
+                row.append();
+                writer.commit();
+            }
+            assertBloomFilters("x");
+            assertSql("select l from x where l = -1", "l\n-1\n");
+            assertSql("select l from x where l = 5", "l\n");
+        });
+    }
+
+    @Test
+    public void testUnsupportedType() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (d double)", sqlExecutionContext);
+            try {
+                compiler.compile("alter table x alter column d add bloom filter", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "cannot create bloom filter");
+            }
+        });
+    }
+
+    private static void assertBloomFilters(TableReader reader) {
+        final TableReaderMetadata metadata = reader.getMetadata();
+        final int timestampIndex = metadata.getTimestampIndex();
+        try (BloomFilter filter = new BloomFilter()) {
+            for (int c = 0, n = metadata.getColumnCount(); c < n; c++) {
+                if (!metadata.isColumnBloomFilter(c)) {
+                    continue;
+                }
+
+                for (int p = 0, m = reader.getPartitionCount(); p < m; p++) {
+                    Assert.assertTrue(metadata.getColumnName(c) + " [partition=" + p + ']', reader.openBloomFilter(p, c, filter));
+                    filter.close();
+                }
+
+                final RecordCursor cursor = reader.getCursor();
+                final Record record = cursor.getRecord();
+                while (cursor.hasNext()) {
+                    final long hash;
+                    switch (metadata.getColumnType(c)) {
+                        case ColumnType.INT:
+                            hash = BloomFilter.hash(record.getInt(c));
+                            break;
+                        case ColumnType.LONG:
+                            hash = BloomFilter.hash(record.getLong(c));
+                            break;
+                        case ColumnType.STRING:
+                            hash = BloomFilter.hash(record.getStr(c));
+                            break;
+                        default:
+                            hash = BloomFilter.hash(record.getLong256A(c));
+                            break;
+                    }
+                    final int p = timestampIndex == -1 ? 0 : reader.getPartitionIndexByTimestamp(record.getTimestamp(timestampIndex));
+                    Assert.assertTrue(reader.openBloomFilter(p, c, filter));
+                    Assert.assertTrue(metadata.getColumnName(c) + " [partition=" + p + ']', filter.mightContain(hash));
+                    filter.close();
+                }
+            }
+        }
+    }
+
+    private void addBloomFilters() throws SqlException {
+        compiler.compile("alter table x alter column l add bloom filter", sqlExecutionContext);
+        compiler.compile("alter table x alter column s add bloom filter", sqlExecutionContext);
+        compiler.compile("alter table x alter column i add bloom filter", sqlExecutionContext);
+        compiler.compile("alter table x alter column h add bloom filter", sqlExecutionContext);
+    }
+
+    private void assertBloomFilters(String tableName) {
+        try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+            assertBloomFilters(reader);
+        }
+    }
+
+    // partitions that do not contain looked up values must not be opened
+    private void assertLookup(String query, String expected, int openPartitionCount) throws SqlException {
+        engine.releaseAllReaders();
+        assertSql(query, expected);
+        try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+            int count = 0;
+            for (int p = 0, n = reader.getPartitionCount(); p < n; p++) {
+                if (reader.getPartitionRowCount(p) != -1) {
+                    count++;
+                }
+            }
+            Assert.assertEquals(query, openPartitionCount, count);
+        }
+    }
+
+    private void createTable() throws Exception {
+        // three daily partitions, 24 rows each
+        compiler.compile("create table x as (" +
+                "select" +
+                " x l," +
+                " 's' || x s," +
+                " cast(x as int) i," +
+                " rnd_long256() h," +
+                " timestamp_sequence(0, 3600000000) ts" +
+                " from long_sequence(72)" +
+                ") timestamp(ts) partition by DAY", sqlExecutionContext);
+    }
+}
@@ -0,0 +1,322 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.std.Chars;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ColdPartitionMoveTest extends AbstractGriffinTest {
+
+    @Before
+    public void setUpColdRoot() {
+        coldRoot = temp.getRoot().getAbsolutePath() + Files.SEPARATOR + "coldRoot";
+    }
+
+    @After
+    public void tearDownColdRoot() {
+        TestUtils.removeTestPath(coldRoot);
+        coldRoot = null;
+    }
+
+    @Test
+    public void testAlterColdPartitionAge() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            compiler.compile("alter table x set param coldPartitionAge = 30d", sqlExecutionContext);
+            assertColdPartitionAge(30 * 86_400_000_000L);
+            // parameter survives metadata rewrite
+            compiler.compile("alter table x add column l long", sqlExecutionContext);
+            assertColdPartitionAge(30 * 86_400_000_000L);
+            compiler.compile("alter table x set param coldPartitionAge = 0s", sqlExecutionContext);
+            assertColdPartitionAge(0);
+
+            try {
+                compiler.compile("alter table x set param coldPartitionAge = 30", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "expected interval qualifier");
+            }
+        });
+    }
+
+    @Test
+    public void testDropPartitionAndTable() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(2, move("x"));
+
+            compiler.compile("alter table x drop partition list '1970-01-01'", sqlExecutionContext);
+            compiler.compile("alter table y drop partition list '1970-01-01'", sqlExecutionContext);
+            assertTablesEqual();
+            Assert.assertFalse(coldPartitionExists("1970-01-01"));
+            Assert.assertTrue(coldPartitionExists("1970-01-02"));
+
+            compiler.compile("drop table x", sqlExecutionContext);
+            Assert.assertFalse(coldPartitionExists("1970-01-02"));
+        });
+    }
+
+    @Test
+    public void testDropPartitionWithRelativeLink() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(2, move("x"));
+
+            // relative link is resolved against table directory rather than working directory
+            final String partition = findPartitionDirs(root, "1970-01-01").getQuick(0);
+            final java.nio.file.Path link = java.nio.file.Paths.get(root.toString(), "x", partition);
+            final java.nio.file.Path target = java.nio.file.Files.readSymbolicLink(link);
+            java.nio.file.Files.delete(link);
+            java.nio.file.Files.createSymbolicLink(link, link.getParent().relativize(target));
+
+            compiler.compile("alter table x drop partition list '1970-01-01'", sqlExecutionContext);
+            Assert.assertFalse(coldPartitionExists("1970-01-01"));
+            Assert.assertEquals(0, findPartitionDirs(root, "1970-01-01").size());
+            Assert.assertTrue(coldPartitionExists("1970-01-02"));
+        });
+    }
+
+    @Test
+    public void testJob() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            compiler.compile("alter table x set param coldPartitionAge = 1d", sqlExecutionContext);
+            try (ColdPartitionMoveJob job = new ColdPartitionMoveJob(engine)) {
+                // y has no cold partition age
+                Assert.assertTrue(job.run(0));
+                Assert.assertTrue(job.run(0));
+                Assert.assertFalse(job.run(0));
+                // job waits for check interval before next scan
+                Assert.assertFalse(job.run(0));
+            }
+            Assert.assertTrue(coldPartitionExists("1970-01-01"));
+            Assert.assertTrue(coldPartitionExists("1970-01-02"));
+            Assert.assertFalse(coldPartitionExists("1970-01-03"));
+            assertTablesEqual();
+        });
+    }
+
+    @Test
+    public void testMoveColdPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+
+            // reader opened before move keeps using old partition version
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(1, move("x", 24 * 3600_000_000L));
+                Assert.assertEquals(4000, reader.size());
+                Assert.assertTrue(reader.reload());
+                Assert.assertEquals(4000, reader.size());
+            }
+            Assert.assertEquals(1, move("x", Long.MAX_VALUE));
+            // active partition stays, moved partitions are not moved again
+            Assert.assertEquals(0, move("x", Long.MAX_VALUE));
+
+            Assert.assertTrue(coldPartitionExists("1970-01-01"));
+            Assert.assertTrue(coldPartitionExists("1970-01-02"));
+            Assert.assertFalse(coldPartitionExists("1970-01-03"));
+
+            // moved partition is linked, its old version is purged when there are no readers
+            final ObjList<String> dirs = findPartitionDirs(root, "1970-01-02");
+            Assert.assertEquals(1, dirs.size());
+            try (Path path = new Path()) {
+                Assert.assertTrue(configuration.getFilesFacade().isSoftLink(path.of(root).concat("x").concat(dirs.getQuick(0)).$()));
+            }
+
+            engine.releaseAllReaders();
+            assertTablesEqual();
+            assertSql("select min(ts), max(ts) from x where ts = '1970-01-02'", "min\tmax\n" +
+                    "1970-01-02T00:00:00.000000Z\t1970-01-02T23:59:00.000000Z\n");
+        });
+    }
+
+    @Test
+    public void testO3IntoColdPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(2, move("x"));
+
+            insertIntoBoth("1970-01-01T12:00:30", 3600000000L, 20);
+            assertTablesEqual();
+            // rewritten partition is moved again, its previous cold version is purged
+            Assert.assertEquals(2, move("x"));
+            assertTablesEqual();
+        });
+    }
+
+    @Test
+    public void testRenameColumnAndTruncate() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(2, move("x"));
+
+            compiler.compile("alter table x rename column s to s2", sqlExecutionContext);
+            compiler.compile("alter table y rename column s to s2", sqlExecutionContext);
+            assertTablesEqual();
+
+            compiler.compile("truncate table x", sqlExecutionContext);
+            Assert.assertFalse(coldPartitionExists("1970-01-01"));
+            Assert.assertFalse(coldPartitionExists("1970-01-02"));
+        });
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(2, move("x"));
+
+            final String snapshotRoot = temp.getRoot().getAbsolutePath() + Files.SEPARATOR + "snapshot";
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                writer.snapshot(snapshotRoot, configuration.getMkDirMode());
+            }
+            try {
+                // linked partitions are copied, rather than linked or skipped
+                final ObjList<String> dirs = findPartitionDirs(snapshotRoot, "1970-01-01");
+                Assert.assertEquals(1, dirs.size());
+                final java.nio.file.Path dir = java.nio.file.Paths.get(snapshotRoot, "x", dirs.getQuick(0));
+                Assert.assertFalse(java.nio.file.Files.isSymbolicLink(dir));
+                Assert.assertTrue(java.nio.file.Files.exists(dir.resolve("ts.d")));
+                Assert.assertTrue(coldPartitionExists("1970-01-01"));
+            } finally {
+                TestUtils.removeTestPath(snapshotRoot);
+            }
+        });
+    }
+
+    @Test
+    public void testMoveWithoutFileSystemSync() throws Exception {
+        final int[] fsyncCount = {0};
+        final FilesFacade ff = new FilesFacadeImpl() {
+            @Override
+            public int fsync(long fd) {
+                fsyncCount[0]++;
+                return super.fsync(fd);
+            }
+
+            @Override
+            public boolean isSyncfsSupported() {
+                return false;
+            }
+
+            @Override
+            public int syncfs(long fd) {
+                Assert.fail();
+                return -1;
+            }
+        };
+        assertMemoryLeak(ff, () -> {
+            createTables();
+            Assert.assertEquals(2, move("x"));
+            // every copied file and both partition directories are synced
+            Assert.assertTrue(fsyncCount[0] > 2);
+            Assert.assertTrue(coldPartitionExists("1970-01-01"));
+            Assert.assertTrue(coldPartitionExists("1970-01-02"));
+            assertTablesEqual();
+        });
+    }
+
+    private void assertColdPartitionAge(long expected) {
+        try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+            Assert.assertEquals(expected, reader.getMetadata().getColdPartitionAgeMicros());
+        }
+    }
+
+    private void assertTablesEqual() throws SqlException {
+        final StringSink expected = new StringSink();
+        TestUtils.printSql(compiler, sqlExecutionContext, "y", expected);
+        TestUtils.printSql(compiler, sqlExecutionContext, "x", sink);
+        TestUtils.assertEquals(expected, sink);
+    }
+
+    private static ObjList<String> findPartitionDirs(CharSequence dbRoot, String partition) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        final ObjList<String> dirs = new ObjList<>();
+        try (Path path = new Path()) {
+            if (ff.exists(path.of(dbRoot).concat("x").$())) {
+                final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+                ff.iterateDir(path, (pName, type) -> {
+                    nativeLPSZ.of(pName);
+                    if (Chars.startsWith(nativeLPSZ, partition)) {
+                        dirs.add(nativeLPSZ.toString());
+                    }
+                });
+            }
+        }
+        return dirs;
+    }
+
+    private boolean coldPartitionExists(String partition) {
+        return findPartitionDirs(coldRoot, partition).size() > 0;
+    }
+
+    private int move(String tableName) {
+        return move(tableName, Long.MAX_VALUE);
+    }
+
+    private int move(String tableName, long olderThanTimestamp) {
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+            return writer.moveColdPartitions(coldRoot, olderThanTimestamp, Integer.MAX_VALUE);
+        }
+    }
+
+    private void insertIntoBoth(String timestampLo, long timestampStep, int count) throws SqlException {
+        compiler.compile(
+                "create table z as (" +
+                        "select timestamp_sequence(to_timestamp('" + timestampLo + "', 'yyyy-MM-ddTHH:mm:ss'), " + timestampStep + ") ts, rnd_double(2) d, rnd_symbol('a','b','c',null) s, rnd_int() i, rnd_str(3,5,1) str" +
+                        " from long_sequence(" + count + ")" +
+                        ")",
+                sqlExecutionContext
+        );
+        compiler.compile("insert into x select * from z", sqlExecutionContext);
+        compiler.compile("insert into y select * from z", sqlExecutionContext);
+        compiler.compile("drop table z", sqlExecutionContext);
+    }
+
+    private void createTables() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select timestamp_sequence(0, 60000000) ts, rnd_double(2) d, rnd_symbol('a','b','c',null) s, rnd_int() i, rnd_str(3,5,1) str" +
+                        " from long_sequence(4000)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+        compiler.compile("create table y as (select * from x) timestamp(ts) partition by DAY", sqlExecutionContext);
+    }
+}
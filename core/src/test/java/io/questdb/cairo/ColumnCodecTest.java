@@ -0,0 +1,271 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.vm.AppendOnlyVirtualMemory;
+import io.questdb.cairo.vm.DecompressedReadOnlyMemory;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ColumnCodecTest {
+    private static final Log LOG = LogFactory.getLog(ColumnCodecTest.class);
+    private static final FilesFacade FF = FilesFacadeImpl.INSTANCE;
+
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testDoubleConstant() throws Exception {
+        // 3 significant bytes for first value, control byte for each repeat
+        assertDoubles(10_000, (rnd, i) -> 42.5, ColumnCodec.HEADER_SIZE + 4 + 9_999);
+    }
+
+    @Test
+    public void testDoubleRandom() throws Exception {
+        assertDoubles(10_000, (rnd, i) -> rnd.nextInt(100) == 0 ? Double.NaN : rnd.nextDouble(), -1);
+    }
+
+    @Test
+    public void testDoubleSlowlyChanging() throws Exception {
+        assertDoubles(10_000, (rnd, i) -> 100 + (i / 10) * 0.25, -1);
+    }
+
+    @Test
+    public void testMemoryLimit() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int count = 1000;
+            final long addr = Unsafe.malloc(count * Long.BYTES);
+            try (Path path = new Path()) {
+                for (int i = 0; i < count; i++) {
+                    Unsafe.getUnsafe().putLong(addr + (long) i * Long.BYTES, i * 1_000_000L);
+                }
+                path.of(temp.newFile().getAbsolutePath()).$();
+                try (AppendOnlyVirtualMemory mem = new AppendOnlyVirtualMemory(FF, path, FF.getPageSize())) {
+                    ColumnCodec.compress(ColumnType.TIMESTAMP, addr, count, mem);
+                }
+
+                try (DecompressedReadOnlyMemory mem = new DecompressedReadOnlyMemory()) {
+                    try {
+                        mem.ofBounded(FF, path, count * Long.BYTES - 1);
+                        Assert.fail();
+                    } catch (CairoException e) {
+                        TestUtils.assertContains(e.getFlyweightMessage(), "exceeds memory limit");
+                    }
+                    Assert.assertEquals(0, mem.size());
+
+                    mem.ofBounded(FF, path, count * Long.BYTES);
+                    Assert.assertEquals(count * Long.BYTES, mem.size());
+                }
+            } finally {
+                Unsafe.free(addr, count * Long.BYTES);
+            }
+        });
+    }
+
+    @Test
+    public void testSymbolConstant() throws Exception {
+        assertSymbols(1000, (rnd, i) -> 7, ColumnCodec.HEADER_SIZE + 12);
+    }
+
+    @Test
+    public void testSymbolWithNulls() throws Exception {
+        // null and 5 keys fit 3 bits
+        assertSymbols(1000, (rnd, i) -> rnd.nextInt(10) == 0 ? SymbolTable.VALUE_IS_NULL : rnd.nextInt(5), ColumnCodec.HEADER_SIZE + 12 + (1000 * 3 + 63) / 64 * 8);
+    }
+
+    @Test
+    public void testSymbolNullsOnly() throws Exception {
+        assertSymbols(100, (rnd, i) -> SymbolTable.VALUE_IS_NULL, ColumnCodec.HEADER_SIZE + 12);
+    }
+
+    @Test
+    public void testSymbols() throws Exception {
+        // 3 bits per key
+        assertSymbols(10_000, (rnd, i) -> rnd.nextInt(8), ColumnCodec.HEADER_SIZE + 12 + (10_000 * 3 + 63) / 64 * 8);
+    }
+
+    @Test
+    public void testSymbolsWordBoundary() throws Exception {
+        // 17 bit keys straddle word boundaries
+        for (int n = 1; n < 130; n++) {
+            assertSymbols(n, (rnd, i) -> 1_000 + rnd.nextInt(100_000), -1);
+        }
+    }
+
+    @Test
+    public void testTruncated() throws Exception {
+        final Rnd rnd = new Rnd();
+        final int count = 100;
+        assertTruncated(ColumnType.TIMESTAMP, count, addr -> {
+            for (int i = 0; i < count; i++) {
+                Unsafe.getUnsafe().putLong(addr + (long) i * Long.BYTES, 1_600_000_000_000_000L + i * 1_000_000L + rnd.nextInt(1000));
+            }
+        });
+        assertTruncated(ColumnType.DOUBLE, count, addr -> {
+            for (int i = 0; i < count; i++) {
+                Unsafe.getUnsafe().putDouble(addr + (long) i * Double.BYTES, rnd.nextDouble());
+            }
+        });
+        assertTruncated(ColumnType.SYMBOL, count, addr -> {
+            for (int i = 0; i < count; i++) {
+                Unsafe.getUnsafe().putInt(addr + (long) i * Integer.BYTES, rnd.nextInt(1000));
+            }
+        });
+    }
+
+    @Test
+    public void testTimestampExtremes() throws Exception {
+        final long[] values = {Long.MIN_VALUE, Long.MAX_VALUE, 0, -1, Long.MAX_VALUE, Long.MIN_VALUE + 1, 1};
+        assertTimestamps(values.length, (rnd, i) -> values[(int) i], -1);
+    }
+
+    @Test
+    public void testTimestampJitter() throws Exception {
+        assertTimestamps(10_000, (rnd, i) -> 1_600_000_000_000_000L + i * 1_000_000L + rnd.nextInt(1000), -1);
+    }
+
+    @Test
+    public void testTimestampRegular() throws Exception {
+        // constant delta costs single byte per value
+        assertTimestamps(10_000, (rnd, i) -> 1_600_000_000_000_000L + i * 1_000_000L, ColumnCodec.HEADER_SIZE + 8 + 3 + 9_998);
+    }
+
+    @Test
+    public void testTimestampSingleValue() throws Exception {
+        assertTimestamps(1, (rnd, i) -> 1_600_000_000_000_000L, ColumnCodec.HEADER_SIZE + 8);
+    }
+
+    private void assertDoubles(int count, DoubleGenerator generator, long expectedSize) throws Exception {
+        final Rnd rnd = new Rnd();
+        assertRoundTrip(ColumnType.DOUBLE, count, expectedSize, addr -> {
+            for (int i = 0; i < count; i++) {
+                Unsafe.getUnsafe().putDouble(addr + (long) i * Double.BYTES, generator.next(rnd, i));
+            }
+        });
+    }
+
+    private void assertRoundTrip(int columnType, int count, long expectedSize, ValueWriter writer) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final long size = (long) count << ColumnType.pow2SizeOf(columnType);
+            final long addr = Unsafe.malloc(size);
+            try (Path path = new Path()) {
+                writer.write(addr);
+                path.of(temp.newFile().getAbsolutePath()).$();
+                try (AppendOnlyVirtualMemory mem = new AppendOnlyVirtualMemory(FF, path, FF.getPageSize())) {
+                    final long compressedSize = ColumnCodec.compress(columnType, addr, count, mem);
+                    Assert.assertEquals(compressedSize, mem.getAppendOffset());
+                    if (expectedSize > -1) {
+                        Assert.assertEquals(expectedSize, compressedSize);
+                    }
+                }
+
+                try (DecompressedReadOnlyMemory mem = new DecompressedReadOnlyMemory(FF, path)) {
+                    Assert.assertEquals(size, mem.size());
+                    final long decompressedAddr = mem.getPageAddress(0);
+                    for (long i = 0; i < size; i++) {
+                        Assert.assertEquals(Unsafe.getUnsafe().getByte(addr + i), Unsafe.getUnsafe().getByte(decompressedAddr + i));
+                    }
+                }
+            } finally {
+                Unsafe.free(addr, size);
+            }
+        });
+    }
+
+    private void assertSymbols(int count, IntGenerator generator, long expectedSize) throws Exception {
+        final Rnd rnd = new Rnd();
+        assertRoundTrip(ColumnType.SYMBOL, count, expectedSize, addr -> {
+            for (int i = 0; i < count; i++) {
+                Unsafe.getUnsafe().putInt(addr + (long) i * Integer.BYTES, generator.next(rnd, i));
+            }
+        });
+    }
+
+    private void assertTruncated(int columnType, int count, ValueWriter writer) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final long size = (long) count << ColumnType.pow2SizeOf(columnType);
+            final long addr = Unsafe.malloc(size);
+            try (Path path = new Path()) {
+                writer.write(addr);
+                path.of(temp.newFile().getAbsolutePath()).$();
+                long compressedSize;
+                try (AppendOnlyVirtualMemory mem = new AppendOnlyVirtualMemory(FF, path, FF.getPageSize())) {
+                    compressedSize = ColumnCodec.compress(columnType, addr, count, mem);
+                }
+
+                // every truncation of the payload must be detected before it is read past
+                for (long len = compressedSize - 1; len >= ColumnCodec.HEADER_SIZE; len--) {
+                    final long fd = FF.openRW(path);
+                    Assert.assertTrue(FF.truncate(fd, len));
+                    FF.close(fd);
+                    try (DecompressedReadOnlyMemory ignore = new DecompressedReadOnlyMemory(FF, path)) {
+                        Assert.fail("truncated to " + len);
+                    } catch (CairoException e) {
+                        TestUtils.assertContains(e.getFlyweightMessage(), "corrupt");
+                    }
+                }
+            } finally {
+                Unsafe.free(addr, size);
+            }
+        });
+    }
+
+    private void assertTimestamps(int count, LongGenerator generator, long expectedSize) throws Exception {
+        final Rnd rnd = new Rnd();
+        assertRoundTrip(ColumnType.TIMESTAMP, count, expectedSize, addr -> {
+            for (int i = 0; i < count; i++) {
+                Unsafe.getUnsafe().putLong(addr + (long) i * Long.BYTES, generator.next(rnd, i));
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface DoubleGenerator {
+        double next(Rnd rnd, long i);
+    }
+
+    @FunctionalInterface
+    private interface IntGenerator {
+        int next(Rnd rnd, long i);
+    }
+
+    @FunctionalInterface
+    private interface LongGenerator {
+        long next(Rnd rnd, long i);
+    }
+
+    @FunctionalInterface
+    private interface ValueWriter {
+        void write(long addr);
+    }
+}
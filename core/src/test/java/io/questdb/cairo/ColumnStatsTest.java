@@ -0,0 +1,234 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.std.Numbers;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ColumnStatsTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAddColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            configOverridePartitionStatsEnabled = true;
+            createTable();
+            compiler.compile("alter table x add column l long", sqlExecutionContext);
+            executeInsert("insert into x values(1000, 1.5, '1970-01-03T23:00:00.000000Z', 5)");
+            executeInsert("insert into x values(1001, NaN, '1970-01-04T00:30:00.000000Z', 7)");
+            assertStats("x");
+            assertPruning("select * from x where l = 5");
+        });
+    }
+
+    @Test
+    public void testCommits() throws Exception {
+        assertMemoryLeak(() -> {
+            configOverridePartitionStatsEnabled = true;
+            compiler.compile("create table x (i int, d double, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                for (int i = 0; i < 100; i++) {
+                    TableWriter.Row row = writer.newRow(i * 3_600_000_000L);
+                    row.putInt(0, i % 7 == 0 ? Numbers.INT_NaN : i);
+                    row.putDouble(1, i % 5 == 0 ? Double.NaN : i * 0.5);
+                    row.append();
+                    if (i % 10 == 0) {
+                        writer.commit();
+                    }
+                }
+                writer.commit();
+
+                // reopened writer reads statistics of active partition from file
+                try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    assertStats(reader);
+                }
+            }
+
+            executeInsert("insert into x values(-10, 1000, '1970-01-05T10:00:00.000000Z')");
+            assertStats("x");
+            assertPruning("select * from x where i < 0");
+        });
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x"); ColumnStats stats = new ColumnStats()) {
+                Assert.assertFalse(reader.readColumnStats(0, 0, stats));
+            }
+        });
+    }
+
+    @Test
+    public void testOutOfOrder() throws Exception {
+        assertMemoryLeak(() -> {
+            configOverridePartitionStatsEnabled = true;
+            createTable();
+            compiler.compile("insert into x select cast(x * 1000 as int), x * 0.25, cast(x * 7200000000L + 1 as timestamp) from long_sequence(30)", sqlExecutionContext);
+            assertStats("x");
+            assertPruning("select * from x where i > 1000");
+            assertPruning("select * from x where i >= 3000 and d <= 7.5");
+        });
+    }
+
+    @Test
+    public void testPruning() throws Exception {
+        assertMemoryLeak(() -> {
+            configOverridePartitionStatsEnabled = true;
+            createTable();
+            assertStats("x");
+
+            assertPruning("select * from x where i > 48");
+            assertPruning("select * from x where 48 < i");
+            assertPruning("select * from x where i >= 48 and i < 50");
+            assertPruning("select * from x where i = 30");
+            assertPruning("select * from x where i = -5");
+            assertPruning("select * from x where d > 35.5");
+            assertPruning("select * from x where d = NaN");
+            assertPruning("select * from x where i = NaN");
+            assertPruning("select * from x where ts > '1970-01-02T12' and i < 60");
+            assertPruning("select * from x where i > 10 order by ts desc");
+            assertPruning("select * from x where ts = '1970-01-02' and i > 40");
+
+            // partitions that cannot match are not opened
+            engine.releaseAllReaders();
+            assertSql("select count() from x where i > 60", "count\n11\n");
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(-1, reader.getPartitionRowCount(0));
+                Assert.assertEquals(-1, reader.getPartitionRowCount(1));
+                Assert.assertEquals(24, reader.getPartitionRowCount(2));
+            }
+        });
+    }
+
+    @Test
+    public void testTruncate() throws Exception {
+        assertMemoryLeak(() -> {
+            configOverridePartitionStatsEnabled = true;
+            compiler.compile("create table x as (select cast(x as int) i, x * 0.5 d from long_sequence(100))", sqlExecutionContext);
+            compiler.compile("truncate table x", sqlExecutionContext);
+            executeInsert("insert into x values(-1, -2.0)");
+            assertStats("x");
+            assertPruning("select * from x where i < 0");
+        });
+    }
+
+    private static void assertStats(TableReader reader) {
+        final TableReaderMetadata metadata = reader.getMetadata();
+        final int partitionCount = reader.getPartitionCount();
+        try (ColumnStats stats = new ColumnStats()) {
+            for (int c = 0, n = metadata.getColumnCount(); c < n; c++) {
+                final int type = metadata.getColumnType(c);
+                if (!ColumnStats.isSupported(type)) {
+                    continue;
+                }
+
+                final double[] min = new double[partitionCount];
+                final double[] max = new double[partitionCount];
+                final long[] nullCount = new long[partitionCount];
+                final long[] rowCount = new long[partitionCount];
+                for (int p = 0; p < partitionCount; p++) {
+                    min[p] = Double.POSITIVE_INFINITY;
+                    max[p] = Double.NEGATIVE_INFINITY;
+                }
+
+                final int timestampIndex = metadata.getTimestampIndex();
+                final RecordCursor cursor = reader.getCursor();
+                final Record record = cursor.getRecord();
+                while (cursor.hasNext()) {
+                    final int p = timestampIndex == -1 ? 0 : reader.getPartitionIndexByTimestamp(record.getTimestamp(timestampIndex));
+                    final double value;
+                    switch (type) {
+                        case ColumnType.INT:
+                            final int i = record.getInt(c);
+                            value = i == Numbers.INT_NaN ? Double.NaN : i;
+                            break;
+                        case ColumnType.LONG:
+                        case ColumnType.TIMESTAMP:
+                            final long l = record.getLong(c);
+                            value = l == Numbers.LONG_NaN ? Double.NaN : l;
+                            break;
+                        default:
+                            value = record.getDouble(c);
+                            break;
+                    }
+                    rowCount[p]++;
+                    if (value != value) {
+                        nullCount[p]++;
+                    } else {
+                        min[p] = Math.min(min[p], value);
+                        max[p] = Math.max(max[p], value);
+                    }
+                }
+
+                for (int p = 0; p < partitionCount; p++) {
+                    final String message = metadata.getColumnName(c) + " [partition=" + p + ']';
+                    if (!reader.readColumnStats(p, c, stats)) {
+                        // partitions that precede added column do not have column files
+                        Assert.assertEquals(message, rowCount[p], nullCount[p]);
+                        continue;
+                    }
+                    Assert.assertEquals(message, rowCount[p], stats.getRowCount());
+                    Assert.assertEquals(message, nullCount[p], stats.getNullCount());
+                    Assert.assertEquals(message, min[p], stats.getMin(), 0);
+                    Assert.assertEquals(message, max[p], stats.getMax(), 0);
+                }
+            }
+        }
+    }
+
+    private void assertPruning(String query) throws Exception {
+        configOverridePartitionStatsEnabled = false;
+        final StringSink expected = new StringSink();
+        TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+        configOverridePartitionStatsEnabled = true;
+        TestUtils.assertSql(compiler, sqlExecutionContext, query, sink, expected);
+    }
+
+    private void assertStats(String tableName) {
+        try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+            assertStats(reader);
+        }
+    }
+
+    private void createTable() throws Exception {
+        // three daily partitions, 24 rows each, values of "i" and "d" grow with time
+        compiler.compile("create table x as (" +
+                "select" +
+                " case when x % 10 = 0 then cast(null as int) else cast(x as int) end i," +
+                " case when x % 7 = 0 then NaN else x * 0.5 end d," +
+                " timestamp_sequence(0, 3600000000) ts" +
+                " from long_sequence(72)" +
+                ") timestamp(ts) partition by DAY", sqlExecutionContext);
+    }
+}
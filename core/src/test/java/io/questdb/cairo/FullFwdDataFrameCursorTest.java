@@ -2451,6 +2451,11 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
             return null;
         }
 
+        @Override
+        public GroupCommitScheduler getGroupCommitScheduler() {
+            return null;
+        }
+
         @Override
         public Sequence getIndexerPubSequence() {
             return pubSeq;
@@ -2556,6 +2561,81 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
             return null;
         }
 
+        @Override
+        public MPSequence getPageFrameFilterPubSeq() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<PageFrameFilterTask> getPageFrameFilterQueue() {
+            return null;
+        }
+
+        @Override
+        public MCSequence getPageFrameFilterSubSeq() {
+            return null;
+        }
+
+        @Override
+        public MPSequence getPageFrameGroupByPubSeq() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<PageFrameGroupByTask> getPageFrameGroupByQueue() {
+            return null;
+        }
+
+        @Override
+        public MCSequence getPageFrameGroupBySubSeq() {
+            return null;
+        }
+
+        @Override
+        public MPSequence getPageFrameJoinPubSeq() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<PageFrameJoinTask> getPageFrameJoinQueue() {
+            return null;
+        }
+
+        @Override
+        public MCSequence getPageFrameJoinSubSeq() {
+            return null;
+        }
+
+        @Override
+        public MPSequence getLatestByPubSeq() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<LatestByTask> getLatestByQueue() {
+            return null;
+        }
+
+        @Override
+        public MCSequence getLatestBySubSeq() {
+            return null;
+        }
+
+        @Override
+        public MPSequence getTextImportPubSeq() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<TextImportTask> getTextImportQueue() {
+            return null;
+        }
+
+        @Override
+        public MCSequence getTextImportSubSeq() {
+            return null;
+        }
+
         @Override
         public Sequence getVectorAggregatePubSeq() {
             return null;
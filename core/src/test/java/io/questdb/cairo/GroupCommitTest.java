@@ -0,0 +1,321 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.MessageBus;
+import io.questdb.MessageBusImpl;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GroupCommitTest extends AbstractCairoTest {
+
+    @Test
+    public void testCommitWaitsForSync() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CountingFilesFacade ff = new CountingFilesFacade();
+            final CairoConfiguration configuration = new GroupCommitConfiguration(ff);
+            final MessageBus messageBus = new MessageBusImpl(configuration);
+            createTable(configuration, "x");
+
+            try (TableWriter writer = new TableWriter(configuration, "x", messageBus)) {
+                appendRows(writer, 0, 10);
+                writer.commit();
+                Assert.assertEquals(1, ff.syncfsCount);
+                Assert.assertTrue(messageBus.getGroupCommitScheduler().isDurable(1));
+
+                // nothing to sync
+                writer.awaitDurable();
+                Assert.assertEquals(1, ff.syncfsCount);
+            }
+            Assert.assertEquals(0, ff.msyncCount);
+            assertRowCount(configuration, "x", 10);
+        });
+    }
+
+    @Test
+    public void testGroupCommit() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CountingFilesFacade ff = new CountingFilesFacade();
+            final CairoConfiguration configuration = new GroupCommitConfiguration(ff);
+            final MessageBus messageBus = new MessageBusImpl(configuration);
+            final GroupCommitScheduler scheduler = messageBus.getGroupCommitScheduler();
+            final GroupCommitJob job = new GroupCommitJob(messageBus);
+            createTable(configuration, "x");
+            createTable(configuration, "y");
+
+            try (
+                    TableWriter writerX = new TableWriter(configuration, "x", messageBus);
+                    TableWriter writerY = new TableWriter(configuration, "y", messageBus)
+            ) {
+                for (int i = 0; i < 5; i++) {
+                    appendRows(writerX, i * 10, 10);
+                    writerX.commit(CommitMode.GROUP);
+                    appendRows(writerY, i * 10, 10);
+                    writerY.commit(CommitMode.GROUP);
+                }
+
+                // commits are visible before they are durable
+                assertRowCount(configuration, "x", 50);
+                Assert.assertEquals(10, scheduler.getTicket());
+                Assert.assertFalse(scheduler.isDurable(1));
+                Assert.assertEquals(0, ff.syncfsCount);
+
+                // single sync for all commits of both tables
+                Assert.assertTrue(job.run(0));
+                Assert.assertFalse(job.run(0));
+                Assert.assertEquals(1, ff.syncfsCount);
+                Assert.assertEquals(1, scheduler.getSyncCount());
+                Assert.assertTrue(scheduler.isDurable(10));
+
+                writerX.awaitDurable();
+                writerY.awaitDurable();
+                Assert.assertEquals(1, ff.syncfsCount);
+            }
+            Assert.assertEquals(0, ff.msyncCount);
+            assertRowCount(configuration, "y", 50);
+        });
+    }
+
+    @Test
+    public void testSyncFailure() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CountingFilesFacade ff = new CountingFilesFacade();
+            final CairoConfiguration configuration = new GroupCommitConfiguration(ff);
+            final MessageBus messageBus = new MessageBusImpl(configuration);
+            createTable(configuration, "x");
+
+            try (TableWriter writer = new TableWriter(configuration, "x", messageBus)) {
+                appendRows(writer, 0, 10);
+                ff.fail = true;
+                try {
+                    writer.commit();
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "could not sync file system");
+                }
+
+                // failed commit is never acknowledged
+                ff.fail = false;
+                try {
+                    writer.awaitDurable();
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "could not sync file system");
+                }
+                Assert.assertFalse(messageBus.getGroupCommitScheduler().isDurable(1));
+
+                appendRows(writer, 10, 10);
+                writer.commit();
+                Assert.assertTrue(messageBus.getGroupCommitScheduler().isDurable(2));
+                Assert.assertEquals(2, ff.syncfsCount);
+            }
+            assertRowCount(configuration, "x", 20);
+        });
+    }
+
+    @Test
+    public void testSyncFailureKeepsEarlierTicketsDurable() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CountingFilesFacade ff = new CountingFilesFacade();
+            final CairoConfiguration configuration = new GroupCommitConfiguration(ff);
+            final MessageBus messageBus = new MessageBusImpl(configuration);
+            final GroupCommitScheduler scheduler = messageBus.getGroupCommitScheduler();
+            createTable(configuration, "x");
+            createTable(configuration, "y");
+
+            try (
+                    TableWriter writerX = new TableWriter(configuration, "x", messageBus);
+                    TableWriter writerY = new TableWriter(configuration, "y", messageBus)
+            ) {
+                appendRows(writerX, 0, 10);
+                writerX.commit(CommitMode.GROUP);
+                Assert.assertTrue(scheduler.sync());
+
+                // tickets 2 and 3 are covered by failed sync
+                appendRows(writerX, 10, 10);
+                writerX.commit(CommitMode.GROUP);
+                appendRows(writerY, 0, 10);
+                writerY.commit(CommitMode.GROUP);
+                ff.fail = true;
+                Assert.assertTrue(scheduler.sync());
+                ff.fail = false;
+
+                appendRows(writerY, 10, 10);
+                writerY.commit(CommitMode.GROUP);
+                Assert.assertTrue(scheduler.sync());
+
+                Assert.assertTrue(scheduler.isDurable(1));
+                Assert.assertFalse(scheduler.isDurable(2));
+                Assert.assertFalse(scheduler.isDurable(3));
+                Assert.assertTrue(scheduler.isDurable(4));
+
+                // earlier ticket is acknowledged, failed one is not
+                scheduler.await(1);
+                try {
+                    scheduler.await(3);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "could not sync file system");
+                }
+                writerY.awaitDurable();
+
+                // second failure does not acknowledge tickets of the first one
+                appendRows(writerX, 20, 10);
+                writerX.commit(CommitMode.GROUP);
+                ff.fail = true;
+                Assert.assertTrue(scheduler.sync());
+                ff.fail = false;
+                Assert.assertFalse(scheduler.isDurable(2));
+                Assert.assertFalse(scheduler.isDurable(5));
+                Assert.assertTrue(scheduler.isDurable(4));
+                Assert.assertEquals(4, ff.syncfsCount);
+            }
+        });
+    }
+
+    @Test
+    public void testSyncNotSupported() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CountingFilesFacade ff = new CountingFilesFacade();
+            ff.supported = false;
+            final CairoConfiguration configuration = new GroupCommitConfiguration(ff);
+            final MessageBus messageBus = new MessageBusImpl(configuration);
+            createTable(configuration, "x");
+
+            // group commits fall back to sync commits
+            try (TableWriter writer = new TableWriter(configuration, "x", messageBus)) {
+                appendRows(writer, 0, 10);
+                writer.commit();
+                appendRows(writer, 10, 10);
+                writer.commit(CommitMode.GROUP);
+                writer.awaitDurable();
+            }
+            Assert.assertEquals(0, ff.syncfsCount);
+            Assert.assertEquals(0, messageBus.getGroupCommitScheduler().getTicket());
+            Assert.assertTrue(ff.msyncCount > 0);
+            assertRowCount(configuration, "x", 20);
+        });
+    }
+
+    @Test
+    public void testWriterOutsideOfRootSyncs() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CountingFilesFacade ff = new CountingFilesFacade();
+            final CairoConfiguration configuration = new GroupCommitConfiguration(ff);
+            final MessageBus messageBus = new MessageBusImpl(configuration);
+            createTable(configuration, "x");
+
+            // same table, root is spelled differently, so it is not the database root
+            final String otherRoot = root + "/.";
+            try (TableWriter writer = new TableWriter(configuration, "x", messageBus, true, DefaultLifecycleManager.INSTANCE, otherRoot)) {
+                appendRows(writer, 0, 10);
+                writer.commit();
+            }
+            Assert.assertEquals(0, ff.syncfsCount);
+            Assert.assertTrue(ff.msyncCount > 0);
+            assertRowCount(configuration, "x", 10);
+        });
+    }
+
+    private static void appendRows(TableWriter writer, long lo, int count) {
+        for (int i = 0; i < count; i++) {
+            TableWriter.Row row = writer.newRow();
+            row.putLong(0, lo + i);
+            row.append();
+        }
+    }
+
+    private static void assertRowCount(CairoConfiguration configuration, String tableName, long expected) {
+        try (TableReader reader = new TableReader(configuration, tableName)) {
+            final RecordCursor cursor = reader.getCursor();
+            final Record record = cursor.getRecord();
+            long count = 0;
+            while (cursor.hasNext()) {
+                Assert.assertEquals(count++, record.getLong(0));
+            }
+            Assert.assertEquals(expected, count);
+        }
+    }
+
+    private static void createTable(CairoConfiguration configuration, String tableName) {
+        try (TableModel model = new TableModel(configuration, tableName, PartitionBy.NONE).col("l", ColumnType.LONG)) {
+            CairoTestUtils.create(model);
+        }
+    }
+
+    private static class CountingFilesFacade extends FilesFacadeImpl {
+        private int msyncCount;
+        private int syncfsCount;
+        private boolean fail;
+        private boolean supported = true;
+
+        @Override
+        public boolean isSyncfsSupported() {
+            return supported;
+        }
+
+        @Override
+        public int msync(long addr, long len, boolean async) {
+            msyncCount++;
+            return super.msync(addr, len, async);
+        }
+
+        @Override
+        public int syncfs(long fd) {
+            syncfsCount++;
+            if (fail) {
+                return -1;
+            }
+            // scheduling is tested regardless of native support
+            return Files.isSyncfsSupported() ? super.syncfs(fd) : 0;
+        }
+    }
+
+    private static class GroupCommitConfiguration extends DefaultCairoConfiguration {
+        private final FilesFacade ff;
+
+        public GroupCommitConfiguration(FilesFacade ff) {
+            super(root);
+            this.ff = ff;
+        }
+
+        @Override
+        public int getCommitMode() {
+            return CommitMode.GROUP;
+        }
+
+        @Override
+        public FilesFacade getFilesFacade() {
+            return ff;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PartitionCompressionTest extends AbstractGriffinTest {
+
+    @Test
+    public void testCompressSealedPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+
+            // reader opened before compression keeps using raw files
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(2, compress("x"));
+                Assert.assertEquals(4000, reader.size());
+                // already compressed
+                Assert.assertEquals(0, compress("x"));
+            }
+
+            assertPartitionCompressed("1970-01-01", true);
+            assertPartitionCompressed("1970-01-02", true);
+            assertPartitionCompressed("1970-01-03", false);
+
+            try (Path path = new Path()) {
+                final FilesFacade ff = configuration.getFilesFacade();
+                path.of(root).concat("x").concat("1970-01-01");
+                final int plen = path.length();
+                // compressible columns
+                Assert.assertFalse(ff.exists(TableUtils.dFile(path.trimTo(plen), "ts")));
+                Assert.assertTrue(ff.exists(TableUtils.dzFile(path.trimTo(plen), "ts")));
+                Assert.assertFalse(ff.exists(TableUtils.dFile(path.trimTo(plen), "s")));
+                Assert.assertTrue(ff.exists(TableUtils.dzFile(path.trimTo(plen), "s")));
+                // raw columns
+                Assert.assertTrue(ff.exists(TableUtils.dFile(path.trimTo(plen), "i")));
+                Assert.assertFalse(ff.exists(TableUtils.dzFile(path.trimTo(plen), "i")));
+                Assert.assertTrue(ff.exists(TableUtils.dFile(path.trimTo(plen), "str")));
+            }
+
+            engine.releaseAllReaders();
+            assertTablesEqual();
+            assertSql("select min(ts), max(ts) from x where ts = '1970-01-02'", "min\tmax\n" +
+                    "1970-01-02T00:00:00.000000Z\t1970-01-02T23:59:00.000000Z\n");
+        });
+    }
+
+    @Test
+    public void testDecompressionMemoryLimit() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(2, compress("x"));
+            engine.releaseAllReaders();
+
+            // timestamp and symbol columns of sealed partition decode into ~17KB, limit fits one partition
+            configOverridePartitionDecompressionMemoryLimit = 20_000;
+            assertSql("select count() from x where ts = '1970-01-02'", "count\n" +
+                    "1440\n");
+            engine.releaseAllReaders();
+            try {
+                assertSql("select count() from x where d > 0", "");
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "decompressed column exceeds memory limit");
+            }
+            engine.releaseAllReaders();
+
+            configOverridePartitionDecompressionMemoryLimit = -1;
+            assertTablesEqual();
+        });
+    }
+
+    @Test
+    public void testDropFirstPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(2, compress("x"));
+
+            compiler.compile("alter table x drop partition list '1970-01-01'", sqlExecutionContext);
+            compiler.compile("alter table y drop partition list '1970-01-01'", sqlExecutionContext);
+            // min timestamp is read from compressed timestamp column
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(24 * 3600_000_000L, reader.getMinTimestamp());
+            }
+            assertTablesEqual();
+        });
+    }
+
+    @Test
+    public void testJob() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            try (PartitionCompressionJob job = new PartitionCompressionJob(engine)) {
+                try (TableWriter ignore = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    // y is compressed, x writer is busy
+                    Assert.assertTrue(job.run(0));
+                    Assert.assertTrue(job.run(0));
+                    Assert.assertFalse(job.run(0));
+                }
+                assertPartitionCompressed("1970-01-01", false);
+                // job waits for check interval before next scan
+                Assert.assertFalse(job.run(0));
+            }
+            assertPartitionCompressed("y", "1970-01-01", true);
+            assertPartitionCompressed("y", "1970-01-02", true);
+        });
+    }
+
+    @Test
+    public void testO3IntoCompressedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(2, compress("x"));
+
+            insertIntoBoth("1970-01-01T12:00:30", 3600000000L, 20);
+            assertTablesEqual();
+            Assert.assertEquals(2, compress("x"));
+            assertTablesEqual();
+        });
+    }
+
+    @Test
+    public void testRenameAndDropColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(2, compress("x"));
+
+            compiler.compile("alter table x rename column s to s2", sqlExecutionContext);
+            compiler.compile("alter table y rename column s to s2", sqlExecutionContext);
+            assertTablesEqual();
+
+            compiler.compile("alter table x drop column s2", sqlExecutionContext);
+            compiler.compile("alter table y drop column s2", sqlExecutionContext);
+            assertTablesEqual();
+
+            try (Path path = new Path()) {
+                path.of(root).concat("x").concat("1970-01-01");
+                Assert.assertFalse(configuration.getFilesFacade().exists(TableUtils.dzFile(path, "s2")));
+            }
+        });
+    }
+
+    private void assertPartitionCompressed(String partition, boolean expected) {
+        assertPartitionCompressed("x", partition, expected);
+    }
+
+    private void assertPartitionCompressed(String tableName, String partition, boolean expected) {
+        try (Path path = new Path()) {
+            path.of(root).concat(tableName).concat(partition).concat(TableUtils.COMPRESSED_PARTITION_MARKER).$();
+            Assert.assertEquals(expected, configuration.getFilesFacade().exists(path));
+        }
+    }
+
+    private void assertTablesEqual() throws SqlException {
+        final StringSink expected = new StringSink();
+        TestUtils.printSql(compiler, sqlExecutionContext, "y", expected);
+        TestUtils.printSql(compiler, sqlExecutionContext, "x", sink);
+        TestUtils.assertEquals(expected, sink);
+    }
+
+    private int compress(String tableName) {
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+            return writer.compressSealedPartitions(Integer.MAX_VALUE);
+        }
+    }
+
+    private void insertIntoBoth(String timestampLo, long timestampStep, int count) throws SqlException {
+        compiler.compile(
+                "create table z as (" +
+                        "select timestamp_sequence(to_timestamp('" + timestampLo + "', 'yyyy-MM-ddTHH:mm:ss'), " + timestampStep + ") ts, rnd_double(2) d, rnd_symbol('a','b','c',null) s, rnd_int() i, rnd_str(3,5,1) str" +
+                        " from long_sequence(" + count + ")" +
+                        ")",
+                sqlExecutionContext
+        );
+        compiler.compile("insert into x select * from z", sqlExecutionContext);
+        compiler.compile("insert into y select * from z", sqlExecutionContext);
+        compiler.compile("drop table z", sqlExecutionContext);
+    }
+
+    private void createTables() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select timestamp_sequence(0, 60000000) ts, rnd_double(2) d, rnd_symbol('a','b','c',null) s, rnd_int() i, rnd_str(3,5,1) str" +
+                        " from long_sequence(4000)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+        compiler.compile("create table y as (select * from x) timestamp(ts) partition by DAY", sqlExecutionContext);
+    }
+}
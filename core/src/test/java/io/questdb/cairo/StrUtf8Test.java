@@ -0,0 +1,316 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.vm.ContiguousVirtualMemory;
+import io.questdb.cairo.vm.PagedVirtualMemory;
+import io.questdb.cairo.vm.ReadWriteVirtualMemory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StrUtf8Test extends AbstractGriffinTest {
+
+    private static final String[] VALUES = {
+            "",
+            "a",
+            "ab",
+            "order-1234567",
+            "Привет мир",
+            "価格",
+            "emoji 😀!",
+            "lone \uD800 surrogate",
+            null
+    };
+
+    @Test
+    public void testAddColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_str(5, 10, 2) a, timestamp_sequence(0, 1000000) ts from long_sequence(5)) timestamp(ts)", sqlExecutionContext);
+            configOverrideStrUtf8Enabled = true;
+            compiler.compile("alter table x add column b string", sqlExecutionContext);
+            executeInsert("insert into x values('abc', '1970-01-01T00:00:10.000000Z', 'Привет')");
+            executeInsert("insert into x values('def', '1970-01-01T00:00:11.000000Z', null)");
+
+            try (TableReader reader = engine.getReader(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                Assert.assertFalse(reader.getMetadata().isColumnStrUtf8(0));
+                Assert.assertTrue(reader.getMetadata().isColumnStrUtf8(2));
+            }
+
+            assertSql(
+                    "select a, b, length(b) from x where a in ('abc', 'def')",
+                    "a\tb\tlength\n" +
+                            "abc\tПривет\t6\n" +
+                            "def\t\t-1\n"
+            );
+        });
+    }
+
+    @Test
+    public void testMemoryRoundTrip() {
+        try (
+                PagedVirtualMemory paged = new PagedVirtualMemory(16, Integer.MAX_VALUE);
+                ContiguousVirtualMemory contiguous = new ContiguousVirtualMemory(16, Integer.MAX_VALUE)
+        ) {
+            // small pages make values cross page boundaries
+            assertRoundTrip(paged);
+            assertRoundTrip(contiguous);
+        }
+    }
+
+    @Test
+    public void testMigration() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (" +
+                    "select rnd_str(5, 40, 2) s, rnd_int() i, timestamp_sequence(0, 60000000) ts from long_sequence(5000)" +
+                    ") timestamp(ts) partition by DAY", sqlExecutionContext);
+            executeInsert("insert into x values('Привет', 1, '1970-01-01T00:00:00.000000Z')");
+
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, "select * from x", expected);
+            final long utf16Size = columnFileSize("x", "1970-01-01", "s.d");
+
+            // existing column is left as is, setting applies to columns created after upgrade
+            configOverrideStrUtf8Enabled = true;
+            downgradeTable("x", EngineMigration.VERSION_STR_UTF8 - 1);
+            new EngineMigration(engine, configuration).migrateEngineTo(ColumnType.VERSION);
+
+            try (TableReader reader = engine.getReader(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                Assert.assertFalse(reader.getMetadata().isColumnStrUtf8(0));
+                Assert.assertEquals(ColumnType.VERSION, reader.getMetadata().getVersion());
+            }
+            Assert.assertEquals(utf16Size, columnFileSize("x", "1970-01-01", "s.d"));
+            TestUtils.assertSql(compiler, sqlExecutionContext, "select * from x", sink, expected);
+
+            // table is writable after migration, new column is UTF-8
+            compiler.compile("alter table x add column s2 string", sqlExecutionContext);
+            executeInsert("insert into x values('価格', 2, '1970-01-01T00:00:00.001000Z', 'Привет')");
+            try (TableReader reader = engine.getReader(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                Assert.assertFalse(reader.getMetadata().isColumnStrUtf8(0));
+                Assert.assertTrue(reader.getMetadata().isColumnStrUtf8(3));
+            }
+            assertSql(
+                    "select s, length(s), i, s2 from x where s in ('Привет', '価格')",
+                    "s\tlength\ti\ts2\n" +
+                            "Привет\t6\t1\t\n" +
+                            "価格\t2\t2\tПривет\n"
+            );
+        });
+    }
+
+    @Test
+    public void testMigrationMixedEncodings() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (" +
+                    "select rnd_str(5, 40, 2) s, rnd_int() i, timestamp_sequence(0, 60000000) ts from long_sequence(3000)" +
+                    ") timestamp(ts) partition by DAY", sqlExecutionContext);
+            // column top in the last partition, nothing in the first one
+            configOverrideStrUtf8Enabled = true;
+            compiler.compile("alter table x add column s2 string", sqlExecutionContext);
+            compiler.compile("insert into x select rnd_str(5, 40, 2), rnd_int(), timestamp_sequence(180000000000, 60000000), rnd_str('Привет', '価格', null) from long_sequence(1000)", sqlExecutionContext);
+
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, "select * from x", expected);
+
+            // each column keeps encoding it was created with, regardless of setting
+            configOverrideStrUtf8Enabled = false;
+            downgradeTable("x", EngineMigration.VERSION_STR_UTF8 - 1);
+            new EngineMigration(engine, configuration).migrateEngineTo(ColumnType.VERSION);
+
+            try (TableReader reader = engine.getReader(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                Assert.assertFalse(reader.getMetadata().isColumnStrUtf8(0));
+                Assert.assertTrue(reader.getMetadata().isColumnStrUtf8(3));
+                Assert.assertEquals(ColumnType.VERSION, reader.getMetadata().getVersion());
+            }
+            TestUtils.assertSql(compiler, sqlExecutionContext, "select * from x", sink, expected);
+        });
+    }
+
+    @Test
+    public void testOutOfOrder() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table src as (" +
+                    "select rnd_str(1, 20, 3) s, rnd_long() l, timestamp_sequence(0, 100000000) ts from long_sequence(2000)" +
+                    ")", sqlExecutionContext);
+            compiler.compile("create table o3 as (" +
+                    "select rnd_str('Привет', 'a', '価格', 'emoji 😀'), rnd_long(), cast(rnd_long(0, 200000000000, 0) as timestamp) from long_sequence(500)" +
+                    ")", sqlExecutionContext);
+
+            compiler.compile("create table y as (select * from src) timestamp(ts) partition by DAY", sqlExecutionContext);
+            configOverrideStrUtf8Enabled = true;
+            compiler.compile("create table x as (select * from src) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("insert into x select * from o3", sqlExecutionContext);
+            compiler.compile("insert into y select * from o3", sqlExecutionContext);
+
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, "select s, length(s), l, ts from y", expected);
+            TestUtils.assertSql(compiler, sqlExecutionContext, "select s, length(s), l, ts from x", sink, expected);
+        });
+    }
+
+    @Test
+    public void testReadWrite() throws Exception {
+        assertMemoryLeak(() -> {
+            configOverrideStrUtf8Enabled = true;
+            compiler.compile("create table x (s string, ts timestamp) timestamp(ts)", sqlExecutionContext);
+            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                for (int i = 0; i < VALUES.length; i++) {
+                    TableWriter.Row row = writer.newRow(i);
+                    row.putStr(0, VALUES[i]);
+                    row.append();
+                }
+                TableWriter.Row row = writer.newRow(VALUES.length);
+                row.putStr(0, 'ж');
+                row.append();
+                row = writer.newRow(VALUES.length + 1);
+                row.putStr(0, "xПриветx", 1, 6);
+                row.append();
+                writer.commit();
+            }
+
+            try (
+                    TableReader reader = engine.getReader(sqlExecutionContext.getCairoSecurityContext(), "x");
+                    RecordCursor cursor = reader.getCursor()
+            ) {
+                Assert.assertTrue(reader.getMetadata().isColumnStrUtf8(0));
+                final io.questdb.cairo.sql.Record record = cursor.getRecord();
+                for (int i = 0; i < VALUES.length; i++) {
+                    Assert.assertTrue(cursor.hasNext());
+                    final String expected = VALUES[i];
+                    TestUtils.assertEquals(expected, record.getStr(0));
+                    TestUtils.assertEquals(expected, record.getStrB(0));
+                    Assert.assertEquals(expected == null ? TableUtils.NULL_LEN : expected.length(), record.getStrLen(0));
+                }
+                Assert.assertTrue(cursor.hasNext());
+                TestUtils.assertEquals("ж", record.getStr(0));
+                Assert.assertTrue(cursor.hasNext());
+                TestUtils.assertEquals("Привет", record.getStr(0));
+                Assert.assertFalse(cursor.hasNext());
+            }
+        });
+    }
+
+    @Test
+    public void testUnpairedSurrogates() throws Exception {
+        final String[] values = {
+                "\uD83D",
+                "\uDE00",
+                "x\uDE00\uD83Dy",
+                "trailing \uD83D",
+                "\uD83D\uD83D\uDE00\uDE00"
+        };
+        try (PagedVirtualMemory mem = new PagedVirtualMemory(16, Integer.MAX_VALUE)) {
+            for (String value : values) {
+                final long offset = mem.putStrUtf8(value);
+                TestUtils.assertEquals(value, mem.getStrUtf8(offset));
+                Assert.assertEquals(value.length(), mem.getStrUtf8Len(offset));
+            }
+            // unpaired surrogate takes 3 bytes, padded to 4
+            final long offset = mem.putStrUtf8("\uDE00");
+            Assert.assertEquals(Integer.BYTES + 4, mem.putStrUtf8("") - offset);
+        }
+
+        assertMemoryLeak(() -> {
+            configOverrideStrUtf8Enabled = true;
+            compiler.compile("create table x (s string, ts timestamp) timestamp(ts)", sqlExecutionContext);
+            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                for (int i = 0; i < values.length; i++) {
+                    TableWriter.Row row = writer.newRow(i);
+                    row.putStr(0, values[i]);
+                    row.append();
+                }
+                writer.commit();
+            }
+
+            try (
+                    TableReader reader = engine.getReader(sqlExecutionContext.getCairoSecurityContext(), "x");
+                    RecordCursor cursor = reader.getCursor()
+            ) {
+                final io.questdb.cairo.sql.Record record = cursor.getRecord();
+                for (String value : values) {
+                    Assert.assertTrue(cursor.hasNext());
+                    TestUtils.assertEquals(value, record.getStr(0));
+                    Assert.assertEquals(value.length(), record.getStrLen(0));
+                }
+                Assert.assertFalse(cursor.hasNext());
+            }
+        });
+    }
+
+    private static void assertRoundTrip(ReadWriteVirtualMemory mem) {
+        final long[] offsets = new long[VALUES.length];
+        for (int i = 0; i < VALUES.length; i++) {
+            offsets[i] = mem.putStrUtf8(VALUES[i]);
+        }
+        for (int i = 0; i < VALUES.length; i++) {
+            final String expected = VALUES[i];
+            TestUtils.assertEquals(expected, mem.getStrUtf8(offsets[i]));
+            Assert.assertEquals(expected == null ? TableUtils.NULL_LEN : expected.length(), mem.getStrUtf8Len(offsets[i]));
+        }
+
+        // ASCII value takes half the space of UTF-16 one, odd length values are padded
+        final long utf8Offset = mem.putStrUtf8("order-123456789");
+        final long utf16Offset = mem.putStr("order-123456789");
+        final long endOffset = mem.putStrUtf8("");
+        Assert.assertEquals(4 + 16, utf16Offset - utf8Offset);
+        Assert.assertEquals(4 + 30, endOffset - utf16Offset);
+        TestUtils.assertEquals("order-123456789", mem.getStrUtf8(utf8Offset));
+    }
+
+    private long columnFileSize(String tableName, String partition, String fileName) {
+        try (Path path = new Path()) {
+            return configuration.getFilesFacade().length(path.of(root).concat(tableName).concat(partition).concat(fileName).$());
+        }
+    }
+
+    private void downgradeTable(String tableName, int version) {
+        engine.clear();
+        final FilesFacade ff = configuration.getFilesFacade();
+        try (Path path = new Path()) {
+            path.of(root).concat(tableName).concat(TableUtils.META_FILE_NAME).$();
+            final long fd = ff.openRW(path);
+            Assert.assertTrue(fd > -1);
+            final long buf = Unsafe.malloc(Integer.BYTES);
+            try {
+                Unsafe.getUnsafe().putInt(buf, version);
+                Assert.assertEquals(Integer.BYTES, ff.write(fd, buf, Integer.BYTES, TableUtils.META_OFFSET_VERSION));
+            } finally {
+                Unsafe.free(buf, Integer.BYTES);
+                ff.close(fd);
+            }
+            path.of(root).concat(TableUtils.UPGRADE_FILE_NAME).$();
+            if (ff.exists(path)) {
+                Assert.assertTrue(ff.remove(path));
+            }
+        }
+    }
+}
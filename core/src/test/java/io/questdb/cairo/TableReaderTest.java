@@ -1428,6 +1428,73 @@ public class TableReaderTest extends AbstractCairoTest {
         }
     };
 
+    @Test
+    public void testAccessAdvice() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int[] adviceCounts = new int[Files.MADV_DONTNEED + 1];
+            FilesFacade ff = new FilesFacadeImpl() {
+                @Override
+                public int madvise(long address, long len, int advice) {
+                    adviceCounts[advice]++;
+                    return 0;
+                }
+            };
+
+            CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public FilesFacade getFilesFacade() {
+                    return ff;
+                }
+            };
+
+            try (TableModel model = new TableModel(configuration, "w", PartitionBy.DAY).col("l", ColumnType.LONG).timestamp()) {
+                CairoTestUtils.create(model);
+            }
+
+            // three daily partitions
+            try (TableWriter writer = new TableWriter(configuration, "w")) {
+                for (int i = 0; i < 30; i++) {
+                    TableWriter.Row row = writer.newRow(i * Timestamps.HOUR_MICROS * 2);
+                    row.putLong(0, i);
+                    row.append();
+                }
+                writer.commit();
+            }
+
+            final IntList columnIndexes = new IntList();
+            columnIndexes.add(0);
+            columnIndexes.add(1);
+
+            try (
+                    TableReader reader = new TableReader(configuration, "w");
+                    TableReaderSelectedColumnRecordCursor cursor = new TableReaderSelectedColumnRecordCursor(columnIndexes)
+            ) {
+                Assert.assertEquals(3, reader.getPartitionCount());
+
+                cursor.setAccessPattern(Files.MADV_SEQUENTIAL);
+                cursor.of(reader);
+                final Record record = cursor.getRecord();
+                long expected = 0;
+                while (cursor.hasNext()) {
+                    Assert.assertEquals(expected++, record.getLong(0));
+                }
+                Assert.assertEquals(30, expected);
+
+                // two columns in every partition, next partition is read ahead
+                Assert.assertEquals(6, adviceCounts[Files.MADV_SEQUENTIAL]);
+                Assert.assertEquals(4, adviceCounts[Files.MADV_WILLNEED]);
+                Assert.assertEquals(0, adviceCounts[Files.MADV_NORMAL]);
+
+                // pooled reader must not carry advice over to the next query
+                reader.goPassive();
+                Assert.assertTrue(adviceCounts[Files.MADV_NORMAL] >= 6);
+                final int normalCount = adviceCounts[Files.MADV_NORMAL];
+                reader.goPassive();
+                Assert.assertEquals(normalCount, adviceCounts[Files.MADV_NORMAL]);
+            }
+        });
+    }
+
     @Test
     public void testAppendNullTimestamp() throws Exception {
         try (TableModel model = new TableModel(configuration, "all", PartitionBy.NONE)
@@ -26,6 +26,9 @@ package io.questdb.cairo;
 
 import io.questdb.std.FilesFacade;
 import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.NumericException;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.std.str.StringSink;
 import io.questdb.std.str.Path;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
@@ -47,6 +50,28 @@ public class TableUtilsTest {
         }
     }
 
+    @Test
+    public void testPartitionNameByHour() throws NumericException {
+        assertPartitionName(PartitionBy.HOUR, "2021-03-07T09:15:00.000000Z", "2021-03-07T09", "2021-03-07T09:00:00.000000Z", "2021-03-07T09:59:59.999999Z");
+        assertPartitionName(PartitionBy.HOUR, "1969-12-31T23:59:59.999999Z", "1969-12-31T23", "1969-12-31T23:00:00.000000Z", "1969-12-31T23:59:59.999999Z");
+    }
+
+    @Test
+    public void testPartitionNameByWeek() throws NumericException {
+        assertPartitionName(PartitionBy.WEEK, "2021-03-07T09:15:00.000000Z", "2021-W09", "2021-03-01T00:00:00.000000Z", "2021-03-07T23:59:59.999999Z");
+        // ISO week-based year differs from calendar year around new year
+        assertPartitionName(PartitionBy.WEEK, "2021-01-02T00:00:00.000000Z", "2020-W53", "2020-12-28T00:00:00.000000Z", "2021-01-03T23:59:59.999999Z");
+        assertPartitionName(PartitionBy.WEEK, "2019-12-31T00:00:00.000000Z", "2020-W01", "2019-12-30T00:00:00.000000Z", "2020-01-05T23:59:59.999999Z");
+    }
+
+    @Test
+    public void testPartitionNameByWeekInvalid() {
+        assertInvalidPartitionName(PartitionBy.WEEK, "2021-W53");
+        assertInvalidPartitionName(PartitionBy.WEEK, "2021-W00");
+        assertInvalidPartitionName(PartitionBy.WEEK, "2021-09");
+        assertInvalidPartitionName(PartitionBy.HOUR, "2021-03-07");
+    }
+
     @Test
     public void testUnknownTodo() {
         TestUtils.assertEquals("unknown", TableUtils.getTodoText(7879797987L));
@@ -68,4 +93,29 @@ public class TableUtilsTest {
 
         Assert.assertTrue(TableUtils.isValidInfluxColumnName("data_connectionSource_user-agent"));
     }
-}
\ No newline at end of file
+
+    private static void assertInvalidPartitionName(int partitionBy, String name) {
+        try {
+            TableUtils.getPartitionDateFmt(partitionBy).parse(name, null);
+            Assert.fail();
+        } catch (NumericException ignore) {
+        }
+    }
+
+    private static void assertPartitionName(int partitionBy, String timestamp, String expectedName, String expectedFloor, String expectedCeil) throws NumericException {
+        final long ts = TimestampFormatUtils.parseUTCTimestamp(timestamp);
+        final StringSink sink = new StringSink();
+        final long max = TableUtils.setSinkForPartition(sink, partitionBy, ts, true);
+        TestUtils.assertEquals(expectedName, sink);
+        Assert.assertEquals(TimestampFormatUtils.parseUTCTimestamp(expectedCeil), max);
+
+        final long floor = TableUtils.getPartitionDateFmt(partitionBy).parse(expectedName, null);
+        Assert.assertEquals(TimestampFormatUtils.parseUTCTimestamp(expectedFloor), floor);
+        Assert.assertEquals(floor, TableUtils.getPartitionFloor(partitionBy).floor(ts));
+        Assert.assertEquals(max, TableUtils.getPartitionCeil(partitionBy).ceil(ts));
+
+        sink.clear();
+        TableUtils.getPartitionDateFmt(partitionBy).format(floor, null, null, sink);
+        TestUtils.assertEquals(expectedName, sink);
+    }
+}
@@ -370,6 +370,76 @@ public class TableWriterTest extends AbstractCairoTest {
         }
     }
 
+    @Test
+    public void testAppendColumns() throws Exception {
+        // every block spans three daily partitions
+        testAppendColumns(2000, 130_000_000L, 2000 * 130_000_000L, 130_000_000L);
+    }
+
+    @Test
+    public void testAppendColumnsNoTimestamp() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int N = 1000;
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.NONE).col("i", ColumnType.INT).col("d", ColumnType.DOUBLE)) {
+                CairoTestUtils.create(model);
+            }
+            final long ints = Unsafe.malloc((long) N * Integer.BYTES);
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                for (int i = 0; i < N; i++) {
+                    Unsafe.getUnsafe().putInt(ints + (long) i * Integer.BYTES, i);
+                }
+                LongList addresses = new LongList();
+                addresses.add(ints);
+                addresses.add(0);
+                writer.appendColumns(0, N, addresses);
+                writer.appendColumns(0, N, addresses);
+                writer.commit();
+                Assert.assertEquals(2 * N, writer.size());
+            } finally {
+                Unsafe.free(ints, (long) N * Integer.BYTES);
+            }
+
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                final RecordCursor cursor = reader.getCursor();
+                final Record record = cursor.getRecord();
+                int n = 0;
+                while (cursor.hasNext()) {
+                    Assert.assertEquals(n % N, record.getInt(0));
+                    Assert.assertTrue(Double.isNaN(record.getDouble(1)));
+                    n++;
+                }
+                Assert.assertEquals(2 * N, n);
+            }
+        });
+    }
+
+    @Test
+    public void testAppendColumnsO3() throws Exception {
+        // second block goes back in time and interleaves with rows of the first block
+        testAppendColumns(1000, 60_000_000L, 1000 * 60_000_000L + 30_000_000L, -59_000_000L);
+    }
+
+    @Test
+    public void testAppendColumnsUnsupportedType() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.NONE).col("s", ColumnType.STRING).timestamp()) {
+                CairoTestUtils.create(model);
+            }
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                LongList addresses = new LongList();
+                addresses.add(1);
+                addresses.add(0);
+                try {
+                    writer.appendColumns(0, 1, addresses);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "bulk append is not supported [column=s, type=STRING]");
+                }
+                Assert.assertEquals(0, writer.size());
+            }
+        });
+    }
+
     @Test
     public void testCloseActivePartitionAndRollback() throws Exception {
         int N = 10000;
@@ -3118,6 +3188,106 @@ public class TableWriterTest extends AbstractCairoTest {
         });
     }
 
+    // appends two blocks of rows to "x" by columns and to "y" row by row, tables must end up the same
+    private void testAppendColumns(int N, long step1, long start2, long step2) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            for (String name : new String[]{"x", "y"}) {
+                try (TableModel model = new TableModel(configuration, name, PartitionBy.DAY)
+                        .col("i", ColumnType.INT)
+                        .col("l", ColumnType.LONG)
+                        .col("sym", ColumnType.SYMBOL)
+                        .col("sh", ColumnType.SHORT)
+                        .col("str", ColumnType.STRING)
+                        .col("b", ColumnType.BOOLEAN)
+                        .col("h", ColumnType.LONG256)
+                        .timestamp()
+                        .col("d", ColumnType.DOUBLE)) {
+                    CairoTestUtils.create(model);
+                }
+            }
+
+            final long ts = TimestampFormatUtils.parseTimestamp("2013-03-04T00:00:00.000Z");
+            final Rnd rnd = new Rnd();
+            final long timestamps = Unsafe.malloc((long) N * Long.BYTES);
+            final long ints = Unsafe.malloc((long) N * Integer.BYTES);
+            final long longs = Unsafe.malloc((long) N * Long.BYTES);
+            final long keys = Unsafe.malloc((long) N * Integer.BYTES);
+            final long bools = Unsafe.malloc(N);
+            final long long256s = Unsafe.malloc((long) N * Long256.BYTES);
+            final long doubles = Unsafe.malloc((long) N * Double.BYTES);
+            try (
+                    TableWriter x = new TableWriter(configuration, "x");
+                    TableWriter y = new TableWriter(configuration, "y")
+            ) {
+                final LongList addresses = new LongList();
+                addresses.add(ints);
+                addresses.add(longs);
+                addresses.add(keys);
+                // short and string columns are null
+                addresses.add(0);
+                addresses.add(0);
+                addresses.add(bools);
+                addresses.add(long256s);
+                addresses.add(0);
+                addresses.add(doubles);
+
+                for (int block = 0; block < 2; block++) {
+                    for (int n = 0; n < N; n++) {
+                        final long timestamp = block == 0 ? ts + n * step1 : ts + start2 + n * step2;
+                        final int i = rnd.nextInt();
+                        final long l = rnd.nextLong();
+                        final CharSequence sym = rnd.nextChars(2);
+                        final boolean b = rnd.nextBoolean();
+                        final long h0 = rnd.nextLong();
+                        final long h3 = rnd.nextLong();
+                        final double d = rnd.nextDouble();
+
+                        Unsafe.getUnsafe().putLong(timestamps + (long) n * Long.BYTES, timestamp);
+                        Unsafe.getUnsafe().putInt(ints + (long) n * Integer.BYTES, i);
+                        Unsafe.getUnsafe().putLong(longs + (long) n * Long.BYTES, l);
+                        Unsafe.getUnsafe().putInt(keys + (long) n * Integer.BYTES, x.getSymbolIndex(2, sym));
+                        Unsafe.getUnsafe().putByte(bools + n, (byte) (b ? 1 : 0));
+                        final long p = long256s + (long) n * Long256.BYTES;
+                        Unsafe.getUnsafe().putLong(p, h0);
+                        Unsafe.getUnsafe().putLong(p + Long.BYTES, 0);
+                        Unsafe.getUnsafe().putLong(p + Long.BYTES * 2, 0);
+                        Unsafe.getUnsafe().putLong(p + Long.BYTES * 3, h3);
+                        Unsafe.getUnsafe().putDouble(doubles + (long) n * Double.BYTES, d);
+
+                        TableWriter.Row row = y.newRow(timestamp);
+                        row.putInt(0, i);
+                        row.putLong(1, l);
+                        row.putSym(2, sym);
+                        row.putBool(5, b);
+                        row.putLong256(6, h0, 0, 0, h3);
+                        row.putDouble(8, d);
+                        row.append();
+                    }
+                    x.appendColumns(timestamps, N, addresses);
+                    x.commit();
+                    y.commit();
+                }
+                Assert.assertEquals(2 * N, x.size());
+            } finally {
+                Unsafe.free(timestamps, (long) N * Long.BYTES);
+                Unsafe.free(ints, (long) N * Integer.BYTES);
+                Unsafe.free(longs, (long) N * Long.BYTES);
+                Unsafe.free(keys, (long) N * Integer.BYTES);
+                Unsafe.free(bools, N);
+                Unsafe.free(long256s, (long) N * Long256.BYTES);
+                Unsafe.free(doubles, (long) N * Double.BYTES);
+            }
+
+            try (
+                    TableReader expected = new TableReader(configuration, "y");
+                    TableReader actual = new TableReader(configuration, "x")
+            ) {
+                Assert.assertEquals(expected.getPartitionCount(), actual.getPartitionCount());
+                TestUtils.assertEquals(expected.getCursor(), expected.getMetadata(), actual.getCursor(), actual.getMetadata());
+            }
+        });
+    }
+
     private long testAppendNulls(Rnd rnd, long ts) {
         final int blobLen = 64 * 1024;
         long blob = Unsafe.malloc(blobLen);
@@ -411,6 +411,38 @@ public class FastMapTest extends AbstractCairoTest {
         }
     }
 
+    @Test
+    public void testMerge() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final ArrayColumnTypes keyTypes = new ArrayColumnTypes().add(ColumnType.STRING).add(ColumnType.INT);
+            // small page size makes destination map resize while merging
+            try (
+                    FastMap mapA = new FastMap(64, keyTypes, new SingleColumnType(ColumnType.LONG), 16, 0.5f, Integer.MAX_VALUE);
+                    FastMap mapB = new FastMap(64, keyTypes, new SingleColumnType(ColumnType.LONG), 16, 0.5f, Integer.MAX_VALUE)
+            ) {
+                // keys 0..299 go to A, keys 200..499 go to B, overlap is 200..299
+                for (int i = 0; i < 300; i++) {
+                    putKey(mapA, i).putLong(0, i);
+                    putKey(mapB, i + 200).putLong(0, 1000);
+                }
+
+                mapA.merge(mapB, (destValue, srcValue) -> destValue.addLong(0, srcValue.getLong(0)));
+
+                Assert.assertEquals(500, mapA.size());
+                Assert.assertEquals(300, mapB.size());
+                for (int i = 0; i < 500; i++) {
+                    MapKey key = mapA.withKey();
+                    key.putStr("k" + i);
+                    key.putInt(i);
+                    MapValue value = key.findValue();
+                    Assert.assertNotNull(value);
+                    final long expected = i < 200 ? i : i < 300 ? i + 1000 : 1000;
+                    Assert.assertEquals(expected, value.getLong(0));
+                }
+            }
+        });
+    }
+
     @Test
     public void testNoValueColumns() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
@@ -1004,4 +1036,13 @@ public class FastMapTest extends AbstractCairoTest {
             }
         });
     }
-}
\ No newline at end of file
+
+    private static MapValue putKey(FastMap map, int i) {
+        MapKey key = map.withKey();
+        key.putStr("k" + i);
+        key.putInt(i);
+        MapValue value = key.createValue();
+        Assert.assertTrue(value.isNew());
+        return value;
+    }
+}
@@ -0,0 +1,310 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.std.Chars;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class WalWriterTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAddColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            try (TableWriter writer = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                appendRow(writer, "a", 1, 3_600_000_000L);
+                writer.addColumn("d", ColumnType.DOUBLE);
+                TableWriter.Row row = writer.newRow(0);
+                row.putSym(0, "b");
+                row.putLong(1, 2);
+                row.putDouble(3, 0.5);
+                row.append();
+                writer.commit();
+            }
+            apply();
+            assertSql("x", "sym\tv\tts\td\n" +
+                    "b\t2\t1970-01-01T00:00:00.000000Z\t0.5\n" +
+                    "a\t1\t1970-01-01T01:00:00.000000Z\tNaN\n");
+        });
+    }
+
+    @Test
+    public void testColumnTypeMismatch() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            executeInsert("insert into x values('a', 1, '1970-01-02T00:00:00.000000Z')");
+            // column is replaced by one of other type while WAL still has its values
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                writer.removeColumn("v");
+                writer.addColumn("v", ColumnType.STRING);
+            }
+
+            apply();
+            Assert.assertTrue(engine.getWalWriterPool().getSequencer("x").hasPendingTxns());
+            assertSql("select count() from x", "count\n0\n");
+        });
+    }
+
+    @Test
+    public void testCreateNotPartitioned() throws Exception {
+        assertMemoryLeak(() -> {
+            try {
+                compiler.compile("create table x (v long, ts timestamp) timestamp(ts) wal", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "WAL table must have designated timestamp and partition");
+            }
+        });
+    }
+
+    @Test
+    public void testCreateWalFailure() throws Exception {
+        final AtomicBoolean failWalDir = new AtomicBoolean(true);
+        final FilesFacade ff = new FilesFacadeImpl() {
+            @Override
+            public int mkdirs(LPSZ path, int mode) {
+                if (failWalDir.get() && Chars.contains(path, TableUtils.WAL_DIR_NAME)) {
+                    return -1;
+                }
+                return super.mkdirs(path, mode);
+            }
+        };
+        assertMemoryLeak(ff, () -> {
+            try {
+                createTable();
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "Could not create table");
+            }
+            // table without txn log is not left behind
+            try (Path path = new Path()) {
+                Assert.assertFalse(ff.exists(path.of(root).concat("x").$()));
+            }
+
+            failWalDir.set(false);
+            createTable();
+            Assert.assertTrue(engine.isWalTable("x"));
+        });
+    }
+
+    @Test
+    public void testInsert() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            Assert.assertTrue(engine.isWalTable("x"));
+            executeInsert("insert into x values('a', 1, '1970-01-02T00:00:00.000000Z')");
+            executeInsert("insert into x values('b', 2, '1970-01-01T00:00:00.000000Z')");
+            executeInsert("insert into x values('a', 3, '1970-01-01T12:00:00.000000Z')");
+            // rows are not visible until they are applied
+            assertSql("select count() from x", "count\n0\n");
+            apply();
+            assertSql("x", "sym\tv\tts\n" +
+                    "b\t2\t1970-01-01T00:00:00.000000Z\n" +
+                    "a\t3\t1970-01-01T12:00:00.000000Z\n" +
+                    "a\t1\t1970-01-02T00:00:00.000000Z\n");
+        });
+    }
+
+    @Test
+    public void testConcurrentWriters() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            try (
+                    TableWriter w1 = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x");
+                    TableWriter w2 = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")
+            ) {
+                for (int i = 0; i < 4; i++) {
+                    appendRow(w1, "w1", i, (2 * i + 1) * 3_600_000_000L);
+                    appendRow(w2, "w2", i, 2 * i * 3_600_000_000L);
+                }
+                w2.commit();
+                w1.commit();
+
+                // WAL writers do not hold table writer
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertEquals(0, writer.size());
+                }
+                apply();
+            }
+            assertSql("x", "sym\tv\tts\n" +
+                    "w2\t0\t1970-01-01T00:00:00.000000Z\n" +
+                    "w1\t0\t1970-01-01T01:00:00.000000Z\n" +
+                    "w2\t1\t1970-01-01T02:00:00.000000Z\n" +
+                    "w1\t1\t1970-01-01T03:00:00.000000Z\n" +
+                    "w2\t2\t1970-01-01T04:00:00.000000Z\n" +
+                    "w1\t2\t1970-01-01T05:00:00.000000Z\n" +
+                    "w2\t3\t1970-01-01T06:00:00.000000Z\n" +
+                    "w1\t3\t1970-01-01T07:00:00.000000Z\n");
+        });
+    }
+
+    @Test
+    public void testCrashBeforeSequencerUpdate() throws Exception {
+        final AtomicBoolean failAppliedTxn = new AtomicBoolean();
+        final FilesFacade ff = new FilesFacadeImpl() {
+            private long txnLogFd = -1;
+
+            @Override
+            public long openRW(LPSZ name) {
+                final long fd = super.openRW(name);
+                if (Chars.endsWith(name, TableSequencer.TXN_LOG_FILE_NAME)) {
+                    txnLogFd = fd;
+                }
+                return fd;
+            }
+
+            @Override
+            public long write(long fd, long address, long len, long offset) {
+                // applied txn is the second long of txn log header
+                if (fd == txnLogFd && offset == Long.BYTES && failAppliedTxn.get()) {
+                    return -1;
+                }
+                return super.write(fd, address, len, offset);
+            }
+        };
+        assertMemoryLeak(ff, () -> {
+            createTable();
+            executeInsert("insert into x values('a', 1, '1970-01-02T00:00:00.000000Z')");
+            executeInsert("insert into x values('b', 2, '1970-01-01T00:00:00.000000Z')");
+
+            // rows are committed to the table, sequencer still has them pending
+            failAppliedTxn.set(true);
+            apply();
+            Assert.assertTrue(engine.getWalWriterPool().getSequencer("x").hasPendingTxns());
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(2, writer.getSeqTxn());
+            }
+
+            failAppliedTxn.set(false);
+            executeInsert("insert into x values('c', 3, '1970-01-01T12:00:00.000000Z')");
+            apply();
+            assertSql("x", "sym\tv\tts\n" +
+                    "b\t2\t1970-01-01T00:00:00.000000Z\n" +
+                    "c\t3\t1970-01-01T12:00:00.000000Z\n" +
+                    "a\t1\t1970-01-02T00:00:00.000000Z\n");
+        });
+    }
+
+    @Test
+    public void testRemoveClosedWal() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            executeInsert("insert into x values('a', 1, '1970-01-02T00:00:00.000000Z')");
+            engine.releaseAllWriters();
+            try (Path path = new Path()) {
+                path.of(root).concat("x").concat(TableUtils.WAL_DIR_NAME).concat("0").$();
+                Assert.assertTrue(FilesFacadeImpl.INSTANCE.exists(path));
+                // job started after restart finds transactions of the table
+                apply();
+                Assert.assertFalse(FilesFacadeImpl.INSTANCE.exists(path));
+            }
+            assertSql("x", "sym\tv\tts\n" +
+                    "a\t1\t1970-01-02T00:00:00.000000Z\n");
+        });
+    }
+
+    @Test
+    public void testTxnLogTruncatedOnceApplied() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            try (Path path = new Path()) {
+                path.of(root).concat("x").concat(TableUtils.WAL_DIR_NAME).concat(TableSequencer.TXN_LOG_FILE_NAME).$();
+                for (int i = 0; i < 3; i++) {
+                    executeInsert("insert into x values('a', " + i + ", '1970-01-01T0" + i + ":00:00.000000Z')");
+                    executeInsert("insert into x values('b', " + i + ", '1970-01-01T0" + i + ":30:00.000000Z')");
+                    Assert.assertTrue(FilesFacadeImpl.INSTANCE.length(path) > 32);
+                    apply();
+                    // header only, transaction numbers carry on from the header
+                    Assert.assertEquals(32, FilesFacadeImpl.INSTANCE.length(path));
+                }
+            }
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(6, writer.getSeqTxn());
+            }
+            assertSql("select sym, count() from x", "sym\tcount\n" +
+                    "a\t3\n" +
+                    "b\t3\n");
+        });
+    }
+
+    @Test
+    public void testRollover() throws Exception {
+        configOverrideWalSegmentRolloverRowCount = 5;
+        assertMemoryLeak(() -> {
+            createTable();
+            try (TableWriter writer = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                for (int i = 0; i < 5; i++) {
+                    appendRow(writer, "a", i, i * 3_600_000_000L);
+                }
+                writer.commit();
+                apply();
+
+                for (int i = 5; i < 8; i++) {
+                    appendRow(writer, "b", i, i * 3_600_000_000L);
+                }
+                writer.commit();
+                // segment started over
+                Assert.assertEquals(3, writer.size());
+                apply();
+            }
+            assertSql("select sym, count() from x", "sym\tcount\n" +
+                    "a\t5\n" +
+                    "b\t3\n");
+        });
+    }
+
+    private static void appendRow(TableWriter writer, CharSequence sym, long v, long ts) {
+        TableWriter.Row row = writer.newRow(ts);
+        row.putSym(0, sym);
+        row.putLong(1, v);
+        row.append();
+    }
+
+    private static void apply() {
+        try (WalApplyJob job = new WalApplyJob(engine)) {
+            //noinspection StatementWithEmptyBody
+            while (job.run(0)) ;
+        }
+    }
+
+    private static void createTable() throws SqlException {
+        compiler.compile("create table x (sym symbol, v long, ts timestamp) timestamp(ts) partition by DAY wal", sqlExecutionContext);
+    }
+}
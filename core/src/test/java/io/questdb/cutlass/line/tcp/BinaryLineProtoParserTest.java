@@ -0,0 +1,257 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cutlass.line.tcp.NewLineProtoParser.ErrorCode;
+import io.questdb.cutlass.line.tcp.NewLineProtoParser.ParseResult;
+import io.questdb.cutlass.line.tcp.NewLineProtoParser.ProtoEntity;
+import io.questdb.std.Unsafe;
+import io.questdb.test.tools.TestUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class BinaryLineProtoParserTest {
+    private static final int BUF_SIZE = 1024;
+    private final BinaryLineProtoParser parser = new BinaryLineProtoParser(BUF_SIZE);
+    private long buf;
+    private long ptr;
+    private long recordStart;
+
+    @Before
+    public void setUp() {
+        buf = Unsafe.malloc(BUF_SIZE);
+        ptr = buf;
+    }
+
+    @After
+    public void tearDown() {
+        parser.close();
+        Unsafe.free(buf, BUF_SIZE);
+    }
+
+    @Test
+    public void testDictionary() {
+        startRecord("weather", 1465839830100400200L, 2);
+        putName("location");
+        putByte(NewLineProtoParser.ENTITY_TYPE_TAG);
+        putString("london");
+        putName("temp");
+        putByte(NewLineProtoParser.ENTITY_TYPE_FLOAT);
+        putDouble(82.5);
+        endRecord();
+
+        // names are referred to by id
+        startRecord(0, NewLineProtoParser.NULL_TIMESTAMP, 3);
+        putId(1);
+        putByte(NewLineProtoParser.ENTITY_TYPE_TAG);
+        putString("paris");
+        putId(2);
+        putByte(NewLineProtoParser.ENTITY_TYPE_FLOAT);
+        putDouble(-1.5);
+        putName("ok");
+        putByte(NewLineProtoParser.ENTITY_TYPE_BOOLEAN);
+        putByte((byte) 1);
+        endRecord();
+
+        parser.of(buf);
+        Assert.assertEquals(ParseResult.MEASUREMENT_COMPLETE, parser.parseMeasurement(ptr));
+        TestUtils.assertEquals("weather", parser.getMeasurementName());
+        Assert.assertEquals(1465839830100400200L, parser.getTimestamp());
+        Assert.assertEquals(2, parser.getnEntities());
+        assertEntity(parser.getEntity(0), "location", NewLineProtoParser.ENTITY_TYPE_TAG);
+        TestUtils.assertEquals("london", parser.getEntity(0).getValue());
+        assertEntity(parser.getEntity(1), "temp", NewLineProtoParser.ENTITY_TYPE_FLOAT);
+        Assert.assertEquals(82.5, parser.getEntity(1).getFloatValue(), 0);
+
+        parser.startNextMeasurement();
+        Assert.assertEquals(ParseResult.MEASUREMENT_COMPLETE, parser.parseMeasurement(ptr));
+        TestUtils.assertEquals("weather", parser.getMeasurementName());
+        Assert.assertFalse(parser.hasTimestamp());
+        Assert.assertEquals(3, parser.getnEntities());
+        assertEntity(parser.getEntity(0), "location", NewLineProtoParser.ENTITY_TYPE_TAG);
+        TestUtils.assertEquals("paris", parser.getEntity(0).getValue());
+        assertEntity(parser.getEntity(1), "temp", NewLineProtoParser.ENTITY_TYPE_FLOAT);
+        Assert.assertEquals(-1.5, parser.getEntity(1).getFloatValue(), 0);
+        assertEntity(parser.getEntity(2), "ok", NewLineProtoParser.ENTITY_TYPE_BOOLEAN);
+        Assert.assertTrue(parser.getEntity(2).getBooleanValue());
+        Assert.assertEquals(4, parser.getNameCount());
+
+        parser.startNextMeasurement();
+        Assert.assertEquals(ptr, parser.getBufferAddress());
+        Assert.assertEquals(ParseResult.BUFFER_UNDERFLOW, parser.parseMeasurement(ptr));
+    }
+
+    @Test
+    public void testFragmentation() {
+        startRecord("трамвай", 1000L, 2);
+        putName("номер");
+        putByte(NewLineProtoParser.ENTITY_TYPE_INTEGER);
+        putLong(Long.MAX_VALUE);
+        putName("s");
+        putByte(NewLineProtoParser.ENTITY_TYPE_STRING);
+        putString("");
+        endRecord();
+
+        for (long hi = buf; hi < ptr; hi++) {
+            parser.clearNames();
+            parser.of(buf);
+            Assert.assertEquals(ParseResult.BUFFER_UNDERFLOW, parser.parseMeasurement(hi));
+            Assert.assertEquals(0, parser.getNameCount());
+        }
+
+        parser.of(buf);
+        Assert.assertEquals(ParseResult.MEASUREMENT_COMPLETE, parser.parseMeasurement(ptr));
+        // measurement that could not be committed is not parsed again
+        Assert.assertEquals(ParseResult.MEASUREMENT_COMPLETE, parser.parseMeasurement(ptr));
+        Assert.assertEquals(3, parser.getNameCount());
+        Assert.assertEquals("трамвай", utf8(parser.getMeasurementName()));
+        assertEntity(parser.getEntity(0), "номер", NewLineProtoParser.ENTITY_TYPE_INTEGER);
+        Assert.assertEquals(Long.MAX_VALUE, parser.getEntity(0).getIntegerValue());
+        assertEntity(parser.getEntity(1), "s", NewLineProtoParser.ENTITY_TYPE_STRING);
+        Assert.assertEquals(0, parser.getEntity(1).getValue().length());
+    }
+
+    @Test
+    public void testInvalidType() {
+        startRecord("x", 0, 1);
+        putName("y");
+        putByte(NewLineProtoParser.ENTITY_TYPE_CACHED_TAG);
+        putLong(0);
+        endRecord();
+        assertError(ErrorCode.INVALID_FIELD_TYPE);
+    }
+
+    @Test
+    public void testRecordLengthMismatch() {
+        startRecord("x", 0, 1);
+        putName("y");
+        putByte(NewLineProtoParser.ENTITY_TYPE_INTEGER);
+        putLong(0);
+        putByte((byte) 0);
+        endRecord();
+        assertError(ErrorCode.INVALID_RECORD_LENGTH);
+    }
+
+    @Test
+    public void testUnknownName() {
+        startRecord("x", 0, 1);
+        putId(1);
+        putByte(NewLineProtoParser.ENTITY_TYPE_INTEGER);
+        putLong(0);
+        endRecord();
+        assertError(ErrorCode.INVALID_NAME);
+    }
+
+    private static void assertEntity(ProtoEntity entity, String name, byte type) {
+        Assert.assertEquals(name, utf8(entity.getName()));
+        Assert.assertEquals(type, entity.getType());
+    }
+
+    private static String utf8(CharSequence bytes) {
+        final byte[] b = new byte[bytes.length()];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte) bytes.charAt(i);
+        }
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private void assertError(ErrorCode errorCode) {
+        parser.of(buf);
+        Assert.assertEquals(ParseResult.ERROR, parser.parseMeasurement(ptr));
+        Assert.assertEquals(errorCode, parser.getErrorCode());
+        try {
+            parser.skipMeasurement(ptr);
+            Assert.fail();
+        } catch (CairoException e) {
+            TestUtils.assertContains(e.getFlyweightMessage(), errorCode.name());
+        }
+    }
+
+    private void endRecord() {
+        Unsafe.getUnsafe().putInt(recordStart, (int) (ptr - recordStart - Integer.BYTES));
+    }
+
+    private void putByte(byte b) {
+        Unsafe.getUnsafe().putByte(ptr++, b);
+    }
+
+    private void putBytes(byte[] bytes) {
+        for (byte b : bytes) {
+            putByte(b);
+        }
+    }
+
+    private void putDouble(double value) {
+        Unsafe.getUnsafe().putDouble(ptr, value);
+        ptr += Double.BYTES;
+    }
+
+    private void putId(int id) {
+        Unsafe.getUnsafe().putInt(ptr, id);
+        ptr += Integer.BYTES;
+    }
+
+    private void putLong(long value) {
+        Unsafe.getUnsafe().putLong(ptr, value);
+        ptr += Long.BYTES;
+    }
+
+    private void putName(String name) {
+        final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        putId(-bytes.length);
+        putBytes(bytes);
+    }
+
+    private void putString(String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putId(bytes.length);
+        putBytes(bytes);
+    }
+
+    private void startRecord(int nameId, long timestamp, int entityCount) {
+        recordStart = ptr;
+        ptr += Integer.BYTES;
+        putId(nameId);
+        putTimestampAndCount(timestamp, entityCount);
+    }
+
+    private void startRecord(String name, long timestamp, int entityCount) {
+        recordStart = ptr;
+        ptr += Integer.BYTES;
+        putName(name);
+        putTimestampAndCount(timestamp, entityCount);
+    }
+
+    private void putTimestampAndCount(long timestamp, int entityCount) {
+        putLong(timestamp);
+        Unsafe.getUnsafe().putShort(ptr, (short) entityCount);
+        ptr += Short.BYTES;
+    }
+}
@@ -42,6 +42,7 @@ import io.questdb.cairo.TableModel;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.TableReaderRecordCursor;
 import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.wal.WalApplyJob;
 import io.questdb.cutlass.line.tcp.LineTcpMeasurementScheduler.NetworkIOJob;
 import io.questdb.cutlass.line.tcp.LineTcpMeasurementScheduler.TableUpdateDetails;
 import io.questdb.griffin.SqlCompiler;
@@ -955,6 +956,39 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testMultipleMeasurementsInterleavedTables() throws Exception {
+        runInContext(() -> {
+            // rows are batched per table, every switch of table starts new batch
+            recvBuffer = "weather temperature=82,pressure=100i 1465839830100400200\n" +
+                    "weather temperature=83,pressure=100i 1465839830100500200\n" +
+                    "wind speed=4i 1465839830100400200\n" +
+                    "weather temperature=81,pressure=102i 1465839830101400200\n" +
+                    "wind speed=5i 1465839830100500200\n" +
+                    "wind speed=6i 1465839830100600200\n" +
+                    "wind speed=7.5 1465839830100700200\n" +
+                    "weather temperature=85,pressure=103i 1465839830102300200\n" +
+                    "weather temperature=89,pressure=101i 1465839830102400200\n";
+            handleContextIO();
+            Assert.assertFalse(disconnected);
+            waitForIOCompletion();
+            closeContext();
+            String expected = "temperature\tpressure\ttimestamp\n" +
+                    "82.0\t100\t2016-06-13T17:43:50.100400Z\n" +
+                    "83.0\t100\t2016-06-13T17:43:50.100500Z\n" +
+                    "81.0\t102\t2016-06-13T17:43:50.101400Z\n" +
+                    "85.0\t103\t2016-06-13T17:43:50.102300Z\n" +
+                    "89.0\t101\t2016-06-13T17:43:50.102400Z\n";
+            assertTable(expected, "weather");
+            // float value cannot be written to long column, other rows of its batch are kept
+            expected = "speed\ttimestamp\n" +
+                    "4\t2016-06-13T17:43:50.100400Z\n" +
+                    "5\t2016-06-13T17:43:50.100500Z\n" +
+                    "6\t2016-06-13T17:43:50.100600Z\n";
+            assertTable(expected, "wind");
+        });
+    }
+
     @Test
     public void testOverflow() throws Exception {
         runInContext(() -> {
@@ -1125,6 +1159,40 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testWalTable() throws Exception {
+        runInContext(() -> {
+            try (
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    SqlExecutionContext sqlExecutionContext = new SqlExecutionContextImpl(engine, 1)) {
+                compiler.compile(
+                        "create table weather (location SYMBOL, temperature DOUBLE, timestamp TIMESTAMP) timestamp(timestamp) partition by DAY WAL",
+                        sqlExecutionContext);
+            } catch (SqlException ex) {
+                throw new RuntimeException(ex);
+            }
+            recvBuffer = "weather,location=us-midwest temperature=82 1465839830100400200\n" +
+                    "weather,location=us-eastcoast temperature=81,humidity=23 1465839830101400200\n" +
+                    "weather,location=us-midwest temperature=85 1465839830100300200\n" +
+                    "weather,location=us-westcost temperature=82 1465839830102500200\n";
+            do {
+                handleContextIO();
+                Assert.assertFalse(disconnected);
+            } while (recvBuffer.length() > 0);
+            waitForIOCompletion();
+            closeContext();
+            try (WalApplyJob job = new WalApplyJob(engine)) {
+                Assert.assertTrue(job.run(0));
+            }
+            String expected = "location\ttemperature\ttimestamp\thumidity\n" +
+                    "us-midwest\t85.0\t2016-06-13T17:43:50.100300Z\tNaN\n" +
+                    "us-midwest\t82.0\t2016-06-13T17:43:50.100400Z\tNaN\n" +
+                    "us-eastcoast\t81.0\t2016-06-13T17:43:50.101400Z\t23.0\n" +
+                    "us-westcost\t82.0\t2016-06-13T17:43:50.102500Z\tNaN\n";
+            assertTable(expected, "weather");
+        });
+    }
+
     private void addTable() {
         try (
                 @SuppressWarnings("resource")
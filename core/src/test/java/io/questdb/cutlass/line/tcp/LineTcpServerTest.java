@@ -151,6 +151,11 @@ public class LineTcpServerTest extends AbstractCairoTest {
 
     private Path path;
 
+    @Test
+    public void testBinary() throws Exception {
+        test(null, null, 200, 1_000, true);
+    }
+
     @Test
     public void testGoodAuthenticated() throws Exception {
         test(AUTH_KEY_ID1, AUTH_PRIVATE_KEY1, 768, 1_000);
@@ -368,6 +373,16 @@ public class LineTcpServerTest extends AbstractCairoTest {
             PrivateKey authPrivateKey,
             int msgBufferSize,
             final int nRows
+    ) throws Exception {
+        test(authKeyId, authPrivateKey, msgBufferSize, nRows, false);
+    }
+
+    private void test(
+            String authKeyId,
+            PrivateKey authPrivateKey,
+            int msgBufferSize,
+            final int nRows,
+            boolean binary
     ) throws Exception {
         this.authKeyId = authKeyId;
         this.msgBufferSize = msgBufferSize;
@@ -412,6 +427,8 @@ public class LineTcpServerTest extends AbstractCairoTest {
                             );
                             sender.authenticate();
                             senders[n] = sender;
+                        } else if (binary) {
+                            senders[n] = new LineTCPBinaryProtoSender(Net.parseIPv4("127.0.0.1"), bindPort, 4096);
                         } else {
                             senders[n] = new LineTCPProtoSender(Net.parseIPv4("127.0.0.1"), bindPort, 4096);
                         }
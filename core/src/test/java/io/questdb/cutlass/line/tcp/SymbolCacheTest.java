@@ -5,6 +5,8 @@ import io.questdb.cairo.vm.SinglePageMappedReadOnlyPageMemory;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+
 import io.questdb.cairo.AbstractCairoTest;
 import io.questdb.cairo.CairoTestUtils;
 import io.questdb.cairo.ColumnType;
@@ -13,6 +15,8 @@ import io.questdb.cairo.TableModel;
 import io.questdb.cairo.TableUtils;
 import io.questdb.cairo.TableWriter;
 import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.DirectByteCharSequence;
 import io.questdb.std.str.Path;
 import io.questdb.test.tools.TestUtils;
 
@@ -25,7 +29,7 @@ public class SymbolCacheTest extends AbstractCairoTest {
                     TableModel model = new TableModel(configuration, tableName, PartitionBy.DAY)
                             .col("symCol1", ColumnType.SYMBOL)
                             .col("symCol2", ColumnType.SYMBOL);
-                    SymbolCache cache = new SymbolCache()
+                    SymbolCache cache = new SymbolCache(1024)
             ) {
                 CairoTestUtils.create(model);
                 try (
@@ -48,10 +52,10 @@ public class SymbolCacheTest extends AbstractCairoTest {
                     writer.commit();
                     Assert.assertEquals(1, txMem.getInt(symCountOffset));
                     Assert.assertEquals(1, txMem.getInt(transientSymCountOffset));
-                    int rc = cache.getSymIndex("missing");
+                    int rc = getSymIndex(cache, "missing");
                     Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, rc);
                     Assert.assertEquals(0, cache.getNCached());
-                    rc = cache.getSymIndex("sym21");
+                    rc = getSymIndex(cache, "sym21");
                     Assert.assertEquals(0, rc);
                     Assert.assertEquals(1, cache.getNCached());
 
@@ -62,10 +66,10 @@ public class SymbolCacheTest extends AbstractCairoTest {
                     writer.commit();
                     Assert.assertEquals(1, txMem.getInt(symCountOffset));
                     Assert.assertEquals(1, txMem.getInt(transientSymCountOffset));
-                    rc = cache.getSymIndex("missing");
+                    rc = getSymIndex(cache, "missing");
                     Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, rc);
                     Assert.assertEquals(1, cache.getNCached());
-                    rc = cache.getSymIndex("sym21");
+                    rc = getSymIndex(cache, "sym21");
                     Assert.assertEquals(0, rc);
                     Assert.assertEquals(1, cache.getNCached());
 
@@ -78,10 +82,10 @@ public class SymbolCacheTest extends AbstractCairoTest {
                     writer.commit();
                     Assert.assertEquals(2, txMem.getInt(symCountOffset));
                     Assert.assertEquals(2, txMem.getInt(transientSymCountOffset));
-                    rc = cache.getSymIndex("sym21");
+                    rc = getSymIndex(cache, "sym21");
                     Assert.assertEquals(0, rc);
                     Assert.assertEquals(1, cache.getNCached());
-                    rc = cache.getSymIndex("sym22");
+                    rc = getSymIndex(cache, "sym22");
                     Assert.assertEquals(1, rc);
                     Assert.assertEquals(2, cache.getNCached());
 
@@ -98,10 +102,10 @@ public class SymbolCacheTest extends AbstractCairoTest {
                     r.append();
                     Assert.assertEquals(2, txMem.getInt(symCountOffset));
                     Assert.assertEquals(5, txMem.getInt(transientSymCountOffset));
-                    rc = cache.getSymIndex("sym22");
+                    rc = getSymIndex(cache, "sym22");
                     Assert.assertEquals(1, rc);
                     Assert.assertEquals(2, cache.getNCached());
-                    rc = cache.getSymIndex("sym24");
+                    rc = getSymIndex(cache, "sym24");
                     Assert.assertEquals(3, rc);
                     Assert.assertEquals(3, cache.getNCached());
                     writer.commit();
@@ -122,7 +126,7 @@ public class SymbolCacheTest extends AbstractCairoTest {
 
                     Assert.assertEquals(5, txMem.getInt(symCountOffset));
                     Assert.assertEquals(5, txMem.getInt(transientSymCountOffset));
-                    rc = cache.getSymIndex("sym24");
+                    rc = getSymIndex(cache, "sym24");
                     Assert.assertEquals(3, rc);
                     Assert.assertEquals(1, cache.getNCached());
 
@@ -131,17 +135,152 @@ public class SymbolCacheTest extends AbstractCairoTest {
                     r.append();
                     Assert.assertEquals(5, txMem.getInt(symCountOffset));
                     Assert.assertEquals(6, txMem.getInt(transientSymCountOffset));
-                    rc = cache.getSymIndex("sym26");
+                    rc = getSymIndex(cache, "sym26");
                     Assert.assertEquals(5, rc);
                     Assert.assertEquals(2, cache.getNCached());
                     writer.commit();
                     Assert.assertEquals(6, txMem.getInt(symCountOffset));
                     Assert.assertEquals(6, txMem.getInt(transientSymCountOffset));
-                    rc = cache.getSymIndex("sym26");
+                    rc = getSymIndex(cache, "sym26");
                     Assert.assertEquals(5, rc);
                     Assert.assertEquals(2, cache.getNCached());
                 }
             }
         });
     }
+
+    @Test
+    public void testEviction() throws Exception {
+        String tableName = "tb2";
+        TestUtils.assertMemoryLeak(() -> {
+            try (Path path = new Path();
+                    TableModel model = new TableModel(configuration, tableName, PartitionBy.NONE)
+                            .col("symCol", ColumnType.SYMBOL);
+                    SymbolCache cache = new SymbolCache(8)
+            ) {
+                CairoTestUtils.create(model);
+                try (TableWriter writer = new TableWriter(configuration, tableName)) {
+                    for (int i = 0; i < 20; i++) {
+                        TableWriter.Row r = writer.newRow();
+                        r.putSym(0, "sym" + i);
+                        r.append();
+                    }
+                    writer.commit();
+                    cache.of(configuration, path.of(configuration.getRoot()).concat(tableName), "symCol", 0);
+
+                    Assert.assertEquals(0, getSymIndex(cache, "sym0"));
+                    Assert.assertEquals(0, getSymIndex(cache, "sym0"));
+                    for (int i = 1; i < 8; i++) {
+                        Assert.assertEquals(i, getSymIndex(cache, "sym" + i));
+                    }
+                    Assert.assertEquals(8, cache.getNCached());
+                    Assert.assertEquals(0, cache.getEvictionCount());
+
+                    // key that has been hit survives eviction
+                    Assert.assertEquals(8, getSymIndex(cache, "sym8"));
+                    Assert.assertEquals(1, cache.getEvictionCount());
+                    Assert.assertEquals(0, getSymIndex(cache, "sym0"));
+                    Assert.assertEquals(2, cache.getHitCount());
+                    Assert.assertEquals(1, getSymIndex(cache, "sym1"));
+                    Assert.assertEquals(2, cache.getHitCount());
+
+                    for (int i = 9; i < 20; i++) {
+                        Assert.assertEquals(i, getSymIndex(cache, "sym" + i));
+                    }
+                    Assert.assertEquals(8, cache.getNCached());
+                    Assert.assertEquals(2, cache.getHitCount());
+                    Assert.assertEquals(21, cache.getMissCount());
+                    Assert.assertEquals(13, cache.getEvictionCount());
+
+                    Assert.assertEquals(19, getSymIndex(cache, "sym19"));
+                    Assert.assertEquals(3, cache.getHitCount());
+                    Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, getSymIndex(cache, "sym20"));
+                    Assert.assertEquals(22, cache.getMissCount());
+                    Assert.assertEquals(13, cache.getEvictionCount());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testGrow() throws Exception {
+        String tableName = "tb4";
+        TestUtils.assertMemoryLeak(() -> {
+            try (Path path = new Path();
+                    TableModel model = new TableModel(configuration, tableName, PartitionBy.NONE)
+                            .col("symCol", ColumnType.SYMBOL);
+                    SymbolCache cache = new SymbolCache(1024)
+            ) {
+                CairoTestUtils.create(model);
+                try (TableWriter writer = new TableWriter(configuration, tableName)) {
+                    final int n = 300;
+                    for (int i = 0; i < n; i++) {
+                        TableWriter.Row r = writer.newRow();
+                        r.putSym(0, "device" + i);
+                        r.append();
+                    }
+                    writer.commit();
+                    cache.of(configuration, path.of(configuration.getRoot()).concat(tableName), "symCol", 0);
+
+                    for (int k = 0; k < 2; k++) {
+                        for (int i = 0; i < n; i++) {
+                            Assert.assertEquals(i, getSymIndex(cache, "device" + i));
+                        }
+                    }
+                    Assert.assertEquals(n, cache.getNCached());
+                    Assert.assertEquals(n, cache.getHitCount());
+                    Assert.assertEquals(n, cache.getMissCount());
+                    Assert.assertEquals(0, cache.getEvictionCount());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testNonAsciiSymbols() throws Exception {
+        String tableName = "tb3";
+        TestUtils.assertMemoryLeak(() -> {
+            try (Path path = new Path();
+                    TableModel model = new TableModel(configuration, tableName, PartitionBy.NONE)
+                            .col("symCol", ColumnType.SYMBOL);
+                    SymbolCache cache = new SymbolCache(1024)
+            ) {
+                CairoTestUtils.create(model);
+                try (TableWriter writer = new TableWriter(configuration, tableName)) {
+                    final String[] symbols = {"Köln", "München", "Zürich", "Москва", "a"};
+                    for (String symbol : symbols) {
+                        TableWriter.Row r = writer.newRow();
+                        r.putSym(0, symbol);
+                        r.append();
+                    }
+                    writer.commit();
+                    cache.of(configuration, path.of(configuration.getRoot()).concat(tableName), "symCol", 0);
+
+                    for (int n = 0; n < 2; n++) {
+                        for (int i = 0; i < symbols.length; i++) {
+                            Assert.assertEquals(i, getSymIndex(cache, symbols[i]));
+                        }
+                    }
+                    Assert.assertEquals(5, cache.getNCached());
+                    Assert.assertEquals(5, cache.getHitCount());
+                    Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, getSymIndex(cache, "Koln"));
+                    Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, getSymIndex(cache, "Zürichsee"));
+                    Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, getSymIndex(cache, "Моск"));
+                }
+            }
+        });
+    }
+
+    private static int getSymIndex(SymbolCache cache, String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        final long mem = Unsafe.malloc(bytes.length);
+        try {
+            for (int i = 0; i < bytes.length; i++) {
+                Unsafe.getUnsafe().putByte(mem + i, bytes[i]);
+            }
+            return cache.getSymIndex(new DirectByteCharSequence().of(mem, mem + bytes.length));
+        } finally {
+            Unsafe.free(mem, bytes.length);
+        }
+    }
 }
@@ -202,7 +202,7 @@ public class AlterTableAlterSymbolColumnCacheFlagTest extends AbstractGriffinTes
 
     @Test
     public void testBadSyntax() throws Exception {
-        assertFailure("alter table x alter column z", 28, "'add index' or 'cache' or 'nocache' expected");
+        assertFailure("alter table x alter column z", 28, "'add index', 'add bloom filter', 'cache' or 'nocache' expected");
     }
 
     @Test
@@ -372,6 +372,74 @@ public class AlterTableDropPartitionTest extends AbstractGriffinTest {
         );
     }
 
+    @Test
+    public void testDropMalformedPartitionByWeek() throws Exception {
+        assertMemoryLeak(() -> {
+                    createX("WEEK", 3 * 3600000000L);
+
+                    try {
+                        // 2018 has 52 ISO weeks
+                        compiler.compile("alter table x drop partition list '2018-W53'", sqlExecutionContext);
+                        Assert.fail();
+                    } catch (SqlException e) {
+                        Assert.assertEquals(34, e.getPosition());
+                        TestUtils.assertContains(e.getFlyweightMessage(), "'YYYY-Www' expected");
+                    }
+                }
+        );
+    }
+
+    @Test
+    public void testDropTwoPartitionsByHour() throws Exception {
+        assertMemoryLeak(() -> {
+                    createX("HOUR", 60000000L);
+
+                    assertPartitionResult("count\n" +
+                                    "60\n",
+                            "2018-01-01T01");
+
+                    assertPartitionResult("count\n" +
+                            "60\n", "2018-01-01T03");
+
+                    Assert.assertEquals(ALTER, compiler.compile("alter table x drop partition list '2018-01-01T01', '2018-01-01T03'", sqlExecutionContext).getType());
+
+                    String expectedAfterDrop = "count\n" +
+                            "0\n";
+
+                    assertPartitionResult(expectedAfterDrop, "2018-01-01T01");
+                    assertPartitionResult(expectedAfterDrop, "2018-01-01T03");
+                    assertSql("select count() from x", "count\n" +
+                            "880\n");
+                }
+        );
+    }
+
+    @Test
+    public void testDropTwoPartitionsByWeek() throws Exception {
+        assertMemoryLeak(() -> {
+                    createX("WEEK", 3 * 3600000000L);
+
+                    // 2018-01-01 is Monday, the first day of week 2018-W01
+                    final String countW02 = "select count() from x where timestamp >= '2018-01-08' and timestamp < '2018-01-15'";
+                    final String countW04 = "select count() from x where timestamp >= '2018-01-22' and timestamp < '2018-01-29'";
+                    assertSql(countW02, "count\n" +
+                            "56\n");
+                    assertSql(countW04, "count\n" +
+                            "56\n");
+
+                    Assert.assertEquals(ALTER, compiler.compile("alter table x drop partition list '2018-W02', '2018-W04'", sqlExecutionContext).getType());
+
+                    String expectedAfterDrop = "count\n" +
+                            "0\n";
+
+                    assertSql(countW02, expectedAfterDrop);
+                    assertSql(countW04, expectedAfterDrop);
+                    assertSql("select count() from x", "count\n" +
+                            "888\n");
+                }
+        );
+    }
+
     @Test
     public void testDropTwoPartitionsByMonth() throws Exception {
         assertMemoryLeak(() -> {
@@ -24,11 +24,24 @@
 
 package io.questdb.griffin;
 
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cutlass.text.TextImportJob;
+import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.Rnd;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class CopyTest extends AbstractGriffinTest {
     @BeforeClass
@@ -67,6 +80,69 @@ public class CopyTest extends AbstractGriffinTest {
         ));
     }
 
+    @Test
+    public void testParallelCopy() throws Exception {
+        final String root = temp.newFolder("parallelCopy").getAbsolutePath();
+        try (Writer w = new FileWriter(new File(root, "parallel.csv"))) {
+            w.write("sym,val,ts\n");
+            final Rnd rnd = new Rnd();
+            final StringSink ts = new StringSink();
+            for (int i = 0; i < 3000; i++) {
+                ts.clear();
+                // distinct timestamps in random order across ten days
+                TimestampFormatUtils.appendDateTime(ts, (i * 7919L % 3000) * 288_000_000L);
+                w.write("s" + rnd.nextInt(10) + "," + i + "," + ts + (i % 2 == 0 ? "\n" : "\r\n"));
+                // past the lines used for structure analysis
+                if (i > 1500 && i % 500 == 0) {
+                    w.write("\n");
+                    w.write("bad,-1,not a timestamp\n");
+                }
+            }
+            w.write("last,-2,2021-01-01T00:00:00.000Z");
+        }
+        assertParallelCopy(root, "create table %s (sym symbol, val long, ts timestamp) timestamp(ts) partition by DAY");
+        assertSql("select count() from x", "count\n3001\n");
+    }
+
+    @Test
+    public void testParallelCopyQuotedLineBreak() throws Exception {
+        final String root = temp.newFolder("parallelCopyQuotedLineBreak").getAbsolutePath();
+        try (Writer w = new FileWriter(new File(root, "parallel.csv"))) {
+            w.write("sym,val,ts\n");
+            final StringSink ts = new StringSink();
+            for (int i = 0; i < 3000; i++) {
+                ts.clear();
+                TimestampFormatUtils.appendDateTime(ts, (i * 7919L % 3000) * 288_000_000L);
+                // line break well inside the first chunk
+                w.write("s" + i % 10 + "," + (i == 3 ? "\"first\nsecond, \"\"quoted\"\"\"" : "\"v" + i + "\"") + "," + ts + "\n");
+            }
+        }
+        assertParallelCopy(root, "create table %s (sym symbol, val string, ts timestamp) timestamp(ts) partition by DAY");
+        assertSql("select count() from x", "count\n3000\n");
+    }
+
+    @Test
+    public void testParallelCopyQuotedLineBreakAtChunkBoundary() throws Exception {
+        final String root = temp.newFolder("parallelCopyQuotedLineBreakAtChunkBoundary").getAbsolutePath();
+        try (Writer w = new FileWriter(new File(root, "parallel.csv"))) {
+            w.write("sym,val,ts\n");
+            final StringSink ts = new StringSink();
+            for (int i = 0; i < 3000; i++) {
+                ts.clear();
+                TimestampFormatUtils.appendDateTime(ts, (i * 7919L % 3000) * 288_000_000L);
+                // some chunk ends at line break inside quoted value, text is loaded serially
+                w.write("s" + i % 10 + ",\"v" + i + "\n" + i + "\"," + ts + "\n");
+            }
+        }
+        assertParallelCopy(root, "create table %s (sym symbol, val string, ts timestamp) timestamp(ts) partition by DAY");
+        assertSql("select count() from x", "count\n3000\n");
+    }
+
+    @Test
+    public void testParallelCopyNoTimestamp() throws Exception {
+        assertParallelCopy(new File(inputRoot, "src/test/resources/csv").getAbsolutePath(), null, "test-import.csv");
+    }
+
     @Test
     public void testSimpleCopy() throws Exception {
         assertMemoryLeak(() -> {
@@ -254,6 +330,76 @@ public class CopyTest extends AbstractGriffinTest {
         });
     }
 
+    private static SqlExecutionContext newParallelContext() {
+        return new SqlExecutionContextImpl(engine, 4, engine.getMessageBus())
+                .with(
+                        AllowAllCairoSecurityContext.INSTANCE,
+                        new BindVariableServiceImpl(configuration),
+                        null,
+                        -1,
+                        null
+                );
+    }
+
+    private void assertParallelCopy(String root, String ddl) throws Exception {
+        assertParallelCopy(root, ddl, "parallel.csv");
+    }
+
+    private void assertParallelCopy(String root, String ddl, String fileName) throws Exception {
+        final String rootBackup = inputRoot;
+        inputRoot = root;
+        try {
+            assertMemoryLeak(() -> {
+                if (ddl != null) {
+                    compiler.compile(String.format(ddl, "x"), sqlExecutionContext);
+                    compiler.compile(String.format(ddl, "y"), sqlExecutionContext);
+                }
+                compiler.compile("copy y from '" + fileName + "'", sqlExecutionContext);
+
+                // drain the queue from other tests
+                final Sequence subSeq = engine.getMessageBus().getTextImportSubSeq();
+                while (true) {
+                    long cursor = subSeq.next();
+                    if (cursor == -1) {
+                        break;
+                    } else if (cursor > -1) {
+                        subSeq.done(cursor);
+                    }
+                }
+
+                final int workerCount = 2;
+                final AtomicBoolean running = new AtomicBoolean(true);
+                final SOCountDownLatch haltLatch = new SOCountDownLatch(workerCount);
+                final TextImportJob job = new TextImportJob(engine.getMessageBus());
+                for (int i = 0; i < workerCount; i++) {
+                    final int workerId = i;
+                    new Thread(() -> {
+                        while (running.get()) {
+                            job.run(workerId);
+                        }
+                        haltLatch.countDown();
+                    }).start();
+                }
+
+                try {
+                    configOverrideParallelImportEnabled = true;
+                    configOverrideParallelImportChunkSize = 1024;
+                    compiler.compile("copy x from '" + fileName + "'", newParallelContext());
+                } finally {
+                    running.set(false);
+                    haltLatch.await();
+                }
+
+                final StringSink expected = new StringSink();
+                TestUtils.printSql(compiler, sqlExecutionContext, "y", expected);
+                TestUtils.printSql(compiler, sqlExecutionContext, "x", sink);
+                TestUtils.assertEquals(expected, sink);
+            });
+        } finally {
+            inputRoot = rootBackup;
+        }
+    }
+
     protected void assertQuery(String expected, String query, String expectedTimestamp, boolean supportsRandomAccess) throws SqlException {
         try (final RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
             assertFactoryCursor(expected, expectedTimestamp, factory, supportsRandomAccess, sqlExecutionContext, true, true);
@@ -27,8 +27,10 @@ package io.questdb.griffin;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.griffin.engine.groupby.vect.GroupByRecordCursorFactory;
 import io.questdb.std.Os;
 import io.questdb.std.Rnd;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -38,6 +40,32 @@ public class KeyedAggregationTest extends AbstractGriffinTest {
         SharedRandom.RANDOM.set(new Rnd());
     }
 
+    @Test
+    public void testByteKey() throws Exception {
+        assertQuery(
+                "k\tsum\tmin\tmax\n" +
+                        "-100\t100100000\t200\t200000\n" +
+                        "-99\t99901000\t1\t199801\n" +
+                        "-98\t99902000\t2\t199802\n",
+                "select k, sum(v), min(v), max(v) from tab order by k limit 3",
+                "create table tab as (select cast(x % 200 - 100 as byte) k, x v from long_sequence(200000))",
+                null, true, true, true
+        );
+    }
+
+    @Test
+    public void testCharKey() throws Exception {
+        assertQuery(
+                "k\tsum\tavg\n" +
+                        "A\t6666633333\t100000.5\n" +
+                        "B\t6666700000\t100000.0\n" +
+                        "C\t6666766667\t100001.0\n",
+                "select k, sum(v), avg(v) from tab order by k",
+                "create table tab as (select cast(x % 3 + 65 as char) k, x v from long_sequence(200000))",
+                null, true, true, true
+        );
+    }
+
     @Test
     public void testHourDouble() throws Exception {
         assertQuery(
@@ -855,6 +883,37 @@ public class KeyedAggregationTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testLongKey() throws Exception {
+        // keys differ in high 32 bits only, narrowing them to int would merge all groups
+        assertQuery(
+                "k\tsum\tmin\tmax\n" +
+                        "0\t6666633333\t3\t199998\n" +
+                        "4294967296\t6666700000\t1\t199999\n" +
+                        "8589934592\t6666766667\t2\t200000\n",
+                "select k, sum(v), min(v), max(v) from tab order by k",
+                "create table tab as (select (x % 3) * 4294967296 k, x v from long_sequence(200000))",
+                null, true, true, true
+        );
+        // Rosti functions are keyed by int, LONG keys stay on FastMap aggregation
+        try (RecordCursorFactory factory = compiler.compile("select k, sum(v) from tab", sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertFalse(factory instanceof GroupByRecordCursorFactory);
+        }
+    }
+
+    @Test
+    public void testShortKey() throws Exception {
+        assertQuery(
+                "k\tsum\tmin\tmax\n" +
+                        "0\t6666633333\t3\t199998\n" +
+                        "1\t6666700000\t1\t199999\n" +
+                        "2\t6666766667\t2\t200000\n",
+                "select k, sum(v), min(v), max(v) from tab order by k",
+                "create table tab as (select cast(x % 3 as short) k, x v from long_sequence(200000))",
+                null, true, true, true
+        );
+    }
+
     @Test
     public void testSumInTimestampRange() throws Exception {
         long step = 1000000L;
@@ -26,6 +26,7 @@ package io.questdb.griffin;
 
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
 import io.questdb.std.Rnd;
+import io.questdb.std.str.StringSink;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Before;
 import org.junit.Test;
@@ -215,6 +216,32 @@ public class LimitTest extends AbstractGriffinTest {
         testLimit(expected, expected2, query);
     }
 
+    @Test
+    public void testOrderByTopN() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table z as (" +
+                            "select" +
+                            " rnd_int(0, 50, 0) a," +
+                            " rnd_symbol('msft','ibm', 'googl', null) s," +
+                            " rnd_double(0) d," +
+                            " rnd_str(1, 3, 2) c," +
+                            " timestamp_sequence(0, 1000000) ts" +
+                            " from long_sequence(10000)" +
+                            ") timestamp(ts)"
+                    , sqlExecutionContext
+            );
+
+            // bind variable limit is not constant, these queries sort all rows
+            assertOrderByTopN("select * from z order by a desc", " limit 10", 0, 10);
+            assertOrderByTopN("select * from z order by s, d desc", " limit 5, 25", 5, 25);
+            assertOrderByTopN("select a, c, ts from z order by c, a", " limit 100", 0, 100);
+            assertOrderByTopN("select * from z order by a", " limit 0", 0, 0);
+            assertOrderByTopN("select * from z order by s desc, ts desc", " limit 20000", 0, 20000);
+            assertOrderByTopN("select * from z where a > 10 order by a, s", " limit 30, 10", 30, 10);
+        });
+    }
+
     @Test
     public void testRangeVariable() throws Exception {
         String query = "select * from y limit :lo,:hi";
@@ -540,6 +567,16 @@ public class LimitTest extends AbstractGriffinTest {
                 "1970-01-01T00:00:00.000004Z\tabc\n", "select * from t1 where id = 'abc' limit -1", null, true, true);
     }
 
+    private void assertOrderByTopN(String query, String limit, long lo, long hi) throws SqlException {
+        bindVariableService.clear();
+        bindVariableService.setLong("lo", lo);
+        bindVariableService.setLong("hi", hi);
+        final StringSink expected = new StringSink();
+        TestUtils.printSql(compiler, sqlExecutionContext, query + " limit :lo, :hi", expected);
+        TestUtils.printSql(compiler, sqlExecutionContext, query + limit, sink);
+        TestUtils.assertEquals(expected, sink);
+    }
+
     private void testLimit(String expected1, String expected2, String query) throws Exception {
         assertMemoryLeak(() -> {
             compiler.compile(
@@ -28,6 +28,7 @@ import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.CairoException;
 import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.TableWriter;
 import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
 import io.questdb.std.FilesFacade;
@@ -44,6 +45,7 @@ import org.junit.*;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 
 public class TableBackupTest {
     private static final StringSink sink1 = new StringSink();
@@ -367,6 +369,174 @@ public class TableBackupTest {
         });
     }
 
+    @Test
+    public void testSnapshotBusyWriter() throws Exception {
+        assertMemoryLeak(() -> {
+            String tableName = "testTable1";
+            mainCompiler.compile("create table " + tableName + " as (select x l from long_sequence(10))", mainSqlExecutionContext);
+            try (TableWriter ignored = mainEngine.getWriter(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+                mainCompiler.compile("backup table " + tableName + " snapshot", mainSqlExecutionContext);
+                Assert.fail();
+            } catch (CairoException ex) {
+                TestUtils.assertContains(ex.getFlyweightMessage(), "table busy");
+            }
+        });
+    }
+
+    @Test
+    public void testSnapshotDatabase() throws Exception {
+        assertMemoryLeak(() -> {
+            // @formatter:off
+            mainCompiler.compile("create table tb1 as (select" +
+                    " rnd_symbol(4,4,4,2) sym," +
+                    " rnd_double(2) d," +
+                    " timestamp_sequence(0, 1000000000) ts" +
+                    " from long_sequence(10000)) timestamp(ts)", mainSqlExecutionContext);
+            mainCompiler.compile("create table tb2 as (select" +
+                    " rnd_long256() ll," +
+                    " rnd_str(3,3,2) s," +
+                    " timestamp_sequence(0, 1000000000) ts" +
+                    " from long_sequence(1000)) timestamp(ts) partition by DAY", mainSqlExecutionContext);
+            // @formatter:on
+
+            mainCompiler.compile("backup database snapshot", mainSqlExecutionContext);
+
+            setFinalBackupPath();
+            assertTables("tb1");
+            assertTables("tb2");
+            assertLinked("tb2", "1970-01-01", "s.i", true);
+            assertLinked("tb2", "1970-01-12", "s.i", false);
+        });
+    }
+
+    @Test
+    public void testSnapshotInvalidSql() throws Exception {
+        assertMemoryLeak(() -> {
+            mainCompiler.compile("create table tb1 (l long)", mainSqlExecutionContext);
+            try {
+                mainCompiler.compile("backup table tb1 snapshot tb2", mainSqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException ex) {
+                Assert.assertEquals(26, ex.getPosition());
+                TestUtils.assertContains(ex.getFlyweightMessage(), "unexpected token");
+            }
+            try {
+                mainCompiler.compile("backup database tb1", mainSqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException ex) {
+                Assert.assertEquals(16, ex.getPosition());
+                TestUtils.assertContains(ex.getFlyweightMessage(), "'snapshot' expected");
+            }
+        });
+    }
+
+    @Test
+    public void testSnapshotPartitionedTable() throws Exception {
+        assertMemoryLeak(() -> {
+            String tableName = "testTable2";
+            // @formatter:off
+            mainCompiler.compile("create table " + tableName + " as (" +
+                    "select" +
+                    " rnd_char() ch," +
+                    " rnd_long256() ll," +
+                    " rnd_int() a1," +
+                    " rnd_boolean() b," +
+                    " rnd_str(3,3,2) c," +
+                    " rnd_double(2) d," +
+                    " rnd_symbol(4,4,4,2) i," +
+                    " timestamp_sequence(0, 1000000000) k," +
+                    " rnd_bin(10, 20, 2) m" +
+                    " from long_sequence(1000)" +
+                    "), index(i) timestamp(k) partition by DAY", mainSqlExecutionContext);
+            // @formatter:on
+
+            mainCompiler.compile("backup table " + tableName + " snapshot;", mainSqlExecutionContext);
+            setFinalBackupPath();
+            assertTables(tableName);
+            assertLinked(tableName, "1970-01-01", "k.d", true);
+            assertLinked(tableName, "1970-01-11", "i.k", true);
+            assertLinked(tableName, "1970-01-12", "k.d", false);
+            assertLinked(tableName, null, "_txn", false);
+            assertSelect(tableName, "select count() from testTable2 where i = 'CPSW'");
+        });
+    }
+
+    @Test
+    public void testSnapshotThenRenameColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            String tableName = "testTable1";
+            // @formatter:off
+            mainCompiler.compile("create table " + tableName + " as (select" +
+                    " rnd_symbol(4,4,4,2) sym," +
+                    " rnd_double(2) d," +
+                    " timestamp_sequence(0, 10000000000) ts" +
+                    " from long_sequence(30)) timestamp(ts) partition by DAY", mainSqlExecutionContext);
+            // @formatter:on
+
+            mainCompiler.compile("backup table " + tableName + " snapshot", mainSqlExecutionContext);
+            setFinalBackupPath();
+            StringSink backup = new StringSink();
+            selectAll(tableName, true, backup);
+
+            // writer that made snapshot renames files within table directory, not within snapshot
+            mainCompiler.compile("alter table " + tableName + " rename column d to d2", mainSqlExecutionContext);
+            mainCompiler.compile("alter table " + tableName + " rename column sym to sym2", mainSqlExecutionContext);
+            Assert.assertTrue(java.nio.file.Files.exists(Paths.get(mainConfiguration.getRoot().toString(), tableName, "1970-01-01", "d2.d")));
+            Assert.assertTrue(java.nio.file.Files.exists(Paths.get(mainConfiguration.getRoot().toString(), tableName, "sym2.c")));
+            Assert.assertTrue(java.nio.file.Files.exists(Paths.get(finalBackupPath.toString(), tableName, "1970-01-01", "d.d")));
+            Assert.assertTrue(java.nio.file.Files.exists(Paths.get(finalBackupPath.toString(), tableName, "sym.c")));
+
+            selectAll(tableName, true, sink1);
+            TestUtils.assertEquals(backup, sink1);
+        });
+    }
+
+    @Test
+    public void testSnapshotSuccessive() throws Exception {
+        assertMemoryLeak(() -> {
+            String tableName = "testTable1";
+            // @formatter:off
+            mainCompiler.compile("create table " + tableName + " as (select" +
+                    " rnd_symbol(4,4,4,2) sym," +
+                    " rnd_double(2) d," +
+                    " timestamp_sequence(0, 10000000000) ts" +
+                    " from long_sequence(30)) timestamp(ts) partition by DAY", mainSqlExecutionContext);
+            // @formatter:on
+
+            mainCompiler.compile("backup table " + tableName + " snapshot", mainSqlExecutionContext);
+            setFinalBackupPath();
+            StringSink sink3 = new StringSink();
+            selectAll(tableName, false, sink1);
+            selectAll(tableName, true, sink3);
+            TestUtils.assertEquals(sink1, sink3);
+
+            // out-of-order rows go into the first partition and new rows seal the last one
+            // @formatter:off
+            mainCompiler.compile("insert into " + tableName +
+                    " select * from (" +
+                    " select rnd_symbol(4,4,4,2) sym, rnd_double(2) d, timestamp_sequence(5000000, 400000000000) ts from long_sequence(3)" +
+                    ")", mainSqlExecutionContext);
+            // @formatter:on
+
+            mainCompiler.compile("backup table " + tableName + " snapshot", mainSqlExecutionContext);
+            selectAll(tableName, false, sink1);
+            setFinalBackupPath(1);
+            selectAll(tableName, true, sink2);
+            TestUtils.assertEquals(sink1, sink2);
+
+            // unchanged sealed partition is shared by both snapshots
+            setFinalBackupPath();
+            final java.nio.file.Path first = Paths.get(finalBackupPath.toString(), tableName, "1970-01-02", "d.d");
+            setFinalBackupPath(1);
+            Assert.assertTrue(java.nio.file.Files.isSameFile(first, Paths.get(finalBackupPath.toString(), tableName, "1970-01-02", "d.d")));
+
+            // previous snapshot is unaffected
+            setFinalBackupPath();
+            selectAll(tableName, true, sink1);
+            TestUtils.assertEquals(sink3, sink1);
+        });
+    }
+
     @Test
     public void testSuccessiveBackups() throws Exception {
         assertMemoryLeak(() -> {
@@ -456,6 +626,25 @@ public class TableBackupTest {
         });
     }
 
+    private void assertLinked(String tableName, String partitionName, String fileName, boolean expected) throws IOException {
+        try (Path path = new Path(); Path backupPath = new Path()) {
+            path.of(mainConfiguration.getRoot()).concat(tableName);
+            backupPath.of(finalBackupPath).concat(tableName);
+            if (partitionName != null) {
+                path.concat(partitionName);
+                backupPath.concat(partitionName);
+            }
+            path.concat(fileName).$();
+            backupPath.concat(fileName).$();
+            Assert.assertTrue(FilesFacadeImpl.INSTANCE.exists(backupPath));
+            Assert.assertEquals(
+                    backupPath.toString(),
+                    expected,
+                    java.nio.file.Files.isSameFile(Paths.get(path.toString()), Paths.get(backupPath.toString()))
+            );
+        }
+    }
+
     private void assertMemoryLeak(TestUtils.LeakProneCode code) throws Exception {
         TestUtils.assertMemoryLeak(() -> {
             try {
@@ -470,6 +659,10 @@ public class TableBackupTest {
     }
 
     private void selectAll(String tableName, boolean backup, MutableCharSink sink) throws Exception {
+        selectAll(tableName, backup, sink, "select * from " + tableName);
+    }
+
+    private void selectAll(String tableName, boolean backup, MutableCharSink sink, String query) throws Exception {
         CairoEngine engine = null;
         SqlCompiler compiler = null;
         SqlExecutionContext sqlExecutionContext;
@@ -491,7 +684,7 @@ public class TableBackupTest {
             TestUtils.printSql(
                     compiler,
                     sqlExecutionContext,
-                    "select * from " + tableName,
+                    query,
                     sink
             );
         } finally {
@@ -517,6 +710,12 @@ public class TableBackupTest {
         setFinalBackupPath(0);
     }
 
+    private void assertSelect(String tableName, String query) throws Exception {
+        selectAll(tableName, false, sink1, query);
+        selectAll(tableName, true, sink2, query);
+        TestUtils.assertEquals(sink1, sink2);
+    }
+
     private void assertTables(String tb1) throws Exception {
         selectAll(tb1, false, sink1);
         selectAll(tb1, true, sink2);
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ParallelGroupByRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testColumnTops() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_int(0, 20, 0) k, rnd_double(2) d, timestamp_sequence(0, 100000000) ts from long_sequence(30000)) timestamp(ts) partition by DAY",
+                "select k, count(), max(d), sum(c), min(c) from x",
+                "alter table x add column c long",
+                "insert into x select rnd_int(0, 20, 0), rnd_double(2), timestamp_sequence(3000000000000, 100000000), rnd_long(0, 1000, 2) from long_sequence(30000)"
+        );
+    }
+
+    @Test
+    public void testGroupByDisabled() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('a','b') s, rnd_int() a, rnd_double() d, timestamp_sequence(0, 1000000) ts from long_sequence(10)) timestamp(ts)", sqlExecutionContext);
+            final SqlExecutionContext context = newParallelContext();
+            // first() cannot merge partial results
+            try (RecordCursorFactory factory = compiler.compile("select a, first(d) from x", context).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof ParallelGroupByRecordCursorFactory);
+            }
+            // symbol function arguments are not safe for concurrent reads
+            try (RecordCursorFactory factory = compiler.compile("select a, count(s) from x", context).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof ParallelGroupByRecordCursorFactory);
+            }
+            // no workers to share load with
+            try (RecordCursorFactory factory = compiler.compile("select a, sum(d) from x", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof ParallelGroupByRecordCursorFactory);
+            }
+        });
+    }
+
+    @Test
+    public void testIntervalAndCompositeKey() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_symbol('AAPL','MSFT','IBM', null) sym, rnd_symbol('N','Q','L') venue, rnd_int(0, 1000, 2) qty, rnd_double(2) px, timestamp_sequence(0, 10000000) ts from long_sequence(100000)) timestamp(ts) partition by DAY",
+                "select sym, venue, avg(qty), max(px), min(px), max(qty), count() from x where ts > '1970-01-03'"
+        );
+    }
+
+    @Test
+    public void testLargeTable() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_int(0, 5000, 0) k, rnd_long(0, 1000, 2) l, rnd_short() s, rnd_byte() b, rnd_float(2) f, timestamp_sequence(0, 1000000) ts from long_sequence(250000)) timestamp(ts) partition by DAY",
+                "select k, sum(l), min(l), max(s), min(b), sum(s), min(f), count() from x"
+        );
+    }
+
+    @Test
+    public void testNonPartitioned() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_long(0, 100, 0) k, rnd_int(0, 1000, 2) a, timestamp_sequence(0, 1000000) ts from long_sequence(55555)) timestamp(ts)",
+                "select k, sum(a), min(ts), max(ts) from x"
+        );
+    }
+
+    private static SqlExecutionContext newParallelContext() {
+        return new SqlExecutionContextImpl(engine, 4, engine.getMessageBus())
+                .with(
+                        AllowAllCairoSecurityContext.INSTANCE,
+                        new BindVariableServiceImpl(configuration),
+                        null,
+                        -1,
+                        null
+                );
+    }
+
+    // map iteration order differs between single and multi-threaded execution
+    private static String sortLines(CharSequence text) {
+        final String[] lines = text.toString().split("\n");
+        Arrays.sort(lines, 1, lines.length);
+        return String.join("\n", lines);
+    }
+
+    private void assertParallel(String ddl, String query, String... more) throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(ddl, sqlExecutionContext);
+            for (String sql : more) {
+                compiler.compile(sql, sqlExecutionContext);
+            }
+
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+            // drain the queue from other tests
+            final Sequence subSeq = engine.getMessageBus().getPageFrameGroupBySubSeq();
+            while (true) {
+                long cursor = subSeq.next();
+                if (cursor == -1) {
+                    break;
+                } else if (cursor > -1) {
+                    subSeq.done(cursor);
+                }
+            }
+
+            final int workerCount = 2;
+            final AtomicBoolean running = new AtomicBoolean(true);
+            final SOCountDownLatch haltLatch = new SOCountDownLatch(workerCount);
+            final PageFrameGroupByJob job = new PageFrameGroupByJob(engine.getMessageBus());
+            for (int i = 0; i < workerCount; i++) {
+                final int workerId = i;
+                new Thread(() -> {
+                    while (running.get()) {
+                        job.run(workerId);
+                    }
+                    haltLatch.countDown();
+                }).start();
+            }
+
+            try {
+                final SqlExecutionContext context = newParallelContext();
+                try (RecordCursorFactory factory = compiler.compile(query, context).getRecordCursorFactory()) {
+                    Assert.assertTrue(factory instanceof ParallelGroupByRecordCursorFactory);
+                    // run twice to make sure maps are reset between executions
+                    for (int i = 0; i < 2; i++) {
+                        try (RecordCursor cursor = factory.getCursor(context)) {
+                            TestUtils.printCursor(cursor, factory.getMetadata(), true, sink);
+                            Assert.assertEquals(sortLines(expected), sortLines(sink));
+                        }
+                    }
+                }
+            } finally {
+                running.set(false);
+                haltLatch.await();
+            }
+        });
+    }
+}
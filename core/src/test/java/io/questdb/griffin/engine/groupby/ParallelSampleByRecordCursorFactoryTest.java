@@ -0,0 +1,202 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ParallelSampleByRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testFillNullKeyed() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_symbol('AAPL','MSFT','IBM') sym, rnd_double(2) px, rnd_int(0, 1000, 2) qty, timestamp_sequence(0, 1800000000) ts from long_sequence(20000)) timestamp(ts) partition by DAY",
+                "select ts, sym, first(px), max(px), min(px), last(px), sum(qty) from x sample by 1h fill(null)"
+        );
+    }
+
+    @Test
+    public void testFillNullNotKeyed() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_double(2) px, rnd_long(0, 1000, 2) qty, timestamp_sequence(0, 7200000000) ts from long_sequence(20000)) timestamp(ts) partition by MONTH",
+                "select ts, first(px), max(px), min(px), last(px), count(), sum(qty) from x sample by 1h fill(null)"
+        );
+    }
+
+    @Test
+    public void testFillPrevKeyed() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_symbol('AAPL','MSFT','IBM', null) sym, rnd_double(2) px, timestamp_sequence(0, 1800000000) ts from long_sequence(20000)) timestamp(ts) partition by DAY",
+                "select ts, sym, first(px), max(px), min(px), last(px), count() from x sample by 1h fill(prev)"
+        );
+    }
+
+    @Test
+    public void testFillPrevNotKeyed() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_double(2) px, timestamp_sequence(0, 7200000000) ts from long_sequence(20000)) timestamp(ts) partition by MONTH",
+                "select ts, first(px), last(px), avg(px) from x sample by 1h fill(prev)"
+        );
+    }
+
+    @Test
+    public void testFillValueKeyed() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_int(0, 10, 0) k, rnd_double(2) px, timestamp_sequence(0, 600000000) ts from long_sequence(50000)) timestamp(ts) partition by DAY",
+                "select ts, k, max(px), sum(px), count() from x sample by 30m fill(1000, 0, 0)"
+        );
+    }
+
+    @Test
+    public void testFillValueNotKeyed() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_double(2) px, timestamp_sequence(0, 7200000000) ts from long_sequence(20000)) timestamp(ts) partition by MONTH",
+                "select ts, min(px), count() from x sample by 1h fill(10.5, 0)"
+        );
+    }
+
+    @Test
+    public void testNoneKeyed() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_symbol('AAPL','MSFT','IBM', null) sym, rnd_symbol('N','Q','L') venue, rnd_double(2) px, rnd_int(0, 1000, 2) qty, timestamp_sequence(0, 1000000) ts from long_sequence(250000)) timestamp(ts) partition by DAY",
+                "select ts, sym, venue, first(px), max(px), min(px), last(px), sum(qty), count() from x sample by 15m"
+        );
+    }
+
+    @Test
+    public void testNoneNotKeyed() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_double(2) px, rnd_long(0, 1000, 2) qty, timestamp_sequence(0, 1000000) ts from long_sequence(250000)) timestamp(ts) partition by DAY",
+                "select ts, first(px), max(px), min(px), last(px), sum(qty), first(ts), last(ts) from x sample by 1h"
+        );
+    }
+
+    @Test
+    public void testNoneNotKeyedMonth() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_double(2) px, timestamp_sequence(0, 600000000) ts from long_sequence(30000)) timestamp(ts)",
+                "select ts, first(px), last(px), count() from x sample by 1M"
+        );
+    }
+
+    @Test
+    public void testSampleByDisabled() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('a','b') s, rnd_double() d, timestamp_sequence(0, 1000000) ts from long_sequence(10)) timestamp(ts)", sqlExecutionContext);
+            final SqlExecutionContext context = newParallelContext();
+            // linear interpolation is always sequential
+            try (RecordCursorFactory factory = compiler.compile("select ts, avg(d) from x sample by 1s fill(linear)", context).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof ParallelSampleByRecordCursorFactory);
+            }
+            // keys without previous values need null placeholders, these do not exist for symbols
+            try (RecordCursorFactory factory = compiler.compile("select ts, s, last(s) from x sample by 1s fill(prev)", context).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof ParallelSampleByRecordCursorFactory);
+            }
+            // no workers to share load with
+            try (RecordCursorFactory factory = compiler.compile("select ts, avg(d) from x sample by 1s", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof ParallelSampleByRecordCursorFactory);
+            }
+        });
+    }
+
+    private static SqlExecutionContext newParallelContext() {
+        return new SqlExecutionContextImpl(engine, 4, engine.getMessageBus())
+                .with(
+                        AllowAllCairoSecurityContext.INSTANCE,
+                        new BindVariableServiceImpl(configuration),
+                        null,
+                        -1,
+                        null
+                );
+    }
+
+    private void assertParallel(String ddl, String query) throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(ddl, sqlExecutionContext);
+
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+            // drain the queue from other tests
+            final Sequence subSeq = engine.getMessageBus().getPageFrameGroupBySubSeq();
+            while (true) {
+                long cursor = subSeq.next();
+                if (cursor == -1) {
+                    break;
+                } else if (cursor > -1) {
+                    subSeq.done(cursor);
+                }
+            }
+
+            final int workerCount = 2;
+            final AtomicBoolean running = new AtomicBoolean(true);
+            final SOCountDownLatch haltLatch = new SOCountDownLatch(workerCount);
+            final PageFrameGroupByJob job = new PageFrameGroupByJob(engine.getMessageBus());
+            for (int i = 0; i < workerCount; i++) {
+                final int workerId = i;
+                new Thread(() -> {
+                    while (running.get()) {
+                        job.run(workerId);
+                    }
+                    haltLatch.countDown();
+                }).start();
+            }
+
+            try {
+                final SqlExecutionContext context = newParallelContext();
+                try (RecordCursorFactory factory = compiler.compile(query, context).getRecordCursorFactory()) {
+                    Assert.assertTrue(factory instanceof ParallelSampleByRecordCursorFactory);
+                    // run twice to make sure maps are reset between executions
+                    for (int i = 0; i < 2; i++) {
+                        try (RecordCursor cursor = factory.getCursor(context)) {
+                            TestUtils.printCursor(cursor, factory.getMetadata(), true, sink);
+                            TestUtils.assertEquals(expected, sink);
+                            // cursor is expected to replay the same data
+                            cursor.toTop();
+                            TestUtils.printCursor(cursor, factory.getMetadata(), true, sink);
+                            TestUtils.assertEquals(expected, sink);
+                        }
+                    }
+                }
+            } finally {
+                running.set(false);
+                haltLatch.await();
+            }
+        });
+    }
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Test;
+
+public class AsOfJoinPageFrameRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAsOfJoinKeyed() throws Exception {
+        assertSameAsRowByRow(
+                "select x.ts, x.k, x.a, y.ts, y.b from x asof join y on (k)",
+                "create table x as (select rnd_int(0, 20, 2) k, rnd_int() a, timestamp_sequence(0, 7000000) ts from long_sequence(40000)) timestamp(ts) partition by DAY",
+                "create table y as (select rnd_int(0, 20, 2) k, rnd_long() b, timestamp_sequence(500000, 11000000) ts from long_sequence(30000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testAsOfJoinNoKey() throws Exception {
+        assertSameAsRowByRow(
+                "select x.ts, x.a, y.ts, y.b from x asof join y",
+                "create table x as (select rnd_int() a, timestamp_sequence(0, 7000000) ts from long_sequence(40000)) timestamp(ts) partition by DAY",
+                // duplicate timestamps, gaps longer than a partition
+                "create table y as (select rnd_long() b, timestamp_sequence(3000000, rnd_long(0, 3, 0) * 7000000) ts from long_sequence(20000)) timestamp(ts) partition by DAY",
+                "insert into y select rnd_long() b, timestamp_sequence(800000000000, 1000) ts from long_sequence(100)"
+        );
+    }
+
+    @Test
+    public void testColumnTops() throws Exception {
+        assertSameAsRowByRow(
+                "select x.ts, x.s, y.ts, y.b, y.c from x asof join y on (s)",
+                "create table x as (select rnd_symbol('a','b','c',null) s, timestamp_sequence(0, 5000000) ts from long_sequence(40000)) timestamp(ts) partition by DAY",
+                "create table y as (select rnd_symbol('a','b','c') s, rnd_int() b, timestamp_sequence(0, 9000000) ts from long_sequence(20000)) timestamp(ts) partition by DAY",
+                "alter table y add column c double",
+                "insert into y select rnd_symbol('a','b','c','d'), rnd_int(), timestamp_sequence(180000000000, 9000000), rnd_double(2) from long_sequence(20000)"
+        );
+    }
+
+    @Test
+    public void testEmptySlave() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select timestamp_sequence(0, 1000000) ts from long_sequence(3)) timestamp(ts)", sqlExecutionContext);
+            compiler.compile("create table y (b long, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            TestUtils.assertSql(
+                    compiler,
+                    sqlExecutionContext,
+                    "select x.ts, y.b, y.ts from x lt join y",
+                    sink,
+                    "ts\tb\tts1\n" +
+                            "1970-01-01T00:00:00.000000Z\tNaN\t\n" +
+                            "1970-01-01T00:00:01.000000Z\tNaN\t\n" +
+                            "1970-01-01T00:00:02.000000Z\tNaN\t\n"
+            );
+        });
+    }
+
+    @Test
+    public void testLtJoinKeyed() throws Exception {
+        assertSameAsRowByRow(
+                "select x.ts, x.k, x.a, y.ts, y.b from x lt join y on (k)",
+                "create table x as (select rnd_long(0, 10, 2) k, rnd_int() a, timestamp_sequence(0, 5000000) ts from long_sequence(40000)) timestamp(ts) partition by DAY",
+                "create table y as (select rnd_long(0, 10, 2) k, rnd_double() b, timestamp_sequence(0, 5000000) ts from long_sequence(40000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testLtJoinNoKey() throws Exception {
+        assertSameAsRowByRow(
+                "select x.ts, x.a, y.ts, y.b from x lt join y",
+                "create table x as (select rnd_int() a, timestamp_sequence(0, 5000000) ts from long_sequence(40000)) timestamp(ts) partition by DAY",
+                // exact timestamp matches must be skipped
+                "create table y as (select rnd_double() b, timestamp_sequence(0, 5000000) ts from long_sequence(40000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testSelfJoin() throws Exception {
+        assertSameAsRowByRow(
+                "select a.ts, a.s, b.ts, b.v from x a lt join x b on (s)",
+                "create table x as (select rnd_symbol(10, 3, 3, 0) s, rnd_short() v, timestamp_sequence(0, 3000000) ts from long_sequence(50000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    private void assertSameAsRowByRow(String query, String... ddl) throws Exception {
+        assertMemoryLeak(() -> {
+            for (String sql : ddl) {
+                compiler.compile(sql, sqlExecutionContext);
+            }
+
+            final StringSink expected = new StringSink();
+            configOverrideAsOfJoinFrameSearchEnabled = false;
+            TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+            configOverrideAsOfJoinFrameSearchEnabled = true;
+
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    TestUtils.printCursor(cursor, factory.getMetadata(), true, sink);
+                    TestUtils.assertEquals(expected, sink);
+                    // key map and frame state must be reset
+                    cursor.toTop();
+                    TestUtils.printCursor(cursor, factory.getMetadata(), true, sink);
+                    TestUtils.assertEquals(expected, sink);
+                }
+            }
+        });
+    }
+}
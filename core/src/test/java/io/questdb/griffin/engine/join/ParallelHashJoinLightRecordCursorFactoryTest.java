@@ -0,0 +1,183 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ParallelHashJoinLightRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testColumnTops() throws Exception {
+        assertParallel(
+                "x join y on (k)",
+                "create table x as (select rnd_int(0, 5000, 100) k, rnd_double(2) a, timestamp_sequence(0, 100000000) ts from long_sequence(20000)) timestamp(ts) partition by DAY",
+                "create table y as (select rnd_int(0, 500, 2) b, timestamp_sequence(0, 100000000) ts from long_sequence(200)) timestamp(ts) partition by DAY",
+                "alter table y add column k int",
+                "insert into y select rnd_int(0, 500, 2), timestamp_sequence(2000000000000, 100000000), rnd_int(0, 5000, 10) from long_sequence(20000)"
+        );
+    }
+
+    @Test
+    public void testCompositeKey() throws Exception {
+        assertParallel(
+                "select x.a, x.b, y.c, x.ts, y.ts from x join y on x.a = y.a and x.b = y.b",
+                "create table x as (select rnd_int(0, 50, 2) a, rnd_double(0) * 100 b, timestamp_sequence(0, 10000000) ts from long_sequence(30000)) timestamp(ts) partition by DAY",
+                "create table y as (select a, b, rnd_long() c, ts from x where a < 25)"
+        );
+    }
+
+    @Test
+    public void testEmptySlave() throws Exception {
+        assertParallel(
+                "x join y on (k)",
+                "create table x as (select rnd_long(0, 100, 0) k, timestamp_sequence(0, 1000000) ts from long_sequence(10000)) timestamp(ts)",
+                "create table y as (select rnd_long(0, 100, 0) k, timestamp_sequence(0, 1000000) ts from long_sequence(0)) timestamp(ts)"
+        );
+    }
+
+    @Test
+    public void testFactorySelection() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('a','b') s, rnd_int() a, timestamp_sequence(0, 1000000) ts from long_sequence(10)) timestamp(ts)", sqlExecutionContext);
+            compiler.compile("create table y as (select rnd_symbol('a','b') s, rnd_int() a, timestamp_sequence(0, 1000000) ts from long_sequence(10)) timestamp(ts)", sqlExecutionContext);
+            final SqlExecutionContext context = newParallelContext();
+            // there are no workers, tasks are published and then executed by the calling thread
+            Assert.assertTrue(countPublishedTasks("x join y on (a)", context) > 0);
+            // symbol keys are not safe for concurrent reads
+            Assert.assertEquals(0, countPublishedTasks("x join y on (s)", context));
+            // no workers to share load with
+            Assert.assertEquals(0, countPublishedTasks("x join y on (a)", sqlExecutionContext));
+        });
+    }
+
+    @Test
+    public void testLongKey() throws Exception {
+        assertParallel(
+                "select o.id, o.sym, o.qty, f.px, f.qty, f.ts from orders o join fills f on o.id = f.order_id",
+                "create table orders as (select rnd_long(0, 20000, 1000) id, rnd_symbol('AAPL','MSFT',null) sym, rnd_int(1, 100, 0) qty, timestamp_sequence(0, 1000000) ts from long_sequence(100000)) timestamp(ts) partition by DAY",
+                "create table fills as (select rnd_long(0, 20000, 100) order_id, rnd_double(2) px, rnd_int(1, 100, 2) qty, timestamp_sequence(0, 2000000) ts from long_sequence(50000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testPostJoinFilter() throws Exception {
+        assertParallel(
+                "select x.k, x.ts, y.v from x join y on (k) where y.v > 0.5 and x.ts > '1970-01-01T01'",
+                "create table x as (select rnd_short() k, timestamp_sequence(0, 1000000) ts from long_sequence(20000)) timestamp(ts)",
+                "create table y as (select rnd_short() k, rnd_double() v, timestamp_sequence(0, 1000000) ts from long_sequence(20000)) timestamp(ts)"
+        );
+    }
+
+    private static SqlExecutionContext newParallelContext() {
+        return new SqlExecutionContextImpl(engine, 4, engine.getMessageBus())
+                .with(
+                        AllowAllCairoSecurityContext.INSTANCE,
+                        new BindVariableServiceImpl(configuration),
+                        null,
+                        -1,
+                        null
+                );
+    }
+
+    private static int drainQueue() {
+        final Sequence subSeq = engine.getMessageBus().getPageFrameJoinSubSeq();
+        int count = 0;
+        while (true) {
+            long cursor = subSeq.next();
+            if (cursor == -1) {
+                return count;
+            } else if (cursor > -1) {
+                subSeq.done(cursor);
+                count++;
+            }
+        }
+    }
+
+    private int countPublishedTasks(String query, SqlExecutionContext context) throws Exception {
+        drainQueue();
+        TestUtils.printSql(compiler, context, query, sink);
+        return drainQueue();
+    }
+
+    private void assertParallel(String query, String... ddl) throws Exception {
+        assertMemoryLeak(() -> {
+            for (String sql : ddl) {
+                compiler.compile(sql, sqlExecutionContext);
+            }
+
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+            // drain the queue from other tests
+            drainQueue();
+
+            final int workerCount = 2;
+            final AtomicBoolean running = new AtomicBoolean(true);
+            final SOCountDownLatch haltLatch = new SOCountDownLatch(workerCount);
+            final PageFrameJoinJob job = new PageFrameJoinJob(engine.getMessageBus());
+            for (int i = 0; i < workerCount; i++) {
+                final int workerId = i;
+                new Thread(() -> {
+                    while (running.get()) {
+                        job.run(workerId);
+                    }
+                    haltLatch.countDown();
+                }).start();
+            }
+
+            try {
+                final SqlExecutionContext context = newParallelContext();
+                try (RecordCursorFactory factory = compiler.compile(query, context).getRecordCursorFactory()) {
+                    // run twice to make sure partition maps are reset between executions
+                    for (int i = 0; i < 2; i++) {
+                        try (RecordCursor cursor = factory.getCursor(context)) {
+                            TestUtils.assertCursor(expected, cursor, factory.getMetadata(), true, sink);
+                            // second pass over the same cursor
+                            cursor.toTop();
+                            TestUtils.assertCursor(expected, cursor, factory.getMetadata(), true, sink);
+                        }
+                    }
+                }
+            } finally {
+                running.set(false);
+                haltLatch.await();
+            }
+        });
+    }
+}
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.BaseFunctionFactoryTest;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.FunctionFactoryCache;
+import io.questdb.griffin.FunctionParser;
+import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ServiceLoader;
+
+public class FilterCompilerTest extends BaseFunctionFactoryTest {
+
+    private static final String DDL = "create table x as (" +
+            "select" +
+            " rnd_int(-50, 50, 4) i," +
+            " rnd_int(-50, 50, 4) j," +
+            " rnd_long(-50, 50, 4) l," +
+            " rnd_long(-50, 50, 4) m," +
+            " rnd_double(4) * 100 - 50 d," +
+            " rnd_double(4) e," +
+            " rnd_boolean() b," +
+            " rnd_symbol('a', 'b', null) s," +
+            " rnd_float(2) f," +
+            " timestamp_sequence(0, 1000000) ts" +
+            " from long_sequence(2000)" +
+            ") timestamp(ts)";
+
+    private final FilterCompiler filterCompiler = new FilterCompiler(new BytecodeAssembler());
+
+    @Test
+    public void testArithmetic() throws Exception {
+        assertCompiled(
+                "i + j > 10",
+                "i - j < 0",
+                "i * j >= 100",
+                "i / j > 1",
+                "i / 0 > 0",
+                "l / i < 2",
+                "l / m = 0",
+                "l / 0 != 0",
+                "d / i > 1",
+                "l + 10000000000 > m",
+                "l - i = 0",
+                "l * m > 100",
+                "d + e > i",
+                "d - 1 < e * 2",
+                "-i > 3",
+                "-d < 0",
+                "i + j + l + d > 0",
+                "i * (j - 3) / 2 >= l - m"
+        );
+    }
+
+    @Test
+    public void testComparison() throws Exception {
+        assertCompiled(
+                "i = j",
+                "i != 10",
+                "i <> l",
+                "l = m",
+                "i = d",
+                "d = e",
+                "l != d",
+                "i < j",
+                "i <= 10",
+                "l > i",
+                "l <= 10000000000",
+                "d < 10.5",
+                "i > -5",
+                "d >= -2.5",
+                "i < 100000",
+                "l < 2147483648",
+                "i > 1L",
+                "10 < i"
+        );
+    }
+
+    @Test
+    public void testLogical() throws Exception {
+        assertCompiled(
+                "b",
+                "not b",
+                "b and i > 0",
+                "b or d > 0.5",
+                "not (i > j) or l = m",
+                "true and i > 0",
+                "i > 0 and j > 0 or not b and l < m"
+        );
+    }
+
+    @Test
+    public void testNotCompiled() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(DDL, sqlExecutionContext);
+            try (RecordCursorFactory factory = compiler.compile("x", sqlExecutionContext).getRecordCursorFactory()) {
+                final String[] expressions = {
+                        "s = 'a'",
+                        "i in (1, 2)",
+                        "f > 1",
+                        "-l > 0",
+                        "i = NaN",
+                        "i = null",
+                        "ts > 0",
+                        "abs(i) > 1",
+                        "i > :v"
+                };
+                for (String expression : expressions) {
+                    Assert.assertNull(expression, filterCompiler.compile(expr(expression), factory.getMetadata()));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testQuery() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(DDL, sqlExecutionContext);
+            bindVariableService.clear();
+            bindVariableService.setBoolean("t", true);
+            final String query = "select i, l, d from x where i > j and d < 10 or l = m";
+            final StringSink expected = new StringSink();
+            // bind variable keeps the filter interpreted
+            TestUtils.printSql(compiler, sqlExecutionContext, "select i, l, d from x where (i > j and d < 10 or l = m) and :t", expected);
+            TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+            TestUtils.assertEquals(expected, sink);
+        });
+    }
+
+    private void assertCompiled(String... expressions) throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(DDL, sqlExecutionContext);
+            final FunctionParser functionParser = new FunctionParser(
+                    configuration,
+                    new FunctionFactoryCache(configuration, ServiceLoader.load(FunctionFactory.class, FunctionFactory.class.getClassLoader()))
+            );
+            try (RecordCursorFactory factory = compiler.compile("x", sqlExecutionContext).getRecordCursorFactory()) {
+                for (String expression : expressions) {
+                    final ExpressionNode node = expr(expression);
+                    try (
+                            Function interpreted = functionParser.parseFunction(node, factory.getMetadata(), sqlExecutionContext);
+                            Function compiled = filterCompiler.compile(node, factory.getMetadata());
+                            RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+                    ) {
+                        Assert.assertNotNull(expression, compiled);
+                        interpreted.init(cursor, sqlExecutionContext);
+                        final Record record = cursor.getRecord();
+                        int matches = 0;
+                        while (cursor.hasNext()) {
+                            final boolean expected = interpreted.getBool(record);
+                            Assert.assertEquals(expression, expected, compiled.getBool(record));
+                            if (expected) {
+                                matches++;
+                            }
+                        }
+                        Assert.assertTrue(expression, matches > 0);
+                    }
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,329 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.functions.BooleanFunction;
+import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ParallelFilteredRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testColumnTops() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_int(0, 100, 0) a, rnd_double(2) b, timestamp_sequence(0, 100000000) ts from long_sequence(30000)) timestamp(ts) partition by DAY",
+                "x where c > 50 or c = null",
+                "alter table x add column c int",
+                "insert into x select rnd_int(0, 100, 0), rnd_double(2), timestamp_sequence(3000000000000, 100000000), rnd_int(0, 100, 2) from long_sequence(30000)"
+        );
+    }
+
+    @Test
+    public void testFilterDisabled() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('a','b') s, rnd_int() a, timestamp_sequence(0, 1000000) ts from long_sequence(10)) timestamp(ts)", sqlExecutionContext);
+            final SqlExecutionContext context = newParallelContext();
+            // symbol columns are not safe for concurrent reads
+            try (RecordCursorFactory factory = compiler.compile("x where s = 'a' and a > 0", context).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof ParallelFilteredRecordCursorFactory);
+            }
+            // no workers to share load with
+            try (RecordCursorFactory factory = compiler.compile("x where a > 0", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof ParallelFilteredRecordCursorFactory);
+            }
+        });
+    }
+
+    @Test
+    public void testFilterError() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select cast(x as int) a, timestamp_sequence(0, 1000000) ts from long_sequence(100000)) timestamp(ts) partition by HOUR", sqlExecutionContext);
+            final RecordCursorFactory base = compiler.compile("x", sqlExecutionContext).getRecordCursorFactory();
+            Assert.assertTrue(base.supportPageFrameCursor());
+
+            final ObjList<Function> filters = new ObjList<>();
+            for (int i = 0; i < 3; i++) {
+                filters.add(new BooleanFunction(0) {
+                    @Override
+                    public boolean getBool(Record rec) {
+                        final int a = rec.getInt(0);
+                        if (a == 77777) {
+                            throw CairoException.instance(0).put("simulated filter error");
+                        }
+                        return a % 2 == 0;
+                    }
+                });
+            }
+
+            withWorkers(() -> {
+                final SqlExecutionContext context = newParallelContext();
+                try (
+                        RecordCursorFactory factory = new ParallelFilteredRecordCursorFactory(configuration, base, filters, null);
+                        RecordCursor cursor = factory.getCursor(context)
+                ) {
+                    final Record record = cursor.getRecord();
+                    int expected = 2;
+                    try {
+                        while (cursor.hasNext()) {
+                            Assert.assertEquals(expected, record.getInt(0));
+                            expected += 2;
+                        }
+                        Assert.fail();
+                    } catch (CairoException e) {
+                        TestUtils.assertContains(e.getFlyweightMessage(), "simulated filter error");
+                    }
+                    // rows of batches before the failed one are returned in order
+                    Assert.assertTrue(expected > 2);
+                    Assert.assertTrue(expected < 77777);
+                }
+            });
+        });
+    }
+
+    @Test
+    public void testIntervalAndFilter() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_int() a, rnd_long(0, 1000, 2) b, rnd_double(2) c, rnd_boolean() d, timestamp_sequence(0, 10000000) ts from long_sequence(100000)) timestamp(ts) partition by DAY",
+                "x where ts > '1970-01-03' and b > 500 and c < 0.5 and d"
+        );
+    }
+
+    @Test
+    public void testKernelColumnTops() throws Exception {
+        assertKernel(
+                "x where k > 10",
+                "x where k <= 10",
+                "x where k = null",
+                "x where k != null",
+                "x where l = NaN and k < 0",
+                "x where l > 0 or k = null"
+        );
+    }
+
+    @Test
+    public void testKernelComparisons() throws Exception {
+        assertKernel(
+                "x where a > 10",
+                "x where a <= -5.5",
+                "x where 10 < a",
+                "x where a >= -100000000000",
+                "x where a < 3000000000.5",
+                "x where b >= -3",
+                "x where b < 100000000000",
+                "x where -50 > b",
+                "x where b <= -0.5",
+                "x where c > 0.5",
+                "x where c <= 0.25",
+                "x where 0.75 < c",
+                "x where t < 50",
+                "x where t >= 90",
+                "x where t > -1"
+        );
+    }
+
+    @Test
+    public void testKernelEquality() throws Exception {
+        assertKernel(
+                "x where a = 7",
+                "x where a != 7",
+                "x where a = 7.0",
+                "x where a <> 7.5",
+                "x where a = 10000000000",
+                "x where b = 5",
+                "x where b != 5",
+                "x where b = 5.0",
+                "x where b = -10000000000",
+                "x where c = 0.5",
+                "x where c != 0.5",
+                "x where t = 5",
+                "x where t != 5"
+        );
+    }
+
+    @Test
+    public void testKernelLogical() throws Exception {
+        assertKernel(
+                "x where a > 0 and b < 0 or c > 0.9",
+                "x where (a > 0 or b > 0) and (c < 0.5 or s = null)",
+                "x where a > 0 or a < -50 or b = 3 or c = NaN",
+                "x where a > 0 and b > 0 and c > 0.5 and t < 50",
+                // kernel pre-selects rows for the filter function
+                "x where a > 0 and a % 3 = 0",
+                "x where a % 3 = 0 and c > 0.2 and b > 0",
+                "x where a % 3 = 0 or b > 0"
+        );
+    }
+
+    @Test
+    public void testKernelNulls() throws Exception {
+        assertKernel(
+                "x where a = null",
+                "x where a != null",
+                "x where a = NaN",
+                "x where b = NaN",
+                "x where b != NaN",
+                "x where c = NaN",
+                "x where c != NaN",
+                "x where t = NaN",
+                "x where s = null",
+                "x where s != null"
+        );
+    }
+
+    @Test
+    public void testLargeTable() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_int() a, rnd_long(0, 1000, 2) b, rnd_double(2) c, rnd_short() d, rnd_byte() e, rnd_float() f, rnd_char() g, timestamp_sequence(0, 1000000) ts from long_sequence(250000)) timestamp(ts) partition by DAY",
+                "x where a % 3 = 0 and f > 0.2 and d < 0"
+        );
+    }
+
+    @Test
+    public void testNonPartitioned() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_int() a, rnd_long(0, 1000, 2) b, timestamp_sequence(0, 1000000) ts from long_sequence(55555)) timestamp(ts)",
+                "x where b > 100 and b < 200"
+        );
+    }
+
+    private static SqlExecutionContext newParallelContext() {
+        return new SqlExecutionContextImpl(engine, 4, engine.getMessageBus())
+                .with(
+                        AllowAllCairoSecurityContext.INSTANCE,
+                        new BindVariableServiceImpl(configuration),
+                        null,
+                        -1,
+                        null
+                );
+    }
+
+    private void assertKernel(String... queries) throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x as (" +
+                            "select rnd_int(-100, 100, 5) a," +
+                            " rnd_long(-100, 100, 5) b," +
+                            " rnd_double(5) c," +
+                            " cast(rnd_long(0, 100, 5) as timestamp) t," +
+                            " rnd_symbol(4, 1, 2, 5) s," +
+                            " rnd_long(0, 10, 2) l," +
+                            " timestamp_sequence(0, 100000000) ts" +
+                            " from long_sequence(30000)" +
+                            ") timestamp(ts) partition by DAY",
+                    sqlExecutionContext
+            );
+            compiler.compile("alter table x add column k int", sqlExecutionContext);
+            compiler.compile(
+                    "insert into x select rnd_int(-100, 100, 5), rnd_long(-100, 100, 5), rnd_double(5)," +
+                            " cast(rnd_long(0, 100, 5) as timestamp), rnd_symbol(4, 1, 2, 5), rnd_long(0, 10, 2)," +
+                            " timestamp_sequence(3000000000000, 100000000), rnd_int(-100, 100, 5)" +
+                            " from long_sequence(30000)",
+                    sqlExecutionContext
+            );
+            for (String query : queries) {
+                assertParallelQuery(query);
+            }
+        });
+    }
+
+    private void assertParallel(String ddl, String query, String... more) throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(ddl, sqlExecutionContext);
+            for (String sql : more) {
+                compiler.compile(sql, sqlExecutionContext);
+            }
+            assertParallelQuery(query);
+        });
+    }
+
+    private void assertParallelQuery(String query) throws Exception {
+        final StringSink expected = new StringSink();
+        TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+        withWorkers(() -> {
+            final SqlExecutionContext context = newParallelContext();
+            try (RecordCursorFactory factory = compiler.compile(query, context).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof ParallelFilteredRecordCursorFactory);
+                try (RecordCursor cursor = factory.getCursor(context)) {
+                    TestUtils.assertCursor(expected, cursor, factory.getMetadata(), true, sink);
+                    // second pass over the same cursor
+                    cursor.toTop();
+                    TestUtils.assertCursor(expected, cursor, factory.getMetadata(), true, sink);
+                }
+            }
+        });
+    }
+
+    private void withWorkers(TestUtils.LeakProneCode code) throws Exception {
+        // drain the queue from other tests
+        final Sequence subSeq = engine.getMessageBus().getPageFrameFilterSubSeq();
+        while (true) {
+            long cursor = subSeq.next();
+            if (cursor == -1) {
+                break;
+            } else if (cursor > -1) {
+                subSeq.done(cursor);
+            }
+        }
+
+        final int workerCount = 2;
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final SOCountDownLatch haltLatch = new SOCountDownLatch(workerCount);
+        final PageFrameFilterJob job = new PageFrameFilterJob(engine.getMessageBus());
+        for (int i = 0; i < workerCount; i++) {
+            final int workerId = i;
+            new Thread(() -> {
+                while (running.get()) {
+                    job.run(workerId);
+                }
+                haltLatch.countDown();
+            }).start();
+        }
+
+        try {
+            code.run();
+        } finally {
+            running.set(false);
+            haltLatch.await();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ParallelLatestByAllRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testColumnTops() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_double(2) d, timestamp_sequence(0, 10000000) ts from long_sequence(30000)) timestamp(ts) partition by DAY",
+                "select * from x latest by s",
+                "alter table x add column s symbol",
+                "insert into x select rnd_double(2), timestamp_sequence(300000000000, 10000000), rnd_symbol(200, 4, 4, 5) from long_sequence(30000)"
+        );
+    }
+
+    @Test
+    public void testInterval() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_symbol(500, 4, 4, 10) s, rnd_long() l, timestamp_sequence(0, 3000000) ts from long_sequence(100000)) timestamp(ts) partition by DAY",
+                "select * from x latest by s where ts < '1970-01-02T12'"
+        );
+    }
+
+    @Test
+    public void testLatestByDisabled() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('a','b') s, rnd_symbol('c','d') i, rnd_int() a, timestamp_sequence(0, 1000000) ts from long_sequence(10)), index(i) timestamp(ts)", sqlExecutionContext);
+            final SqlExecutionContext context = newParallelContext();
+            // filter has to be applied before latest row is chosen
+            try (RecordCursorFactory factory = compiler.compile("select * from x latest by s where a > 0", context).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof ParallelLatestByAllRecordCursorFactory);
+            }
+            // indexed column has its own cursor
+            try (RecordCursorFactory factory = compiler.compile("select * from x latest by i", context).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof ParallelLatestByAllRecordCursorFactory);
+            }
+            // composite key
+            try (RecordCursorFactory factory = compiler.compile("select * from x latest by s, a", context).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof ParallelLatestByAllRecordCursorFactory);
+            }
+            // no workers to share load with
+            try (RecordCursorFactory factory = compiler.compile("select * from x latest by s", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof ParallelLatestByAllRecordCursorFactory);
+            }
+        });
+    }
+
+    @Test
+    public void testManyPartitions() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_symbol(20000, 4, 8, 100) s, rnd_int() a, rnd_double() d, timestamp_sequence(0, 20000000) ts from long_sequence(400000)) timestamp(ts) partition by DAY",
+                "select * from x latest by s"
+        );
+    }
+
+    @Test
+    public void testNonPartitioned() throws Exception {
+        assertParallel(
+                "create table x as (select rnd_symbol('a','b','c', null) s, x, timestamp_sequence(0, 1000000) ts from long_sequence(55555)) timestamp(ts)",
+                "select * from x latest by s"
+        );
+    }
+
+    private static SqlExecutionContext newParallelContext() {
+        return new SqlExecutionContextImpl(engine, 4, engine.getMessageBus())
+                .with(
+                        AllowAllCairoSecurityContext.INSTANCE,
+                        new BindVariableServiceImpl(configuration),
+                        null,
+                        -1,
+                        null
+                );
+    }
+
+    private void assertParallel(String ddl, String query, String... more) throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(ddl, sqlExecutionContext);
+            for (String sql : more) {
+                compiler.compile(sql, sqlExecutionContext);
+            }
+
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+            // drain the queue from other tests
+            final Sequence subSeq = engine.getMessageBus().getLatestBySubSeq();
+            while (true) {
+                long cursor = subSeq.next();
+                if (cursor == -1) {
+                    break;
+                } else if (cursor > -1) {
+                    subSeq.done(cursor);
+                }
+            }
+
+            final int workerCount = 2;
+            final AtomicBoolean running = new AtomicBoolean(true);
+            final SOCountDownLatch haltLatch = new SOCountDownLatch(workerCount);
+            final LatestByJob job = new LatestByJob(engine.getMessageBus());
+            for (int i = 0; i < workerCount; i++) {
+                final int workerId = i;
+                new Thread(() -> {
+                    while (running.get()) {
+                        job.run(workerId);
+                    }
+                    haltLatch.countDown();
+                }).start();
+            }
+
+            try {
+                final SqlExecutionContext context = newParallelContext();
+                try (RecordCursorFactory factory = compiler.compile(query, context).getRecordCursorFactory()) {
+                    Assert.assertTrue(factory instanceof ParallelLatestByAllRecordCursorFactory);
+                    // run twice to make sure per-thread arrays are reset between executions
+                    for (int i = 0; i < 2; i++) {
+                        try (RecordCursor cursor = factory.getCursor(context)) {
+                            TestUtils.printCursor(cursor, factory.getMetadata(), true, sink);
+                            TestUtils.assertEquals(expected, sink);
+                        }
+                    }
+                }
+            } finally {
+                running.set(false);
+                haltLatch.await();
+            }
+        });
+    }
+}
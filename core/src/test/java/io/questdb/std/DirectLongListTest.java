@@ -45,4 +45,30 @@ public class DirectLongListTest {
         }
         Assert.assertEquals(expected, Unsafe.getMemUsed());
     }
+
+    @Test
+    public void testShrink() {
+        LOG.info().$("testShrink").$();
+        long expected = Unsafe.getMemUsed();
+        try (DirectLongList list = new DirectLongList(16)) {
+            for (int i = 0; i < 1000; i++) {
+                list.add(i);
+            }
+            Assert.assertEquals(1024, list.getCapacity());
+
+            list.shrink(100);
+            Assert.assertEquals(100, list.getCapacity());
+            Assert.assertEquals(100, list.size());
+            Assert.assertEquals(99, list.get(99));
+            Assert.assertEquals(expected + 100 * Long.BYTES, Unsafe.getMemUsed());
+
+            // list grows again after shrink
+            for (int i = 0; i < 1000; i++) {
+                list.add(i);
+            }
+            Assert.assertEquals(1100, list.size());
+            Assert.assertEquals(999, list.get(1099));
+        }
+        Assert.assertEquals(expected, Unsafe.getMemUsed());
+    }
 }
\ No newline at end of file
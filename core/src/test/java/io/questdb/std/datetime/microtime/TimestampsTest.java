@@ -109,6 +109,13 @@ public class TimestampsTest {
         TestUtils.assertEquals("1888-05-12T23:59:59.999Z", sink);
     }
 
+    @Test
+    public void testCeilHH() throws Exception {
+        long micros = TimestampFormatUtils.parseTimestamp("2008-05-12T23:45:51.045Z");
+        TimestampFormatUtils.appendDateTime(sink, Timestamps.ceilHH(micros));
+        TestUtils.assertEquals("2008-05-12T23:59:59.999Z", sink);
+    }
+
     @Test
     public void testCeilMM() throws Exception {
         long micros = TimestampFormatUtils.parseTimestamp("2008-05-12T23:45:51.045Z");
@@ -116,6 +123,13 @@ public class TimestampsTest {
         TestUtils.assertEquals("2008-05-31T23:59:59.999Z", sink);
     }
 
+    @Test
+    public void testCeilWW() throws Exception {
+        long micros = TimestampFormatUtils.parseTimestamp("2008-05-12T23:45:51.045Z");
+        TimestampFormatUtils.appendDateTime(sink, Timestamps.ceilWW(micros));
+        TestUtils.assertEquals("2008-05-18T23:59:59.999Z", sink);
+    }
+
     @Test
     public void testCeilYYYY() throws Exception {
         long micros = TimestampFormatUtils.parseTimestamp("2008-05-12T23:45:51.045Z");
@@ -184,6 +198,20 @@ public class TimestampsTest {
         TestUtils.assertEquals("2008-05-01T00:00:00.000Z", sink);
     }
 
+    @Test
+    public void testFloorWW() throws Exception {
+        long micros = TimestampFormatUtils.parseTimestamp("2008-05-18T23:45:51.045Z");
+        TimestampFormatUtils.appendDateTime(sink, Timestamps.floorWW(micros));
+        TestUtils.assertEquals("2008-05-12T00:00:00.000Z", sink);
+    }
+
+    @Test
+    public void testFloorWWPrevEpoch() throws Exception {
+        long micros = TimestampFormatUtils.parseTimestamp("1969-12-31T23:45:51.045Z");
+        TimestampFormatUtils.appendDateTime(sink, Timestamps.floorWW(micros));
+        TestUtils.assertEquals("1969-12-29T00:00:00.000Z", sink);
+    }
+
     @Test
     public void testFloorYYYY() throws Exception {
         long micros = TimestampFormatUtils.parseTimestamp("2008-05-12T23:45:51.045Z");